@@ -73,4 +73,7 @@
 -keep public enum com.bumptech.glide.load.resource.bitmap.ImageHeaderParser$** {
     **[] $VALUES;
     public *;
-}
\ No newline at end of file
+}
+
+# Mappers generated by usecases-processor, looked up reflectively by GeneratedDAOMapperFactory
+-keep class **_DAOMapper { <init>(); }
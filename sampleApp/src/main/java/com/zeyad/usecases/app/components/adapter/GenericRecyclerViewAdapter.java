@@ -7,12 +7,16 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import com.zeyad.usecases.data.db.CollectionChange;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import rx.functions.Func1;
+
 import static android.os.Build.VERSION_CODES.M;
 
 /**
@@ -283,6 +287,39 @@ public abstract class GenericRecyclerViewAdapter extends RecyclerView.Adapter<Ge
         notifyDataSetChanged();
     }
 
+    /**
+     * Applies a change of a query's results, rebinding only the affected ranges. Items other than the
+     * header are expected to mirror the results of the query.
+     *
+     * @param change     change emitted by {@code IDataUseCase#queryDiskChanges}.
+     * @param toItemInfo wraps the inserted and changed rows.
+     */
+    public void applyChanges(CollectionChange change, Func1<Object, ItemInfo> toItemInfo) {
+        if (change.isInitial()) {
+            List<ItemInfo> dataSet = new ArrayList<>(change.getSize());
+            for (Object row : change.getRows().values())
+                dataSet.add(toItemInfo.call(row));
+            if (hasHeader())
+                dataSet.add(0, mDataList.get(0));
+            setDataList(dataSet);
+            return;
+        }
+        int offset = hasHeader() ? 1 : 0;
+        CollectionChange.Range[] deletions = change.getDeletions();
+        for (int i = deletions.length - 1; i >= 0; i--)
+            removeRange(offset + deletions[i].getStartIndex(), deletions[i].getLength());
+        for (CollectionChange.Range range : change.getInsertions()) {
+            for (int i = range.getStartIndex(); i < range.getStartIndex() + range.getLength(); i++)
+                mDataList.add(offset + i, toItemInfo.call(change.getRow(i)));
+            notifyItemRangeInserted(offset + range.getStartIndex(), range.getLength());
+        }
+        for (CollectionChange.Range range : change.getChanges()) {
+            for (int i = range.getStartIndex(); i < range.getStartIndex() + range.getLength(); i++)
+                mDataList.set(offset + i, toItemInfo.call(change.getRow(i)));
+            notifyItemRangeChanged(offset + range.getStartIndex(), range.getLength());
+        }
+    }
+
     public boolean isSectionHeader(int index) {
         return mDataList.get(index).getId() == ItemInfo.SECTION_HEADER;
     }
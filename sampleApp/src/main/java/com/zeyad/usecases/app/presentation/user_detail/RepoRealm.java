@@ -2,6 +2,7 @@ package com.zeyad.usecases.app.presentation.user_detail;
 
 import com.google.gson.annotations.SerializedName;
 import com.zeyad.usecases.app.presentation.user_list.UserRealm;
+import com.zeyad.usecases.data.mappers.GenerateDAOMapper;
 
 import org.parceler.Parcel;
 
@@ -11,6 +12,7 @@ import io.realm.RealmObject;
  * @author zeyad on 1/25/17.
  */
 @Parcel
+@GenerateDAOMapper(RepoRealm.class)
 public class RepoRealm extends RealmObject {
     @SerializedName("id")
     int id;
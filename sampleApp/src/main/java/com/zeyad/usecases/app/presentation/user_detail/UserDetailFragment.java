@@ -115,6 +115,16 @@ public class UserDetailFragment extends BaseFragment<UserDetailState> {
         recyclerViewRepositories.setAdapter(repositoriesAdapter);
     }
 
+    @Override
+    public void onStart() {
+        super.onStart();
+        userDetailVM.getRepositoryChanges(viewState.getUser().getLogin())
+                .compose(bindToLifecycle())
+                .subscribe(change -> repositoriesAdapter.applyChanges(change,
+                        repo -> new ItemInfo<>(repo, R.layout.repo_item_layout)),
+                        throwable -> showError(throwable.getMessage()));
+    }
+
     @Override
     public void loadData() {
         events.compose(userDetailVM.uiModels(event -> userDetailVM.getRepositories(((GetReposEvent) event).getLogin()),
@@ -142,10 +152,6 @@ public class UserDetailFragment extends BaseFragment<UserDetailState> {
     public void renderState(UserDetailState userDetailState) {
         viewState = userDetailState;
         UserRealm userRealm = viewState.getUser();
-        List<RepoRealm> repoModels = viewState.getRepos();
-        if (Utils.isNotEmpty(repoModels))
-            for (int i = 0, repoModelSize = repoModels.size(); i < repoModelSize; i++)
-                repositoriesAdapter.appendItem(new ItemInfo<>(repoModels.get(i), R.layout.repo_item_layout));
         if (userRealm != null) {
             RequestListener<String, GlideDrawable> requestListener = new RequestListener<String, GlideDrawable>() {
                 @Override
@@ -2,6 +2,7 @@ package com.zeyad.usecases.app.presentation.user_detail;
 
 import com.zeyad.usecases.app.components.redux.BaseViewModel;
 import com.zeyad.usecases.app.utils.Utils;
+import com.zeyad.usecases.data.db.CollectionChange;
 import com.zeyad.usecases.data.requests.GetRequest;
 import com.zeyad.usecases.domain.interactors.data.IDataUseCase;
 
@@ -28,4 +29,11 @@ public class UserDetailVM extends BaseViewModel<UserDetailState> {
                                 .url(String.format(REPOSITORIES, userLogin)).build())) :
                 Observable.error(new IllegalArgumentException("User name can not be empty"));
     }
+
+    public Observable<CollectionChange> getRepositoryChanges(String userLogin) {
+        return Utils.isNotEmpty(userLogin) ? dataUseCase.queryDiskChanges(new GetRequest.GetRequestBuilder(null, false)
+                .queryFactory(realm -> realm.where(RepoRealm.class).equalTo("owner.login", userLogin))
+                .presentationClass(RepoRealm.class).build()) :
+                Observable.error(new IllegalArgumentException("User name can not be empty"));
+    }
 }
@@ -1,6 +1,7 @@
 package com.zeyad.usecases.app.presentation.user_list;
 
 import com.google.gson.annotations.SerializedName;
+import com.zeyad.usecases.data.mappers.GenerateDAOMapper;
 
 import org.parceler.Parcel;
 
@@ -11,6 +12,7 @@ import io.realm.annotations.PrimaryKey;
  * @author zeyad on 1/10/17.
  */
 @Parcel
+@GenerateDAOMapper(UserRealm.class)
 public class UserRealm extends RealmObject {
 
     public static final String LOGIN = "login", ID = "id", AVATAR_URL = "avatar_url", GRAVATAR_ID = "gravatar_id",
@@ -3,6 +3,7 @@ package com.zeyad.usecases.app.presentation.screens.user_detail;
 import com.zeyad.usecases.app.presentation.user_detail.UserDetailState;
 import com.zeyad.usecases.app.presentation.user_detail.UserDetailVM;
 import com.zeyad.usecases.app.presentation.user_list.UserRealm;
+import com.zeyad.usecases.data.db.CollectionChange;
 import com.zeyad.usecases.data.requests.GetRequest;
 import com.zeyad.usecases.domain.interactors.data.IDataUseCase;
 
@@ -65,4 +66,14 @@ public class UserDetailVMTest {
         // Assert return type
 //        assertEquals(UserDetailState.class, observable.toBlocking().first().getClass());
     }
+
+    @Test
+    public void getRepositoryChanges() throws Exception {
+        when(mockDataUseCase.queryDiskChanges(any(GetRequest.class)))
+                .thenReturn(Observable.<CollectionChange>empty());
+
+        userDetailVM.getRepositoryChanges(userRealm.getLogin());
+
+        verify(mockDataUseCase, times(1)).queryDiskChanges(any(GetRequest.class));
+    }
 }
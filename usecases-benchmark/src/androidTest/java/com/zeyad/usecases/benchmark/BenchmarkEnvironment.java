@@ -0,0 +1,47 @@
+package com.zeyad.usecases.benchmark;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.test.InstrumentationRegistry;
+
+import com.zeyad.usecases.Config;
+import com.zeyad.usecases.data.db.DatabaseManagerFactory;
+import com.zeyad.usecases.domain.interactors.data.DataUseCase;
+
+import io.realm.Realm;
+import io.realm.RealmConfiguration;
+import st.lowlevel.storo.StoroBuilder;
+
+/**
+ * Sets up the library the way {@link com.zeyad.usecases.domain.interactors.data.DataUseCaseFactory}
+ * does, once per process, against an in memory Realm.
+ */
+public final class BenchmarkEnvironment {
+
+    private static boolean sInitialized;
+
+    private BenchmarkEnvironment() {
+    }
+
+    @NonNull
+    public static synchronized Context init() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        if (!sInitialized) {
+            Realm.init(context);
+            Realm.setDefaultConfiguration(new RealmConfiguration.Builder()
+                    .name("benchmark.realm")
+                    .inMemory()
+                    .build());
+            DataUseCase.setHasRealm(true);
+            DatabaseManagerFactory.initRealm();
+            Config.init(context);
+            Config.setWithCache(true);
+            StoroBuilder.configure(8192)
+                    .setDefaultCacheDirectory(context)
+                    .setGsonInstance(Config.getGson())
+                    .initialize();
+            sInitialized = true;
+        }
+        return context;
+    }
+}
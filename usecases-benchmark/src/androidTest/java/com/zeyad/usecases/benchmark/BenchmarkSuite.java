@@ -0,0 +1,58 @@
+package com.zeyad.usecases.benchmark;
+
+import android.os.Bundle;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Runs the JMH benchmarks in process, writing their results as json to the external files directory.
+ * <p>
+ * Instrumentation arguments:
+ * <ul>
+ * <li>benchmark, required, skips the suite when missing,</li>
+ * <li>include, regex of the benchmarks to run, all by default,</li>
+ * <li>size, comma separated payload sizes overriding the benchmark defaults.</li>
+ * </ul>
+ */
+@RunWith(AndroidJUnit4.class)
+public class BenchmarkSuite {
+
+    public static final String RESULTS_FILE = "jmh-results.json";
+    private static final String TAG = BenchmarkSuite.class.getSimpleName();
+
+    @Test
+    public void runBenchmarks() throws Exception {
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        assumeTrue(arguments.getString("benchmark") != null);
+        File results = new File(BenchmarkEnvironment.init().getExternalFilesDir(null), RESULTS_FILE);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(arguments.getString("include", "com.zeyad.usecases.*Benchmark"))
+                // Forking needs a JVM to spawn, the benchmarks share the instrumentation process instead.
+                .forks(0)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .shouldFailOnError(true)
+                .resultFormat(ResultFormatType.JSON)
+                .result(results.getAbsolutePath());
+        String sizes = arguments.getString("size");
+        if (sizes != null)
+            options.param("size", sizes.split(","));
+        new Runner(options.build()).run();
+        Log.i(TAG, "Benchmark results written to " + results);
+    }
+}
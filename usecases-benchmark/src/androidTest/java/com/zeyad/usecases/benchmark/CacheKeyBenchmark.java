@@ -0,0 +1,76 @@
+package com.zeyad.usecases.benchmark;
+
+import com.zeyad.usecases.Config;
+import com.zeyad.usecases.data.db.DatabaseManagerFactory;
+import com.zeyad.usecases.data.mappers.DefaultDAOMapper;
+import com.zeyad.usecases.data.repository.stores.DataStore;
+import com.zeyad.usecases.data.repository.stores.DataStoreFactory;
+
+import org.json.JSONArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import st.lowlevel.storo.Storo;
+
+/**
+ * The cache path of {@link DataStore#dynamicGetObject} on the disk data store: building the key,
+ * looking it up in the memory cache and copying the cached record out. The Storo path it sits in front
+ * of is measured on its own, with the same keys, for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CacheKeyBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+    private DataStore diskDataStore;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkEnvironment.init();
+        Config.setMemoryCacheSize(Long.MAX_VALUE);
+        diskDataStore = new DataStoreFactory(DatabaseManagerFactory.getInstance(), null)
+                .disk(DefaultDAOMapper.getInstance());
+        // Writing each record through the data store caches it.
+        JSONArray jsonArray = Payloads.jsonRecords(size, 0);
+        for (int i = 0; i < size; i++)
+            diskDataStore.dynamicPatchObject(null, BenchmarkRecord.ID, jsonArray.getJSONObject(i),
+                    BenchmarkRecord.class, BenchmarkRecord.class, true, false).toBlocking().single();
+    }
+
+    @Benchmark
+    public void memoryCacheHits(Blackhole blackhole) {
+        for (int id = 1; id <= size; id++)
+            blackhole.consume(diskDataStore.dynamicGetObject(null, BenchmarkRecord.ID, id, BenchmarkRecord.class,
+                    BenchmarkRecord.class, false, true).toBlocking().single());
+    }
+
+    @Benchmark
+    public void storoHits(Blackhole blackhole) {
+        for (int id = 1; id <= size; id++)
+            blackhole.consume(Storo.get(createKey(id), BenchmarkRecord.class).execute());
+    }
+
+    @Benchmark
+    public void storoMisses(Blackhole blackhole) {
+        for (int id = size + 1; id <= 2 * size; id++)
+            blackhole.consume(Storo.contains(createKey(id)));
+    }
+
+    /**
+     * @return the key the data stores cache a record under, in Storo and in the memory cache.
+     */
+    private static String createKey(int id) {
+        return BenchmarkRecord.class.getSimpleName() + id;
+    }
+}
@@ -0,0 +1,61 @@
+package com.zeyad.usecases.benchmark;
+
+import com.google.gson.Gson;
+import com.zeyad.usecases.Config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization with the Gson instance configured by {@link Config}, next to a default Gson as the
+ * baseline of what its exclusion strategy costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GsonBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+    private Gson configGson, defaultGson;
+    private List<BenchmarkRecord> records;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        BenchmarkEnvironment.init();
+        configGson = Config.getGson();
+        defaultGson = new Gson();
+        records = Payloads.records(size);
+        json = configGson.toJson(records);
+    }
+
+    @Benchmark
+    public String configToJson() {
+        return configGson.toJson(records);
+    }
+
+    @Benchmark
+    public BenchmarkRecord[] configFromJson() {
+        return configGson.fromJson(json, BenchmarkRecord[].class);
+    }
+
+    @Benchmark
+    public String defaultToJson() {
+        return defaultGson.toJson(records);
+    }
+
+    @Benchmark
+    public BenchmarkRecord[] defaultFromJson() {
+        return defaultGson.fromJson(json, BenchmarkRecord[].class);
+    }
+}
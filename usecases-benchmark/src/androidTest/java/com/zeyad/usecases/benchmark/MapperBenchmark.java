@@ -0,0 +1,62 @@
+package com.zeyad.usecases.benchmark;
+
+import com.zeyad.usecases.data.mappers.DefaultDAOMapper;
+import com.zeyad.usecases.data.mappers.GeneratedDAOMapperFactory;
+import com.zeyad.usecases.data.mappers.IDAOMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link IDAOMapper#mapAllToDomain} and {@link IDAOMapper#mapAllToRealm}, through the Gson round trip
+ * of {@link DefaultDAOMapper} and through the generated field copies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapperBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+    private IDAOMapper gsonMapper, generatedMapper;
+    private List<BenchmarkRecord> records;
+    private List domainModels;
+
+    @Setup
+    public void setUp() {
+        BenchmarkEnvironment.init();
+        gsonMapper = DefaultDAOMapper.getInstance();
+        generatedMapper = GeneratedDAOMapperFactory.getInstance().getDataMapper(BenchmarkRecord.class);
+        records = Payloads.records(size);
+        domainModels = generatedMapper.mapAllToDomain(records, BenchmarkModel.class);
+    }
+
+    @Benchmark
+    public List gsonMapAllToDomain() {
+        return gsonMapper.mapAllToDomain(records, BenchmarkModel.class);
+    }
+
+    @Benchmark
+    public List gsonMapAllToRealm() {
+        return gsonMapper.mapAllToRealm(domainModels, BenchmarkRecord.class);
+    }
+
+    @Benchmark
+    public List generatedMapAllToDomain() {
+        return generatedMapper.mapAllToDomain(records, BenchmarkModel.class);
+    }
+
+    @Benchmark
+    public List generatedMapAllToRealm() {
+        return generatedMapper.mapAllToRealm(domainModels, BenchmarkRecord.class);
+    }
+}
@@ -0,0 +1,40 @@
+package com.zeyad.usecases.benchmark;
+
+import com.zeyad.usecases.data.utils.ModelConverters;
+
+import org.json.JSONArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ModelConverters#convertToListOfId}, as run before every collection delete.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ModelConvertersBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+    private JSONArray ids;
+
+    @Setup
+    public void setUp() {
+        BenchmarkEnvironment.init();
+        ids = Payloads.jsonIds(size);
+    }
+
+    @Benchmark
+    public List<Long> convertToListOfId() {
+        return ModelConverters.convertToListOfId(ids);
+    }
+}
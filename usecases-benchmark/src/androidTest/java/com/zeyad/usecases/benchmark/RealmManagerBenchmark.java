@@ -0,0 +1,78 @@
+package com.zeyad.usecases.benchmark;
+
+import com.zeyad.usecases.data.db.DataBaseManager;
+import com.zeyad.usecases.data.db.DatabaseManagerFactory;
+import com.zeyad.usecases.data.db.RealmManager;
+
+import org.json.JSONArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+import io.realm.Realm;
+
+/**
+ * {@link DataBaseManager#putAll(JSONArray, String, Class)} of the records the api returned, assigning ids
+ * to those without one, against a table already holding as many records. The id assignment,
+ * {@link RealmManager#updateJsonArrayWithIdValue}, is measured on its own too, to compare with the
+ * per-write max() scans it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RealmManagerBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+    @Param({"0", "0.01"})
+    public double withoutIdRate;
+    private DataBaseManager dataBaseManager;
+    private RealmManager realmManager;
+    private Realm realm;
+    private JSONArray jsonArray;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkEnvironment.init();
+        dataBaseManager = DatabaseManagerFactory.getInstance();
+        realmManager = (RealmManager) dataBaseManager;
+        // Keeps the in memory realm, and the records in it, alive for the whole trial.
+        realm = Realm.getDefaultInstance();
+        realm.executeTransaction(r -> {
+            r.delete(BenchmarkRecord.class);
+            r.insertOrUpdate(Payloads.records(size));
+        });
+    }
+
+    /**
+     * The records are updated in place, so every invocation needs fresh ones.
+     */
+    @Setup(Level.Invocation)
+    public void createPayload() throws Exception {
+        jsonArray = Payloads.jsonRecords(size, withoutIdRate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        realm.close();
+    }
+
+    @Benchmark
+    public Object putAll() {
+        return dataBaseManager.putAll(jsonArray, BenchmarkRecord.ID, BenchmarkRecord.class).toBlocking().single();
+    }
+
+    @Benchmark
+    public JSONArray updateJsonArrayWithIdValue() throws Exception {
+        return realmManager.updateJsonArrayWithIdValue(jsonArray, BenchmarkRecord.ID, BenchmarkRecord.class);
+    }
+}
@@ -0,0 +1,73 @@
+package com.zeyad.usecases.benchmark;
+
+import com.zeyad.usecases.data.mappers.GenerateDAOMapper;
+
+import io.realm.RealmObject;
+import io.realm.annotations.PrimaryKey;
+
+/**
+ * Realm model of the synthetic records the benchmarks sync.
+ */
+@GenerateDAOMapper(BenchmarkModel.class)
+public class BenchmarkRecord extends RealmObject {
+
+    public static final String ID = "id";
+    @PrimaryKey
+    private int id;
+    private String title;
+    private String description;
+    private double score;
+    private long updatedAt;
+    private boolean archived;
+
+    public BenchmarkRecord() {
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public boolean isArchived() {
+        return archived;
+    }
+
+    public void setArchived(boolean archived) {
+        this.archived = archived;
+    }
+}
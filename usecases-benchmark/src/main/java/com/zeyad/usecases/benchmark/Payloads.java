@@ -0,0 +1,92 @@
+package com.zeyad.usecases.benchmark;
+
+import android.support.annotation.NonNull;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic payloads for the benchmarks. Generation is seeded, so every run and every release
+ * measures the same data.
+ */
+public final class Payloads {
+
+    private static final long SEED = 37;
+    private static final String[] WORDS = {"sync", "realm", "cache", "offline", "request", "mapper",
+            "payload", "record", "domain", "network"};
+
+    private Payloads() {
+    }
+
+    /**
+     * @param size number of records.
+     * @return unmanaged realm records with ids 1 to size.
+     */
+    @NonNull
+    public static List<BenchmarkRecord> records(int size) {
+        Random random = new Random(SEED);
+        List<BenchmarkRecord> records = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            BenchmarkRecord record = new BenchmarkRecord();
+            record.setId(i);
+            record.setTitle(sentence(random, 3));
+            record.setDescription(sentence(random, 20));
+            record.setScore(random.nextDouble());
+            record.setUpdatedAt(random.nextLong());
+            record.setArchived(random.nextBoolean());
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * @param size          number of records.
+     * @param withoutIdRate share of records left without an id, from 0 to 1.
+     * @return records as a json array, as received from the api.
+     */
+    @NonNull
+    public static JSONArray jsonRecords(int size, double withoutIdRate) throws JSONException {
+        Random random = new Random(SEED);
+        JSONArray jsonArray = new JSONArray();
+        for (int i = 1; i <= size; i++) {
+            JSONObject jsonObject = new JSONObject()
+                    .put("title", sentence(random, 3))
+                    .put("description", sentence(random, 20))
+                    .put("score", random.nextDouble())
+                    .put("updatedAt", random.nextLong())
+                    .put("archived", random.nextBoolean());
+            if (random.nextDouble() >= withoutIdRate)
+                jsonObject.put(BenchmarkRecord.ID, i);
+            jsonArray.put(jsonObject);
+        }
+        return jsonArray;
+    }
+
+    /**
+     * @param size number of ids.
+     * @return ids 1 to size as a json array.
+     */
+    @NonNull
+    public static JSONArray jsonIds(int size) {
+        JSONArray jsonArray = new JSONArray();
+        for (long i = 1; i <= size; i++)
+            jsonArray.put(i);
+        return jsonArray;
+    }
+
+    @NonNull
+    private static String sentence(@NonNull Random random, int words) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0)
+                builder.append(' ');
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,339 @@
+package com.zeyad.usecases.processor;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a field-copy {@code IDAOMapper} for every data class annotated with {@code GenerateDAOMapper}.
+ * <p>
+ * Fields are matched by name between the data and the domain class and must have the same type.
+ * They are read through a getter and written through a setter when available, otherwise accessed
+ * directly. Any other source or target class is delegated to {@code DefaultDAOMapper}.
+ * <p>
+ * When every field of the data class can be read and written, the mapper is an {@code IDataCopier} of the
+ * data class too, copying its instances the same way.
+ */
+public class DAOMapperProcessor extends AbstractProcessor {
+
+    private static final String ANNOTATION = "com.zeyad.usecases.data.mappers.GenerateDAOMapper",
+            SUFFIX = "_DAOMapper", SOURCE = "source", TARGET = "target";
+    private static final ClassName I_DAO_MAPPER = ClassName.get("com.zeyad.usecases.data.mappers", "IDAOMapper"),
+            DEFAULT_DAO_MAPPER = ClassName.get("com.zeyad.usecases.data.mappers", "DefaultDAOMapper"),
+            I_DATA_COPIER = ClassName.get("com.zeyad.usecases.data.mappers", "IDataCopier"),
+            LIST = ClassName.get(List.class), ARRAY_LIST = ClassName.get(ArrayList.class),
+            CLASS = ClassName.get(Class.class);
+    private Elements mElements;
+    private Types mTypes;
+    private Messager mMessager;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        mElements = processingEnv.getElementUtils();
+        mTypes = processingEnv.getTypeUtils();
+        mMessager = processingEnv.getMessager();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(ANNOTATION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement annotation = mElements.getTypeElement(ANNOTATION);
+        if (annotation == null)
+            return false;
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@GenerateDAOMapper can only be applied to classes");
+                continue;
+            }
+            TypeElement dataClass = (TypeElement) element;
+            TypeElement domainClass = getDomainClass(dataClass, annotation);
+            if (domainClass == null) {
+                error(dataClass, "Could not resolve the domain class of %s", dataClass.getSimpleName());
+                continue;
+            }
+            try {
+                writeMapper(dataClass, domainClass);
+            } catch (IOException e) {
+                error(dataClass, "Could not write mapper of %s: %s", dataClass.getSimpleName(), e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private TypeElement getDomainClass(TypeElement dataClass, TypeElement annotation) {
+        for (AnnotationMirror mirror : dataClass.getAnnotationMirrors()) {
+            if (!mTypes.isSameType(mirror.getAnnotationType(), annotation.asType()))
+                continue;
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : mirror.getElementValues().entrySet())
+                if (entry.getKey().getSimpleName().contentEquals("value")
+                        && entry.getValue().getValue() instanceof DeclaredType)
+                    return (TypeElement) ((DeclaredType) entry.getValue().getValue()).asElement();
+        }
+        return null;
+    }
+
+    private void writeMapper(TypeElement dataClass, TypeElement domainClass) throws IOException {
+        if (!hasAccessibleConstructor(dataClass) || !hasAccessibleConstructor(domainClass)) {
+            error(dataClass, "%s and %s need a non-private no-arg constructor", dataClass.getSimpleName(),
+                    domainClass.getSimpleName());
+            return;
+        }
+        ClassName data = ClassName.get(dataClass), domain = ClassName.get(domainClass);
+        String packageName = data.packageName();
+        boolean samePackage = packageName.equals(ClassName.get(domainClass).packageName());
+        MethodSpec toDomain = copyMethod("toDomain", dataClass, domainClass, samePackage, true);
+        MethodSpec toData = copyMethod("toData", domainClass, dataClass, samePackage, true);
+        if (toDomain == null || toData == null)
+            return;
+        TypeSpec.Builder mapper = TypeSpec.classBuilder(getMapperName(data))
+                .addJavadoc("Generated by $L from $T, do not edit.\n", getClass().getSimpleName(), data)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addSuperinterface(I_DAO_MAPPER)
+                .addMethod(mapMethod("mapToRealm", "mapAllToRealm", "dataClass", domain, data, toData))
+                .addMethod(mapAllMethod("mapAllToRealm", "mapToRealm", "dataClass"))
+                .addMethod(mapMethod("mapToDomain", "mapAllToDomain", "domainClass", data, domain, toDomain))
+                .addMethod(mapAllMethod("mapAllToDomain", "mapToDomain", "domainClass"))
+                .addMethod(toDomain)
+                .addMethod(toData);
+        MethodSpec copyData = copyMethod("copyData", dataClass, dataClass, true, false);
+        if (copyData != null)
+            mapper.addSuperinterface(I_DATA_COPIER)
+                    .addMethod(MethodSpec.methodBuilder("copy")
+                            .addAnnotation(Override.class)
+                            .addModifiers(Modifier.PUBLIC)
+                            .returns(Object.class)
+                            .addParameter(Object.class, "item")
+                            .addStatement("return $N(($T) item)", copyData, data)
+                            .build())
+                    .addMethod(copyData);
+        else note(dataClass, "%s has fields that can not be copied, no IDataCopier generated",
+                dataClass.getSimpleName());
+        JavaFile.builder(packageName, mapper.build())
+                .skipJavaLangImports(true)
+                .build()
+                .writeTo(processingEnv.getFiler());
+    }
+
+    private MethodSpec mapMethod(String name, String mapAllName, String classParam, ClassName from, ClassName to,
+                                 MethodSpec copyMethod) {
+        return MethodSpec.methodBuilder(name)
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(Object.class)
+                .addParameter(Object.class, "item")
+                .addParameter(CLASS, classParam)
+                .beginControlFlow("if (item instanceof $T)", LIST)
+                .addStatement("return $L(($T) item, $L)", mapAllName, LIST, classParam)
+                .nextControlFlow("else if ($L == $T.class && item instanceof $T)", classParam, to, from)
+                .addStatement("return $N(($T) item)", copyMethod, from)
+                .endControlFlow()
+                .addStatement("return $T.getInstance().$L(item, $L)", DEFAULT_DAO_MAPPER, name, classParam)
+                .build();
+    }
+
+    private MethodSpec mapAllMethod(String name, String mapName, String classParam) {
+        return MethodSpec.methodBuilder(name)
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(LIST)
+                .addParameter(LIST, "list")
+                .addParameter(CLASS, classParam)
+                .addStatement("$T objects = new $T<>(list.size())",
+                        ParameterizedTypeName.get(LIST, TypeName.OBJECT), ARRAY_LIST)
+                .beginControlFlow("for (int i = 0, size = list.size(); i < size; i++)")
+                .addStatement("objects.add($L(list.get(i), $L))", mapName, classParam)
+                .endControlFlow()
+                .addStatement("return objects")
+                .build();
+    }
+
+    /**
+     * @param strict whether a field that can not be copied is reported as an error.
+     * @return a static method copying every field of source that also exists in target, null if a field
+     * can not be copied.
+     */
+    private MethodSpec copyMethod(String name, TypeElement source, TypeElement target, boolean samePackage,
+                                  boolean strict) {
+        ClassName sourceName = ClassName.get(source), targetName = ClassName.get(target);
+        MethodSpec.Builder builder = MethodSpec.methodBuilder(name)
+                .addModifiers(Modifier.STATIC)
+                .returns(targetName)
+                .addParameter(sourceName, SOURCE)
+                .addStatement("$T $L = new $T()", targetName, TARGET, targetName);
+        Map<String, VariableElement> targetFields = getFields(target);
+        for (VariableElement sourceField : getFields(source).values()) {
+            String fieldName = sourceField.getSimpleName().toString();
+            VariableElement targetField = targetFields.get(fieldName);
+            if (targetField == null) {
+                note(source, "%s.%s has no counterpart in %s, skipped", source.getSimpleName(), fieldName,
+                        target.getSimpleName());
+                continue;
+            }
+            if (!mTypes.isSameType(sourceField.asType(), targetField.asType())) {
+                if (strict)
+                    error(source, "%s.%s is %s but %s.%s is %s, provide a custom IDAOMapper for this pair",
+                        source.getSimpleName(), fieldName, sourceField.asType(), target.getSimpleName(),
+                        fieldName, targetField.asType());
+                return null;
+            }
+            String getter = findGetter(source, sourceField, samePackage),
+                    setter = findSetter(target, targetField, samePackage);
+            if (getter == null || setter == null) {
+                if (strict)
+                    error(source, "%s.%s is not accessible, add a getter and a setter or relax its visibility",
+                        getter == null ? source.getSimpleName() : target.getSimpleName(), fieldName);
+                return null;
+            }
+            builder.addStatement(setter, getter);
+        }
+        return builder.addStatement("return $L", TARGET).build();
+    }
+
+    /**
+     * @return all instance fields of the class and its superclasses, excluding those of Realm and java.
+     */
+    private Map<String, VariableElement> getFields(TypeElement typeElement) {
+        Map<String, VariableElement> fields = new LinkedHashMap<>();
+        TypeElement current = typeElement;
+        while (current != null && !isFrameworkClass(current)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (!modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.TRANSIENT)
+                        && !fields.containsKey(field.getSimpleName().toString()))
+                    fields.put(field.getSimpleName().toString(), field);
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return fields;
+    }
+
+    /**
+     * @return the expression reading the field from the source, null if it is not accessible.
+     */
+    private String findGetter(TypeElement typeElement, VariableElement field, boolean samePackage) {
+        String capitalized = capitalize(field.getSimpleName().toString());
+        for (ExecutableElement method : getMethods(typeElement)) {
+            String name = method.getSimpleName().toString();
+            if ((name.equals("get" + capitalized) || (name.equals("is" + capitalized)
+                    && field.asType().getKind() == TypeKind.BOOLEAN))
+                    && method.getParameters().isEmpty() && isAccessible(method, samePackage)
+                    && mTypes.isSameType(method.getReturnType(), field.asType()))
+                return SOURCE + "." + name + "()";
+        }
+        return isAccessible(field, samePackage) ? SOURCE + "." + field.getSimpleName() : null;
+    }
+
+    /**
+     * @return the statement format writing its only argument to the field of the target, null if it is not
+     * accessible.
+     */
+    private String findSetter(TypeElement typeElement, VariableElement field, boolean samePackage) {
+        String name = "set" + capitalize(field.getSimpleName().toString());
+        for (ExecutableElement method : getMethods(typeElement))
+            if (method.getSimpleName().contentEquals(name) && method.getParameters().size() == 1
+                    && isAccessible(method, samePackage)
+                    && mTypes.isSameType(method.getParameters().get(0).asType(), field.asType()))
+                return TARGET + "." + name + "($L)";
+        return isAccessible(field, samePackage) && !field.getModifiers().contains(Modifier.FINAL)
+                ? TARGET + "." + field.getSimpleName() + " = $L" : null;
+    }
+
+    private List<ExecutableElement> getMethods(TypeElement typeElement) {
+        List<ExecutableElement> methods = new ArrayList<>();
+        TypeElement current = typeElement;
+        while (current != null && !isFrameworkClass(current)) {
+            methods.addAll(ElementFilter.methodsIn(current.getEnclosedElements()));
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return methods;
+    }
+
+    /**
+     * @return the simple name of the mapper, matching the binary name looked up by
+     * {@code GeneratedDAOMapperFactory} for nested classes.
+     */
+    private String getMapperName(ClassName data) {
+        StringBuilder name = new StringBuilder();
+        for (String simpleName : data.simpleNames())
+            name.append(name.length() == 0 ? "" : "$").append(simpleName);
+        return name.append(SUFFIX).toString();
+    }
+
+    private boolean hasAccessibleConstructor(TypeElement typeElement) {
+        if (typeElement.getModifiers().contains(Modifier.ABSTRACT))
+            return false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(typeElement.getEnclosedElements()))
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE))
+                return true;
+        return false;
+    }
+
+    private boolean isAccessible(Element element, boolean samePackage) {
+        Set<Modifier> modifiers = element.getModifiers();
+        return modifiers.contains(Modifier.PUBLIC) || (samePackage && !modifiers.contains(Modifier.PRIVATE));
+    }
+
+    private boolean isFrameworkClass(TypeElement typeElement) {
+        String name = typeElement.getQualifiedName().toString();
+        return name.startsWith("java.") || name.startsWith("android.") || name.startsWith("io.realm.");
+    }
+
+    private String capitalize(String name) {
+        return name.isEmpty() ? name : Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private void error(Element element, String message, Object... args) {
+        mMessager.printMessage(Diagnostic.Kind.ERROR, String.format(message, args), element);
+    }
+
+    private void note(Element element, String message, Object... args) {
+        mMessager.printMessage(Diagnostic.Kind.NOTE, String.format(message, args), element);
+    }
+}
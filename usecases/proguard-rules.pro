@@ -51,4 +51,7 @@
 ## Retrolambda specific rules ##
 
 # as per official recommendation: https://github.com/evant/gradle-retrolambda#proguard
--dontwarn java.lang.invoke.*
\ No newline at end of file
+-dontwarn java.lang.invoke.*
+
+# Mappers generated by usecases-processor, looked up reflectively by GeneratedDAOMapperFactory
+-keep class **_DAOMapper { <init>(); }
@@ -8,7 +8,13 @@ import com.google.gson.ExclusionStrategy;
 import com.google.gson.FieldAttributes;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.zeyad.usecases.data.executor.JobExecutor;
+import com.zeyad.usecases.data.network.BatchEnvelope;
+import com.zeyad.usecases.data.network.FileDownloader;
+import com.zeyad.usecases.data.network.RequestDispatcher;
 import com.zeyad.usecases.data.repository.stores.DataStoreFactory;
+import com.zeyad.usecases.data.services.jobs.TransferManager;
+import com.zeyad.usecases.domain.executors.SchedulerTopology;
 
 import java.util.concurrent.TimeUnit;
 
@@ -17,13 +23,29 @@ import io.realm.RealmModel;
 import io.realm.RealmObject;
 
 public class Config {
+    /**
+     * Default max size in bytes of the in-memory object cache.
+     */
+    public static final long DEFAULT_MEMORY_CACHE_SIZE = 4 * 1024 * 1024;
     private static Config sInstance;
     private static DataStoreFactory mDataStoreFactory;
     private static Gson mGson;
     private static String mBaseURL;
     private static boolean withCache;
     private static int cacheAmount;
+    private static long memoryCacheSize = DEFAULT_MEMORY_CACHE_SIZE;
     private static TimeUnit cacheTimeUnit;
+    @Nullable
+    private static BatchEnvelope batchEnvelope;
+    private static SchedulerTopology schedulerTopology;
+    private static int maxRequestsPerHost = RequestDispatcher.DEFAULT_MAX_REQUESTS_PER_HOST;
+    private static int downloadConnections = FileDownloader.DEFAULT_CONNECTIONS;
+    private static boolean syncFileTransfers;
+    private static int maxTransfers = TransferManager.DEFAULT_MAX_TRANSFERS;
+    private static int maxTransfersPerHost = TransferManager.DEFAULT_MAX_TRANSFERS_PER_HOST;
+    private static int jobCapacity = JobExecutor.DEFAULT_CAPACITY;
+    private static JobExecutor.RejectionPolicy jobRejectionPolicy = JobExecutor.DEFAULT_REJECTION_POLICY;
+    private static JobExecutor jobExecutor;
     private Context mContext;
     private boolean mUseApiWithCache;
 
@@ -107,6 +129,121 @@ public class Config {
         return cacheTimeUnit;
     }
 
+    /**
+     * @return memoryCacheSize, max size in bytes of the in-memory object cache.
+     */
+    public static long getMemoryCacheSize() {
+        return memoryCacheSize;
+    }
+
+    public static void setMemoryCacheSize(long memoryCacheSize) {
+        Config.memoryCacheSize = memoryCacheSize;
+    }
+
+    /**
+     * @return batchEnvelope, format of batched outbox mutations, null if they are sent one by one.
+     */
+    @Nullable
+    public static BatchEnvelope getBatchEnvelope() {
+        return batchEnvelope;
+    }
+
+    public static void setBatchEnvelope(@Nullable BatchEnvelope batchEnvelope) {
+        Config.batchEnvelope = batchEnvelope;
+    }
+
+    /**
+     * @return schedulerTopology, pools the use cases run on, with the default sizes unless set.
+     */
+    @NonNull
+    public static synchronized SchedulerTopology getSchedulerTopology() {
+        if (schedulerTopology == null)
+            schedulerTopology = new SchedulerTopology.Builder().build();
+        return schedulerTopology;
+    }
+
+    public static synchronized void setSchedulerTopology(@Nullable SchedulerTopology schedulerTopology) {
+        Config.schedulerTopology = schedulerTopology;
+    }
+
+    /**
+     * @return maxRequestsPerHost, max number of calls running at once against a host.
+     */
+    public static int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    public static void setMaxRequestsPerHost(int maxRequestsPerHost) {
+        Config.maxRequestsPerHost = maxRequestsPerHost;
+    }
+
+    /**
+     * @return downloadConnections, max number of ranged connections a file is downloaded with.
+     */
+    public static int getDownloadConnections() {
+        return downloadConnections;
+    }
+
+    public static void setDownloadConnections(int downloadConnections) {
+        Config.downloadConnections = downloadConnections;
+    }
+
+    /**
+     * @return syncFileTransfers, whether downloaded bytes are synced to disk before their progress is saved.
+     */
+    public static boolean isSyncFileTransfers() {
+        return syncFileTransfers;
+    }
+
+    public static void setSyncFileTransfers(boolean syncFileTransfers) {
+        Config.syncFileTransfers = syncFileTransfers;
+    }
+
+    /**
+     * @return maxTransfers, max number of queued file transfers running at once on a good connection.
+     */
+    public static int getMaxTransfers() {
+        return maxTransfers;
+    }
+
+    public static void setMaxTransfers(int maxTransfers) {
+        Config.maxTransfers = maxTransfers;
+    }
+
+    /**
+     * @return maxTransfersPerHost, max number of queued file transfers running at once against a host.
+     */
+    public static int getMaxTransfersPerHost() {
+        return maxTransfersPerHost;
+    }
+
+    public static void setMaxTransfersPerHost(int maxTransfersPerHost) {
+        Config.maxTransfersPerHost = maxTransfersPerHost;
+    }
+
+    /**
+     * @return jobExecutor, executor shared by the file, preferences and network callback jobs, created
+     * with the set capacity and rejection policy on first use.
+     */
+    @NonNull
+    public static synchronized JobExecutor getJobExecutor() {
+        if (jobExecutor == null)
+            jobExecutor = new JobExecutor(jobCapacity, jobRejectionPolicy);
+        return jobExecutor;
+    }
+
+    /**
+     * Sets the queue of the job executor, taking effect if it was not created yet.
+     *
+     * @param jobCapacity        max number of jobs waiting.
+     * @param jobRejectionPolicy what happens to the jobs submitted while the queue is full.
+     */
+    public static synchronized void setJobQueue(int jobCapacity,
+                                                @NonNull JobExecutor.RejectionPolicy jobRejectionPolicy) {
+        Config.jobCapacity = jobCapacity;
+        Config.jobRejectionPolicy = jobRejectionPolicy;
+    }
+
     private void setupRealm() {
 //        Realm.setDefaultConfiguration(new RealmConfiguration.Builder()
 //                .name("library.realm")
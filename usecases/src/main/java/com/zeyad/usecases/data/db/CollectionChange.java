@@ -0,0 +1,205 @@
+package com.zeyad.usecases.data.db;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import rx.functions.Func1;
+
+/**
+ * Difference between two consecutive states of a query's results.
+ * <p>
+ * Deletion ranges index the previous state, insertion and change ranges the new one, so applying the
+ * deletions in descending order, then the insertions in ascending order, then the changes, turns a
+ * copy of the previous state into the new one. Only the inserted and changed rows are copied, the
+ * first change of a query being an insertion of all its rows.
+ */
+public final class CollectionChange<T> {
+
+    private static final Range[] NO_RANGES = new Range[0];
+    private final boolean mInitial;
+    private final int mSize;
+    private final Range[] mDeletions, mInsertions, mChanges;
+    private final List<Long> mDeletedIds, mInsertedIds, mChangedIds;
+    private final Map<Integer, T> mRows;
+
+    private CollectionChange(boolean initial, int size, Range[] deletions, Range[] insertions, Range[] changes,
+                             List<Long> deletedIds, List<Long> insertedIds, List<Long> changedIds,
+                             Map<Integer, T> rows) {
+        mInitial = initial;
+        mSize = size;
+        mDeletions = deletions;
+        mInsertions = insertions;
+        mChanges = changes;
+        mDeletedIds = deletedIds;
+        mInsertedIds = insertedIds;
+        mChangedIds = changedIds;
+        mRows = rows;
+    }
+
+    /**
+     * Creates the first change of a query, recording the ids of its rows in {@code ids}.
+     *
+     * @param size  number of rows.
+     * @param idAt  reads the id of a row.
+     * @param rowAt copies a row.
+     * @param ids   snapshot of the ids, to be passed to the next {@link #next}.
+     */
+    @NonNull
+    static <T> CollectionChange<T> initial(int size, @NonNull Func1<Integer, Long> idAt,
+                                           @NonNull Func1<Integer, T> rowAt, @NonNull List<Long> ids) {
+        ids.clear();
+        Map<Integer, T> rows = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            ids.add(idAt.call(i));
+            rows.put(i, rowAt.call(i));
+        }
+        return new CollectionChange<>(true, size, NO_RANGES,
+                size == 0 ? NO_RANGES : new Range[]{new Range(0, size)}, NO_RANGES,
+                Collections.emptyList(), Collections.unmodifiableList(new ArrayList<>(ids)),
+                Collections.emptyList(), rows);
+    }
+
+    /**
+     * Creates the next change of a query from the sorted indexes Realm reports, updating {@code ids}.
+     *
+     * @param ids        snapshot of the ids of the previous state.
+     * @param deletions  deleted indexes, in the previous state.
+     * @param insertions inserted indexes, in the new state.
+     * @param changes    changed indexes, in the new state.
+     * @param idAt       reads the id of a row of the new state.
+     * @param rowAt      copies a row of the new state.
+     */
+    @NonNull
+    static <T> CollectionChange<T> next(@NonNull List<Long> ids, @NonNull int[] deletions,
+                                        @NonNull int[] insertions, @NonNull int[] changes,
+                                        @NonNull Func1<Integer, Long> idAt, @NonNull Func1<Integer, T> rowAt) {
+        List<Long> deletedIds = new ArrayList<>(deletions.length);
+        for (int index : deletions)
+            deletedIds.add(ids.get(index));
+        for (int i = deletions.length - 1; i >= 0; i--)
+            ids.remove(deletions[i]);
+        Map<Integer, T> rows = new TreeMap<>();
+        List<Long> insertedIds = new ArrayList<>(insertions.length);
+        for (int index : insertions) {
+            long id = idAt.call(index);
+            ids.add(index, id);
+            insertedIds.add(id);
+            rows.put(index, rowAt.call(index));
+        }
+        List<Long> changedIds = new ArrayList<>(changes.length);
+        for (int index : changes) {
+            long id = idAt.call(index);
+            ids.set(index, id);
+            changedIds.add(id);
+            rows.put(index, rowAt.call(index));
+        }
+        return new CollectionChange<>(false, ids.size(), toRanges(deletions), toRanges(insertions),
+                toRanges(changes), Collections.unmodifiableList(deletedIds),
+                Collections.unmodifiableList(insertedIds), Collections.unmodifiableList(changedIds), rows);
+    }
+
+    @NonNull
+    private static Range[] toRanges(@NonNull int[] indexes) {
+        if (indexes.length == 0)
+            return NO_RANGES;
+        List<Range> ranges = new ArrayList<>();
+        int start = indexes[0], length = 1;
+        for (int i = 1; i < indexes.length; i++)
+            if (indexes[i] == start + length)
+                length++;
+            else {
+                ranges.add(new Range(start, length));
+                start = indexes[i];
+                length = 1;
+            }
+        ranges.add(new Range(start, length));
+        return ranges.toArray(new Range[ranges.size()]);
+    }
+
+    /**
+     * @return a change with the same ranges and ids, and its copied rows mapped.
+     */
+    @NonNull
+    public <R> CollectionChange<R> map(@NonNull Func1<? super T, ? extends R> mapper) {
+        Map<Integer, R> rows = new TreeMap<>();
+        for (Map.Entry<Integer, T> entry : mRows.entrySet())
+            rows.put(entry.getKey(), mapper.call(entry.getValue()));
+        return new CollectionChange<>(mInitial, mSize, mDeletions, mInsertions, mChanges, mDeletedIds,
+                mInsertedIds, mChangedIds, rows);
+    }
+
+    /**
+     * @return whether this is the first state of the query, all its rows being inserted.
+     */
+    public boolean isInitial() {
+        return mInitial;
+    }
+
+    /**
+     * @return number of rows of the new state.
+     */
+    public int getSize() {
+        return mSize;
+    }
+
+    public Range[] getDeletions() {
+        return mDeletions;
+    }
+
+    public Range[] getInsertions() {
+        return mInsertions;
+    }
+
+    public Range[] getChanges() {
+        return mChanges;
+    }
+
+    public List<Long> getDeletedIds() {
+        return mDeletedIds;
+    }
+
+    public List<Long> getInsertedIds() {
+        return mInsertedIds;
+    }
+
+    public List<Long> getChangedIds() {
+        return mChangedIds;
+    }
+
+    /**
+     * @return copy of the inserted or changed row at the index, in the new state, or null.
+     */
+    public T getRow(int index) {
+        return mRows.get(index);
+    }
+
+    /**
+     * @return copies of the inserted and changed rows, by ascending index in the new state.
+     */
+    @NonNull
+    public Map<Integer, T> getRows() {
+        return Collections.unmodifiableMap(mRows);
+    }
+
+    public static final class Range {
+        private final int mStartIndex, mLength;
+
+        Range(int startIndex, int length) {
+            mStartIndex = startIndex;
+            mLength = length;
+        }
+
+        public int getStartIndex() {
+            return mStartIndex;
+        }
+
+        public int getLength() {
+            return mLength;
+        }
+    }
+}
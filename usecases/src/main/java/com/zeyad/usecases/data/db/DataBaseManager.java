@@ -1,11 +1,13 @@
 package com.zeyad.usecases.data.db;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.util.List;
+import java.util.Map;
 
 import io.realm.RealmModel;
 import io.realm.RealmObject;
@@ -34,6 +36,24 @@ public interface DataBaseManager {
     @NonNull
     Observable<List> getAll(Class clazz);
 
+    /**
+     * Gets the persisted items with the given primary keys, in their order, once.
+     *
+     * @param keys      Primary keys of the items, as given by {@link #getPrimaryKeys(List, Class)}.
+     * @param dataClass Class type of the items to get.
+     * @return {@link Observable} emitting the items, or empty if any of them is missing.
+     */
+    @NonNull
+    Observable<List> getAllByPrimaryKey(List<String> keys, Class dataClass);
+
+    /**
+     * @param items     Items of the data class.
+     * @param dataClass Class type of the items.
+     * @return the primary keys of the items, in order, null if the data class has no primary key.
+     */
+    @Nullable
+    List<String> getPrimaryKeys(List items, Class dataClass);
+
     /**
      * Puts and element into the DB.
      *
@@ -70,6 +90,30 @@ public interface DataBaseManager {
     @NonNull
     Observable<?> putAll(JSONArray jsonArray, String idColumnName, Class dataClass);
 
+    /**
+     * Applies a delta sync of the data class in a single transaction: upserts the changed elements, deletes
+     * the removed ones and advances the sync token of the data class with them.
+     *
+     * @param upserts      Elements changed since the previous token.
+     * @param deletions    Ids of the elements removed since the previous token.
+     * @param reset        Whether the delta is a full snapshot, replacing all elements of the data class.
+     * @param syncToken    Token to request the next delta with.
+     * @param idColumnName Name of the id field.
+     * @param dataClass    Class type of the items to be synced.
+     */
+    @NonNull
+    Observable<Boolean> applyDelta(JSONArray upserts, List<Long> deletions, boolean reset, String syncToken,
+                                   String idColumnName, Class dataClass);
+
+    /**
+     * Gets the delta sync token of the data class.
+     *
+     * @param dataClass Class type of the synced items.
+     * @return the token persisted with the last delta, null if the data class was never synced.
+     */
+    @Nullable
+    String getSyncToken(Class dataClass);
+
     /**
      * Evict all elements of the DB.
      *
@@ -105,6 +149,17 @@ public interface DataBaseManager {
     @NonNull
     Observable<Boolean> evictCollection(String idFieldName, List<Long> list, Class dataClass);
 
+    /**
+     * Evict a collection elements of the DB in a single transaction.
+     *
+     * @param idFieldName The id used to look for inside the DB.
+     * @param list        List of ids to be deleted.
+     * @param dataClass   Class type of the items to be deleted.
+     * @return {@link Observable} emitting, for each id in order, whether an element was deleted.
+     */
+    @NonNull
+    Observable<Map<Long, Boolean>> evictAllById(String idFieldName, List<Long> list, Class dataClass);
+
     /**
      * Get list of items according to the query passed.
      *
@@ -112,4 +167,36 @@ public interface DataBaseManager {
      */
     @NonNull
     <T extends RealmModel> Observable<List<T>> getQuery(RealmManager.RealmQueryProvider<T> queryFactory);
+
+    /**
+     * Get the managed, lazily loaded results of the query passed, on every change. They are confined to
+     * the subscribing thread, which needs a Looper, and valid until unsubscribed.
+     *
+     * @param queryFactory The query used to look for inside the DB.
+     */
+    @NonNull
+    <T extends RealmModel> Observable<List<T>> getQueryLive(RealmManager.RealmQueryProvider<T> queryFactory);
+
+    /**
+     * Get the results of the query passed, on every change, as a list copying only the rows accessed.
+     * It is confined to the subscribing thread, which needs a Looper, and valid until unsubscribed.
+     *
+     * @param queryFactory The query used to look for inside the DB.
+     * @param windowSize   Number of copied rows kept per list.
+     */
+    @NonNull
+    <T extends RealmModel> Observable<List<T>> getQueryWindowed(RealmManager.RealmQueryProvider<T> queryFactory,
+                                                                int windowSize);
+
+    /**
+     * Get the changes of the results of the query passed, the first one inserting all its rows. Only the
+     * inserted and changed rows are copied. The query runs on the subscribing thread, which needs a Looper,
+     * until unsubscribed.
+     *
+     * @param queryFactory The query used to look for inside the DB.
+     * @param idColumnName Name of the id field.
+     */
+    @NonNull
+    <T extends RealmModel> Observable<CollectionChange<T>> getQueryChanges(
+            RealmManager.RealmQueryProvider<T> queryFactory, String idColumnName);
 }
\ No newline at end of file
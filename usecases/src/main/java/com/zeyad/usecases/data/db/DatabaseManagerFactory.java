@@ -1,7 +1,5 @@
 package com.zeyad.usecases.data.db;
 
-import android.os.Looper;
-
 import com.zeyad.usecases.domain.interactors.data.DataUseCase;
 
 /**
@@ -20,7 +18,7 @@ public class DatabaseManagerFactory {
     /**
      * Creates a RealmManager instance
      */
-    public static void initRealm(Looper backgroundLooper) {
-        RealmManager.init(backgroundLooper);
+    public static void initRealm() {
+        RealmManager.init();
     }
 }
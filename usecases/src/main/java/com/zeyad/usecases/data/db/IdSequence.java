@@ -0,0 +1,122 @@
+package com.zeyad.usecases.data.db;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+
+import com.zeyad.usecases.data.utils.Utils;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out ids to records created locally without one.
+ * <p>
+ * Each (data class, id column) sequence is seeded once from the max id in Realm, then allocates from
+ * an atomic counter, so creating n records costs one table scan instead of n. Ids written explicitly
+ * move their sequence past them. Writes whose ids are not seen, like batched {@link io.realm.RealmModel}
+ * writes, mark the sequences of their data class stale, and the next allocation reseeds them, never
+ * moving a sequence backwards.
+ */
+public final class IdSequence {
+
+    private static IdSequence sInstance;
+    private final ConcurrentMap<String, Sequence> mSequences;
+    private final MaxIdProvider mMaxIdProvider;
+
+    @VisibleForTesting
+    IdSequence(@NonNull MaxIdProvider maxIdProvider) {
+        mSequences = new ConcurrentHashMap<>();
+        mMaxIdProvider = maxIdProvider;
+    }
+
+    public static synchronized IdSequence getInstance() {
+        if (sInstance == null)
+            sInstance = new IdSequence((dataClass, column) -> Utils.getInstance().getMaxId(dataClass, column));
+        return sInstance;
+    }
+
+    /**
+     * @return the next free id of the data class.
+     */
+    public int next(@NonNull Class dataClass, @NonNull String column) {
+        return reserve(dataClass, column, 1);
+    }
+
+    /**
+     * Reserves a block of consecutive ids.
+     *
+     * @param count number of ids to reserve.
+     * @return the first id of the block.
+     */
+    public int reserve(@NonNull Class dataClass, @NonNull String column, int count) {
+        if (count < 1)
+            throw new IllegalArgumentException("count should be positive");
+        return (int) (getSequence(dataClass, column).mLast.getAndAdd(count) + 1);
+    }
+
+    /**
+     * Moves the sequence past an id about to be written explicitly.
+     */
+    public void observe(@NonNull Class dataClass, @NonNull String column, long id) {
+        getSequence(dataClass, column).advanceTo(id);
+    }
+
+    /**
+     * Marks the sequences of the data class stale, after writes whose ids were not observed.
+     */
+    public void invalidate(@NonNull Class dataClass) {
+        String prefix = dataClass.getName() + '|';
+        for (Iterator<String> iterator = mSequences.keySet().iterator(); iterator.hasNext(); ) {
+            String key = iterator.next();
+            if (key.startsWith(prefix))
+                mSequences.get(key).mInvalidations.incrementAndGet();
+        }
+    }
+
+    @NonNull
+    private Sequence getSequence(@NonNull Class dataClass, @NonNull String column) {
+        String key = dataClass.getName() + '|' + column;
+        Sequence sequence = mSequences.get(key);
+        if (sequence == null) {
+            Sequence created = new Sequence();
+            sequence = mSequences.putIfAbsent(key, created);
+            if (sequence == null)
+                sequence = created;
+        }
+        if (sequence.isStale())
+            synchronized (sequence) {
+                // Read before the scan, so an invalidation racing with it leaves the sequence stale.
+                int invalidations = sequence.mInvalidations.get();
+                if (sequence.mSeeded != invalidations) {
+                    // Seeded before being marked fresh, so no allocation runs ahead of the seed.
+                    sequence.advanceTo(mMaxIdProvider.getMaxId(dataClass, column));
+                    sequence.mSeeded = invalidations;
+                }
+            }
+        return sequence;
+    }
+
+    interface MaxIdProvider {
+        long getMaxId(Class dataClass, String column);
+    }
+
+    private static class Sequence {
+        private final AtomicLong mLast = new AtomicLong();
+        // Starts one invalidation ahead of the seeded count, so the first allocation seeds.
+        private final AtomicInteger mInvalidations = new AtomicInteger(1);
+        private volatile int mSeeded;
+
+        boolean isStale() {
+            return mSeeded != mInvalidations.get();
+        }
+
+        void advanceTo(long id) {
+            long last = mLast.get();
+            while (last < id && !mLast.compareAndSet(last, id))
+                last = mLast.get();
+        }
+    }
+}
@@ -1,56 +1,64 @@
 package com.zeyad.usecases.data.db;
 
-import android.os.Build;
-import android.os.Handler;
-import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
 import android.util.Log;
 
 import com.zeyad.usecases.data.utils.Utils;
-import com.zeyad.usecases.domain.interactors.data.DataUseCase;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import io.realm.DynamicRealmObject;
+import io.realm.OrderedRealmCollectionChangeListener;
 import io.realm.Realm;
+import io.realm.RealmFieldType;
 import io.realm.RealmModel;
 import io.realm.RealmObject;
+import io.realm.RealmObjectSchema;
 import io.realm.RealmQuery;
 import io.realm.RealmResults;
 import rx.Observable;
 import rx.Subscriber;
+import rx.functions.Func1;
 import rx.schedulers.Schedulers;
+import rx.subscriptions.Subscriptions;
 
 /**
  * {@link DataBaseManager} implementation.
  */
 public class RealmManager implements DataBaseManager {
 
-    private static final String REALM_OBJECT_INVALID = "RealmObject is invalid",
-            JSON_INVALID = "JSONObject is invalid", NO_ID = "Could not find id!";
+    static final String REALM_OBJECT_INVALID = "RealmObject is invalid";
+    private static final String JSON_INVALID = "JSONObject is invalid", NO_ID = "Could not find id!";
+    private static final int MAX_IN_QUERY_SIZE = 1000;
     private static DataBaseManager sInstance;
-    private static Handler backgroundHandler;
-
-    private RealmManager(Looper backgroundLooper) {
-        if (backgroundHandler == null)
-            backgroundHandler = new Handler(backgroundLooper);
-    }
+    private static RealmWriteBatcher sWriteBatcher;
+    private final RealmPool mRealmPool;
 
     public RealmManager() {
-        if (backgroundHandler == null)
-            backgroundHandler = new Handler();
+        mRealmPool = RealmPool.getInstance();
+        if (sWriteBatcher == null)
+            sWriteBatcher = new RealmWriteBatcher();
     }
 
     /**
      * Use this function to re-instantiate general realm manager or instance for the first time.
      * Previous instances would be deleted and new created
      */
-    static void init(Looper backgroundLooper) {
-        sInstance = new RealmManager(backgroundLooper);
+    static void init() {
+        sInstance = new RealmManager();
     }
 
     /**
@@ -58,14 +66,10 @@ public class RealmManager implements DataBaseManager {
      */
     static DataBaseManager getInstance() {
         if (sInstance == null)
-            init(DataUseCase.getHandlerThread().getLooper());
+            init();
         return sInstance;
     }
 
-    private static boolean hasKitKat() {
-        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
-    }
-
     /**
      * Gets an {@link Observable} which will emit an Object.
      *
@@ -80,11 +84,11 @@ public class RealmManager implements DataBaseManager {
             int finalItemId = itemId;
             if (finalItemId <= 0)
                 finalItemId = Utils.getInstance().getMaxId(dataClass, idColumnName);
-            Realm realm = Realm.getDefaultInstance();
+            Realm realm = mRealmPool.acquire();
             return realm.where(dataClass).equalTo(idColumnName, finalItemId).findAll().asObservable()
                     .filter(results -> ((RealmResults) results).isLoaded())
                     .map(o -> realm.copyFromRealm((RealmResults) o))
-                    .doOnUnsubscribe(() -> closeRealm(realm));
+                    .doOnUnsubscribe(() -> mRealmPool.release(realm));
         });
     }
 
@@ -97,14 +101,99 @@ public class RealmManager implements DataBaseManager {
     @Override
     public Observable<List> getAll(Class clazz) {
         return Observable.defer(() -> {
-            Realm realm = Realm.getDefaultInstance();
+            Realm realm = mRealmPool.acquire();
             return realm.where(clazz).findAll().asObservable()
                     .filter(results -> ((RealmResults) results).isLoaded())
                     .map(o -> realm.copyFromRealm((RealmResults) o))
-                    .doOnUnsubscribe(() -> closeRealm(realm));
+                    .doOnUnsubscribe(() -> mRealmPool.release(realm));
         });
     }
 
+    /**
+     * Gets the persisted items with the given primary keys, in their order, reading them once in {@code in}
+     * queries of up to {@link #MAX_IN_QUERY_SIZE} keys, without listening to their changes.
+     *
+     * @param keys      Primary keys of the items, as given by {@link #getPrimaryKeys(List, Class)}.
+     * @param dataClass Class type of the items to get.
+     */
+    @NonNull
+    @Override
+    public Observable<List> getAllByPrimaryKey(@NonNull List<String> keys, @NonNull Class dataClass) {
+        return Observable.defer(() -> {
+            Realm realm = mRealmPool.acquire();
+            try {
+                RealmObjectSchema schema = realm.getSchema().get(dataClass.getSimpleName());
+                if (schema == null || !schema.hasPrimaryKey())
+                    return Observable.empty();
+                String primaryKey = schema.getPrimaryKey();
+                boolean numeric = schema.getFieldType(primaryKey) == RealmFieldType.INTEGER;
+                Map<String, RealmModel> rows = new HashMap<>(keys.size());
+                for (int start = 0, size = keys.size(); start < size; start += MAX_IN_QUERY_SIZE) {
+                    List<String> chunk = keys.subList(start, Math.min(size, start + MAX_IN_QUERY_SIZE));
+                    RealmQuery<?> query = realm.where(dataClass);
+                    if (numeric) {
+                        Long[] ids = new Long[chunk.size()];
+                        for (int i = 0; i < ids.length; i++)
+                            ids[i] = Long.valueOf(chunk.get(i));
+                        query.in(primaryKey, ids);
+                    } else query.in(primaryKey, chunk.toArray(new String[chunk.size()]));
+                    RealmResults<?> results = query.findAll();
+                    for (int i = 0, count = results.size(); i < count; i++) {
+                        RealmModel row = (RealmModel) results.get(i);
+                        rows.put(String.valueOf(new DynamicRealmObject(row).get(primaryKey)), row);
+                    }
+                }
+                List<RealmModel> ordered = new ArrayList<>(keys.size());
+                for (String key : keys) {
+                    RealmModel row = rows.get(key);
+                    if (row == null)
+                        return Observable.empty();
+                    ordered.add(row);
+                }
+                return Observable.just((List) realm.copyFromRealm(ordered));
+            } catch (NumberFormatException e) {
+                return Observable.empty();
+            } finally {
+                mRealmPool.release(realm);
+            }
+        });
+    }
+
+    /**
+     * Reads the primary key of the items off their field named after it in the schema of the data class.
+     *
+     * @param items     Items of the data class.
+     * @param dataClass Class type of the items.
+     */
+    @Nullable
+    @Override
+    public List<String> getPrimaryKeys(@NonNull List items, @NonNull Class dataClass) {
+        String primaryKey;
+        Realm realm = mRealmPool.acquire();
+        try {
+            RealmObjectSchema schema = realm.getSchema().get(dataClass.getSimpleName());
+            if (schema == null || !schema.hasPrimaryKey())
+                return null;
+            primaryKey = schema.getPrimaryKey();
+        } finally {
+            mRealmPool.release(realm);
+        }
+        try {
+            Field field = dataClass.getDeclaredField(primaryKey);
+            field.setAccessible(true);
+            List<String> keys = new ArrayList<>(items.size());
+            for (Object item : items) {
+                Object key = item != null ? field.get(item) : null;
+                if (key == null)
+                    return null;
+                keys.add(String.valueOf(key));
+            }
+            return keys;
+        } catch (@NonNull NoSuchFieldException | IllegalAccessException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /**
      * Takes a query to be executed and return a list of containing the result.
      *
@@ -115,16 +204,102 @@ public class RealmManager implements DataBaseManager {
     @Override
     public <T extends RealmModel> Observable<List<T>> getQuery(RealmQueryProvider<T> queryFactory) {
         return Observable.defer(() -> {
-            Realm realm = Realm.getDefaultInstance();
+            Realm realm = mRealmPool.acquire();
             return queryFactory.create(realm).findAll().asObservable()
                     .filter(RealmResults::isLoaded)
                     .map(realm::copyFromRealm)
-                    .doOnUnsubscribe(() -> closeRealm(realm));
+                    .doOnUnsubscribe(() -> mRealmPool.release(realm));
         });
     }
 
     /**
-     * Puts and element into the DB.
+     * Takes a query to be executed asynchronously and returns its managed results, without copying them.
+     *
+     * @param queryFactory The query used to look for inside the DB.
+     * @param <T>          the return type from the query
+     * @return {@link List<T>} the live results, confined to the subscribing thread.
+     */
+    @NonNull
+    @Override
+    public <T extends RealmModel> Observable<List<T>> getQueryLive(RealmQueryProvider<T> queryFactory) {
+        return Observable.defer(() -> {
+            Realm realm = mRealmPool.acquire();
+            return queryFactory.create(realm).findAllAsync().asObservable()
+                    .filter(RealmResults::isLoaded)
+                    .map(results -> (List<T>) results)
+                    .doOnUnsubscribe(() -> mRealmPool.release(realm));
+        });
+    }
+
+    /**
+     * Takes a query to be executed asynchronously and returns its results as {@link RealmWindowedList}s.
+     *
+     * @param queryFactory The query used to look for inside the DB.
+     * @param windowSize   Number of copied rows kept per list.
+     * @param <T>          the return type from the query
+     * @return {@link List<T>} the results, copying rows on access, confined to the subscribing thread. The
+     * same list is emitted on every change of the results, like the live results.
+     */
+    @NonNull
+    @Override
+    public <T extends RealmModel> Observable<List<T>> getQueryWindowed(RealmQueryProvider<T> queryFactory,
+                                                                       int windowSize) {
+        return Observable.defer(() -> {
+            Realm realm = mRealmPool.acquire();
+            RealmResults<T> results = queryFactory.create(realm).findAllAsync();
+            // Listens before the observable does, so the copies are dropped before each change is emitted.
+            RealmWindowedList<T> windowedList = new RealmWindowedList<>(results, realm, windowSize);
+            return results.asObservable()
+                    .filter(RealmResults::isLoaded)
+                    .map(loaded -> (List<T>) windowedList)
+                    .doOnUnsubscribe(() -> {
+                        windowedList.close();
+                        mRealmPool.release(realm);
+                    });
+        });
+    }
+
+    /**
+     * Takes a query to be executed asynchronously and returns the changes of its results, as reported by
+     * Realm's collection change listeners.
+     *
+     * @param queryFactory The query used to look for inside the DB.
+     * @param idColumnName Name of the id field.
+     * @param <T>          the return type from the query
+     * @return {@link CollectionChange}s copying only the inserted and changed rows.
+     */
+    @NonNull
+    @Override
+    public <T extends RealmModel> Observable<CollectionChange<T>> getQueryChanges(RealmQueryProvider<T> queryFactory,
+                                                                                  String idColumnName) {
+        return Observable.<CollectionChange<T>>create(subscriber -> {
+            Realm realm = mRealmPool.acquire();
+            RealmResults<T> results = queryFactory.create(realm).findAllAsync();
+            List<Long> ids = new ArrayList<>();
+            Func1<Integer, Long> idAt = index -> new DynamicRealmObject(results.get(index)).getLong(idColumnName);
+            Func1<Integer, T> rowAt = index -> realm.copyFromRealm(results.get(index));
+            OrderedRealmCollectionChangeListener<RealmResults<T>> listener = (changed, changeSet) -> {
+                if (subscriber.isUnsubscribed())
+                    return;
+                try {
+                    subscriber.onNext(changeSet == null
+                            ? CollectionChange.initial(changed.size(), idAt, rowAt, ids)
+                            : CollectionChange.next(ids, changeSet.getDeletions(), changeSet.getInsertions(),
+                            changeSet.getChanges(), idAt, rowAt));
+                } catch (Exception e) {
+                    subscriber.onError(e);
+                }
+            };
+            results.addChangeListener(listener);
+            subscriber.add(Subscriptions.create(() -> {
+                results.removeChangeListener(listener);
+                mRealmPool.release(realm);
+            }));
+        });
+    }
+
+    /**
+     * Puts and element into the DB. The write is committed with the next batch of pending writes.
      *
      * @param realmModel Element to insert in the DB.
      * @param dataClass  Class type of the items to be put.
@@ -132,30 +307,8 @@ public class RealmManager implements DataBaseManager {
     @NonNull
     @Override
     public Observable<?> put(@Nullable RealmModel realmModel, @NonNull Class dataClass) {
-        if (realmModel != null) {
-            return Observable.defer(() -> {
-                if (hasKitKat())
-                    try (Realm realm = Realm.getDefaultInstance()) {
-                        RealmModel result = executeWriteOperationInRealm(realm, () -> realm.copyToRealmOrUpdate(realmModel));
-                        if (RealmObject.isValid(result)) {
-                            return Observable.just(Boolean.TRUE);
-                        } else
-                            return Observable.error(new IllegalArgumentException(REALM_OBJECT_INVALID));
-                    }
-                else {
-                    Realm realm = Realm.getDefaultInstance();
-                    try {
-                        RealmModel result = executeWriteOperationInRealm(realm, () -> realm.copyToRealmOrUpdate(realmModel));
-                        if (RealmObject.isValid(result)) {
-                            return Observable.just(Boolean.TRUE);
-                        } else
-                            return Observable.error(new IllegalArgumentException(REALM_OBJECT_INVALID));
-                    } finally {
-                        closeRealm(realm);
-                    }
-                }
-            });
-        }
+        if (realmModel != null)
+            return sWriteBatcher.enqueue(Collections.singletonList(realmModel), dataClass);
         return Observable.error(new IllegalArgumentException(REALM_OBJECT_INVALID));
     }
 
@@ -175,25 +328,15 @@ public class RealmManager implements DataBaseManager {
                 } catch (@NonNull JSONException | IllegalArgumentException e) {
                     return Observable.error(e);
                 }
-                if (hasKitKat())
-                    try (Realm realm = Realm.getDefaultInstance()) {
-                        RealmModel result = executeWriteOperationInRealm(realm, () -> realm.createOrUpdateObjectFromJson(dataClass, jsonObject));
-                        if (RealmObject.isValid(result)) {
-                            return Observable.just(Boolean.TRUE);
-                        } else
-                            return Observable.error(new IllegalArgumentException(REALM_OBJECT_INVALID));
-                    }
-                else {
-                    Realm realm = Realm.getDefaultInstance();
-                    try {
-                        RealmModel result = executeWriteOperationInRealm(realm, () -> realm.createOrUpdateObjectFromJson(dataClass, jsonObject));
-                        if (RealmObject.isValid(result)) {
-                            return Observable.just(Boolean.TRUE);
-                        } else
-                            return Observable.error(new IllegalArgumentException(REALM_OBJECT_INVALID));
-                    } finally {
-                        closeRealm(realm);
-                    }
+                Realm realm = mRealmPool.acquire();
+                try {
+                    RealmModel result = executeWriteOperationInRealm(realm, () -> realm.createOrUpdateObjectFromJson(dataClass, jsonObject));
+                    if (RealmObject.isValid(result)) {
+                        return Observable.just(Boolean.TRUE);
+                    } else
+                        return Observable.error(new IllegalArgumentException(REALM_OBJECT_INVALID));
+                } finally {
+                    mRealmPool.release(realm);
                 }
             });
         } else
@@ -216,41 +359,26 @@ public class RealmManager implements DataBaseManager {
             } catch (@NonNull JSONException | IllegalArgumentException e) {
                 return Observable.error(e);
             }
-            if (hasKitKat())
-                try (Realm realm = Realm.getDefaultInstance()) {
-                    executeWriteOperationInRealm(realm, () -> realm.createOrUpdateAllFromJson(dataClass, jsonArray));
-                    return Observable.just(Boolean.TRUE);
-                }
-            else {
-                Realm realm = Realm.getDefaultInstance();
-                try {
-                    executeWriteOperationInRealm(realm, () -> realm.createOrUpdateAllFromJson(dataClass, jsonArray));
-                    return Observable.just(Boolean.TRUE);
-                } finally {
-                    closeRealm(realm);
-                }
+            Realm realm = mRealmPool.acquire();
+            try {
+                executeWriteOperationInRealm(realm, () -> realm.createOrUpdateAllFromJson(dataClass, jsonArray));
+                return Observable.just(Boolean.TRUE);
+            } finally {
+                mRealmPool.release(realm);
             }
         });
     }
 
+    /**
+     * Puts elements into the DB. The write is committed with the next batch of pending writes.
+     *
+     * @param realmObjects Elements to insert in the DB.
+     * @param dataClass    Class type of the items to be put.
+     */
+    @NonNull
     @Override
-    public <T extends RealmModel> Observable<?> putAll(List<T> realmObjects, Class dataClass) {
-        return Observable.defer(() -> {
-            if (hasKitKat())
-                try (Realm realm = Realm.getDefaultInstance()) {
-                    executeWriteOperationInRealm(realm, () -> realm.copyToRealmOrUpdate(realmObjects));
-                    return Observable.just(Boolean.TRUE);
-                }
-            else {
-                Realm realm = Realm.getDefaultInstance();
-                try {
-                    executeWriteOperationInRealm(realm, () -> realm.copyToRealmOrUpdate(realmObjects));
-                    return Observable.just(Boolean.TRUE);
-                } finally {
-                    closeRealm(realm);
-                }
-            }
-        });
+    public <T extends RealmModel> Observable<?> putAll(@NonNull List<T> realmObjects, @NonNull Class dataClass) {
+        return sWriteBatcher.enqueue(realmObjects, dataClass);
     }
 
 //    /**
@@ -280,7 +408,74 @@ public class RealmManager implements DataBaseManager {
 //    }
 
     /**
-     * Evict all elements of the DB.
+     * Applies a delta sync of the data class in a single transaction: upserts the changed elements, deletes
+     * the removed ones, in {@code in} queries of up to {@link #MAX_IN_QUERY_SIZE} ids, and advances the
+     * sync token of the data class with them.
+     *
+     * @param upserts      Elements changed since the previous token.
+     * @param deletions    Ids of the elements removed since the previous token.
+     * @param reset        Whether the delta is a full snapshot, replacing all elements of the data class.
+     * @param syncToken    Token to request the next delta with.
+     * @param idColumnName Name of the id field.
+     * @param dataClass    Class type of the items to be synced.
+     */
+    @NonNull
+    @Override
+    public Observable<Boolean> applyDelta(@NonNull JSONArray upserts, @NonNull List<Long> deletions, boolean reset,
+                                          @NonNull String syncToken, String idColumnName,
+                                          @NonNull Class dataClass) {
+        return Observable.defer(() -> {
+            try {
+                updateJsonArrayWithIdValue(upserts, idColumnName, dataClass);
+            } catch (@NonNull JSONException | IllegalArgumentException e) {
+                return Observable.error(e);
+            }
+            Long[] ids = deletions.toArray(new Long[deletions.size()]);
+            Realm realm = mRealmPool.acquire();
+            try {
+                executeWriteOperationInRealm(realm, () -> {
+                    if (reset)
+                        realm.delete(dataClass);
+                    else
+                        for (int start = 0; start < ids.length; start += MAX_IN_QUERY_SIZE)
+                            realm.where(dataClass)
+                                    .in(idColumnName, Arrays.copyOfRange(ids, start,
+                                            Math.min(ids.length, start + MAX_IN_QUERY_SIZE)))
+                                    .findAll()
+                                    .deleteAllFromRealm();
+                    realm.createOrUpdateAllFromJson(dataClass, upserts);
+                    realm.copyToRealmOrUpdate(new SyncToken(dataClass.getName(), syncToken));
+                });
+                return Observable.just(Boolean.TRUE);
+            } finally {
+                mRealmPool.release(realm);
+            }
+        });
+    }
+
+    /**
+     * Gets the delta sync token of the data class.
+     *
+     * @param dataClass Class type of the synced items.
+     * @return the token persisted with the last delta, null if the data class was never synced.
+     */
+    @Nullable
+    @Override
+    public String getSyncToken(@NonNull Class dataClass) {
+        Realm realm = mRealmPool.acquire();
+        try {
+            SyncToken syncToken = realm.where(SyncToken.class)
+                    .equalTo(SyncToken.DATA_CLASS, dataClass.getName())
+                    .findFirst();
+            return syncToken != null ? syncToken.getToken() : null;
+        } finally {
+            mRealmPool.release(realm);
+        }
+    }
+
+    /**
+     * Evict all elements of the DB, and the delta sync token of their class, as the next sync has to
+     * start over.
      *
      * @param clazz Class type of the items to be deleted.
      */
@@ -288,19 +483,18 @@ public class RealmManager implements DataBaseManager {
     @Override
     public Observable<Boolean> evictAll(@NonNull Class clazz) {
         return Observable.defer(() -> {
-            if (hasKitKat())
-                try (Realm realm = Realm.getDefaultInstance()) {
-                    executeWriteOperationInRealm(realm, () -> realm.delete(clazz));
-                    return Observable.just(Boolean.TRUE);
-                }
-            else {
-                Realm realm = Realm.getDefaultInstance();
-                try {
-                    executeWriteOperationInRealm(realm, () -> realm.delete(clazz));
-                    return Observable.just(Boolean.TRUE);
-                } finally {
-                    closeRealm(realm);
-                }
+            Realm realm = mRealmPool.acquire();
+            try {
+                executeWriteOperationInRealm(realm, () -> {
+                    realm.delete(clazz);
+                    realm.where(SyncToken.class)
+                            .equalTo(SyncToken.DATA_CLASS, clazz.getName())
+                            .findAll()
+                            .deleteAllFromRealm();
+                });
+                return Observable.just(Boolean.TRUE);
+            } finally {
+                mRealmPool.release(realm);
             }
         });
     }
@@ -314,19 +508,12 @@ public class RealmManager implements DataBaseManager {
     @Override
     public void evict(@NonNull final RealmObject realmModel, @NonNull Class clazz) {
         Observable.defer(() -> {
-            if (hasKitKat())
-                try (Realm realm = Realm.getDefaultInstance()) {
-                    executeWriteOperationInRealm(realm, (Executor) realmModel::deleteFromRealm);
-                    return Observable.just(Boolean.TRUE);
-                }
-            else {
-                Realm realm = Realm.getDefaultInstance();
-                try {
-                    executeWriteOperationInRealm(realm, (Executor) realmModel::deleteFromRealm);
-                    return Observable.just(Boolean.TRUE);
-                } finally {
-                    closeRealm(realm);
-                }
+            Realm realm = mRealmPool.acquire();
+            try {
+                executeWriteOperationInRealm(realm, (Executor) realmModel::deleteFromRealm);
+                return Observable.just(Boolean.TRUE);
+            } finally {
+                mRealmPool.release(realm);
             }
         }).subscribeOn(Schedulers.immediate())
                 .subscribe(new EvictSubscriberClass(clazz));
@@ -341,25 +528,15 @@ public class RealmManager implements DataBaseManager {
      */
     @Override
     public boolean evictById(@NonNull Class clazz, @NonNull String idFieldName, final long idFieldValue) {
-        if (hasKitKat())
-            try (Realm realm = Realm.getDefaultInstance()) {
-                RealmModel toDelete = realm.where(clazz).equalTo(idFieldName, idFieldValue).findFirst();
-                if (toDelete != null) {
-                    executeWriteOperationInRealm(realm, () -> RealmObject.deleteFromRealm(toDelete));
-                    return !RealmObject.isValid(toDelete);
-                } else return false;
-            }
-        else {
-            Realm realm = Realm.getDefaultInstance();
-            try {
-                RealmModel toDelete = realm.where(clazz).equalTo(idFieldName, idFieldValue).findFirst();
-                if (toDelete != null) {
-                    executeWriteOperationInRealm(realm, () -> RealmObject.deleteFromRealm(toDelete));
-                    return !RealmObject.isValid(toDelete);
-                } else return false;
-            } finally {
-                closeRealm(realm);
-            }
+        Realm realm = mRealmPool.acquire();
+        try {
+            RealmModel toDelete = realm.where(clazz).equalTo(idFieldName, idFieldValue).findFirst();
+            if (toDelete != null) {
+                executeWriteOperationInRealm(realm, () -> RealmObject.deleteFromRealm(toDelete));
+                return !RealmObject.isValid(toDelete);
+            } else return false;
+        } finally {
+            mRealmPool.release(realm);
         }
     }
 
@@ -374,27 +551,50 @@ public class RealmManager implements DataBaseManager {
     @Override
     public Observable<Boolean> evictCollection(@NonNull String idFieldName, @NonNull List<Long> list,
                                                @NonNull Class dataClass) {
+        return evictAllById(idFieldName, list, dataClass)
+                .map(outcomes -> !outcomes.containsValue(Boolean.FALSE));
+    }
+
+    /**
+     * Evict a collection elements of the DB in a single transaction, querying them with {@code in}
+     * queries of up to {@link #MAX_IN_QUERY_SIZE} ids.
+     *
+     * @param idFieldName The id used to look for inside the DB.
+     * @param list        List of ids to be deleted.
+     * @param dataClass   Class type of the items to be deleted.
+     */
+    @NonNull
+    @Override
+    public Observable<Map<Long, Boolean>> evictAllById(@NonNull String idFieldName, @NonNull List<Long> list,
+                                                       @NonNull Class dataClass) {
         return Observable.defer(() -> {
-            boolean isDeleted = true;
+            Map<Long, Boolean> outcomes = new LinkedHashMap<>(list.size());
             for (int i = 0, size = list.size(); i < size; i++)
-                isDeleted = isDeleted && evictById(dataClass, idFieldName, list.get(i));
-            return Observable.just(isDeleted);
+                outcomes.put(list.get(i), Boolean.FALSE);
+            if (outcomes.isEmpty())
+                return Observable.just(outcomes);
+            Long[] ids = outcomes.keySet().toArray(new Long[outcomes.size()]);
+            Realm realm = mRealmPool.acquire();
+            try {
+                executeWriteOperationInRealm(realm, () -> {
+                    for (int start = 0; start < ids.length; start += MAX_IN_QUERY_SIZE) {
+                        RealmResults<?> results = realm.where(dataClass)
+                                .in(idFieldName, Arrays.copyOfRange(ids, start,
+                                        Math.min(ids.length, start + MAX_IN_QUERY_SIZE)))
+                                .findAll();
+                        for (int i = 0, size = results.size(); i < size; i++)
+                            outcomes.put(new DynamicRealmObject((RealmModel) results.get(i)).getLong(idFieldName),
+                                    Boolean.TRUE);
+                        results.deleteAllFromRealm();
+                    }
+                });
+                return Observable.just(outcomes);
+            } finally {
+                mRealmPool.release(realm);
+            }
         });
     }
 
-    private void closeRealm(Realm realm) {
-        try {
-            backgroundHandler.post(() -> {
-                if (!realm.isClosed()) {
-                    realm.close();
-                    Log.d(RealmManager.class.getSimpleName(), "realm instance closed!");
-                }
-            });
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
     private void executeWriteOperationInRealm(@NonNull Realm realm, @NonNull Executor executor) {
         if (realm.isInTransaction())
             realm.cancelTransaction();
@@ -413,14 +613,34 @@ public class RealmManager implements DataBaseManager {
         return toReturnValue;
     }
 
+    /**
+     * Gives the records without an id the next ids of the data class, in place.
+     */
     @NonNull
-    private JSONArray updateJsonArrayWithIdValue(@NonNull JSONArray jsonArray, @Nullable String idColumnName,
-                                                 Class dataClass) throws JSONException {
+    @VisibleForTesting
+    public JSONArray updateJsonArrayWithIdValue(@NonNull JSONArray jsonArray, @Nullable String idColumnName,
+                                                Class dataClass) throws JSONException {
         if (idColumnName == null || idColumnName.isEmpty())
             throw new IllegalArgumentException(NO_ID);
-        for (int i = 0, length = jsonArray.length(); i < length; i++)
-            if (jsonArray.opt(i) instanceof JSONObject)
-                updateJsonObjectWithIdValue(jsonArray.optJSONObject(i), idColumnName, dataClass);
+        IdSequence idSequence = IdSequence.getInstance();
+        int withoutId = 0;
+        for (int i = 0, length = jsonArray.length(); i < length; i++) {
+            JSONObject jsonObject = jsonArray.optJSONObject(i);
+            if (jsonObject == null)
+                continue;
+            int id = jsonObject.optInt(idColumnName);
+            if (id == 0)
+                withoutId++;
+            else idSequence.observe(dataClass, idColumnName, id);
+        }
+        if (withoutId == 0)
+            return jsonArray;
+        int nextId = idSequence.reserve(dataClass, idColumnName, withoutId);
+        for (int i = 0, length = jsonArray.length(); i < length; i++) {
+            JSONObject jsonObject = jsonArray.optJSONObject(i);
+            if (jsonObject != null && jsonObject.optInt(idColumnName) == 0)
+                jsonObject.put(idColumnName, nextId++);
+        }
         return jsonArray;
     }
 
@@ -429,8 +649,10 @@ public class RealmManager implements DataBaseManager {
                                                    Class dataClass) throws JSONException {
         if (idColumnName == null || idColumnName.isEmpty())
             throw new IllegalArgumentException(NO_ID);
-        if (jsonObject.optInt(idColumnName) == 0)
-            jsonObject.put(idColumnName, Utils.getInstance().getNextId(dataClass, idColumnName));
+        int id = jsonObject.optInt(idColumnName);
+        if (id == 0)
+            jsonObject.put(idColumnName, IdSequence.getInstance().next(dataClass, idColumnName));
+        else IdSequence.getInstance().observe(dataClass, idColumnName, id);
         return jsonObject;
     }
 
@@ -0,0 +1,184 @@
+package com.zeyad.usecases.data.db;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.realm.Realm;
+
+/**
+ * Leases reference counted, per thread {@link Realm} instances, so consecutive operations on the same
+ * thread reuse one instance instead of opening and closing one each.
+ * <p>
+ * On threads with a {@link Looper}, where Realm refreshes instances itself, an instance left without
+ * leases is closed after an idle timeout, unless leased again before. On other threads, it would stop
+ * seeing newer writes, so it is closed as soon as it is left without leases. Leases released from
+ * another thread are handed to the owning thread's Looper, or counted as leaked when it has none.
+ */
+public final class RealmPool {
+
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final String TAG = RealmPool.class.getSimpleName();
+    private static RealmPool sInstance;
+    private final ThreadLocal<Lease> mLeases;
+    private final Map<Realm, Lease> mOwners;
+    private final AtomicLong mOpened, mClosed, mAcquired, mReleased, mLeaked;
+    private volatile long mIdleTimeoutMs;
+
+    @VisibleForTesting
+    RealmPool(long idleTimeoutMs) {
+        mLeases = new ThreadLocal<>();
+        mOwners = Collections.synchronizedMap(new IdentityHashMap<>());
+        mOpened = new AtomicLong();
+        mClosed = new AtomicLong();
+        mAcquired = new AtomicLong();
+        mReleased = new AtomicLong();
+        mLeaked = new AtomicLong();
+        mIdleTimeoutMs = idleTimeoutMs;
+    }
+
+    public static synchronized RealmPool getInstance() {
+        if (sInstance == null)
+            sInstance = new RealmPool(DEFAULT_IDLE_TIMEOUT_MS);
+        return sInstance;
+    }
+
+    /**
+     * @param idleTimeout time an instance without leases stays open on a Looper thread, 0 to close it
+     *                    right away.
+     */
+    public void setIdleTimeout(long idleTimeout, @NonNull TimeUnit unit) {
+        mIdleTimeoutMs = unit.toMillis(idleTimeout);
+    }
+
+    /**
+     * Leases the instance of the calling thread, opening it if needed. Every lease must be
+     * {@link #release(Realm) released}, and the instance must not be closed directly.
+     */
+    @NonNull
+    public Realm acquire() {
+        mAcquired.incrementAndGet();
+        Lease lease = mLeases.get();
+        if (lease == null || lease.mRealm.isClosed()) {
+            if (lease != null)
+                mOwners.remove(lease.mRealm);
+            lease = new Lease(Realm.getDefaultInstance(), Looper.myLooper());
+            mLeases.set(lease);
+            mOwners.put(lease.mRealm, lease);
+            mOpened.incrementAndGet();
+        } else if (lease.mHandler != null)
+            lease.mHandler.removeCallbacks(lease.mCloseIfIdle);
+        lease.mCount++;
+        return lease.mRealm;
+    }
+
+    /**
+     * Releases a lease taken with {@link #acquire()}, from any thread.
+     */
+    public void release(@NonNull Realm realm) {
+        Lease lease = mLeases.get();
+        if (lease != null && lease.mRealm == realm) {
+            release(lease);
+            return;
+        }
+        Lease owner = mOwners.get(realm);
+        if (owner != null && owner.mHandler != null)
+            owner.mHandler.post(() -> release(owner));
+        else {
+            mLeaked.incrementAndGet();
+            Log.w(TAG, "Realm instance released from a thread not owning it");
+        }
+    }
+
+    private void release(@NonNull Lease lease) {
+        if (lease.mCount <= 0) {
+            mLeaked.incrementAndGet();
+            Log.w(TAG, "Realm instance released more times than acquired");
+            return;
+        }
+        mReleased.incrementAndGet();
+        if (--lease.mCount > 0)
+            return;
+        long idleTimeoutMs = mIdleTimeoutMs;
+        if (lease.mHandler != null && idleTimeoutMs > 0)
+            lease.mHandler.postDelayed(lease.mCloseIfIdle, idleTimeoutMs);
+        else close(lease);
+    }
+
+    private void close(@NonNull Lease lease) {
+        if (lease.mCount > 0)
+            return;
+        if (mLeases.get() == lease)
+            mLeases.remove();
+        mOwners.remove(lease.mRealm);
+        if (!lease.mRealm.isClosed()) {
+            lease.mRealm.close();
+            mClosed.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return number of instances opened.
+     */
+    public long getOpenedCount() {
+        return mOpened.get();
+    }
+
+    /**
+     * @return number of instances closed.
+     */
+    public long getClosedCount() {
+        return mClosed.get();
+    }
+
+    /**
+     * @return number of leases taken.
+     */
+    public long getAcquiredCount() {
+        return mAcquired.get();
+    }
+
+    /**
+     * @return number of leases released.
+     */
+    public long getReleasedCount() {
+        return mReleased.get();
+    }
+
+    /**
+     * @return number of releases that could not be honored, being unbalanced or from a thread that cannot
+     * reach the owner of the instance.
+     */
+    public long getLeakedCount() {
+        return mLeaked.get();
+    }
+
+    /**
+     * @return number of leases taken and not released yet. Growing over time, it points at leaked leases.
+     */
+    public long getOutstandingCount() {
+        return mAcquired.get() - mReleased.get();
+    }
+
+    private final class Lease {
+        private final Realm mRealm;
+        private final Handler mHandler;
+        private final Runnable mCloseIfIdle;
+        // Only read and written on the owning thread.
+        private int mCount;
+
+        Lease(@NonNull Realm realm, Looper looper) {
+            mRealm = realm;
+            mHandler = looper != null ? new Handler(looper) : null;
+            mCloseIfIdle = () -> close(this);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.zeyad.usecases.data.db;
+
+import android.support.annotation.NonNull;
+import android.util.LruCache;
+
+import java.util.AbstractList;
+
+import io.realm.Realm;
+import io.realm.RealmChangeListener;
+import io.realm.RealmModel;
+import io.realm.RealmResults;
+
+/**
+ * Read only view of managed {@link RealmResults} that copies rows out of Realm only when accessed,
+ * keeping the copies of the last accessed rows until the results change.
+ * <p>
+ * Like the results it wraps, it is confined to the thread that created it and valid while its Realm
+ * is open. It listens to the results until {@link #close() closed}.
+ */
+final class RealmWindowedList<T extends RealmModel> extends AbstractList<T> {
+
+    private final RealmResults<T> mResults;
+    private final Realm mRealm;
+    private final LruCache<Integer, T> mWindow;
+    // Rows move between indexes as the results change, so the copies are dropped on every change.
+    private final RealmChangeListener<RealmResults<T>> mChangeListener;
+
+    RealmWindowedList(@NonNull RealmResults<T> results, @NonNull Realm realm, int windowSize) {
+        mResults = results;
+        mRealm = realm;
+        mWindow = new LruCache<>(windowSize);
+        mChangeListener = changed -> mWindow.evictAll();
+        mResults.addChangeListener(mChangeListener);
+    }
+
+    @Override
+    public T get(int index) {
+        T copy = mWindow.get(index);
+        if (copy == null) {
+            copy = mRealm.copyFromRealm(mResults.get(index));
+            mWindow.put(index, copy);
+        }
+        return copy;
+    }
+
+    @Override
+    public int size() {
+        return mResults.size();
+    }
+
+    /**
+     * Stops listening to the results, before their Realm is released.
+     */
+    void close() {
+        mResults.removeChangeListener(mChangeListener);
+        mWindow.evictAll();
+    }
+}
@@ -0,0 +1,131 @@
+package com.zeyad.usecases.data.db;
+
+import android.support.annotation.NonNull;
+
+import com.zeyad.usecases.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.realm.Realm;
+import io.realm.RealmModel;
+import io.realm.RealmObject;
+import rx.Observable;
+import rx.Scheduler;
+import rx.subjects.AsyncSubject;
+import rx.subjects.PublishSubject;
+import rx.subjects.Subject;
+
+/**
+ * Write-behind pipeline for {@link RealmModel}s.
+ * <p>
+ * Pending writes are buffered over a small time/size window and committed in a single transaction
+ * on the database writer pool. Each caller is notified once the batch containing its write is
+ * committed. A batch failing to commit is retried one write at a time, so only the callers of the
+ * failing writes get the error.
+ */
+class RealmWriteBatcher {
+
+    private static final long WINDOW_MILLIS = 50;
+    private static final int MAX_BATCH_SIZE = 500;
+    private final Subject<PendingWrite, PendingWrite> mPendingWrites;
+
+    RealmWriteBatcher() {
+        this(WINDOW_MILLIS, MAX_BATCH_SIZE, Config.getSchedulerTopology().getDiskWrite());
+    }
+
+    RealmWriteBatcher(long windowMillis, int maxBatchSize, @NonNull Scheduler writerScheduler) {
+        mPendingWrites = PublishSubject.<PendingWrite>create().toSerialized();
+        mPendingWrites.buffer(windowMillis, TimeUnit.MILLISECONDS, maxBatchSize, writerScheduler)
+                .filter(batch -> !batch.isEmpty())
+                .onBackpressureBuffer()
+                .observeOn(writerScheduler)
+                .subscribe(this::commit, Throwable::printStackTrace);
+    }
+
+    /**
+     * Queues elements to be written with the next batch.
+     *
+     * @param realmModels Elements to insert in the DB.
+     * @param dataClass   Class type of the items to be put.
+     * @return {@link Observable} that emits true once the batch containing the elements is committed.
+     */
+    @NonNull
+    <M extends RealmModel> Observable<Boolean> enqueue(@NonNull List<M> realmModels, @NonNull Class dataClass) {
+        return Observable.defer(() -> {
+            PendingWrite pendingWrite = new PendingWrite(new ArrayList<>(realmModels), dataClass);
+            mPendingWrites.onNext(pendingWrite);
+            return pendingWrite.mResult;
+        });
+    }
+
+    private void commit(@NonNull List<PendingWrite> batch) {
+        try {
+            write(batch);
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                batch.get(0).onFailed(e);
+                return;
+            }
+            // One bad write rolls back the whole transaction, so each write is retried on its own to fail
+            // only the bad ones.
+            for (int i = 0, size = batch.size(); i < size; i++)
+                commit(Collections.singletonList(batch.get(i)));
+            return;
+        }
+        for (int i = 0, size = batch.size(); i < size; i++)
+            batch.get(i).onCommitted();
+    }
+
+    private void write(@NonNull List<PendingWrite> batch) {
+        Set<Class> dataClasses = new LinkedHashSet<>();
+        Realm realm = RealmPool.getInstance().acquire();
+        try {
+            if (realm.isInTransaction())
+                realm.cancelTransaction();
+            realm.beginTransaction();
+            for (int i = 0, size = batch.size(); i < size; i++) {
+                PendingWrite pendingWrite = batch.get(i);
+                List<RealmModel> results = realm.copyToRealmOrUpdate(pendingWrite.mRealmModels);
+                for (int j = 0, count = results.size(); j < count; j++)
+                    if (!RealmObject.isValid(results.get(j)))
+                        throw new IllegalArgumentException(RealmManager.REALM_OBJECT_INVALID);
+                dataClasses.add(pendingWrite.mDataClass);
+            }
+            realm.commitTransaction();
+            for (Class dataClass : dataClasses)
+                IdSequence.getInstance().invalidate(dataClass);
+        } catch (RuntimeException e) {
+            if (realm.isInTransaction())
+                realm.cancelTransaction();
+            throw e;
+        } finally {
+            RealmPool.getInstance().release(realm);
+        }
+    }
+
+    private static class PendingWrite {
+        private final List<RealmModel> mRealmModels;
+        private final Class mDataClass;
+        private final AsyncSubject<Boolean> mResult;
+
+        PendingWrite(List<RealmModel> realmModels, Class dataClass) {
+            mRealmModels = realmModels;
+            mDataClass = dataClass;
+            mResult = AsyncSubject.create();
+        }
+
+        void onCommitted() {
+            mResult.onNext(Boolean.TRUE);
+            mResult.onCompleted();
+        }
+
+        void onFailed(Throwable throwable) {
+            mResult.onError(throwable);
+        }
+    }
+}
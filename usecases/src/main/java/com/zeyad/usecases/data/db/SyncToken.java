@@ -0,0 +1,32 @@
+package com.zeyad.usecases.data.db;
+
+import io.realm.RealmObject;
+import io.realm.annotations.PrimaryKey;
+
+/**
+ * Delta sync token of a data class, written in the same transaction as the changes it was sent with, so
+ * it never runs ahead or behind of the persisted data.
+ */
+public class SyncToken extends RealmObject {
+
+    public static final String DATA_CLASS = "dataClass";
+    @PrimaryKey
+    private String dataClass;
+    private String token;
+
+    public SyncToken() {
+    }
+
+    SyncToken(String dataClass, String token) {
+        this.dataClass = dataClass;
+        this.token = token;
+    }
+
+    public String getDataClass() {
+        return dataClass;
+    }
+
+    public String getToken() {
+        return token;
+    }
+}
@@ -1,21 +1,43 @@
 package com.zeyad.usecases.data.executor;
 
-import android.os.HandlerThread;
 import android.os.Looper;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
 
 import com.zeyad.usecases.domain.executors.ThreadExecutor;
 
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Decorated {@link ThreadPoolExecutor}
+ * Decorated {@link ThreadPoolExecutor}, with a bounded queue, a priority lane for user visible jobs
+ * and live metrics.
+ * <p>
+ * Jobs submitted through {@link #executePriority(Runnable)} run before the ones already waiting in the
+ * normal lane. Both lanes share the capacity; once it is reached, new jobs are handled by the
+ * {@link RejectionPolicy}, {@link RejectionPolicy#FAIL_FAST} by default so that a job never runs on the
+ * submitting thread, often the main one.
  */
 public class JobExecutor implements ThreadExecutor {
 
+    public static final int DEFAULT_CAPACITY = 256;
+    public static final RejectionPolicy DEFAULT_REJECTION_POLICY = RejectionPolicy.FAIL_FAST;
+    private static final String TAG = JobExecutor.class.getSimpleName();
     private static final int INITIAL_POOL_SIZE = Runtime.getRuntime().availableProcessors();
     // Sets the amount of time an idle thread waits before terminating
     private static final int KEEP_ALIVE_TIME = 10;
@@ -23,39 +45,458 @@ public class JobExecutor implements ThreadExecutor {
     private static final TimeUnit KEEP_ALIVE_TIME_UNIT = TimeUnit.SECONDS;
     @NonNull
     private final ThreadPoolExecutor threadPoolExecutor;
-    private final JobThreadFactory jobThreadFactory;
+    private final JobQueue jobQueue;
+    private final AtomicLong waitNanos, maxWaitNanos, executionNanos, maxExecutionNanos, completed, rejected,
+            dropped;
 
     public JobExecutor() {
-        jobThreadFactory = new JobThreadFactory();
-        threadPoolExecutor = new ThreadPoolExecutor(INITIAL_POOL_SIZE, INITIAL_POOL_SIZE,
-                KEEP_ALIVE_TIME, KEEP_ALIVE_TIME_UNIT, new LinkedBlockingQueue<>(), jobThreadFactory);
+        this(DEFAULT_CAPACITY, DEFAULT_REJECTION_POLICY);
+    }
+
+    /**
+     * @param capacity        max number of jobs waiting, across both lanes.
+     * @param rejectionPolicy what happens to the jobs submitted while the queue is full.
+     */
+    public JobExecutor(int capacity, @NonNull RejectionPolicy rejectionPolicy) {
+        this(INITIAL_POOL_SIZE, capacity, rejectionPolicy);
+    }
+
+    /**
+     * @param threads         number of threads of the pool.
+     * @param capacity        max number of jobs waiting, across both lanes.
+     * @param rejectionPolicy what happens to the jobs submitted while the queue is full.
+     */
+    public JobExecutor(int threads, int capacity, @NonNull RejectionPolicy rejectionPolicy) {
+        if (threads < 1 || capacity < 1)
+            throw new IllegalArgumentException("threads and capacity should be positive");
+        waitNanos = new AtomicLong();
+        maxWaitNanos = new AtomicLong();
+        executionNanos = new AtomicLong();
+        maxExecutionNanos = new AtomicLong();
+        completed = new AtomicLong();
+        rejected = new AtomicLong();
+        dropped = new AtomicLong();
+        jobQueue = new JobQueue(capacity);
+        threadPoolExecutor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_TIME, KEEP_ALIVE_TIME_UNIT,
+                jobQueue, new JobThreadFactory(), createRejectionHandler(rejectionPolicy)) {
+            @Override
+            protected void beforeExecute(Thread thread, Runnable runnable) {
+                ((Job) runnable).onStart();
+            }
+
+            @Override
+            protected void afterExecute(Runnable runnable, Throwable throwable) {
+                ((Job) runnable).onEnd();
+            }
+        };
+    }
+
+    private static void updateMax(@NonNull AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value))
+            current = max.get();
     }
 
     @Override
     public void execute(@NonNull Runnable runnable) {
-        threadPoolExecutor.execute(runnable);
+        threadPoolExecutor.execute(new Job(runnable, false));
     }
 
+    /**
+     * Executes a user visible job ahead of the jobs waiting in the normal lane.
+     */
+    public void executePriority(@NonNull Runnable runnable) {
+        threadPoolExecutor.execute(new Job(runnable, true));
+    }
+
+    /**
+     * @return null, the threads of the pool have no Looper.
+     */
+    @Nullable
     @Override
     public Looper getLooper() {
-        return jobThreadFactory.getLooper();
+        return null;
+    }
+
+    /**
+     * @return number of jobs waiting, across both lanes.
+     */
+    public int getQueueDepth() {
+        return jobQueue.size();
+    }
+
+    /**
+     * @return number of jobs waiting in the priority lane.
+     */
+    public int getPriorityQueueDepth() {
+        return jobQueue.priorityLaneSize();
+    }
+
+    /**
+     * @return number of threads running jobs.
+     */
+    public int getActiveCount() {
+        return threadPoolExecutor.getActiveCount();
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    /**
+     * @return number of jobs refused by the {@link RejectionPolicy#FAIL_FAST} policy, or run by their
+     * caller under {@link RejectionPolicy#CALLER_RUNS}.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * @return number of waiting jobs dropped by the {@link RejectionPolicy#DROP_OLDEST} policy.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getAverageWaitTime(@NonNull TimeUnit unit) {
+        long count = completed.get();
+        return count == 0 ? 0 : unit.convert(waitNanos.get() / count, TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxWaitTime(@NonNull TimeUnit unit) {
+        return unit.convert(maxWaitNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getAverageExecutionTime(@NonNull TimeUnit unit) {
+        long count = completed.get();
+        return count == 0 ? 0 : unit.convert(executionNanos.get() / count, TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxExecutionTime(@NonNull TimeUnit unit) {
+        return unit.convert(maxExecutionNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    @NonNull
+    private RejectedExecutionHandler createRejectionHandler(@NonNull RejectionPolicy rejectionPolicy) {
+        switch (rejectionPolicy) {
+            case DROP_OLDEST:
+                return (runnable, executor) -> {
+                    if (executor.isShutdown())
+                        return;
+                    dropped.incrementAndGet();
+                    // A normal job finding only priority jobs waiting is the one dropped.
+                    if (jobQueue.pollOldest(((Job) runnable).priority) != null) {
+                        Log.w(TAG, "Queue full, dropped the oldest job");
+                        executor.execute(runnable);
+                    } else Log.w(TAG, "Queue full of priority jobs, dropped the new job");
+                };
+            case FAIL_FAST:
+                return (runnable, executor) -> {
+                    rejected.incrementAndGet();
+                    throw new RejectedExecutionException("Queue full, " + jobQueue.size() + " jobs waiting");
+                };
+            case CALLER_RUNS:
+            default:
+                return (runnable, executor) -> {
+                    if (executor.isShutdown())
+                        return;
+                    rejected.incrementAndGet();
+                    Job job = (Job) runnable;
+                    job.onStart();
+                    try {
+                        job.run();
+                    } finally {
+                        job.onEnd();
+                    }
+                };
+        }
+    }
+
+    /**
+     * What happens to a job submitted while the queue is full.
+     */
+    public enum RejectionPolicy {
+        /**
+         * The submitting thread runs the job itself, slowing down the producer. Only fit for executors
+         * never fed from the main thread.
+         */
+        CALLER_RUNS,
+        /**
+         * The oldest waiting job of the normal lane is dropped to make room, or of the priority lane for
+         * a priority job when the normal lane is empty. A normal job finding only priority jobs waiting is
+         * dropped itself.
+         */
+        DROP_OLDEST,
+        /**
+         * The job is refused with a {@link RejectedExecutionException}, which an observable subscribed on
+         * the executor receives as an error.
+         */
+        FAIL_FAST
     }
 
     private static class JobThreadFactory implements ThreadFactory {
         private static final String THREAD_NAME = "android_";
-        private static Looper looper;
-        private int counter = 0;
+        private final AtomicInteger counter = new AtomicInteger();
 
         @NonNull
         @Override
-        public HandlerThread newThread(@NonNull Runnable runnable) {
-            HandlerThread handlerThread = new HandlerThread(THREAD_NAME + counter++);
-            looper = handlerThread.getLooper();
-            return handlerThread;
+        public Thread newThread(@NonNull Runnable runnable) {
+            return new Thread(runnable, THREAD_NAME + counter.getAndIncrement());
         }
+    }
+
+    /**
+     * Bounded queue of two lanes, taking from the priority lane first.
+     */
+    private static class JobQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+        private final int capacity;
+        private final ArrayDeque<Job> priorityLane, normalLane;
+        private final ReentrantLock lock;
+        private final Condition notEmpty, notFull;
 
-        Looper getLooper() {
-            return looper;
+        JobQueue(int capacity) {
+            this.capacity = capacity;
+            priorityLane = new ArrayDeque<>();
+            normalLane = new ArrayDeque<>();
+            lock = new ReentrantLock();
+            notEmpty = lock.newCondition();
+            notFull = lock.newCondition();
+        }
+
+        int priorityLaneSize() {
+            lock.lock();
+            try {
+                return priorityLane.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Nullable
+        Job pollOldest(boolean priority) {
+            lock.lock();
+            try {
+                Job oldest = normalLane.poll();
+                if (oldest == null && priority)
+                    oldest = priorityLane.poll();
+                if (oldest != null)
+                    notFull.signal();
+                return oldest;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean offer(@NonNull Runnable runnable) {
+            lock.lock();
+            try {
+                if (isFull())
+                    return false;
+                enqueue((Job) runnable);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void put(@NonNull Runnable runnable) throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                while (isFull())
+                    notFull.await();
+                enqueue((Job) runnable);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean offer(@NonNull Runnable runnable, long timeout, @NonNull TimeUnit unit)
+                throws InterruptedException {
+            long nanos = unit.toNanos(timeout);
+            lock.lockInterruptibly();
+            try {
+                while (isFull()) {
+                    if (nanos <= 0)
+                        return false;
+                    nanos = notFull.awaitNanos(nanos);
+                }
+                enqueue((Job) runnable);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isFull() {
+            return priorityLane.size() + normalLane.size() >= capacity;
+        }
+
+        private void enqueue(@NonNull Job job) {
+            (job.priority ? priorityLane : normalLane).offer(job);
+            notEmpty.signal();
+        }
+
+        @Nullable
+        private Job dequeue() {
+            Job job = priorityLane.poll();
+            if (job == null)
+                job = normalLane.poll();
+            if (job != null)
+                notFull.signal();
+            return job;
+        }
+
+        @NonNull
+        @Override
+        public Runnable take() throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                Job job;
+                while ((job = dequeue()) == null)
+                    notEmpty.await();
+                return job;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Nullable
+        @Override
+        public Runnable poll(long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+            long nanos = unit.toNanos(timeout);
+            lock.lockInterruptibly();
+            try {
+                Job job;
+                while ((job = dequeue()) == null) {
+                    if (nanos <= 0)
+                        return null;
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+                return job;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Nullable
+        @Override
+        public Runnable poll() {
+            lock.lock();
+            try {
+                return dequeue();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Nullable
+        @Override
+        public Runnable peek() {
+            lock.lock();
+            try {
+                Job job = priorityLane.peek();
+                return job != null ? job : normalLane.peek();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int size() {
+            lock.lock();
+            try {
+                return priorityLane.size() + normalLane.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int remainingCapacity() {
+            return capacity - size();
+        }
+
+        @Override
+        public boolean remove(Object object) {
+            lock.lock();
+            try {
+                boolean removed = priorityLane.remove(object) || normalLane.remove(object);
+                if (removed)
+                    notFull.signal();
+                return removed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int drainTo(@NonNull Collection<? super Runnable> collection) {
+            return drainTo(collection, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public int drainTo(@NonNull Collection<? super Runnable> collection, int maxElements) {
+            lock.lock();
+            try {
+                int drained = 0;
+                Job job;
+                while (drained < maxElements && (job = dequeue()) != null) {
+                    collection.add(job);
+                    drained++;
+                }
+                return drained;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @NonNull
+        @Override
+        public Iterator<Runnable> iterator() {
+            lock.lock();
+            try {
+                List<Runnable> snapshot = new ArrayList<>(priorityLane.size() + normalLane.size());
+                snapshot.addAll(priorityLane);
+                snapshot.addAll(normalLane);
+                return snapshot.iterator();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private final class Job implements Runnable {
+        private final Runnable runnable;
+        private final boolean priority;
+        private final long enqueuedAt;
+        private long startedAt;
+
+        Job(@NonNull Runnable runnable, boolean priority) {
+            this.runnable = runnable;
+            this.priority = priority;
+            enqueuedAt = System.nanoTime();
+        }
+
+        void onStart() {
+            startedAt = System.nanoTime();
+            long wait = startedAt - enqueuedAt;
+            waitNanos.addAndGet(wait);
+            updateMax(maxWaitNanos, wait);
+        }
+
+        void onEnd() {
+            long execution = System.nanoTime() - startedAt;
+            executionNanos.addAndGet(execution);
+            updateMax(maxExecutionNanos, execution);
+            completed.incrementAndGet();
+        }
+
+        @Override
+        public void run() {
+            runnable.run();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,23 @@
+package com.zeyad.usecases.data.mappers;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a data (Realm) class to have an {@link IDAOMapper} generated for it and the given domain class.
+ * <p>
+ * The generated mapper, named {@code <DataClass>_DAOMapper}, copies matching fields directly instead of
+ * doing a Gson round-trip, and is picked up automatically by {@link GeneratedDAOMapperFactory}. It also
+ * copies instances of the data class as an {@link IDataCopier}, which the in-memory cache needs to hold them.
+ * Requires {@code apt project(':usecases-processor')}, or the published processor artifact.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateDAOMapper {
+    /**
+     * @return the domain class the annotated data class maps to and from.
+     */
+    Class<?> value();
+}
@@ -0,0 +1,62 @@
+package com.zeyad.usecases.data.mappers;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link IDAOMapperFactory} that returns the mapper generated for a data class annotated with
+ * {@link GenerateDAOMapper}, or {@link DefaultDAOMapper} if there is none.
+ */
+public class GeneratedDAOMapperFactory extends DAOMapperFactory {
+
+    static final String SUFFIX = "_DAOMapper";
+    private static final String TAG = GeneratedDAOMapperFactory.class.getSimpleName();
+    private static GeneratedDAOMapperFactory sInstance;
+    private final Map<Class, IDAOMapper> mMappers = new ConcurrentHashMap<>();
+
+    public static GeneratedDAOMapperFactory getInstance() {
+        if (sInstance == null)
+            sInstance = new GeneratedDAOMapperFactory();
+        return sInstance;
+    }
+
+    @NonNull
+    @Override
+    public IDAOMapper getDataMapper(Class dataClass) {
+        if (dataClass == null)
+            return DefaultDAOMapper.getInstance();
+        IDAOMapper mapper = mMappers.get(dataClass);
+        if (mapper == null) {
+            mapper = findGeneratedMapper(dataClass);
+            mMappers.put(dataClass, mapper);
+        }
+        return mapper;
+    }
+
+    /**
+     * @return the generated mapper of the data class as an {@link IDataCopier}, or null if none was
+     * generated or it can not copy the data class.
+     */
+    @Nullable
+    public IDataCopier getDataCopier(Class dataClass) {
+        IDAOMapper mapper = getDataMapper(dataClass);
+        return mapper instanceof IDataCopier ? (IDataCopier) mapper : null;
+    }
+
+    @NonNull
+    private IDAOMapper findGeneratedMapper(@NonNull Class dataClass) {
+        try {
+            return (IDAOMapper) Class.forName(dataClass.getName() + SUFFIX, true, dataClass.getClassLoader())
+                    .newInstance();
+        } catch (ClassNotFoundException e) {
+            return DefaultDAOMapper.getInstance();
+        } catch (Exception e) {
+            Log.e(TAG, "Could not instantiate mapper of " + dataClass.getName(), e);
+            return DefaultDAOMapper.getInstance();
+        }
+    }
+}
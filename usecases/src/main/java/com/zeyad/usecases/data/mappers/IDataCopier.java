@@ -0,0 +1,16 @@
+package com.zeyad.usecases.data.mappers;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Copies instances of a data class field by field, without a Gson round-trip. Implemented by the mappers
+ * generated for classes annotated with {@link GenerateDAOMapper}.
+ */
+public interface IDataCopier {
+    /**
+     * @param item instance of the data class to be copied.
+     * @return a new instance holding the same field values.
+     */
+    @NonNull
+    Object copy(@NonNull Object item);
+}
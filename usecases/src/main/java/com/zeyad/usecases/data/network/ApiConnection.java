@@ -7,7 +7,6 @@ import android.util.Log;
 
 import com.zeyad.usecases.BuildConfig;
 import com.zeyad.usecases.Config;
-import com.zeyad.usecases.data.executor.JobExecutor;
 import com.zeyad.usecases.data.utils.Utils;
 
 import java.io.File;
@@ -32,7 +31,6 @@ import okhttp3.Response;
 import okhttp3.ResponseBody;
 import okhttp3.TlsVersion;
 import okhttp3.logging.HttpLoggingInterceptor;
-import okio.Buffer;
 import okio.BufferedSink;
 import okio.GzipSink;
 import okio.Okio;
@@ -48,14 +46,17 @@ import rx.Observable;
  */
 class ApiConnection implements IApiConnection {
     private static final String CACHING_DISABLED = "There would be no caching. Since caching module is disabled.",
-            CACHE_CONTROL = "Cache-Control";
+            CACHE_CONTROL = "Cache-Control", ETAG = "ETag", LAST_MODIFIED = "Last-Modified";
     private static final int TIME_OUT = 15;
     private static ApiConnection sInstance;
     private final RestApi mRestApiWithoutCache, mRestApiWithCache;
+    // Shared by the calls with and without cache, as they go to the same hosts.
+    private final RequestDispatcher mRequestDispatcher;
 
     private ApiConnection(@Nullable OkHttpClient.Builder okhttpBuilder, @Nullable Cache cache) {
         if (okhttpBuilder == null)
             okhttpBuilder = getBuilderForOkHttp();
+        mRequestDispatcher = new RequestDispatcher(Config.getMaxRequestsPerHost());
         mRestApiWithCache = createRetro2Client(provideOkHttpClient(okhttpBuilder, cache))
                 .create(RestApi.class);
         mRestApiWithoutCache = createRetro2Client(provideOkHttpClient(okhttpBuilder, null))
@@ -72,6 +73,7 @@ class ApiConnection implements IApiConnection {
     ApiConnection(RestApi restApiWithoutCache, RestApi restApiWithCache) {
         mRestApiWithoutCache = restApiWithoutCache;
         mRestApiWithCache = restApiWithCache;
+        mRequestDispatcher = new RequestDispatcher(Config.getMaxRequestsPerHost());
     }
 
     static IApiConnection getInstance() {
@@ -96,6 +98,20 @@ class ApiConnection implements IApiConnection {
         return getRestApi().dynamicDownload(url);
     }
 
+    /**
+     * Ranges are requested without cache, as a cached response would be of another range.
+     */
+    @Override
+    public Observable<retrofit2.Response<Void>> dynamicHead(String url) {
+        return mRestApiWithoutCache.dynamicHead(url);
+    }
+
+    @Override
+    public Observable<retrofit2.Response<ResponseBody>> dynamicDownloadRange(String url,
+                                                                           Map<String, String> headers) {
+        return mRestApiWithoutCache.dynamicDownloadRange(url, headers);
+    }
+
     private RestApi getRestApi() {
         return Config.getInstance().isUseApiWithCache() ? mRestApiWithCache : mRestApiWithoutCache;
     }
@@ -126,11 +142,27 @@ class ApiConnection implements IApiConnection {
         return getRestApi().dynamicGetList(url);
     }
 
+    @Override
+    public Observable<ResponseBody> dynamicGetStream(String url) {
+        return getRestApi().dynamicGetStream(url);
+    }
+
+    @Override
+    public Observable<retrofit2.Response<ResponseBody>> dynamicGetConditional(String url,
+                                                                            Map<String, String> headers) {
+        return getRestApi().dynamicGetConditional(url, headers);
+    }
+
     @Override
     public Observable<Object> dynamicPost(String url, RequestBody requestBody) {
         return getRestApi().dynamicPost(url, requestBody);
     }
 
+    @Override
+    public Observable<ResponseBody> dynamicBatch(String url, RequestBody requestBody) {
+        return getRestApi().dynamicBatch(url, requestBody);
+    }
+
     @Override
     public Observable<Object> dynamicPut(String url, RequestBody requestBody) {
         return getRestApi().dynamicPut(url, requestBody);
@@ -141,6 +173,21 @@ class ApiConnection implements IApiConnection {
         return getRestApi().dynamicUpload(url, partMap, file);
     }
 
+    @Override
+    public Observable<ResponseBody> dynamicUploadSession(String url, RequestBody body) {
+        return mRestApiWithoutCache.dynamicUploadSession(url, body);
+    }
+
+    @Override
+    public Observable<ResponseBody> dynamicUploadPart(String url, RequestBody part) {
+        return mRestApiWithoutCache.dynamicUploadPart(url, part);
+    }
+
+    @Override
+    public Observable<ResponseBody> dynamicUploadStatus(String url) {
+        return mRestApiWithoutCache.dynamicUploadStatus(url);
+    }
+
     @Override
     public Observable<Object> dynamicDelete(String url, RequestBody body) {
         return getRestApi().dynamicDelete(url, body);
@@ -162,6 +209,10 @@ class ApiConnection implements IApiConnection {
     private Interceptor provideCacheInterceptor() {
         return chain -> {
             Response response = chain.proceed(chain.request());
+            // Responses telling their own freshness, or revalidated through their validators, are left as is.
+            if (response.header(CACHE_CONTROL) != null || response.header(ETAG) != null
+                    || response.header(LAST_MODIFIED) != null)
+                return response;
             // re-write response header to force use of cache
             CacheControl cacheControl = new CacheControl.Builder()
                     .maxAge(2, TimeUnit.MINUTES)
@@ -189,11 +240,15 @@ class ApiConnection implements IApiConnection {
     private Interceptor provideGzipRequestInterceptor() {
         return chain -> {
             Request originalRequest = chain.request();
-            if (originalRequest.body() == null || originalRequest.header("Content-Encoding") != null)
+            RequestBody body = originalRequest.body();
+            // Files are streamed from disk as they are, most of their formats being compressed already.
+            if (body == null || body instanceof MultipartBody || body instanceof FilePartBody
+                    || originalRequest.header("Content-Encoding") != null)
                 return chain.proceed(originalRequest);
+            // Sent chunked, rather than buffered whole to know its compressed length.
             Request compressedRequest = originalRequest.newBuilder()
                     .header("Content-Encoding", "gzip")
-                    .method(originalRequest.method(), forceContentLength(gzip(originalRequest.body())))
+                    .method(originalRequest.method(), gzip(body))
                     .build();
             return chain.proceed(compressedRequest);
         };
@@ -211,28 +266,6 @@ class ApiConnection implements IApiConnection {
                 .build());
     }
 
-    @NonNull
-    private RequestBody forceContentLength(@NonNull final RequestBody requestBody) throws IOException {
-        final Buffer buffer = new Buffer();
-        requestBody.writeTo(buffer);
-        return new RequestBody() {
-            @Override
-            public MediaType contentType() {
-                return requestBody.contentType();
-            }
-
-            @Override
-            public long contentLength() {
-                return buffer.size();
-            }
-
-            @Override
-            public void writeTo(@NonNull BufferedSink sink) throws IOException {
-                sink.write(buffer.snapshot());
-            }
-        };
-    }
-
     @NonNull
     private RequestBody gzip(@NonNull final RequestBody body) {
         return new RequestBody() {
@@ -277,10 +310,10 @@ class ApiConnection implements IApiConnection {
     private Retrofit createRetro2Client(@NonNull OkHttpClient okHttpClient) {
         return new Retrofit.Builder()
                 .baseUrl(Config.getBaseURL())
-                .client(okHttpClient)
-                .callbackExecutor(new JobExecutor())
+                .callFactory(mRequestDispatcher.callFactory(okHttpClient))
+                .callbackExecutor(Config.getJobExecutor())
                 .addConverterFactory(GsonConverterFactory.create(Config.getGson()))
-                .addCallAdapterFactory(RxJavaCallAdapterFactory.create())
+                .addCallAdapterFactory(RxJavaCallAdapterFactory.createAsync())
                 .build();
     }
 
@@ -0,0 +1,78 @@
+package com.zeyad.usecases.data.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.zeyad.usecases.data.requests.PostRequest;
+
+import java.io.IOException;
+import java.util.List;
+
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+
+/**
+ * Format of a batch request, multiplexing many queued mutations sharing a base url into one HTTP call,
+ * and of its response.
+ */
+public interface BatchEnvelope {
+
+    /**
+     * @param baseUrl scheme, host and port the batched requests share, ending with a slash.
+     * @return url of the batch endpoint of that base url.
+     */
+    @NonNull
+    String getBatchUrl(@NonNull String baseUrl);
+
+    /**
+     * @return max number of requests sent in a single batch.
+     */
+    int getMaxBatchSize();
+
+    /**
+     * @param baseUrl      base url the requests share.
+     * @param postRequests requests to batch, in order.
+     * @return body of the batch request.
+     */
+    @NonNull
+    RequestBody wrap(@NonNull String baseUrl, @NonNull List<PostRequest> postRequests) throws IOException;
+
+    /**
+     * @param responseBody body of the batch response, closed by the caller.
+     * @return a result per batched request, in the order they were wrapped.
+     * @throws IOException           if the body could not be read.
+     * @throws IllegalStateException if the body is not a valid batch response. The batch is not sent
+     *                               again, as the server may have applied it.
+     */
+    @NonNull
+    List<Result> unwrap(@NonNull ResponseBody responseBody) throws IOException;
+
+    /**
+     * Outcome of a single batched request.
+     */
+    class Result {
+        private final int mCode;
+        private final Object mBody;
+
+        public Result(int code, @Nullable Object body) {
+            mCode = code;
+            mBody = body;
+        }
+
+        public int getCode() {
+            return mCode;
+        }
+
+        /**
+         * @return the response body, a JSONObject, a JSONArray, a primitive or null.
+         */
+        @Nullable
+        public Object getBody() {
+            return mBody;
+        }
+
+        public boolean isSuccessful() {
+            return mCode >= 200 && mCode < 300;
+        }
+    }
+}
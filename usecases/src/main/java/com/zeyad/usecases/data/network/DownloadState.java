@@ -0,0 +1,221 @@
+package com.zeyad.usecases.data.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Progress of a download, persisted next to its temp file so it can be resumed after a failure or a
+ * restart: the url, length and validator it was started with, and how far each of its ranges got.
+ */
+final class DownloadState {
+
+    private static final int VERSION = 1;
+    private final String mUrl;
+    private final long mLength;
+    @Nullable
+    private final String mValidator;
+    private final boolean mRanged;
+    private final List<Segment> mSegments;
+    private boolean mInvalid;
+
+    DownloadState(@NonNull String url, long length, @Nullable String validator, boolean ranged,
+                  @NonNull List<Segment> segments) {
+        mUrl = url;
+        mLength = length;
+        mValidator = validator;
+        mRanged = ranged;
+        mSegments = Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * @return the state saved in the file, null if missing or unreadable.
+     */
+    @Nullable
+    static DownloadState read(@NonNull File stateFile) {
+        if (!stateFile.exists())
+            return null;
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new FileInputStream(stateFile));
+            if (input.readInt() != VERSION)
+                return null;
+            String url = input.readUTF();
+            long length = input.readLong();
+            String validator = input.readBoolean() ? input.readUTF() : null;
+            boolean ranged = input.readBoolean();
+            int count = input.readInt();
+            List<Segment> segments = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Segment segment = new Segment(input.readLong(), input.readLong());
+                segment.mPosition = input.readLong();
+                segments.add(segment);
+            }
+            return new DownloadState(url, length, validator, ranged, segments);
+        } catch (IOException e) {
+            return null;
+        } finally {
+            if (input != null)
+                try {
+                    input.close();
+                } catch (IOException ignored) {
+                }
+        }
+    }
+
+    String getUrl() {
+        return mUrl;
+    }
+
+    /**
+     * @return length of the file, -1 if unknown.
+     */
+    long getLength() {
+        return mLength;
+    }
+
+    @Nullable
+    String getValidator() {
+        return mValidator;
+    }
+
+    /**
+     * @return whether the segments are requested with {@code Range} requests.
+     */
+    boolean isRanged() {
+        return mRanged;
+    }
+
+    @NonNull
+    List<Segment> getSegments() {
+        return mSegments;
+    }
+
+    /**
+     * @return the number of bytes downloaded so far, across the segments.
+     */
+    long getDownloaded() {
+        long downloaded = 0;
+        for (int i = 0, size = mSegments.size(); i < size; i++)
+            downloaded += mSegments.get(i).getPosition() - mSegments.get(i).getStart();
+        return downloaded;
+    }
+
+    boolean isComplete() {
+        for (int i = 0, size = mSegments.size(); i < size; i++)
+            if (!mSegments.get(i).isComplete())
+                return false;
+        return true;
+    }
+
+    /**
+     * @return whether the state can resume a download of the file described.
+     */
+    boolean canResume(@NonNull String url, long length, @Nullable String validator) {
+        return mRanged && mValidator != null && mValidator.equals(validator) && mLength == length
+                && mUrl.equals(url);
+    }
+
+    /**
+     * Saves the progress, replacing the previous save in one rename, so a crash leaves either of them.
+     */
+    synchronized void save(@NonNull File stateFile) throws IOException {
+        if (mInvalid)
+            return;
+        File tempFile = new File(stateFile.getPath() + ".tmp");
+        DataOutputStream output = new DataOutputStream(new FileOutputStream(tempFile));
+        try {
+            output.writeInt(VERSION);
+            output.writeUTF(mUrl);
+            output.writeLong(mLength);
+            output.writeBoolean(mValidator != null);
+            if (mValidator != null)
+                output.writeUTF(mValidator);
+            output.writeBoolean(mRanged);
+            output.writeInt(mSegments.size());
+            for (int i = 0, size = mSegments.size(); i < size; i++) {
+                Segment segment = mSegments.get(i);
+                output.writeLong(segment.mStart);
+                output.writeLong(segment.mEnd);
+                output.writeLong(segment.mPosition);
+            }
+        } finally {
+            output.close();
+        }
+        if (!tempFile.renameTo(stateFile))
+            throw new IOException("Could not save " + stateFile);
+    }
+
+    /**
+     * Drops the saved progress, once the downloaded bytes can not be trusted, for good.
+     */
+    synchronized void invalidate(@NonNull File stateFile) {
+        mInvalid = true;
+        stateFile.delete();
+    }
+
+    /**
+     * A range of the file, downloaded by one connection.
+     */
+    static final class Segment {
+        private final long mStart, mEnd;
+        private volatile long mPosition;
+        private volatile boolean mEnded;
+
+        /**
+         * @param end inclusive end, -1 if the length is unknown.
+         */
+        Segment(long start, long end) {
+            mStart = start;
+            mEnd = end;
+            mPosition = start;
+        }
+
+        long getStart() {
+            return mStart;
+        }
+
+        long getEnd() {
+            return mEnd;
+        }
+
+        /**
+         * @return offset of the next byte to download.
+         */
+        long getPosition() {
+            return mPosition;
+        }
+
+        void advance(long count) {
+            mPosition += count;
+        }
+
+        /**
+         * Starts the segment over, when its response can not be resumed.
+         */
+        void restart() {
+            mPosition = mStart;
+            mEnded = false;
+        }
+
+        /**
+         * Marks a segment of unknown length complete, once its response ended.
+         */
+        void end() {
+            mEnded = true;
+        }
+
+        boolean isComplete() {
+            return mEnd >= 0 ? mPosition > mEnd : mEnded;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.zeyad.usecases.data.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Headers;
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+import retrofit2.adapter.rxjava.HttpException;
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+/**
+ * Downloads files resumably. The body is written to a temp file next to the target, with the progress
+ * of each of its ranges saved alongside, so a failed download resumes with {@code Range} requests where
+ * it stopped, whether retried right away or after a restart. Files large enough are split across parallel
+ * ranged connections, each written from Okio's segments into the file's channel, the file allocated upfront
+ * when its length is known. Once complete, the temp file is checked against the expected length and renamed
+ * into place.
+ * <p>
+ * Resuming needs the server to accept byte ranges and to give the file a strong validator, sent as
+ * {@code If-Range}, so a file changed in between is downloaded again from scratch rather than spliced.
+ */
+public final class FileDownloader {
+
+    public static final int DEFAULT_CONNECTIONS = 4;
+    static final String PART_SUFFIX = ".part", STATE_SUFFIX = ".part.state";
+    private static final String RANGE = "Range", IF_RANGE = "If-Range", ACCEPT_RANGES = "Accept-Ranges",
+            CONTENT_LENGTH = "Content-Length", ETAG = "ETag", LAST_MODIFIED = "Last-Modified";
+    private static final long MIN_SEGMENT_SIZE = 1024 * 1024, SAVE_INTERVAL = 512 * 1024,
+            DEFAULT_RETRY_DELAY = 1000;
+    private static final int MAX_ATTEMPTS = 5;
+    private final RestApi mRestApi;
+    private final int mConnections;
+    private final boolean mSync;
+    private final long mRetryDelayMillis;
+
+    /**
+     * @param connections max number of ranged connections per download.
+     */
+    public FileDownloader(@NonNull RestApi restApi, int connections) {
+        this(restApi, connections, false);
+    }
+
+    /**
+     * @param connections max number of ranged connections per download.
+     * @param sync        whether to sync the bytes written to disk before saving the progress they make, so a
+     *                    download resumed after a power loss does not trust bytes the disk lost.
+     */
+    public FileDownloader(@NonNull RestApi restApi, int connections, boolean sync) {
+        this(restApi, connections, sync, DEFAULT_RETRY_DELAY);
+    }
+
+    @VisibleForTesting
+    FileDownloader(@NonNull RestApi restApi, int connections, long retryDelayMillis) {
+        this(restApi, connections, false, retryDelayMillis);
+    }
+
+    private FileDownloader(@NonNull RestApi restApi, int connections, boolean sync, long retryDelayMillis) {
+        if (connections < 1)
+            throw new IllegalArgumentException("connections should be positive");
+        mRestApi = restApi;
+        mConnections = connections;
+        mSync = sync;
+        mRetryDelayMillis = retryDelayMillis;
+    }
+
+    /**
+     * Downloads the url to the file, resuming the previous download of it if any. Each range is retried
+     * from where it stopped on network failures and server errors, with a growing delay.
+     *
+     * @return an {@link Observable} emitting the file once complete and in place.
+     */
+    @NonNull
+    public Observable<File> download(@NonNull String url, @NonNull File file) {
+        return download(url, file, new ProgressMeter());
+    }
+
+    /**
+     * Downloads the url to the file like {@link #download(String, File)}, emitting its progress as it goes.
+     *
+     * @return an {@link Observable} emitting the progress of the download, then a complete event holding the
+     * file.
+     */
+    @NonNull
+    public Observable<TransferProgress> downloadWithProgress(@NonNull String url, @NonNull File file) {
+        return TransferProgress.track(meter -> download(url, file, meter));
+    }
+
+    @NonNull
+    private Observable<File> download(@NonNull String url, @NonNull File file, @NonNull ProgressMeter meter) {
+        File partFile = new File(file.getPath() + PART_SUFFIX), stateFile = new File(file.getPath() + STATE_SUFFIX);
+        return mRestApi.dynamicHead(url)
+                .concatMap(head -> Observable.fromCallable(() -> prepare(url, head, partFile, stateFile)))
+                .doOnNext(state -> meter.start(state.getLength(), state.getDownloaded()))
+                .concatMap(state -> Observable.from(state.getSegments())
+                        .filter(segment -> !segment.isComplete())
+                        // Transfers block for long, so they stay off the pools of the requests.
+                        .flatMap(segment -> transfer(url, state, segment, partFile, stateFile, meter)
+                                .subscribeOn(Schedulers.io()), mConnections)
+                        .toList()
+                        .concatMap(segments -> Observable.fromCallable(() ->
+                                complete(state, partFile, stateFile, file))));
+    }
+
+    /**
+     * Deletes the temp file and the saved progress of the download to the file, once it is given up, so the
+     * next download of it starts over. The download should be stopped first.
+     */
+    public static void discard(@NonNull File file) {
+        new File(file.getPath() + PART_SUFFIX).delete();
+        new File(file.getPath() + STATE_SUFFIX).delete();
+    }
+
+    /**
+     * @return the saved state if it can resume the download described by the head response, or a new one.
+     */
+    @NonNull
+    private DownloadState prepare(@NonNull String url, @NonNull Response<Void> head, @NonNull File partFile,
+                                  @NonNull File stateFile) throws IOException {
+        long length = -1;
+        String validator = null;
+        if (head.isSuccessful()) {
+            Headers headers = head.headers();
+            length = parseLength(headers.get(CONTENT_LENGTH));
+            validator = getValidator(headers);
+        }
+        boolean ranged = length > 0 && "bytes".equalsIgnoreCase(head.headers().get(ACCEPT_RANGES));
+        if (ranged && partFile.exists()) {
+            DownloadState saved = DownloadState.read(stateFile);
+            if (saved != null && saved.canResume(url, length, validator))
+                return saved;
+        }
+        File parent = partFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs())
+            throw new IOException("Could not create " + parent);
+        DownloadState state = new DownloadState(url, length, validator, ranged,
+                ranged ? split(length) : Collections.singletonList(new DownloadState.Segment(0, length - 1)));
+        RandomAccessFile output = new RandomAccessFile(partFile, "rw");
+        try {
+            if (length > 0)
+                FileTransfer.preallocate(output, length);
+            else
+                output.setLength(0);
+        } finally {
+            output.close();
+        }
+        state.save(stateFile);
+        return state;
+    }
+
+    @NonNull
+    private List<DownloadState.Segment> split(long length) {
+        int count = (int) Math.max(1, Math.min(mConnections, length / MIN_SEGMENT_SIZE));
+        long size = length / count;
+        List<DownloadState.Segment> segments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            segments.add(new DownloadState.Segment(i * size, i == count - 1 ? length - 1 : (i + 1) * size - 1));
+        return segments;
+    }
+
+    /**
+     * Downloads the rest of a segment, resuming it from where the previous attempt stopped.
+     */
+    @NonNull
+    private Observable<DownloadState.Segment> transfer(@NonNull String url, @NonNull DownloadState state,
+                                                       @NonNull DownloadState.Segment segment,
+                                                       @NonNull File partFile, @NonNull File stateFile,
+                                                       @NonNull ProgressMeter meter) {
+        return Observable.defer(() -> mRestApi.dynamicDownloadRange(url, getRangeHeaders(state, segment)))
+                .concatMap(response -> Observable.fromCallable(() ->
+                        write(url, response, state, segment, partFile, stateFile, meter)))
+                .compose(Retries.<DownloadState.Segment>onTransferFailure(MAX_ATTEMPTS, mRetryDelayMillis));
+    }
+
+    @NonNull
+    private Map<String, String> getRangeHeaders(@NonNull DownloadState state,
+                                                @NonNull DownloadState.Segment segment) {
+        if (!state.isRanged())
+            return Collections.emptyMap();
+        Map<String, String> headers = new HashMap<>(2);
+        headers.put(RANGE, "bytes=" + segment.getPosition() + "-" + segment.getEnd());
+        if (state.getValidator() != null)
+            headers.put(IF_RANGE, state.getValidator());
+        return headers;
+    }
+
+    @NonNull
+    private DownloadState.Segment write(@NonNull String url, @NonNull Response<ResponseBody> response,
+                                        @NonNull DownloadState state, @NonNull DownloadState.Segment segment,
+                                        @NonNull File partFile, @NonNull File stateFile,
+                                        @NonNull ProgressMeter meter) throws IOException {
+        if (!response.isSuccessful())
+            throw new HttpException(response);
+        ResponseBody body = response.body();
+        RandomAccessFile output = null;
+        try {
+            if (state.isRanged() && response.code() != HttpURLConnection.HTTP_PARTIAL) {
+                // The If-Range validator did not match, what is on disk is of another version of the file.
+                state.invalidate(stateFile);
+                throw new IllegalStateException(url + " changed while downloading");
+            }
+            output = new RandomAccessFile(partFile, "rw");
+            if (!state.isRanged()) {
+                meter.add(segment.getStart() - segment.getPosition());
+                segment.restart();
+                if (state.getLength() < 0)
+                    output.setLength(0);
+            }
+            FileChannel channel = output.getChannel().position(segment.getPosition());
+            long[] unsaved = {0};
+            FileTransfer.write(body.source(), channel, bytes -> {
+                segment.advance(bytes);
+                meter.add(bytes);
+                unsaved[0] += bytes;
+                if (unsaved[0] >= SAVE_INTERVAL) {
+                    sync(channel);
+                    state.save(stateFile);
+                    unsaved[0] = 0;
+                }
+            });
+            if (segment.getEnd() < 0)
+                segment.end();
+            else if (!segment.isComplete())
+                throw new EOFException("Unexpected end of " + url + " at " + segment.getPosition());
+            return segment;
+        } finally {
+            body.close();
+            if (output != null)
+                try {
+                    sync(output.getChannel());
+                } finally {
+                    output.close();
+                }
+            state.save(stateFile);
+        }
+    }
+
+    /**
+     * Syncs the bytes written to disk, if set to, before the progress they make is saved.
+     */
+    private void sync(@NonNull FileChannel channel) throws IOException {
+        if (mSync)
+            channel.force(false);
+    }
+
+    @NonNull
+    private File complete(@NonNull DownloadState state, @NonNull File partFile, @NonNull File stateFile,
+                          @NonNull File file) throws IOException {
+        if (!state.isComplete() || state.getLength() >= 0 && partFile.length() != state.getLength()) {
+            state.invalidate(stateFile);
+            throw new IOException("Downloaded " + partFile.length() + " bytes of " + state.getUrl()
+                    + ", expected " + state.getLength());
+        }
+        if (!partFile.renameTo(file))
+            throw new IOException("Could not move " + partFile + " to " + file);
+        stateFile.delete();
+        return file;
+    }
+
+    private static long parseLength(@Nullable String contentLength) {
+        if (contentLength == null)
+            return -1;
+        try {
+            return Long.parseLong(contentLength);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return the validator If-Range accepts, a strong ETag or else the Last-Modified date, null if none.
+     */
+    @Nullable
+    private static String getValidator(@NonNull Headers headers) {
+        String etag = headers.get(ETAG);
+        if (etag != null && !etag.startsWith("W/"))
+            return etag;
+        return headers.get(LAST_MODIFIED);
+    }
+}
@@ -0,0 +1,84 @@
+package com.zeyad.usecases.data.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Request body of a range of a file, streamed from disk as it is sent, so no more than a segment of it is
+ * held in memory. The file is reopened on each write, as retried requests write their body again. The bytes
+ * written are counted by the meter given, the ones of the previous write taken back.
+ */
+final class FilePartBody extends RequestBody {
+
+    private final File mFile;
+    private final long mOffset, mLength;
+    @Nullable
+    private final MediaType mContentType;
+    @NonNull
+    private final ProgressMeter mMeter;
+    private long mWritten;
+
+    FilePartBody(@NonNull File file, long offset, long length, @Nullable MediaType contentType,
+                 @NonNull ProgressMeter meter) {
+        mFile = file;
+        mOffset = offset;
+        mLength = length;
+        mContentType = contentType;
+        mMeter = meter;
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+        return mContentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return mLength;
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        rollback();
+        FileInputStream input = new FileInputStream(mFile);
+        try {
+            input.getChannel().position(mOffset);
+            sink.write(new ForwardingSource(Okio.source(input)) {
+                @Override
+                public long read(@NonNull Buffer buffer, long byteCount) throws IOException {
+                    long read = super.read(buffer, byteCount);
+                    if (read > 0)
+                        count(read);
+                    return read;
+                }
+            }, mLength);
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Takes back the bytes written so far from the meter, when they are to be sent again.
+     */
+    synchronized void rollback() {
+        mMeter.add(-mWritten);
+        mWritten = 0;
+    }
+
+    private synchronized void count(long bytes) {
+        mWritten += bytes;
+        mMeter.add(bytes);
+    }
+}
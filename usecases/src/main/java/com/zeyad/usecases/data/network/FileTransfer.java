@@ -0,0 +1,146 @@
+package com.zeyad.usecases.data.network;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import okio.BufferedSource;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Writes sources to files through their channel, reading the bytes straight from the source's segments into
+ * one direct buffer so that each batch is copied once and reaches the file in a single write.
+ */
+public final class FileTransfer {
+
+    /**
+     * Bytes gathered from the source before they are written out, so each write is large.
+     */
+    static final long TRANSFER_SIZE = 256 * 1024;
+    // Direct buffers are costly to allocate and slow to free, so each thread keeps its own.
+    private static final ThreadLocal<ByteBuffer> sTransferBuffer = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect((int) TRANSFER_SIZE);
+        }
+    };
+
+    private FileTransfer() {
+    }
+
+    /**
+     * Writes the source to the file, replacing its content.
+     *
+     * @param length length of the source if known, -1 if not, for the file to be allocated upfront.
+     * @param sync   whether to sync the file to disk before returning.
+     * @return the number of bytes written.
+     */
+    public static long save(@NonNull Source source, @NonNull File file, long length, boolean sync)
+            throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs())
+            throw new IOException("Could not create " + parent);
+        RandomAccessFile output = new RandomAccessFile(file, "rw");
+        try {
+            if (length > 0)
+                preallocate(output, length);
+            FileChannel channel = output.getChannel().position(0);
+            long written;
+            try {
+                written = write(source, channel, null);
+            } finally {
+                // Trimmed to the bytes written, on failure too, so the preallocated tail is not taken for content.
+                output.setLength(channel.position());
+            }
+            if (sync)
+                channel.force(true);
+            return written;
+        } finally {
+            output.close();
+            source.close();
+        }
+    }
+
+    /**
+     * Writes the source to the channel from its position, until the source is exhausted. The channel is
+     * left open.
+     *
+     * @param listener notified of the bytes after each write, null if none.
+     * @return the number of bytes written.
+     */
+    static long write(@NonNull Source source, @NonNull WritableByteChannel channel, @Nullable Listener listener)
+            throws IOException {
+        BufferedSource bufferedSource = source instanceof BufferedSource ? (BufferedSource) source
+                : Okio.buffer(source);
+        ByteBuffer transfer = sTransferBuffer.get();
+        long written = 0;
+        boolean exhausted = false;
+        while (!exhausted) {
+            transfer.clear();
+            try {
+                exhausted = fill(bufferedSource, transfer);
+            } finally {
+                // What was read before a failure is written too, so a resumed transfer does not fetch it again.
+                transfer.flip();
+                int size = transfer.remaining();
+                if (size > 0) {
+                    while (transfer.hasRemaining())
+                        channel.write(transfer);
+                    written += size;
+                    if (listener != null)
+                        listener.onWritten(size);
+                }
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Fills the transfer buffer, copying the bytes of the source's segments into it.
+     *
+     * @return whether the source is exhausted.
+     */
+    private static boolean fill(@NonNull BufferedSource source, @NonNull ByteBuffer transfer) throws IOException {
+        while (transfer.hasRemaining())
+            if (source.read(transfer) == -1)
+                return true;
+        return false;
+    }
+
+    /**
+     * Sizes the file to the given length, reserving its blocks where the platform allows it, so it is laid
+     * out contiguously and a full disk fails the transfer upfront rather than midway.
+     */
+    static void preallocate(@NonNull RandomAccessFile file, long length) throws IOException {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP)
+            allocate(file, length);
+        file.setLength(length);
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static void allocate(@NonNull RandomAccessFile file, long length) throws IOException {
+        try {
+            Os.posix_fallocate(file.getFD(), 0, length);
+        } catch (ErrnoException e) {
+            if (e.errno == OsConstants.ENOSPC)
+                throw new IOException("Not enough space for " + length + " bytes", e);
+            // Not supported by the file system, the file is left sparse.
+        }
+    }
+
+    interface Listener {
+        void onWritten(long bytes) throws IOException;
+    }
+}
@@ -0,0 +1,239 @@
+package com.zeyad.usecases.data.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import com.zeyad.usecases.Config;
+import com.zeyad.usecases.data.utils.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URLConnection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+import retrofit2.adapter.rxjava.HttpException;
+import rx.Observable;
+
+/**
+ * Uploads files in fixed size parts, each streamed from disk and retried on its own, so a failure only
+ * costs the part in flight. The parts the server acked are saved, so an upload resumes with the session
+ * the server kept for it, whether retried right away or after a restart.
+ * <p>
+ * The server is expected to follow this protocol, the session url being the url, a slash and the upload id:
+ * <ul>
+ * <li>{@code POST url} with {@code {"key", "name", "size", "partSize", "parameters"}} opens a session,
+ * answered with {@code {"uploadId": "..."}}.</li>
+ * <li>{@code PUT session/parts/<index>} with the bytes of the part, from index 0.</li>
+ * <li>{@code GET session} answers the parts received so far, as {@code {"parts": [indices]}}, or 404 once
+ * the session expired.</li>
+ * <li>{@code POST session/complete} assembles the file, answered with the uploaded entity.</li>
+ * </ul>
+ */
+public final class FileUploader {
+
+    public static final int DEFAULT_PART_SIZE = 1024 * 1024;
+    /**
+     * Name of the directory, in the files dir of the app, the progress of the uploads is saved in.
+     */
+    public static final String STATE_DIR = "uploads";
+    private static final String PARTS = "/parts/", COMPLETE = "/complete";
+    private static final MediaType JSON = MediaType.parse("application/json"),
+            OCTET_STREAM = MediaType.parse("application/octet-stream");
+    private static final long DEFAULT_RETRY_DELAY = 1000;
+    private static final int MAX_ATTEMPTS = 5;
+    private final RestApi mRestApi;
+    private final File mStateDir;
+    private final long mRetryDelayMillis;
+
+    /**
+     * @param stateDir directory the progress of the uploads is saved in.
+     */
+    public FileUploader(@NonNull RestApi restApi, @NonNull File stateDir) {
+        this(restApi, stateDir, DEFAULT_RETRY_DELAY);
+    }
+
+    @VisibleForTesting
+    FileUploader(@NonNull RestApi restApi, @NonNull File stateDir, long retryDelayMillis) {
+        mRestApi = restApi;
+        mStateDir = stateDir;
+        mRetryDelayMillis = retryDelayMillis;
+    }
+
+    /**
+     * Uploads the file to the url in parts, resuming the previous upload of it if the file did not change
+     * since and the server still has its session. Each part is retried on network failures and server
+     * errors, with a growing delay. With no part size, the file is sent in a single multipart request
+     * instead, with the parameters as parts.
+     *
+     * @param partSize size of the parts in bytes, 0 for a single multipart request.
+     * @return an {@link Observable} emitting the response to the upload.
+     */
+    @NonNull
+    public Observable<Object> upload(@NonNull String url, @NonNull File file, String key,
+                                     @Nullable Map<String, Object> parameters, int partSize) {
+        return upload(url, file, key, parameters, partSize, new ProgressMeter());
+    }
+
+    /**
+     * Uploads the file like {@link #upload(String, File, String, Map, int)}, emitting its progress as it
+     * goes.
+     *
+     * @return an {@link Observable} emitting the progress of the upload, then a complete event holding the
+     * response.
+     */
+    @NonNull
+    public Observable<TransferProgress> uploadWithProgress(@NonNull String url, @NonNull File file, String key,
+                                                           @Nullable Map<String, Object> parameters,
+                                                           int partSize) {
+        return TransferProgress.track(meter -> upload(url, file, key, parameters, partSize, meter));
+    }
+
+    @NonNull
+    private Observable<Object> upload(@NonNull String url, @NonNull File file, String key,
+                                      @Nullable Map<String, Object> parameters, int partSize,
+                                      @NonNull ProgressMeter meter) {
+        if (partSize < 0)
+            return Observable.error(new IllegalArgumentException("partSize should not be negative"));
+        else if (partSize == 0)
+            return uploadMultipart(url, file, key, parameters, meter);
+        File stateFile = getStateFile(url, file);
+        return Observable.defer(() -> {
+            UploadState saved = UploadState.read(stateFile);
+            if (saved != null && saved.canResume(url, file, partSize))
+                return resume(url, saved, stateFile)
+                        .onErrorResumeNext(throwable -> isSessionGone(throwable) ?
+                                start(url, file, key, parameters, partSize, stateFile) :
+                                Observable.<UploadState>error(throwable));
+            return start(url, file, key, parameters, partSize, stateFile);
+        })
+                .doOnNext(state -> meter.start(file.length(), state.getUploaded()))
+                .concatMap(state -> Observable.from(state.getPendingParts())
+                        .concatMap(part -> Observable.defer(() -> {
+                            FilePartBody body = new FilePartBody(file, state.getOffset(part), state.getLength(part),
+                                    OCTET_STREAM, meter);
+                            return mRestApi.dynamicUploadPart(getSessionUrl(url, state) + PARTS + part, body)
+                                    .doOnError(throwable -> body.rollback());
+                        })
+                                .concatMap(responseBody -> Observable.fromCallable(() -> {
+                                    responseBody.close();
+                                    state.ack(part);
+                                    state.save(stateFile);
+                                    return part;
+                                }))
+                                .compose(Retries.<Integer>onTransferFailure(MAX_ATTEMPTS, mRetryDelayMillis)))
+                        .toList()
+                        .concatMap(parts -> mRestApi.dynamicUploadSession(getSessionUrl(url, state) + COMPLETE,
+                                RequestBody.create(JSON, "{}")))
+                        .concatMap(responseBody -> Observable.fromCallable(() -> {
+                            try {
+                                return Config.getGson().fromJson(responseBody.charStream(), Object.class);
+                            } finally {
+                                responseBody.close();
+                            }
+                        })))
+                .doOnCompleted(stateFile::delete);
+    }
+
+    @NonNull
+    private Observable<Object> uploadMultipart(@NonNull String url, @NonNull File file, String key,
+                                               @Nullable Map<String, Object> parameters,
+                                               @NonNull ProgressMeter meter) {
+        return Observable.defer(() -> {
+            meter.start(file.length(), 0);
+            String contentType = URLConnection.guessContentTypeFromName(file.getName());
+            FilePartBody body = new FilePartBody(file, 0, file.length(),
+                    contentType != null ? MediaType.parse(contentType) : OCTET_STREAM, meter);
+            Map<String, RequestBody> partMap = new HashMap<>();
+            if (parameters != null)
+                for (Map.Entry<String, Object> entry : parameters.entrySet())
+                    partMap.put(entry.getKey(), Utils.getInstance().createPartFromString(entry.getValue()));
+            return mRestApi.dynamicUpload(url, partMap, MultipartBody.Part.createFormData(key, file.getName(), body))
+                    .doOnError(throwable -> body.rollback());
+        });
+    }
+
+    @NonNull
+    private Observable<UploadState> start(@NonNull String url, @NonNull File file, String key,
+                                          @Nullable Map<String, Object> parameters, int partSize,
+                                          @NonNull File stateFile) {
+        Map<String, Object> session = new HashMap<>(5);
+        session.put("key", key);
+        session.put("name", file.getName());
+        session.put("size", file.length());
+        session.put("partSize", partSize);
+        session.put("parameters", parameters != null ? parameters : new HashMap<>());
+        return mRestApi.dynamicUploadSession(url, RequestBody.create(JSON, Config.getGson().toJson(session)))
+                .concatMap(responseBody -> Observable.fromCallable(() -> {
+                    Session started;
+                    try {
+                        started = Config.getGson().fromJson(responseBody.charStream(), Session.class);
+                    } finally {
+                        responseBody.close();
+                    }
+                    if (started == null || started.uploadId == null)
+                        throw new IOException("No uploadId opening an upload session at " + url);
+                    UploadState state = new UploadState(url, file, partSize, started.uploadId);
+                    state.save(stateFile);
+                    return state;
+                }));
+    }
+
+    /**
+     * @return the saved state, with the parts the server reports as received acked.
+     */
+    @NonNull
+    private Observable<UploadState> resume(@NonNull String url, @NonNull UploadState state,
+                                           @NonNull File stateFile) {
+        return mRestApi.dynamicUploadStatus(getSessionUrl(url, state))
+                .concatMap(responseBody -> Observable.fromCallable(() -> {
+                    Status status;
+                    try {
+                        status = Config.getGson().fromJson(responseBody.charStream(), Status.class);
+                    } finally {
+                        responseBody.close();
+                    }
+                    state.reconcile(status != null ? status.parts : null);
+                    state.save(stateFile);
+                    return state;
+                }));
+    }
+
+    /**
+     * Deletes the saved progress of the upload of the file to the url, once it is given up, so the next
+     * upload of it starts a new session. The upload should be stopped first.
+     */
+    public void discard(@NonNull String url, @NonNull File file) {
+        getStateFile(url, file).delete();
+    }
+
+    @NonNull
+    private String getSessionUrl(@NonNull String url, @NonNull UploadState state) {
+        return url + "/" + state.getUploadId();
+    }
+
+    @NonNull
+    private File getStateFile(@NonNull String url, @NonNull File file) {
+        return new File(mStateDir, Integer.toHexString(url.hashCode()) + "_"
+                + Integer.toHexString(file.getAbsolutePath().hashCode()) + ".upload");
+    }
+
+    private static boolean isSessionGone(Throwable throwable) {
+        return throwable instanceof HttpException && (((HttpException) throwable).code() == HttpURLConnection.HTTP_NOT_FOUND
+                || ((HttpException) throwable).code() == HttpURLConnection.HTTP_GONE);
+    }
+
+    private static final class Session {
+        String uploadId;
+    }
+
+    private static final class Status {
+        List<Integer> parts;
+    }
+}
@@ -9,6 +9,7 @@ import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
 import okhttp3.logging.HttpLoggingInterceptor;
+import retrofit2.Response;
 import rx.Observable;
 
 interface IApiConnection {
@@ -18,6 +19,10 @@ interface IApiConnection {
 
     Observable<ResponseBody> dynamicDownload(String url);
 
+    Observable<Response<Void>> dynamicHead(String url);
+
+    Observable<Response<ResponseBody>> dynamicDownloadRange(String url, Map<String, String> headers);
+
     Observable<Object> dynamicGetObject(String url);
 
     Observable<Object> dynamicGetObject(String url, boolean shouldCache);
@@ -26,12 +31,24 @@ interface IApiConnection {
 
     Observable<List> dynamicGetList(String url, boolean shouldCache);
 
+    Observable<ResponseBody> dynamicGetStream(String url);
+
+    Observable<Response<ResponseBody>> dynamicGetConditional(String url, Map<String, String> headers);
+
     Observable<Object> dynamicPost(String url, RequestBody requestBody);
 
+    Observable<ResponseBody> dynamicBatch(String url, RequestBody requestBody);
+
     Observable<Object> dynamicPut(String url, RequestBody requestBody);
 
     Observable<Object> upload(String url, Map<String, RequestBody> partMap, MultipartBody.Part file);
 
+    Observable<ResponseBody> dynamicUploadSession(String url, RequestBody body);
+
+    Observable<ResponseBody> dynamicUploadPart(String url, RequestBody part);
+
+    Observable<ResponseBody> dynamicUploadStatus(String url);
+
     Observable<Object> dynamicDelete(String url, RequestBody body);
 
     Observable<Object> dynamicPatch(String url, RequestBody body);
@@ -0,0 +1,114 @@
+package com.zeyad.usecases.data.network;
+
+import android.support.annotation.NonNull;
+
+import com.zeyad.usecases.data.requests.PostRequest;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+
+import static com.zeyad.usecases.data.repository.stores.CloudDataStore.APPLICATION_JSON;
+
+/**
+ * Default {@link BatchEnvelope}, posting
+ * <pre>{"requests": [{"id": 0, "method": "PATCH", "url": "/users/1", "body": {...}}, ...]}</pre>
+ * to {@code <baseUrl><path>} and expecting
+ * <pre>{"responses": [{"id": 0, "status": 200, "body": {...}}, ...]}</pre>
+ * back. Responses are matched to requests by id, or by position when they carry none.
+ */
+public class JsonBatchEnvelope implements BatchEnvelope {
+
+    public static final String DEFAULT_PATH = "batch";
+    public static final int DEFAULT_MAX_BATCH_SIZE = 50;
+    static final String REQUESTS = "requests", RESPONSES = "responses", ID = "id", METHOD = "method",
+            URL = "url", BODY = "body", STATUS = "status";
+    private final String mPath;
+    private final int mMaxBatchSize;
+
+    public JsonBatchEnvelope() {
+        this(DEFAULT_PATH, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param path         path of the batch endpoint, relative to the base url.
+     * @param maxBatchSize max number of requests sent in a single batch.
+     */
+    public JsonBatchEnvelope(@NonNull String path, int maxBatchSize) {
+        if (maxBatchSize < 1)
+            throw new IllegalArgumentException("maxBatchSize should be positive");
+        mPath = path.startsWith("/") ? path.substring(1) : path;
+        mMaxBatchSize = maxBatchSize;
+    }
+
+    @NonNull
+    @Override
+    public String getBatchUrl(@NonNull String baseUrl) {
+        return baseUrl + mPath;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return mMaxBatchSize;
+    }
+
+    @NonNull
+    @Override
+    public RequestBody wrap(@NonNull String baseUrl, @NonNull List<PostRequest> postRequests) throws IOException {
+        JSONArray requests = new JSONArray();
+        try {
+            for (int i = 0, size = postRequests.size(); i < size; i++) {
+                PostRequest postRequest = postRequests.get(i);
+                requests.put(new JSONObject()
+                        .put(ID, i)
+                        .put(METHOD, postRequest.getMethod())
+                        .put(URL, getRelativeUrl(postRequest.getUrl()))
+                        .put(BODY, postRequest.getArrayBundle().length() == 0
+                                ? postRequest.getObjectBundle() : postRequest.getArrayBundle()));
+            }
+            return RequestBody.create(MediaType.parse(APPLICATION_JSON),
+                    new JSONObject().put(REQUESTS, requests).toString());
+        } catch (JSONException e) {
+            throw new IOException("Could not wrap batch", e);
+        }
+    }
+
+    @NonNull
+    @Override
+    public List<Result> unwrap(@NonNull ResponseBody responseBody) throws IOException {
+        try {
+            JSONArray responses = new JSONObject(responseBody.string()).getJSONArray(RESPONSES);
+            Result[] results = new Result[responses.length()];
+            for (int i = 0, length = responses.length(); i < length; i++) {
+                JSONObject response = responses.getJSONObject(i);
+                int index = response.optInt(ID, i);
+                if (index < 0 || index >= length || results[index] != null)
+                    throw new IllegalStateException("Unexpected batch response id " + index);
+                Object body = response.opt(BODY);
+                results[index] = new Result(response.getInt(STATUS), body == JSONObject.NULL ? null : body);
+            }
+            return new ArrayList<>(Arrays.asList(results));
+        } catch (JSONException e) {
+            throw new IllegalStateException("Malformed batch response", e);
+        }
+    }
+
+    @NonNull
+    private static String getRelativeUrl(@NonNull String url) {
+        HttpUrl httpUrl = HttpUrl.parse(url);
+        if (httpUrl == null)
+            return url;
+        String query = httpUrl.encodedQuery();
+        return query == null ? httpUrl.encodedPath() : httpUrl.encodedPath() + '?' + query;
+    }
+}
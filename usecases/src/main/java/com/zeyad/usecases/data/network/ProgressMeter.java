@@ -0,0 +1,56 @@
+package com.zeyad.usecases.data.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the bytes of a transfer as they go, shared by its connections, to be sampled as
+ * {@link TransferProgress} events.
+ */
+final class ProgressMeter {
+
+    private final AtomicLong mBytes = new AtomicLong();
+    private volatile long mTotal = -1, mResumedBytes, mStartNanos = System.nanoTime();
+
+    /**
+     * Starts measuring a transfer of the given length, -1 if unknown, resuming after the given bytes.
+     */
+    void start(long total, long resumedBytes) {
+        mTotal = total;
+        mResumedBytes = resumedBytes;
+        mBytes.set(resumedBytes);
+        mStartNanos = System.nanoTime();
+    }
+
+    /**
+     * @param bytes bytes transferred, negative when bytes are discarded to be sent again.
+     */
+    void add(long bytes) {
+        mBytes.addAndGet(bytes);
+    }
+
+    @NonNull
+    TransferProgress snapshot() {
+        long bytes = mBytes.get(), total = mTotal, bytesPerSecond = getBytesPerSecond(bytes);
+        long eta = total >= 0 && bytesPerSecond > 0 ?
+                TimeUnit.SECONDS.toMillis(Math.max(0, total - bytes)) / bytesPerSecond : -1;
+        return new TransferProgress(bytes, total, bytesPerSecond, eta);
+    }
+
+    @NonNull
+    TransferProgress complete(@Nullable Object result) {
+        long bytes = mBytes.get();
+        return TransferProgress.complete(mTotal >= 0 ? mTotal : bytes, getBytesPerSecond(bytes), result);
+    }
+
+    /**
+     * @return the throughput since the transfer started, not counting the bytes it resumed after.
+     */
+    private long getBytesPerSecond(long bytes) {
+        long elapsedNanos = System.nanoTime() - mStartNanos;
+        return elapsedNanos > 0 ? (bytes - mResumedBytes) * TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0;
+    }
+}
@@ -0,0 +1,338 @@
+package com.zeyad.usecases.data.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.zeyad.usecases.domain.executors.PriorityScheduler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import rx.Observable;
+
+/**
+ * Limits the calls running at once against each host, letting the waiting calls of higher priority
+ * through first, and dropping the waiting calls canceled on the way, like the ones of unsubscribed
+ * observables.
+ * <p>
+ * Enqueued calls wait in the queue of their host without holding a thread, and are handed to the
+ * client's dispatcher as running calls complete. The priority of a call is the one of its request's
+ * {@link #PRIORITY_HEADER}, else the one of the observable subscribing it, set with
+ * {@link #withPriority(int)}.
+ * <p>
+ * Responses are delivered on the threads of the client, with the priority of their call, so the calls
+ * made while handling a response, like the next page or the request following a login, keep it across
+ * the thread hop.
+ */
+public final class RequestDispatcher {
+
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 5;
+    /**
+     * Header giving a request its priority, removed before the request is sent.
+     */
+    public static final String PRIORITY_HEADER = "X-Request-Priority";
+    private static final ThreadLocal<Integer> sPriority = new ThreadLocal<>();
+    private final int mMaxRequestsPerHost;
+    private final Map<String, Host> mHosts;
+    private long mSequence;
+
+    public RequestDispatcher(int maxRequestsPerHost) {
+        if (maxRequestsPerHost < 1)
+            throw new IllegalArgumentException("maxRequestsPerHost should be positive");
+        mMaxRequestsPerHost = maxRequestsPerHost;
+        mHosts = new HashMap<>();
+    }
+
+    /**
+     * @return a transformer giving the priority to the requests created while subscribing to the
+     * observable, unless they carry a {@link #PRIORITY_HEADER}.
+     */
+    @NonNull
+    public static <T> Observable.Transformer<T, T> withPriority(int priority) {
+        return observable -> Observable.create(subscriber -> {
+            if (subscriber.isUnsubscribed())
+                return;
+            Integer previous = enter(priority);
+            try {
+                observable.unsafeSubscribe(subscriber);
+            } finally {
+                exit(previous);
+            }
+        });
+    }
+
+    /**
+     * @return the priority of the observable being subscribed, or of the response being delivered, on the
+     * calling thread.
+     */
+    public static int currentPriority() {
+        Integer priority = sPriority.get();
+        return priority != null ? priority : PriorityScheduler.PRIORITY_NORMAL;
+    }
+
+    /**
+     * @return the priority replaced, to restore with {@link #exit(Integer)}.
+     */
+    @Nullable
+    private static Integer enter(int priority) {
+        Integer previous = sPriority.get();
+        sPriority.set(priority);
+        return previous;
+    }
+
+    private static void exit(@Nullable Integer previous) {
+        if (previous != null)
+            sPriority.set(previous);
+        else sPriority.remove();
+    }
+
+    private static int getPriority(@NonNull Request request) {
+        String header = request.header(PRIORITY_HEADER);
+        if (header != null)
+            try {
+                return Integer.parseInt(header.trim());
+            } catch (NumberFormatException e) {
+                return PriorityScheduler.PRIORITY_NORMAL;
+            }
+        return currentPriority();
+    }
+
+    /**
+     * @return a factory of the client's calls, going through this dispatcher. The client's own dispatcher
+     * gets the same per host limit.
+     */
+    @NonNull
+    public Call.Factory callFactory(@NonNull OkHttpClient client) {
+        client.dispatcher().setMaxRequestsPerHost(mMaxRequestsPerHost);
+        return request -> {
+            int priority = getPriority(request);
+            if (request.header(PRIORITY_HEADER) != null)
+                request = request.newBuilder().removeHeader(PRIORITY_HEADER).build();
+            return new DispatchedCall(client.newCall(request), priority);
+        };
+    }
+
+    public int getMaxRequestsPerHost() {
+        return mMaxRequestsPerHost;
+    }
+
+    /**
+     * @return number of calls running against the host.
+     */
+    public synchronized int getRunningCount(@NonNull String host) {
+        Host state = mHosts.get(host);
+        return state != null ? state.mRunning : 0;
+    }
+
+    /**
+     * @return number of calls waiting for the host.
+     */
+    public synchronized int getWaitingCount(@NonNull String host) {
+        Host state = mHosts.get(host);
+        return state != null ? state.mWaiting.size() : 0;
+    }
+
+    @NonNull
+    private Host getHost(@NonNull String hostName) {
+        Host host = mHosts.get(hostName);
+        if (host == null) {
+            host = new Host();
+            mHosts.put(hostName, host);
+        }
+        return host;
+    }
+
+    private void enqueue(@NonNull DispatchedCall call) {
+        List<DispatchedCall> ready = new ArrayList<>(), canceled = new ArrayList<>();
+        synchronized (this) {
+            String hostName = call.request().url().host();
+            Host host = getHost(hostName);
+            call.mSequence = mSequence++;
+            host.mWaiting.offer(call);
+            promote(hostName, host, ready, canceled);
+        }
+        handOff(ready, canceled);
+    }
+
+    private synchronized void acquire(@NonNull DispatchedCall call) {
+        getHost(call.request().url().host()).mRunning++;
+    }
+
+    private void release(@NonNull DispatchedCall call) {
+        List<DispatchedCall> ready = new ArrayList<>(), canceled = new ArrayList<>();
+        synchronized (this) {
+            String hostName = call.request().url().host();
+            Host host = mHosts.get(hostName);
+            if (host == null)
+                return;
+            host.mRunning--;
+            promote(hostName, host, ready, canceled);
+        }
+        handOff(ready, canceled);
+    }
+
+    /**
+     * @return whether the call was still waiting, and is now dropped.
+     */
+    private synchronized boolean drop(@NonNull DispatchedCall call) {
+        String hostName = call.request().url().host();
+        Host host = mHosts.get(hostName);
+        if (host == null || !host.mWaiting.remove(call))
+            return false;
+        removeIfIdle(hostName, host);
+        return true;
+    }
+
+    /**
+     * Moves the first waiting calls of the host to the running ones, as long as they fit.
+     */
+    private void promote(@NonNull String hostName, @NonNull Host host, @NonNull List<DispatchedCall> ready,
+                         @NonNull List<DispatchedCall> canceled) {
+        while (host.mRunning < mMaxRequestsPerHost && !host.mWaiting.isEmpty()) {
+            DispatchedCall next = host.mWaiting.poll();
+            if (next.isCanceled())
+                canceled.add(next);
+            else {
+                host.mRunning++;
+                ready.add(next);
+            }
+        }
+        removeIfIdle(hostName, host);
+    }
+
+    /**
+     * Starts the promoted calls and fails the dropped ones, outside of the lock, as their callbacks may
+     * enqueue calls too.
+     */
+    private void handOff(@NonNull List<DispatchedCall> ready, @NonNull List<DispatchedCall> canceled) {
+        for (DispatchedCall call : canceled)
+            call.fail();
+        for (DispatchedCall call : ready)
+            call.start();
+    }
+
+    private void removeIfIdle(@NonNull String hostName, @NonNull Host host) {
+        if (host.mRunning == 0 && host.mWaiting.isEmpty())
+            mHosts.remove(hostName);
+    }
+
+    private static final class Host {
+        private final PriorityQueue<DispatchedCall> mWaiting = new PriorityQueue<>(11, (first, second) -> {
+            if (first.mPriority != second.mPriority)
+                return first.mPriority > second.mPriority ? -1 : 1;
+            return first.mSequence < second.mSequence ? -1 : first.mSequence == second.mSequence ? 0 : 1;
+        });
+        private int mRunning;
+    }
+
+    private final class DispatchedCall implements Call {
+        private final Call mCall;
+        private final int mPriority;
+        private final AtomicBoolean mExecuted;
+        private long mSequence;
+        @Nullable
+        private Callback mCallback;
+
+        DispatchedCall(@NonNull Call call, int priority) {
+            mCall = call;
+            mPriority = priority;
+            mExecuted = new AtomicBoolean();
+        }
+
+        @Override
+        public Request request() {
+            return mCall.request();
+        }
+
+        /**
+         * Synchronous calls run right away on the calling thread, counted against the limit of their host
+         * but never waiting, as waiting would hold the thread.
+         */
+        @Override
+        public Response execute() throws IOException {
+            if (!mExecuted.compareAndSet(false, true))
+                throw new IllegalStateException("Already Executed");
+            acquire(this);
+            try {
+                return mCall.execute();
+            } finally {
+                release(this);
+            }
+        }
+
+        @Override
+        public void enqueue(Callback responseCallback) {
+            if (!mExecuted.compareAndSet(false, true))
+                throw new IllegalStateException("Already Executed");
+            mCallback = responseCallback;
+            enqueue(this);
+        }
+
+        private void start() {
+            mCall.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    Integer previous = enter(mPriority);
+                    try {
+                        mCallback.onFailure(DispatchedCall.this, e);
+                    } finally {
+                        exit(previous);
+                        release(DispatchedCall.this);
+                    }
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) throws IOException {
+                    Integer previous = enter(mPriority);
+                    try {
+                        mCallback.onResponse(DispatchedCall.this, response);
+                    } finally {
+                        exit(previous);
+                        release(DispatchedCall.this);
+                    }
+                }
+            });
+        }
+
+        private void fail() {
+            Integer previous = enter(mPriority);
+            try {
+                mCallback.onFailure(this, new IOException("Canceled"));
+            } finally {
+                exit(previous);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            mCall.cancel();
+            if (drop(this))
+                fail();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return mExecuted.get();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return mCall.isCanceled();
+        }
+
+        @Override
+        public Call clone() {
+            return new DispatchedCall(mCall.clone(), mPriority);
+        }
+    }
+}
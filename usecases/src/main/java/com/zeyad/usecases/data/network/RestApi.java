@@ -6,9 +6,13 @@ import java.util.Map;
 import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
+import retrofit2.Response;
 import retrofit2.http.Body;
 import retrofit2.http.DELETE;
 import retrofit2.http.GET;
+import retrofit2.http.HEAD;
+import retrofit2.http.HeaderMap;
+import retrofit2.http.Headers;
 import retrofit2.http.Multipart;
 import retrofit2.http.PATCH;
 import retrofit2.http.POST;
@@ -36,23 +40,70 @@ public interface RestApi {
     @GET
     Observable<List> dynamicGetList(@Url String url, boolean shouldCache);
 
+    /**
+     * Gets the raw response of a url, with its status and headers, to be revalidated with the given
+     * conditional headers.
+     */
+    @GET
+    Observable<Response<ResponseBody>> dynamicGetConditional(@Url String url, @HeaderMap Map<String, String> headers);
+
     @POST
     Observable<Object> dynamicPost(@Url String url, @Body RequestBody body);
 
+    @POST
+    Observable<ResponseBody> dynamicBatch(@Url String url, @Body RequestBody body);
+
     @PUT
     Observable<Object> dynamicPut(@Url String url, @Body RequestBody body);
 
     @DELETE
     Observable<Object> dynamicDelete(@Url String url, @Body RequestBody body);
 
+    @Streaming
+    @GET
+    Observable<ResponseBody> dynamicGetStream(@Url String url);
+
     @Streaming
     @GET
     Observable<ResponseBody> dynamicDownload(@Url String fileUrl);
 
+    /**
+     * Gets the headers of a file about to be downloaded, its length uncompressed.
+     */
+    @HEAD
+    @Headers("Accept-Encoding: identity")
+    Observable<Response<Void>> dynamicHead(@Url String fileUrl);
+
+    /**
+     * Downloads a file, or the range of it given in the headers.
+     */
+    @Streaming
+    @GET
+    Observable<Response<ResponseBody>> dynamicDownloadRange(@Url String fileUrl,
+                                                            @HeaderMap Map<String, String> headers);
+
     @Multipart
     @POST
     Observable<Object> dynamicUpload(@Url String url, @PartMap() Map<String, RequestBody> partMap, @Part MultipartBody.Part file);
 
+    /**
+     * Opens or completes a chunked upload session.
+     */
+    @POST
+    Observable<ResponseBody> dynamicUploadSession(@Url String url, @Body RequestBody body);
+
+    /**
+     * Uploads a part of a file to its upload session.
+     */
+    @PUT
+    Observable<ResponseBody> dynamicUploadPart(@Url String url, @Body RequestBody part);
+
+    /**
+     * Gets the parts an upload session received so far.
+     */
+    @GET
+    Observable<ResponseBody> dynamicUploadStatus(@Url String url);
+
     @PATCH
     Observable<Object> dynamicPatch(String url, RequestBody requestBody);
 }
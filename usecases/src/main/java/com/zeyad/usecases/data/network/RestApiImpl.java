@@ -6,7 +6,9 @@ import java.util.Map;
 import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
+import retrofit2.Response;
 import retrofit2.http.Body;
+import retrofit2.http.HeaderMap;
 import retrofit2.http.Part;
 import retrofit2.http.PartMap;
 import retrofit2.http.Url;
@@ -66,6 +68,41 @@ public class RestApiImpl implements RestApi {
         return mApiConnection.upload(url, partMap, file);
     }
 
+    /**
+     * Opens or completes a chunked upload session.
+     *
+     * @param url  address of the session.
+     * @param body request body describing the upload.
+     * @return Observable with the ResponseBody.
+     */
+    @Override
+    public Observable<ResponseBody> dynamicUploadSession(@Url String url, @Body RequestBody body) {
+        return mApiConnection.dynamicUploadSession(url, body);
+    }
+
+    /**
+     * Uploads a part of a file to its session.
+     *
+     * @param url  address of the part.
+     * @param part request body streaming the part from disk.
+     * @return Observable with the ResponseBody.
+     */
+    @Override
+    public Observable<ResponseBody> dynamicUploadPart(@Url String url, @Body RequestBody part) {
+        return mApiConnection.dynamicUploadPart(url, part);
+    }
+
+    /**
+     * Gets the parts an upload session received so far.
+     *
+     * @param url address of the session.
+     * @return Observable with the ResponseBody.
+     */
+    @Override
+    public Observable<ResponseBody> dynamicUploadStatus(@Url String url) {
+        return mApiConnection.dynamicUploadStatus(url);
+    }
+
     /**
      * Gets Object from full url.
      *
@@ -108,6 +145,52 @@ public class RestApiImpl implements RestApi {
         return mApiConnection.dynamicGetList(url, shouldCache);
     }
 
+    /**
+     * Gets the headers of a file from the given url.
+     *
+     * @param url address of file to be downloaded.
+     * @return Observable with the Response, without body.
+     */
+    @Override
+    public Observable<Response<Void>> dynamicHead(@Url String url) {
+        return mApiConnection.dynamicHead(url);
+    }
+
+    /**
+     * Downloads file, or a range of it, from the given url.
+     *
+     * @param url     address of file to be downloaded.
+     * @param headers Range and If-Range headers, empty for the whole file.
+     * @return Observable with the Response, its body unread.
+     */
+    @Override
+    public Observable<Response<ResponseBody>> dynamicDownloadRange(@Url String url,
+                                                                 @HeaderMap Map<String, String> headers) {
+        return mApiConnection.dynamicDownloadRange(url, headers);
+    }
+
+    /**
+     * Gets the raw response from full url, conditionally.
+     *
+     * @param headers conditional headers, like If-None-Match, empty for an unconditional request.
+     * @return Observable with the Response, its body unread.
+     */
+    @Override
+    public Observable<Response<ResponseBody>> dynamicGetConditional(@Url String url,
+                                                                  @HeaderMap Map<String, String> headers) {
+        return mApiConnection.dynamicGetConditional(url, headers);
+    }
+
+    /**
+     * Gets the raw response body of a list from full url, to be read as a stream.
+     *
+     * @return Observable with the ResponseBody.
+     */
+    @Override
+    public Observable<ResponseBody> dynamicGetStream(@Url String url) {
+        return mApiConnection.dynamicGetStream(url);
+    }
+
     /**
      * Post Object to full url.
      *
@@ -119,6 +202,17 @@ public class RestApiImpl implements RestApi {
         return mApiConnection.dynamicPost(url, body);
     }
 
+    /**
+     * Posts a batch of requests to full url.
+     *
+     * @param body envelope wrapping the batched requests.
+     * @return Observable with the raw ResponseBody, to be unwrapped by the same envelope.
+     */
+    @Override
+    public Observable<ResponseBody> dynamicBatch(@Url String url, RequestBody body) {
+        return mApiConnection.dynamicBatch(url, body);
+    }
+
     /**
      * Post Object to full url.
      *
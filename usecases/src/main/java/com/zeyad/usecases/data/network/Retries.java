@@ -0,0 +1,38 @@
+package com.zeyad.usecases.data.network;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.adapter.rxjava.HttpException;
+import rx.Observable;
+
+/**
+ * Retries of the transfers interrupted by network or server failures.
+ */
+final class Retries {
+
+    private Retries() {
+    }
+
+    /**
+     * @return a transformer resubscribing to the observable after network failures and server errors, up to
+     * maxAttempts subscriptions in all, waiting attempt times the delay before each.
+     */
+    @NonNull
+    static <T> Observable.Transformer<T, T> onTransferFailure(int maxAttempts, long delayMillis) {
+        return observable -> observable.retryWhen(errors -> errors
+                .zipWith(Observable.range(1, maxAttempts), (throwable, attempt) ->
+                        isTransferFailure(throwable) && attempt < maxAttempts ?
+                                Observable.timer(attempt * delayMillis, TimeUnit.MILLISECONDS) :
+                                Observable.<Long>error(throwable))
+                .flatMap(delay -> delay));
+    }
+
+    private static boolean isTransferFailure(Throwable throwable) {
+        return throwable instanceof IOException || throwable instanceof HttpException
+                && ((HttpException) throwable).code() >= HttpURLConnection.HTTP_INTERNAL_ERROR;
+    }
+}
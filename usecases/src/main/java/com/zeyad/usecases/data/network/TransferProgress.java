@@ -0,0 +1,128 @@
+package com.zeyad.usecases.data.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.functions.Func1;
+
+/**
+ * Progress of a file transfer. A transfer emits these at a throttled rate while in flight, then a last
+ * one, complete, holding its result.
+ */
+public final class TransferProgress {
+
+    /**
+     * Interval between the progress events of a transfer.
+     */
+    public static final long INTERVAL_MILLIS = 250;
+    private final long mBytes, mTotal, mBytesPerSecond, mEtaMillis;
+    @Nullable
+    private final Object mResult;
+    private final boolean mComplete;
+
+    TransferProgress(long bytes, long total, long bytesPerSecond, long etaMillis) {
+        this(bytes, total, bytesPerSecond, etaMillis, null, false);
+    }
+
+    private TransferProgress(long bytes, long total, long bytesPerSecond, long etaMillis,
+                             @Nullable Object result, boolean complete) {
+        mBytes = bytes;
+        mTotal = total;
+        mBytesPerSecond = bytesPerSecond;
+        mEtaMillis = etaMillis;
+        mResult = result;
+        mComplete = complete;
+    }
+
+    /**
+     * Runs the transfer, emitting its progress, as measured by the meter it is given, every
+     * {@link #INTERVAL_MILLIS} while it changes, then its result. Progress events not requested in time are
+     * dropped, as the next one supersedes them. Unsubscribing stops the transfer.
+     */
+    @NonNull
+    static Observable<TransferProgress> track(@NonNull Func1<ProgressMeter, Observable<?>> transfer) {
+        return Observable.defer(() -> {
+            ProgressMeter meter = new ProgressMeter();
+            return transfer.call(meter).publish(result -> Observable.merge(
+                    Observable.interval(INTERVAL_MILLIS, TimeUnit.MILLISECONDS)
+                            .onBackpressureDrop()
+                            .map(tick -> meter.snapshot())
+                            .distinctUntilChanged(TransferProgress::getBytes)
+                            .takeUntil(result),
+                    result.map(meter::complete)));
+        });
+    }
+
+    /**
+     * @return the final event of a transfer of the given length.
+     */
+    @NonNull
+    static TransferProgress complete(long total, long bytesPerSecond, @Nullable Object result) {
+        return new TransferProgress(total, total, bytesPerSecond, 0, result, true);
+    }
+
+    /**
+     * @return the bytes transferred so far, including the ones of a previous attempt resumed.
+     */
+    public long getBytes() {
+        return mBytes;
+    }
+
+    /**
+     * @return the length of the transfer, -1 if unknown.
+     */
+    public long getTotal() {
+        return mTotal;
+    }
+
+    /**
+     * @return the average throughput of the transfer since it started, or resumed.
+     */
+    public long getBytesPerSecond() {
+        return mBytesPerSecond;
+    }
+
+    /**
+     * @return the estimated time left, -1 if unknown.
+     */
+    public long getEtaMillis() {
+        return mEtaMillis;
+    }
+
+    /**
+     * @return the percentage transferred, -1 if the length is unknown.
+     */
+    public int getPercent() {
+        return mTotal > 0 ? (int) (mBytes * 100 / mTotal) : -1;
+    }
+
+    public boolean isComplete() {
+        return mComplete;
+    }
+
+    /**
+     * @return the result of the transfer, the file downloaded or the response to the upload, on the last
+     * event only.
+     */
+    @Nullable
+    public Object getResult() {
+        return mResult;
+    }
+
+    /**
+     * @return a copy of the event with its result replaced, as mapped to the domain.
+     */
+    @NonNull
+    public TransferProgress withResult(@Nullable Object result) {
+        return new TransferProgress(mBytes, mTotal, mBytesPerSecond, mEtaMillis, result, mComplete);
+    }
+
+    @Override
+    public String toString() {
+        return "TransferProgress{bytes=" + mBytes + ", total=" + mTotal + ", bytesPerSecond=" + mBytesPerSecond
+                + ", etaMillis=" + mEtaMillis + ", complete=" + mComplete + '}';
+    }
+}
@@ -0,0 +1,175 @@
+package com.zeyad.usecases.data.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress of a chunked upload, persisted so it can be resumed after a failure or a restart: the session
+ * the server opened for it, the file and part size it was started with, and which parts the server acked.
+ */
+final class UploadState {
+
+    private static final int VERSION = 1;
+    private final String mUrl, mPath, mUploadId;
+    private final long mLength, mLastModified;
+    private final int mPartSize;
+    private final boolean[] mAcked;
+
+    UploadState(@NonNull String url, @NonNull File file, int partSize, @NonNull String uploadId) {
+        this(url, file.getPath(), file.length(), file.lastModified(), partSize, uploadId,
+                new boolean[getPartCount(file.length(), partSize)]);
+    }
+
+    private UploadState(@NonNull String url, @NonNull String path, long length, long lastModified, int partSize,
+                        @NonNull String uploadId, @NonNull boolean[] acked) {
+        mUrl = url;
+        mPath = path;
+        mLength = length;
+        mLastModified = lastModified;
+        mPartSize = partSize;
+        mUploadId = uploadId;
+        mAcked = acked;
+    }
+
+    /**
+     * @return the state saved in the file, null if missing or unreadable.
+     */
+    @Nullable
+    static UploadState read(@NonNull File stateFile) {
+        if (!stateFile.exists())
+            return null;
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new FileInputStream(stateFile));
+            if (input.readInt() != VERSION)
+                return null;
+            String url = input.readUTF(), path = input.readUTF(), uploadId = input.readUTF();
+            long length = input.readLong(), lastModified = input.readLong();
+            int partSize = input.readInt();
+            boolean[] acked = new boolean[input.readInt()];
+            for (int i = 0; i < acked.length; i++)
+                acked[i] = input.readBoolean();
+            return new UploadState(url, path, length, lastModified, partSize, uploadId, acked);
+        } catch (IOException e) {
+            return null;
+        } finally {
+            if (input != null)
+                try {
+                    input.close();
+                } catch (IOException ignored) {
+                }
+        }
+    }
+
+    private static int getPartCount(long length, int partSize) {
+        return (int) Math.max(1, (length + partSize - 1) / partSize);
+    }
+
+    @NonNull
+    String getUploadId() {
+        return mUploadId;
+    }
+
+    int getPartSize() {
+        return mPartSize;
+    }
+
+    /**
+     * @return offset of the part in the file.
+     */
+    long getOffset(int part) {
+        return (long) part * mPartSize;
+    }
+
+    /**
+     * @return length of the part, the last one holding the rest of the file.
+     */
+    long getLength(int part) {
+        return Math.min(mPartSize, mLength - getOffset(part));
+    }
+
+    /**
+     * @return the parts the server has not acked yet, in order.
+     */
+    @NonNull
+    synchronized List<Integer> getPendingParts() {
+        List<Integer> parts = new ArrayList<>();
+        for (int i = 0; i < mAcked.length; i++)
+            if (!mAcked[i])
+                parts.add(i);
+        return parts;
+    }
+
+    /**
+     * @return the number of bytes of the parts acked.
+     */
+    synchronized long getUploaded() {
+        long uploaded = 0;
+        for (int i = 0; i < mAcked.length; i++)
+            if (mAcked[i])
+                uploaded += getLength(i);
+        return uploaded;
+    }
+
+    synchronized void ack(int part) {
+        mAcked[part] = true;
+    }
+
+    /**
+     * Takes the parts the server reports as received as the acked ones, as it is what gets assembled.
+     */
+    synchronized void reconcile(@Nullable List<Integer> received) {
+        for (int i = 0; i < mAcked.length; i++)
+            mAcked[i] = false;
+        if (received != null)
+            for (int i = 0, size = received.size(); i < size; i++) {
+                Integer part = received.get(i);
+                if (part != null && part >= 0 && part < mAcked.length)
+                    mAcked[part] = true;
+            }
+    }
+
+    /**
+     * @return whether the state can resume an upload of the file, unchanged since it started, to the url.
+     */
+    boolean canResume(@NonNull String url, @NonNull File file, int partSize) {
+        return mUrl.equals(url) && mPath.equals(file.getPath()) && mLength == file.length()
+                && mLastModified == file.lastModified() && mPartSize == partSize;
+    }
+
+    /**
+     * Saves the progress, replacing the previous save in one rename, so a crash leaves either of them.
+     */
+    synchronized void save(@NonNull File stateFile) throws IOException {
+        File parent = stateFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs())
+            throw new IOException("Could not create " + parent);
+        File tempFile = new File(stateFile.getPath() + ".tmp");
+        DataOutputStream output = new DataOutputStream(new FileOutputStream(tempFile));
+        try {
+            output.writeInt(VERSION);
+            output.writeUTF(mUrl);
+            output.writeUTF(mPath);
+            output.writeUTF(mUploadId);
+            output.writeLong(mLength);
+            output.writeLong(mLastModified);
+            output.writeInt(mPartSize);
+            output.writeInt(mAcked.length);
+            for (boolean acked : mAcked)
+                output.writeBoolean(acked);
+        } finally {
+            output.close();
+        }
+        if (!tempFile.renameTo(stateFile))
+            throw new IOException("Could not save " + stateFile);
+    }
+}
@@ -3,8 +3,10 @@ package com.zeyad.usecases.data.repository;
 import android.support.annotation.NonNull;
 
 import com.zeyad.usecases.Config;
+import com.zeyad.usecases.data.db.CollectionChange;
 import com.zeyad.usecases.data.db.RealmManager;
 import com.zeyad.usecases.data.mappers.IDAOMapperFactory;
+import com.zeyad.usecases.data.requests.GetRequest;
 import com.zeyad.usecases.data.repository.stores.DataStoreFactory;
 import com.zeyad.usecases.domain.repositories.Data;
 
@@ -56,6 +58,51 @@ public class DataRepository implements Data {
         }
     }
 
+    /**
+     * Returns a list of object of desired type in chunks, parsed incrementally from the response.
+     * If persist is true each chunk is saved to the database before being emitted.
+     *
+     * @param url         end point.
+     * @param domainClass The domain class representation of the object.
+     * @param dataClass   The data class representation of the object.
+     * @param persist     boolean to decide whether to persist the result or not
+     * @param chunkSize   maximum number of objects per emitted list
+     * @return chunks of the list, if available.
+     */
+    @NonNull
+    @Override
+    public Observable<List> streamListDynamically(@NonNull String url, Class domainClass, @NonNull Class dataClass,
+                                                  boolean persist, int chunkSize) {
+        try {
+            return mDataStoreFactory.dynamically(url, mEntityMapperUtil.getDataMapper(dataClass))
+                    .dynamicStreamList(url, domainClass, dataClass, persist, chunkSize);
+        } catch (Exception e) {
+            return Observable.error(e);
+        }
+    }
+
+    /**
+     * Syncs the persisted list with the changes since the previous sync, then returns all of it.
+     *
+     * @param url                end point.
+     * @param idColumnName       Name of the id field.
+     * @param syncTokenParameter name of the query parameter the sync token is sent as.
+     * @param domainClass        The domain class representation of the object.
+     * @param dataClass          The data class representation of the object.
+     * @return the synced list.
+     */
+    @NonNull
+    @Override
+    public Observable<List> syncListDynamically(@NonNull String url, String idColumnName, String syncTokenParameter,
+                                                Class domainClass, @NonNull Class dataClass) {
+        try {
+            return mDataStoreFactory.dynamically(url, mEntityMapperUtil.getDataMapper(dataClass))
+                    .dynamicSyncList(url, idColumnName, syncTokenParameter, domainClass, dataClass);
+        } catch (Exception e) {
+            return Observable.error(e);
+        }
+    }
+
     @NonNull
     @Override
     public Observable<?> getObjectDynamicallyById(@NonNull String url, String idColumnName, int itemId,
@@ -131,6 +178,30 @@ public class DataRepository implements Data {
         }
     }
 
+    @NonNull
+    @Override
+    public Observable<List> queryDisk(RealmManager.RealmQueryProvider queryFactory, Class domainClass,
+                                      GetRequest.ReadMode readMode, int windowSize) {
+        try {
+            return mDataStoreFactory.disk(mEntityMapperUtil.getDataMapper(domainClass))
+                    .queryDisk(queryFactory, domainClass, readMode, windowSize);
+        } catch (IllegalAccessException e) {
+            return Observable.error(e);
+        }
+    }
+
+    @NonNull
+    @Override
+    public Observable<CollectionChange> queryDiskChanges(RealmManager.RealmQueryProvider queryFactory,
+                                                         String idColumnName, Class domainClass) {
+        try {
+            return mDataStoreFactory.disk(mEntityMapperUtil.getDataMapper(domainClass))
+                    .queryDiskChanges(queryFactory, idColumnName, domainClass);
+        } catch (IllegalAccessException e) {
+            return Observable.error(e);
+        }
+    }
+
     @NonNull
     @Override
     public Observable<?> putObjectDynamically(@NonNull String url, String idColumnName, JSONObject keyValuePairs,
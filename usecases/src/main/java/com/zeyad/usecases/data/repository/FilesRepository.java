@@ -5,11 +5,13 @@ import android.support.annotation.NonNull;
 import com.google.gson.Gson;
 import com.zeyad.usecases.Config;
 import com.zeyad.usecases.data.mappers.DAOMapperFactory;
-import com.zeyad.usecases.data.mappers.DefaultDAOMapper;
-import com.zeyad.usecases.data.mappers.IDAOMapper;
+import com.zeyad.usecases.data.mappers.GeneratedDAOMapperFactory;
 import com.zeyad.usecases.data.mappers.IDAOMapperFactory;
+import com.zeyad.usecases.data.network.FileTransfer;
 import com.zeyad.usecases.data.network.RestApiImpl;
 import com.zeyad.usecases.data.repository.stores.DataStoreFactory;
+import com.zeyad.usecases.data.requests.FileIORequest;
+import com.zeyad.usecases.data.services.jobs.TransferManager;
 import com.zeyad.usecases.domain.repositories.Files;
 
 import java.io.BufferedReader;
@@ -20,6 +22,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.HashMap;
 
+import okio.Okio;
 import rx.Observable;
 
 /**
@@ -36,12 +39,7 @@ public class FilesRepository implements Files {
             Config.getInstance().setDataStoreFactory(mDataStoreFactory);
         } else
             mDataStoreFactory = Config.getInstance().getDataStoreFactory();
-        mEntityMapperUtil = new DAOMapperFactory() {
-            @Override
-            public IDAOMapper getDataMapper(Class dataClass) {
-                return new DefaultDAOMapper();
-            }
-        };
+        mEntityMapperUtil = GeneratedDAOMapperFactory.getInstance();
         mGson = Config.getGson();
     }
 
@@ -126,21 +124,61 @@ public class FilesRepository implements Files {
         });
     }
 
+    @Override
+    public Observable<File> saveToFile(String fullFilePath, InputStream data, long length, boolean sync) {
+        return Observable.fromCallable(() -> {
+            File file = new File(fullFilePath);
+            FileTransfer.save(Okio.source(data), file, length, sync);
+            return file;
+        });
+    }
+
     @NonNull
     @Override
     public Observable<?> uploadFileDynamically(String url, File file, String key, HashMap<String, Object> parameters,
-                                               boolean onWifi, boolean whileCharging, boolean queuable,
-                                               Class domainClass, Class dataClass) {
+                                               int partSize, boolean onWifi, boolean whileCharging, boolean queuable,
+                                               boolean progress, Class domainClass, Class dataClass) {
         return mDataStoreFactory.cloud(mEntityMapperUtil.getDataMapper(dataClass))
-                .dynamicUploadFile(url, file, key, parameters, onWifi, queuable, whileCharging, domainClass);
+                .dynamicUploadFile(url, file, key, parameters, partSize, onWifi, queuable, whileCharging, progress,
+                        domainClass);
     }
 
 
     @NonNull
     @Override
     public Observable<?> downloadFileDynamically(String url, File file, boolean onWifi, boolean whileCharging,
-                                                 boolean queuable, Class domainClass, Class dataClass) {
+                                                 boolean queuable, boolean progress, Class domainClass,
+                                                 Class dataClass) {
         return mDataStoreFactory.cloud(mEntityMapperUtil.getDataMapper(dataClass))
-                .dynamicDownloadFile(url, file, onWifi, whileCharging, queuable);
+                .dynamicDownloadFile(url, file, onWifi, whileCharging, queuable, progress);
+    }
+
+    @NonNull
+    @Override
+    public Observable<Long> queueFileTransfer(FileIORequest fileIORequest, boolean isDownload) {
+        return Observable.fromCallable(() -> getTransferManager().enqueue(fileIORequest, isDownload));
+    }
+
+    @NonNull
+    @Override
+    public Observable<Boolean> pauseFileTransfer(long id) {
+        return Observable.fromCallable(() -> getTransferManager().pause(id));
+    }
+
+    @NonNull
+    @Override
+    public Observable<Boolean> resumeFileTransfer(long id) {
+        return Observable.fromCallable(() -> getTransferManager().resume(id));
+    }
+
+    @NonNull
+    @Override
+    public Observable<Boolean> cancelFileTransfer(long id) {
+        return Observable.fromCallable(() -> getTransferManager().cancel(id));
+    }
+
+    @NonNull
+    private TransferManager getTransferManager() {
+        return TransferManager.getInstance(Config.getInstance().getContext());
     }
 }
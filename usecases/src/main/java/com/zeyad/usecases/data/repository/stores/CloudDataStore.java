@@ -6,6 +6,7 @@ import android.content.IntentFilter;
 import android.net.ConnectivityManager;
 import android.os.BatteryManager;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.Log;
 
 import com.facebook.network.connectionclass.ConnectionClassManager;
@@ -14,27 +15,34 @@ import com.firebase.jobdispatcher.FirebaseJobDispatcher;
 import com.firebase.jobdispatcher.GooglePlayDriver;
 import com.zeyad.usecases.Config;
 import com.zeyad.usecases.R;
+import com.zeyad.usecases.data.db.CollectionChange;
 import com.zeyad.usecases.data.db.DataBaseManager;
 import com.zeyad.usecases.data.db.RealmManager;
 import com.zeyad.usecases.data.exceptions.NetworkConnectionException;
 import com.zeyad.usecases.data.mappers.IDAOMapper;
+import com.zeyad.usecases.data.network.FileDownloader;
+import com.zeyad.usecases.data.network.FileUploader;
+import com.zeyad.usecases.data.network.RequestDispatcher;
 import com.zeyad.usecases.data.network.RestApi;
 import com.zeyad.usecases.data.requests.FileIORequest;
+import com.zeyad.usecases.data.requests.GetRequest;
 import com.zeyad.usecases.data.requests.PostRequest;
 import com.zeyad.usecases.data.utils.ModelConverters;
 import com.zeyad.usecases.data.utils.Utils;
 import com.zeyad.usecases.domain.interactors.data.DataUseCase;
 
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.lang.reflect.Array;
 import java.net.ConnectException;
+import java.net.HttpURLConnection;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -42,12 +50,19 @@ import java.util.concurrent.TimeUnit;
 
 import io.realm.RealmModel;
 import io.realm.RealmObject;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
 import okhttp3.MediaType;
-import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit2.adapter.rxjava.HttpException;
 import rx.Observable;
+import rx.Scheduler;
 import rx.Subscriber;
-import rx.schedulers.Schedulers;
+import rx.functions.Action0;
+import rx.functions.Action2;
+import rx.functions.Actions;
+import rx.functions.Func1;
 import st.lowlevel.storo.Storo;
 
 import static com.zeyad.usecases.data.requests.PostRequest.DELETE;
@@ -59,7 +74,8 @@ public class CloudDataStore implements DataStore {
 
     public static final String APPLICATION_JSON = "application/json";
     private static final String TAG = CloudDataStore.class.getSimpleName();
-    private static final String MULTIPART_FORM_DATA = "multipart/form-data";
+    private static final String CHANGES = "changes", DELETIONS = "deletions", TOKEN = "token", RESET = "reset",
+            SYNC_NOT_PERSISTED = "Can not sync a list without persisting it";
     private static final String NO_INTERNET_NOT_PERSISTED = "Could not " +
             "reach server and could not persist request to queue!\\nGoogle play services not " +
             "available and android version less than 5.0!";
@@ -71,6 +87,9 @@ public class CloudDataStore implements DataStore {
     private final RestApi mRestApi;
     private final FirebaseJobDispatcher mDispatcher;
     private final Utils utils;
+    private final HttpValidators mHttpValidators;
+    private final FileDownloader mFileDownloader;
+    private final FileUploader mFileUploader;
     boolean mCanPersist;
 
     /**
@@ -88,6 +107,10 @@ public class CloudDataStore implements DataStore {
         mCanPersist = DataUseCase.hasRealm();
         mDispatcher = new FirebaseJobDispatcher(new GooglePlayDriver(mContext));
         utils = Utils.getInstance();
+        mHttpValidators = HttpValidators.getInstance();
+        mFileDownloader = new FileDownloader(mRestApi, Config.getDownloadConnections(),
+                Config.isSyncFileTransfers());
+        mFileUploader = new FileUploader(mRestApi, new File(mContext.getFilesDir(), FileUploader.STATE_DIR));
     }
 
     CloudDataStore(RestApi restApi, DataBaseManager dataBaseManager, IDAOMapper entityDataMapper,
@@ -100,18 +123,36 @@ public class CloudDataStore implements DataStore {
         mCanPersist = DataUseCase.hasRealm();
         mDispatcher = new FirebaseJobDispatcher(new GooglePlayDriver(mContext));
         utils = Utils.getInstance();
+        mHttpValidators = HttpValidators.getInstance();
+        mFileDownloader = new FileDownloader(mRestApi, Config.getDownloadConnections(),
+                Config.isSyncFileTransfers());
+        mFileUploader = new FileUploader(mRestApi, new File(mContext.getFilesDir(), FileUploader.STATE_DIR));
     }
 
     @NonNull
     @Override
     public Observable<?> dynamicGetObject(String url, String idColumnName, int itemId, Class domainClass,
                                           Class dataClass, boolean persist, boolean shouldCache) {
-        return mRestApi.dynamicGetObject(url, shouldCache)
+        boolean willPersist = willPersist(persist);
+        // Without an id, the persisted object standing for a 304 is unknown.
+        if (willPersist && itemId > 0)
+            return InFlightRequests.share(url, dataClass, true, getConditionally(url, dataClass,
+                    responseBody -> parseObject(responseBody, dataClass),
+                    readFromDisk(mDataBaseManager.getById(idColumnName, itemId, dataClass).first())
+                            .filter(list -> !((List) list).isEmpty())
+                            .map(list -> ((List) list).get(0)),
+                    (object, headers) -> persistGeneric(object, idColumnName, dataClass, shouldCache,
+                            () -> mHttpValidators.put(url, dataClass, headers))))
+                    .observeOn(computation())
+                    .map(entity -> mEntityDataMapper.mapToDomain(entity, domainClass));
+        return InFlightRequests.share(url, dataClass, willPersist, mRestApi.dynamicGetStream(url)
                 //.compose(applyExponentialBackoff())
+                .map(responseBody -> parseObject(responseBody, dataClass))
                 .doOnNext(object -> {
-                    if (willPersist(persist))
-                        persistGeneric(object, idColumnName, dataClass);
-                })
+                    if (willPersist)
+                        persistGeneric(object, idColumnName, dataClass, shouldCache, null);
+                }))
+                .observeOn(computation())
                 .map(entity -> mEntityDataMapper.mapToDomain(entity, domainClass));
     }
 
@@ -119,15 +160,178 @@ public class CloudDataStore implements DataStore {
     @Override
     public Observable<List> dynamicGetList(String url, Class domainClass, Class dataClass, boolean persist,
                                            boolean shouldCache) {
-        return mRestApi.dynamicGetList(url, shouldCache)
-                //.compose(applyExponentialBackoff())
+        boolean willPersist = willPersist(persist);
+        // A 304 stands for the rows the url listed when persisted, not for the whole table.
+        if (willPersist)
+            return InFlightRequests.share(url, dataClass, true, getConditionally(url, dataClass,
+                    responseBody -> parseList(responseBody, dataClass),
+                    Observable.defer(() -> {
+                        List<String> keys = mHttpValidators.getKeys(url, dataClass);
+                        return keys != null ? readFromDisk(mDataBaseManager.getAllByPrimaryKey(keys, dataClass))
+                                : Observable.<List>empty();
+                    }),
+                    (list, headers) -> persistAllGenerics(list, dataClass, () -> mHttpValidators.putList(url,
+                            dataClass, headers, mDataBaseManager.getPrimaryKeys(list, dataClass)))))
+                    .observeOn(computation())
+                    .map(entities -> mEntityDataMapper.mapAllToDomain(entities, domainClass));
+        return InFlightRequests.share(url, dataClass, willPersist, mRestApi.dynamicGetStream(url)
+                .map(responseBody -> parseList(responseBody, dataClass))
                 .doOnNext(list -> {
-                    if (willPersist(persist))
-                        persistAllGenerics(list, dataClass);
-                })
+                    if (willPersist)
+                        persistAllGenerics(list, dataClass, Actions.empty());
+                }))
+                .observeOn(computation())
                 .map(entities -> mEntityDataMapper.mapAllToDomain(entities, domainClass));
     }
 
+    /**
+     * Reads the database on the disk read pool, with the priority of the response being handled, as the
+     * responses are delivered on the threads of the http client, which have no Looper for Realm to notify
+     * its listeners on.
+     */
+    @NonNull
+    private static <T> Observable<T> readFromDisk(@NonNull Observable<T> read) {
+        return Observable.defer(() -> read.compose(Config.getSchedulerTopology().getDiskRead()
+                .<T>confine(RequestDispatcher.currentPriority())));
+    }
+
+    /**
+     * @return the pool responses are mapped to the domain class on, so mapping large ones does not hold a
+     * network thread.
+     */
+    @NonNull
+    private static Scheduler computation() {
+        return Config.getSchedulerTopology().getComputation();
+    }
+
+    /**
+     * Parses a response straight into the data class, so mapping it to the domain class copies its fields
+     * with the generated mapper, rather than round-tripping a map of them through Gson.
+     */
+    @Nullable
+    private Object parseObject(@NonNull ResponseBody responseBody, @Nullable Class dataClass) {
+        try {
+            return gson.fromJson(responseBody.charStream(), dataClass != null ? dataClass : Object.class);
+        } finally {
+            responseBody.close();
+        }
+    }
+
+    /**
+     * Parses a response straight into a list of the data class, like {@link #parseObject(ResponseBody, Class)}.
+     */
+    @NonNull
+    private List parseList(@NonNull ResponseBody responseBody, @Nullable Class dataClass) {
+        Class arrayClass = Array.newInstance(dataClass != null ? dataClass : Object.class, 0).getClass();
+        Object[] items;
+        try {
+            items = (Object[]) gson.fromJson(responseBody.charStream(), arrayClass);
+        } finally {
+            responseBody.close();
+        }
+        return items != null ? new ArrayList<>(Arrays.asList(items)) : new ArrayList<>();
+    }
+
+    /**
+     * Gets the url, revalidating its persisted response with the validators recorded when persisting it.
+     * On a 304, the persisted data is emitted as is, skipping parsing and persisting. On a 200, the body is
+     * parsed and persisted, and its validators recorded once persisted.
+     *
+     * @param parser       parses the body, then closes it.
+     * @param persisted    the persisted response, empty if missing, in which case the url is requested again
+     *                     unconditionally.
+     * @param persist      persists a parsed body, then records the validators of the given headers.
+     */
+    @NonNull
+    private <T> Observable<T> getConditionally(String url, Class dataClass, @NonNull Func1<ResponseBody, T> parser,
+                                               @NonNull Observable<T> persisted,
+                                               @NonNull Action2<T, Headers> persist) {
+        return Observable.defer(() -> mRestApi.dynamicGetConditional(url, mHttpValidators
+                .getConditionalHeaders(url, dataClass)))
+                .flatMap(response -> {
+                    if (response.code() == HttpURLConnection.HTTP_NOT_MODIFIED)
+                        return persisted.switchIfEmpty(Observable.defer(() -> {
+                            mHttpValidators.remove(url, dataClass);
+                            return getConditionally(url, dataClass, parser, persisted, persist);
+                        }));
+                    if (!response.isSuccessful())
+                        return Observable.<T>error(new HttpException(response));
+                    T body = parser.call(response.body());
+                    persist.call(body, response.headers());
+                    return Observable.just(body);
+                });
+    }
+
+    /**
+     * Requests the changes since the sync token persisted with the previous ones, or all of the list if
+     * never synced, then applies them with the next token in a single write, so only the changed rows are
+     * rewritten. Emits all of the persisted list once synced.
+     */
+    @NonNull
+    @Override
+    public Observable<List> dynamicSyncList(String url, String idColumnName, String syncTokenParameter,
+                                            Class domainClass, Class dataClass) {
+        if (!willPersist(true))
+            return Observable.error(new IllegalStateException(SYNC_NOT_PERSISTED));
+        return Observable.defer(() -> {
+            HttpUrl httpUrl = HttpUrl.parse(url);
+            if (httpUrl == null)
+                return Observable.error(new IllegalArgumentException("Invalid url: " + url));
+            String syncToken = mDataBaseManager.getSyncToken(dataClass);
+            if (syncToken != null)
+                httpUrl = httpUrl.newBuilder().setQueryParameter(syncTokenParameter, syncToken).build();
+            return mRestApi.dynamicGetStream(httpUrl.toString());
+        })
+                .concatMap(responseBody -> applyDelta(responseBody, idColumnName, dataClass))
+                .doOnNext(o -> MemoryCache.getInstance().evictAll(dataClass))
+                .concatMap(o -> readFromDisk(mDataBaseManager.getAll(dataClass).first()))
+                .observeOn(computation())
+                .map(entities -> mEntityDataMapper.mapAllToDomain(entities, domainClass));
+    }
+
+    @NonNull
+    private Observable<Boolean> applyDelta(@NonNull ResponseBody responseBody, String idColumnName,
+                                           Class dataClass) {
+        JSONObject delta;
+        try {
+            delta = new JSONObject(responseBody.string());
+        } catch (IOException | JSONException e) {
+            return Observable.error(e);
+        } finally {
+            responseBody.close();
+        }
+        JSONArray changes = delta.optJSONArray(CHANGES), deletions = delta.optJSONArray(DELETIONS);
+        List<Long> deletedIds = new ArrayList<>(deletions != null ? deletions.length() : 0);
+        try {
+            for (int i = 0, length = deletions != null ? deletions.length() : 0; i < length; i++)
+                deletedIds.add(deletions.getLong(i));
+            return mDataBaseManager.applyDelta(changes != null ? changes : new JSONArray(), deletedIds,
+                    delta.optBoolean(RESET), delta.getString(TOKEN), idColumnName, dataClass);
+        } catch (JSONException e) {
+            return Observable.error(e);
+        }
+    }
+
+    /**
+     * Streams a JSON array from the response body. Each chunk is parsed straight into the data class,
+     * committed to the DB in its own write if persisting, then emitted mapped to the domain class. The
+     * next chunk is only read once the previous one is committed.
+     */
+    @NonNull
+    @Override
+    public Observable<List> dynamicStreamList(String url, Class domainClass, Class dataClass, boolean persist,
+                                              int chunkSize) {
+        if (chunkSize <= 0)
+            return Observable.error(new IllegalArgumentException("chunkSize should be greater than 0"));
+        boolean willPersist = willPersist(persist);
+        return mRestApi.dynamicGetStream(url)
+                .concatMap(responseBody -> JsonChunkReader.read(responseBody, dataClass, chunkSize, gson))
+                .concatMap(chunk -> willPersist ? mDataBaseManager.putAll(chunk, dataClass).last().map(o -> chunk)
+                        : Observable.just(chunk))
+                .observeOn(computation())
+                .map(chunk -> mEntityDataMapper.mapAllToDomain(chunk, domainClass));
+    }
+
     @NonNull
     @Override
     public Observable<?> dynamicPatchObject(String url, String idColumnName, @NonNull JSONObject jsonObject,
@@ -294,36 +498,37 @@ public class CloudDataStore implements DataStore {
     @NonNull
     @Override
     public Observable<?> dynamicUploadFile(String url, @NonNull File file, String key, HashMap<String, Object> parameters,
-                                           boolean onWifi, boolean whileCharging, boolean queuable, Class domainClass) {
+                                           int partSize, boolean onWifi, boolean whileCharging, boolean queuable,
+                                           boolean progress, Class domainClass) {
         return Observable.defer(() -> {
             if (isQueuableIfOutOfNetwork(queuable) && isOnWifi(mContext) == onWifi
                     && isChargingReqCompatible(isCharging(mContext), whileCharging)) {
-                queueIOFile(url, file, true, whileCharging, false);
+                queueUpload(url, file, key, parameters, partSize, whileCharging);
                 return Observable.empty();
             } else if (!utils.isNetworkAvailable(mContext))
                 return mErrorObservableNotPersisted;
-            RequestBody requestFile = RequestBody.create(MediaType.parse(MULTIPART_FORM_DATA), file);
-            HashMap<String, RequestBody> map = new HashMap<>();
-            map.put(key, requestFile);
-            if (parameters != null && !parameters.isEmpty())
-                for (Map.Entry<String, Object> entry : parameters.entrySet())
-                    map.put(entry.getKey(), utils.createPartFromString(entry.getValue()));
-            return mRestApi.dynamicUpload(url, map, MultipartBody.Part.createFormData(key, file.getName(), requestFile))
-                    .onErrorResumeNext(throwable -> {
-                        if (isQueuableIfOutOfNetwork(queuable) && isNetworkFailure(throwable)) {
-                            queueIOFile(url, file, true, whileCharging, false);
-                            return Observable.empty();
-                        }
-                        return Observable.error(throwable);
-                    })
-                    .map(realmModel -> mEntityDataMapper.mapToDomain(realmModel, domainClass));
+            Observable<Object> upload = progress ?
+                    mFileUploader.uploadWithProgress(url, file, key, parameters, partSize)
+                            .map(event -> event.isComplete() ?
+                                    event.withResult(mEntityDataMapper.mapToDomain(event.getResult(), domainClass)) : event)
+                            .cast(Object.class) :
+                    mFileUploader.upload(url, file, key, parameters, partSize)
+                            .map(realmModel -> mEntityDataMapper.mapToDomain(realmModel, domainClass));
+            return upload.onErrorResumeNext(throwable -> {
+                // Queued, a chunked upload resumes from the parts acked so far.
+                if (isQueuableIfOutOfNetwork(queuable) && isNetworkFailure(throwable)) {
+                    queueUpload(url, file, key, parameters, partSize, whileCharging);
+                    return Observable.empty();
+                }
+                return Observable.error(throwable);
+            });
         });
     }
 
     @NonNull
     @Override
     public Observable<?> dynamicDownloadFile(String url, @NonNull File file, boolean onWifi,
-                                             boolean whileCharging, boolean queuable) {
+                                             boolean whileCharging, boolean queuable, boolean progress) {
         return Observable.defer(() -> {
             if (isQueuableIfOutOfNetwork(queuable) && isOnWifi(mContext) == onWifi
                     && isChargingReqCompatible(isCharging(mContext), whileCharging)) {
@@ -331,47 +536,15 @@ public class CloudDataStore implements DataStore {
                 return Observable.empty();
             } else if (!utils.isNetworkAvailable(mContext))
                 return mErrorObservableNotPersisted;
-            return mRestApi.dynamicDownload(url)
-                    .onErrorResumeNext(throwable -> {
-                        if (isQueuableIfOutOfNetwork(queuable) && isNetworkFailure(throwable)) {
-                            queueIOFile(url, file, true, whileCharging, false);
-                            return Observable.empty();
-                        }
-                        return Observable.error(throwable);
-                    })
-                    .map(responseBody -> {
-                        try {
-                            InputStream inputStream = null;
-                            OutputStream outputStream = null;
-                            try {
-                                byte[] fileReader = new byte[4096];
-                                long fileSize = responseBody.contentLength();
-                                long fileSizeDownloaded = 0;
-                                inputStream = responseBody.byteStream();
-                                outputStream = new FileOutputStream(file);
-                                while (true) {
-                                    int read = inputStream.read(fileReader);
-                                    if (read == -1)
-                                        break;
-                                    outputStream.write(fileReader, 0, read);
-                                    fileSizeDownloaded += read;
-                                    Log.d(TAG, "file download: " + fileSizeDownloaded + " of "
-                                            + fileSize);
-                                }
-                                outputStream.flush();
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            } finally {
-                                if (inputStream != null)
-                                    inputStream.close();
-                                if (outputStream != null)
-                                    outputStream.close();
-                            }
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                        return file;
-                    });
+            Observable<Object> download = progress ? mFileDownloader.downloadWithProgress(url, file).cast(Object.class)
+                    : mFileDownloader.download(url, file).cast(Object.class);
+            return download.onErrorResumeNext(throwable -> {
+                if (isQueuableIfOutOfNetwork(queuable) && isNetworkFailure(throwable)) {
+                    queueIOFile(url, file, onWifi, whileCharging, true);
+                    return Observable.empty();
+                }
+                return Observable.error(throwable);
+            });
         });
     }
 
@@ -380,6 +553,20 @@ public class CloudDataStore implements DataStore {
         return Observable.error(new IllegalAccessException(mContext.getString(R.string.search_disk_error_cloud)));
     }
 
+    @NonNull
+    @Override
+    public Observable<List> queryDisk(RealmManager.RealmQueryProvider queryFactory, Class domainClass,
+                                      GetRequest.ReadMode readMode, int windowSize) {
+        return queryDisk(queryFactory, domainClass);
+    }
+
+    @NonNull
+    @Override
+    public Observable<CollectionChange> queryDiskChanges(RealmManager.RealmQueryProvider queryFactory,
+                                                         String idColumnName, Class domainClass) {
+        return Observable.error(new IllegalAccessException(mContext.getString(R.string.search_disk_error_cloud)));
+    }
+
     private <T> Observable.Transformer<T, T> applyExponentialBackoff() {
         return observable -> observable.retryWhen(attempts -> {
             if (ConnectionClassManager.getInstance().getCurrentBandwidthQuality()
@@ -441,6 +628,18 @@ public class CloudDataStore implements DataStore {
                 .build());
     }
 
+    private void queueUpload(String url, File file, String key, HashMap<String, Object> parameters, int partSize,
+                             boolean whileCharging) {
+        FileIORequest.FileIORequestBuilder builder = new FileIORequest.FileIORequestBuilder(url, file)
+                .key(key)
+                .payLoad(parameters)
+                .onWifi(true)
+                .whileCharging(whileCharging);
+        if (partSize > 0)
+            builder.chunked(partSize);
+        utils.queueFileIOCore(mDispatcher, false, builder.build());
+    }
+
     private void queuePost(String method, String url, String idColumnName, JSONArray jsonArray, boolean persist) {
         queuePostCore(new PostRequest.PostRequestBuilder(null, persist)
                 .idColumnName(idColumnName)
@@ -464,6 +663,16 @@ public class CloudDataStore implements DataStore {
     }
 
     private void persistGeneric(Object object, String idColumnName, Class dataClass) {
+        persistGeneric(object, idColumnName, dataClass, true, null);
+    }
+
+    /**
+     * @param shouldCache whether the persisted object is cached too, when caching is enabled.
+     * @param onPersisted run once persisted, if any.
+     */
+    private void persistGeneric(Object object, String idColumnName, Class dataClass, boolean shouldCache,
+                                @Nullable Action0 onPersisted) {
+        boolean willCache = shouldCache && Config.isWithCache();
         if (object instanceof File)
             return;
         Object mappedObject = null;
@@ -484,13 +693,9 @@ public class CloudDataStore implements DataStore {
                         JSONArray jsonArray = (JSONArray) object;
                         observable = mDataBaseManager.putAll(jsonArray, idColumnName, dataClass)
                                 .flatMap(o -> {
-                                    JSONObject jsonObject;
-                                    for (int i = 0, size = jsonArray.length(); i < size; i++) {
-                                        jsonObject = jsonArray.optJSONObject(i);
-                                        Storo.put(dataClass.getSimpleName()
-                                                        + jsonObject.optString(idColumnName),
-                                                gson.fromJson(jsonObject.toString(), dataClass)).execute();
-                                    }
+                                    if (willCache)
+                                        for (int i = 0, size = jsonArray.length(); i < size; i++)
+                                            cacheObject(jsonArray.optJSONObject(i), idColumnName, dataClass);
                                     return Observable.just(true);
                                 });
                     } else if (object instanceof List) {
@@ -508,12 +713,8 @@ public class CloudDataStore implements DataStore {
                             jsonObject = new JSONObject(gson.toJson(object, dataClass));
                         observable = mDataBaseManager.put(jsonObject, idColumnName, dataClass)
                                 .flatMap(o -> {
-                                    if (Config.isWithCache())
-                                        return Observable.just(Storo.put(dataClass.getSimpleName()
-                                                        + jsonObject.optString(idColumnName),
-                                                gson.fromJson(jsonObject.toString(), dataClass))
-                                                .setExpiry(Config.getCacheAmount(), Config.getCacheTimeUnit())
-                                                .execute());
+                                    if (willCache)
+                                        return Observable.just(cacheObject(jsonObject, idColumnName, dataClass));
                                     else return Observable.just(o);
                                 });
                     }
@@ -523,22 +724,36 @@ public class CloudDataStore implements DataStore {
                 }
         }
         if (observable != null)
-            observable.subscribeOn(Schedulers.io())
+            observable.subscribeOn(Config.getSchedulerTopology().getDiskWrite())
+                    .doOnCompleted(onPersisted != null ? onPersisted : Actions.empty())
                     .subscribe(new SimpleSubscriber(object));
     }
 
-    private void persistAllGenerics(List collection, Class dataClass) {
+    private void persistAllGenerics(List collection, Class dataClass, @NonNull Action0 onPersisted) {
         mDataBaseManager.putAll(mEntityDataMapper.mapAllToRealm(collection, dataClass), dataClass)
-                .subscribeOn(Schedulers.io())
+                .subscribeOn(Config.getSchedulerTopology().getDiskWrite())
+                .doOnCompleted(onPersisted)
                 .subscribe(new SimpleSubscriber(collection));
     }
 
-    private void deleteFromPersistence(List collection, String idColumnName, Class dataClass) {
-        for (int i = 0, collectionSize = collection.size(); i < collectionSize; i++) {
-            mDataBaseManager.evictById(dataClass, idColumnName, (long) collection.get(i));
-            if (Config.isWithCache())
-                Storo.delete(dataClass.getSimpleName() + (long) collection.get(i));
-        }
+    private void deleteFromPersistence(List<Long> ids, String idColumnName, Class dataClass) {
+        if (ids == null || ids.isEmpty())
+            return;
+        mHttpValidators.evictAll(dataClass);
+        mDataBaseManager.evictAllById(idColumnName, ids, dataClass)
+                .subscribe(new SimpleSubscriber(ids));
+        if (Config.isWithCache())
+            DiskDataStore.evictCached(ids, dataClass);
+    }
+
+    private Boolean cacheObject(JSONObject jsonObject, String idColumnName, Class dataClass) {
+        String key = MemoryCache.createKey(dataClass, jsonObject.optString(idColumnName)),
+                json = jsonObject.toString();
+        Object object = gson.fromJson(json, dataClass);
+        MemoryCache.getInstance().putJson(key, json, dataClass);
+        return Storo.put(key, object)
+                .setExpiry(Config.getCacheAmount(), Config.getCacheTimeUnit())
+                .execute();
     }
 
     private static class SimpleSubscriber extends Subscriber<Object> {
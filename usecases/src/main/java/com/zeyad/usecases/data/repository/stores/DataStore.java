@@ -4,7 +4,9 @@ import android.support.annotation.NonNull;
 
 import com.google.gson.Gson;
 import com.zeyad.usecases.Config;
+import com.zeyad.usecases.data.db.CollectionChange;
 import com.zeyad.usecases.data.db.RealmManager;
+import com.zeyad.usecases.data.requests.GetRequest;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -25,6 +27,22 @@ public interface DataStore {
     Observable<List> dynamicGetList(final String url, Class domainClass, Class dataClass, boolean persist,
                                     boolean shouldCache);
 
+    /**
+     * Get an {@link Observable} which will emit a list in chunks of at most chunkSize items, as they
+     * are read from the response.
+     */
+    @NonNull
+    Observable<List> dynamicStreamList(final String url, Class domainClass, Class dataClass, boolean persist,
+                                       int chunkSize);
+
+    /**
+     * Get an {@link Observable} which will emit the whole list, once the changes since the sync token
+     * persisted with the previous ones are applied.
+     */
+    @NonNull
+    Observable<List> dynamicSyncList(final String url, String idColumnName, String syncTokenParameter,
+                                     Class domainClass, Class dataClass);
+
     /**
      * Get an {@link Observable} which will emit a ? by its id.
      */
@@ -88,11 +106,36 @@ public interface DataStore {
     @NonNull
     Observable<List> queryDisk(RealmManager.RealmQueryProvider queryFactory, Class domainClass);
 
+    /**
+     * Search disk with a RealmQuery without copying all results, see {@link GetRequest.ReadMode}.
+     */
+    @NonNull
+    Observable<List> queryDisk(RealmManager.RealmQueryProvider queryFactory, Class domainClass,
+                               GetRequest.ReadMode readMode, int windowSize);
+
+    /**
+     * Search disk with a RealmQuery which returns an {@link Observable} that will emit the changes of its
+     * results, with the changed rows mapped to the domain class.
+     */
+    @NonNull
+    Observable<CollectionChange> queryDiskChanges(RealmManager.RealmQueryProvider queryFactory,
+                                                  String idColumnName, Class domainClass);
+
+    /**
+     * Downloads a file, emitting {@link com.zeyad.usecases.data.network.TransferProgress} events then the
+     * file in a complete one if progress is set, else only the file.
+     */
     @NonNull
     Observable<?> dynamicDownloadFile(String url, File file, boolean onWifi, boolean whileCharging,
-                                      boolean queuable);
+                                      boolean queuable, boolean progress);
 
+    /**
+     * Uploads a file, in resumable parts if partSize is positive, else in a single multipart request. If
+     * progress is set, emits {@link com.zeyad.usecases.data.network.TransferProgress} events then the response
+     * in a complete one.
+     */
     @NonNull
     Observable<?> dynamicUploadFile(final String url, final File file, String key, HashMap<String, Object> parameter,
-                                    boolean onWifi, boolean whileCharging, boolean queuable, Class domainClass);
+                                    int partSize, boolean onWifi, boolean whileCharging, boolean queuable,
+                                    boolean progress, Class domainClass);
 }
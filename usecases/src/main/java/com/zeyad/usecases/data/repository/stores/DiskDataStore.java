@@ -3,9 +3,11 @@ package com.zeyad.usecases.data.repository.stores;
 import android.support.annotation.NonNull;
 
 import com.zeyad.usecases.Config;
+import com.zeyad.usecases.data.db.CollectionChange;
 import com.zeyad.usecases.data.db.DataBaseManager;
 import com.zeyad.usecases.data.db.RealmManager;
 import com.zeyad.usecases.data.mappers.IDAOMapper;
+import com.zeyad.usecases.data.requests.GetRequest;
 import com.zeyad.usecases.data.utils.ModelConverters;
 
 import org.json.JSONArray;
@@ -13,6 +15,8 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 
@@ -20,7 +24,9 @@ import rx.Observable;
 import st.lowlevel.storo.Storo;
 
 public class DiskDataStore implements DataStore {
-    private static final String IO_DB_ERROR = "Can not IO file to local DB";
+    private static final String IO_DB_ERROR = "Can not IO file to local DB",
+            STREAM_DB_ERROR = "Can not stream a list from local DB",
+            SYNC_DB_ERROR = "Can not sync a list from local DB";
     private DataBaseManager mDataBaseManager;
     private IDAOMapper mEntityDataMapper;
 
@@ -38,23 +44,30 @@ public class DiskDataStore implements DataStore {
     @Override
     public Observable<?> dynamicGetObject(String url, String idColumnName, int itemId, Class domainClass,
                                           Class dataClass, boolean persist, boolean shouldCache) {
-        if (Config.isWithCache() && Storo.contains(dataClass.getSimpleName() + itemId))
-            return Storo.get(dataClass.getSimpleName() + itemId, dataClass).async()
-                    .map(realmModel -> mEntityDataMapper.mapToDomain(realmModel, domainClass));
-        else
-            return mDataBaseManager.getById(idColumnName, itemId, dataClass)
-                    .map(realmModel -> {
-                        try {
-                            if (Config.isWithCache() && !Storo.contains(dataClass.getSimpleName() + itemId))
-                                cacheObject(idColumnName, new JSONObject(gson.toJson(realmModel)),
-                                        dataClass);
-                        } catch (JSONException e) {
-                            e.printStackTrace();
-                        }
-                        if (domainClass == dataClass)
-                            return realmModel;
-                        else return mEntityDataMapper.mapToDomain(realmModel, domainClass);
-                    });
+        if (Config.isWithCache()) {
+            String key = MemoryCache.createKey(dataClass, itemId);
+            Object cached = MemoryCache.getInstance().get(key, dataClass);
+            if (cached != null)
+                return Observable.just(cached)
+                        .map(realmModel -> mEntityDataMapper.mapToDomain(realmModel, domainClass));
+            else if (Storo.contains(key))
+                return Storo.get(key, dataClass).async()
+                        .doOnNext(realmModel -> MemoryCache.getInstance().put(key, realmModel, dataClass))
+                        .map(realmModel -> mEntityDataMapper.mapToDomain(realmModel, domainClass));
+        }
+        return mDataBaseManager.getById(idColumnName, itemId, dataClass)
+                .map(realmModel -> {
+                    try {
+                        if (Config.isWithCache() && !Storo.contains(dataClass.getSimpleName() + itemId))
+                            cacheObject(idColumnName, new JSONObject(gson.toJson(realmModel)),
+                                    dataClass);
+                    } catch (JSONException e) {
+                        e.printStackTrace();
+                    }
+                    if (domainClass == dataClass)
+                        return realmModel;
+                    else return mEntityDataMapper.mapToDomain(realmModel, domainClass);
+                });
     }
 
     @NonNull
@@ -69,6 +82,20 @@ public class DiskDataStore implements DataStore {
                 });
     }
 
+    @NonNull
+    @Override
+    public Observable<List> dynamicStreamList(String url, Class domainClass, Class dataClass, boolean persist,
+                                              int chunkSize) {
+        return Observable.error(new IllegalStateException(STREAM_DB_ERROR));
+    }
+
+    @NonNull
+    @Override
+    public Observable<List> dynamicSyncList(String url, String idColumnName, String syncTokenParameter,
+                                            Class domainClass, Class dataClass) {
+        return Observable.error(new IllegalStateException(SYNC_DB_ERROR));
+    }
+
     @Override
     public Observable<?> dynamicPatchObject(String url, String idColumnName, @NonNull JSONObject jsonObject,
                                             Class domainClass, Class dataClass, boolean persist, boolean queuable) {
@@ -90,25 +117,57 @@ public class DiskDataStore implements DataStore {
                 });
     }
 
+    @NonNull
+    @Override
+    public Observable<List> queryDisk(RealmManager.RealmQueryProvider queryFactory, Class domainClass,
+                                      GetRequest.ReadMode readMode, int windowSize) {
+        switch (readMode) {
+            case LIVE:
+                return mDataBaseManager.getQueryLive(queryFactory).map(list -> (List) list);
+            case WINDOWED:
+                return mDataBaseManager.getQueryWindowed(queryFactory, windowSize)
+                        .map(results -> {
+                            List list = (List) results;
+                            return list.isEmpty() || domainClass == list.get(0).getClass() ? list
+                                    : new MappedList(list, mEntityDataMapper, domainClass);
+                        });
+            default:
+                return queryDisk(queryFactory, domainClass);
+        }
+    }
+
+    @NonNull
+    @Override
+    @SuppressWarnings("unchecked")
+    public Observable<CollectionChange> queryDiskChanges(RealmManager.RealmQueryProvider queryFactory,
+                                                         String idColumnName, Class domainClass) {
+        return mDataBaseManager.getQueryChanges(queryFactory, idColumnName)
+                .map(change -> ((CollectionChange<?>) change).map(row -> domainClass == row.getClass() ? row
+                        : mEntityDataMapper.mapToDomain(row, domainClass)));
+    }
+
     @NonNull
     @Override
     public Observable<?> dynamicDeleteCollection(String url, String idColumnName, JSONArray jsonArray,
                                                  Class dataClass, boolean persist, boolean queuable) {
         List<Long> convertToListOfId = ModelConverters.convertToListOfId(jsonArray);
-        return mDataBaseManager.evictCollection(idColumnName, convertToListOfId, dataClass)
-                .doOnNext(o -> {
-                    if (Config.isWithCache()) {
-                        for (int i = 0, convertToListOfIdSize = convertToListOfId != null ? convertToListOfId.size() : 0;
-                             i < convertToListOfIdSize; i++)
-                            Storo.delete(dataClass.getSimpleName() + convertToListOfId.get(i));
-                    }
-                });
+        return mDataBaseManager.evictAllById(idColumnName, convertToListOfId, dataClass)
+                .doOnNext(outcomes -> {
+                    HttpValidators.getInstance().evictAll(dataClass);
+                    if (Config.isWithCache())
+                        evictCached(outcomes.keySet(), dataClass);
+                })
+                .map(outcomes -> !outcomes.containsValue(Boolean.FALSE));
     }
 
     @NonNull
     @Override
     public Observable<Boolean> dynamicDeleteAll(Class dataClass) {
-        return mDataBaseManager.evictAll(dataClass);
+        return mDataBaseManager.evictAll(dataClass)
+                .doOnNext(o -> {
+                    MemoryCache.getInstance().evictAll(dataClass);
+                    HttpValidators.getInstance().evictAll(dataClass);
+                });
     }
 
     @NonNull
@@ -148,12 +207,27 @@ public class DiskDataStore implements DataStore {
     }
 
     private void cacheObject(String idColumnName, JSONObject jsonObject, Class dataClass) {
-        Storo.put(dataClass.getSimpleName() + jsonObject.optString(idColumnName), gson
-                .fromJson(jsonObject.toString(), dataClass))
+        String key = MemoryCache.createKey(dataClass, jsonObject.optString(idColumnName)),
+                json = jsonObject.toString();
+        Object object = gson.fromJson(json, dataClass);
+        MemoryCache.getInstance().putJson(key, json, dataClass);
+        Storo.put(key, object)
                 .setExpiry(Config.getCacheAmount(), Config.getCacheTimeUnit())
                 .execute();
     }
 
+    /**
+     * Evicts the cached entries of the given ids, from the memory cache in one pass, then from Storo.
+     */
+    static void evictCached(@NonNull Collection<Long> ids, @NonNull Class dataClass) {
+        List<String> keys = new ArrayList<>(ids.size());
+        for (Long id : ids)
+            keys.add(MemoryCache.createKey(dataClass, id));
+        MemoryCache.getInstance().removeAll(keys);
+        for (int i = 0, size = keys.size(); i < size; i++)
+            Storo.delete(keys.get(i));
+    }
+
     private void cacheList(String idColumnName, JSONArray jsonArray, Class dataClass) {
         for (int i = 0, size = jsonArray.length(); i < size; i++) {
             cacheObject(idColumnName, jsonArray.optJSONObject(i), dataClass);
@@ -163,14 +237,15 @@ public class DiskDataStore implements DataStore {
     @NonNull
     @Override
     public Observable<?> dynamicUploadFile(String url, File file, String key, HashMap<String, Object> parameters,
-                                           boolean onWifi, boolean whileCharging, boolean queuable, Class domainClass) {
+                                           int partSize, boolean onWifi, boolean whileCharging, boolean queuable,
+                                           boolean progress, Class domainClass) {
         return Observable.error(new IllegalStateException(IO_DB_ERROR));
     }
 
     @NonNull
     @Override
     public Observable<?> dynamicDownloadFile(String url, File file, boolean onWifi, boolean whileCharging,
-                                             boolean queuable) {
+                                             boolean queuable, boolean progress) {
         return Observable.error(new IllegalStateException(IO_DB_ERROR));
     }
 }
@@ -0,0 +1,210 @@
+package com.zeyad.usecases.data.repository.stores;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import com.zeyad.usecases.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Headers;
+
+/**
+ * Validators ({@code ETag}, {@code Last-Modified}) of the GET responses persisted, by url and data class,
+ * to revalidate them with conditional requests. The validators of a list come with the primary keys of
+ * its items, so a {@code 304 Not Modified} stands for these rows only, not for the whole table.
+ * <p>
+ * A url only has validators once its response is persisted, and loses them when its data class is
+ * evicted, so a {@code 304 Not Modified} always has persisted data to stand for. They are kept in memory
+ * and in shared preferences when a context is set, to outlive the process like the data they stand for.
+ */
+final class HttpValidators {
+
+    static final String IF_NONE_MATCH = "If-None-Match", IF_MODIFIED_SINCE = "If-Modified-Since";
+    private static final String ETAG = "ETag", LAST_MODIFIED = "Last-Modified",
+            PREFS_FILE_NAME = "http_validators", ETAG_SUFFIX = "|etag", LAST_MODIFIED_SUFFIX = "|last_modified",
+            KEYS_SUFFIX = "|keys";
+    private static final char KEY_SEPARATOR = ',', ESCAPE = '\\';
+    private static HttpValidators sInstance;
+    private final Map<String, String[]> mValidators;
+    @Nullable
+    private final SharedPreferences mPreferences;
+
+    @VisibleForTesting
+    HttpValidators(@Nullable SharedPreferences preferences) {
+        mValidators = new HashMap<>();
+        mPreferences = preferences;
+    }
+
+    static synchronized HttpValidators getInstance() {
+        if (sInstance == null) {
+            Context context = Config.getInstance().getContext();
+            sInstance = new HttpValidators(context != null ? context.getSharedPreferences(PREFS_FILE_NAME,
+                    Context.MODE_PRIVATE) : null);
+        }
+        return sInstance;
+    }
+
+    @NonNull
+    private static String createKey(String url, @NonNull Class dataClass) {
+        return dataClass.getName() + "|" + url;
+    }
+
+    /**
+     * @return the conditional headers revalidating the persisted response of the url, empty if none.
+     */
+    @NonNull
+    synchronized Map<String, String> getConditionalHeaders(String url, @NonNull Class dataClass) {
+        String[] validators = get(createKey(url, dataClass));
+        if (validators == null)
+            return Collections.emptyMap();
+        Map<String, String> headers = new HashMap<>(2);
+        if (validators[0] != null)
+            headers.put(IF_NONE_MATCH, validators[0]);
+        if (validators[1] != null)
+            headers.put(IF_MODIFIED_SINCE, validators[1]);
+        return headers;
+    }
+
+    /**
+     * @return the primary keys of the items of the list persisted for the url, in order, null if none.
+     */
+    @Nullable
+    synchronized List<String> getKeys(String url, @NonNull Class dataClass) {
+        String[] validators = get(createKey(url, dataClass));
+        return validators != null && validators[2] != null ? decodeKeys(validators[2]) : null;
+    }
+
+    /**
+     * Records the validators of a response once persisted, or forgets the previous ones if it has none.
+     */
+    synchronized void put(String url, @NonNull Class dataClass, @NonNull Headers headers) {
+        put(url, dataClass, headers, null);
+    }
+
+    /**
+     * Records the validators of a list once persisted, with the primary keys of its items, or forgets the
+     * previous ones if it has no validators or its items have no primary keys.
+     */
+    synchronized void putList(String url, @NonNull Class dataClass, @NonNull Headers headers,
+                              @Nullable List<String> keys) {
+        if (keys == null)
+            remove(url, dataClass);
+        else put(url, dataClass, headers, encodeKeys(keys));
+    }
+
+    private void put(String url, @NonNull Class dataClass, @NonNull Headers headers, @Nullable String keys) {
+        String key = createKey(url, dataClass), etag = headers.get(ETAG), lastModified = headers.get(LAST_MODIFIED);
+        if (etag == null && lastModified == null) {
+            remove(url, dataClass);
+            return;
+        }
+        mValidators.put(key, new String[]{etag, lastModified, keys});
+        if (mPreferences != null)
+            mPreferences.edit()
+                    .putString(key + ETAG_SUFFIX, etag)
+                    .putString(key + LAST_MODIFIED_SUFFIX, lastModified)
+                    .putString(key + KEYS_SUFFIX, keys)
+                    .apply();
+    }
+
+    synchronized void remove(String url, @NonNull Class dataClass) {
+        String key = createKey(url, dataClass);
+        mValidators.put(key, null);
+        if (mPreferences != null)
+            mPreferences.edit()
+                    .remove(key + ETAG_SUFFIX)
+                    .remove(key + LAST_MODIFIED_SUFFIX)
+                    .remove(key + KEYS_SUFFIX)
+                    .apply();
+    }
+
+    /**
+     * Forgets the validators of all the urls persisted as the data class, once some of it is evicted.
+     */
+    synchronized void evictAll(@NonNull Class dataClass) {
+        String prefix = dataClass.getName() + "|";
+        List<String> keys = new ArrayList<>(mValidators.keySet());
+        for (String key : keys)
+            if (key.startsWith(prefix))
+                mValidators.put(key, null);
+        if (mPreferences != null) {
+            SharedPreferences.Editor editor = mPreferences.edit();
+            for (String key : mPreferences.getAll().keySet())
+                if (key.startsWith(prefix))
+                    editor.remove(key);
+            editor.apply();
+        }
+    }
+
+    @VisibleForTesting
+    synchronized void clear() {
+        mValidators.clear();
+        if (mPreferences != null)
+            mPreferences.edit().clear().apply();
+    }
+
+    /**
+     * @return the validators of the key, null if none, reading them from the preferences once.
+     */
+    @Nullable
+    private String[] get(@NonNull String key) {
+        if (mValidators.containsKey(key))
+            return mValidators.get(key);
+        String[] validators = null;
+        if (mPreferences != null) {
+            String etag = mPreferences.getString(key + ETAG_SUFFIX, null),
+                    lastModified = mPreferences.getString(key + LAST_MODIFIED_SUFFIX, null);
+            if (etag != null || lastModified != null)
+                validators = new String[]{etag, lastModified, mPreferences.getString(key + KEYS_SUFFIX, null)};
+        }
+        mValidators.put(key, validators);
+        return validators;
+    }
+
+    /**
+     * @return the keys separated by commas, escaping the commas and backslashes within them.
+     */
+    @NonNull
+    private static String encodeKeys(@NonNull List<String> keys) {
+        StringBuilder encoded = new StringBuilder();
+        for (int i = 0, size = keys.size(); i < size; i++) {
+            if (i > 0)
+                encoded.append(KEY_SEPARATOR);
+            String key = keys.get(i);
+            for (int j = 0, length = key.length(); j < length; j++) {
+                char c = key.charAt(j);
+                if (c == KEY_SEPARATOR || c == ESCAPE)
+                    encoded.append(ESCAPE);
+                encoded.append(c);
+            }
+        }
+        return encoded.toString();
+    }
+
+    @NonNull
+    private static List<String> decodeKeys(@NonNull String encoded) {
+        List<String> keys = new ArrayList<>();
+        if (encoded.isEmpty())
+            return keys;
+        StringBuilder key = new StringBuilder();
+        for (int i = 0, length = encoded.length(); i < length; i++) {
+            char c = encoded.charAt(i);
+            if (c == ESCAPE && i + 1 < length)
+                key.append(encoded.charAt(++i));
+            else if (c == KEY_SEPARATOR) {
+                keys.add(key.toString());
+                key.setLength(0);
+            } else key.append(c);
+        }
+        keys.add(key.toString());
+        return keys;
+    }
+}
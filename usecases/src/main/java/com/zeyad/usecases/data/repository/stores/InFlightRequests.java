@@ -0,0 +1,75 @@
+package com.zeyad.usecases.data.repository.stores;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import rx.Observable;
+
+/**
+ * Registry of in-flight GET requests, used to coalesce identical concurrent requests into a
+ * single network call.
+ * <p>
+ * Requests are keyed by url, data class and whether the response is persisted. All subscribers
+ * that join while a request is in-flight share the same upstream subscription, thus the same
+ * network call and the same persist. The upstream is unsubscribed once the last subscriber leaves,
+ * and the entry is dropped as soon as the request terminates or is cancelled.
+ */
+final class InFlightRequests {
+
+    private static final Map<String, Observable<?>> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    private InFlightRequests() {
+    }
+
+    /**
+     * Wraps the source so that, on subscription, it joins the in-flight request matching the given
+     * attributes, or registers itself as the in-flight request if there is none.
+     *
+     * @param url       end point of the request.
+     * @param dataClass the data class representation of the response.
+     * @param persist   whether the response is going to be persisted.
+     * @param source    cold observable that performs the request, subscribed only if nothing is in-flight.
+     * @return an {@link Observable} sharing one ref-counted upstream among all concurrent subscribers.
+     */
+    @NonNull
+    static <T> Observable<T> share(String url, @NonNull Class dataClass, boolean persist,
+                                   @NonNull Observable<T> source) {
+        String key = createKey(url, dataClass, persist);
+        return Observable.defer(() -> join(key, source));
+    }
+
+    @NonNull
+    @SuppressWarnings("unchecked")
+    private static <T> Observable<T> join(String key, @NonNull Observable<T> source) {
+        synchronized (IN_FLIGHT) {
+            Observable<T> inFlight = (Observable<T>) IN_FLIGHT.get(key);
+            if (inFlight == null) {
+                final Observable<T>[] shared = new Observable[1];
+                shared[0] = source.doOnTerminate(() -> IN_FLIGHT.remove(key, shared[0]))
+                        .doOnUnsubscribe(() -> IN_FLIGHT.remove(key, shared[0]))
+                        .share();
+                inFlight = shared[0];
+                IN_FLIGHT.put(key, inFlight);
+            }
+            return inFlight;
+        }
+    }
+
+    @VisibleForTesting
+    static int size() {
+        return IN_FLIGHT.size();
+    }
+
+    @VisibleForTesting
+    static void clear() {
+        IN_FLIGHT.clear();
+    }
+
+    @NonNull
+    private static String createKey(String url, @NonNull Class dataClass, boolean persist) {
+        return dataClass.getName() + (persist ? "|persist|" : "|") + url;
+    }
+}
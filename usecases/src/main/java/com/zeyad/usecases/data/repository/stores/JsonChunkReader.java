@@ -0,0 +1,73 @@
+package com.zeyad.usecases.data.repository.stores;
+
+import android.support.annotation.NonNull;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.ResponseBody;
+import rx.Observable;
+import rx.exceptions.Exceptions;
+import rx.observables.SyncOnSubscribe;
+
+/**
+ * Reads a JSON array response incrementally, one chunk at a time.
+ * <p>
+ * Elements are parsed straight from the {@link ResponseBody} stream into the data class, without
+ * materializing the whole payload. Chunks are only read when requested downstream, so memory is
+ * bounded by the chunk size rather than the payload size.
+ */
+final class JsonChunkReader {
+
+    private JsonChunkReader() {
+    }
+
+    /**
+     * @param responseBody body of the response, expected to hold a JSON array. Closed once read, or right
+     *                     away if the chunk size is invalid.
+     * @param dataClass    the data class to parse each element into.
+     * @param chunkSize    maximum number of elements per emitted list.
+     * @param gson         the {@link Gson} instance used to parse the elements.
+     * @return a back-pressured {@link Observable} emitting lists of at most chunkSize elements.
+     */
+    @NonNull
+    static Observable<List> read(@NonNull ResponseBody responseBody, @NonNull Class dataClass, int chunkSize,
+                                 @NonNull Gson gson) {
+        if (chunkSize <= 0) {
+            responseBody.close();
+            return Observable.error(new IllegalArgumentException("chunkSize should be greater than 0"));
+        }
+        return Observable.create(SyncOnSubscribe.<JsonReader, List>createSingleState(
+                () -> {
+                    JsonReader jsonReader = new JsonReader(responseBody.charStream());
+                    try {
+                        jsonReader.beginArray();
+                    } catch (IOException e) {
+                        responseBody.close();
+                        throw Exceptions.propagate(e);
+                    }
+                    return jsonReader;
+                },
+                (jsonReader, observer) -> {
+                    try {
+                        List<Object> chunk = new ArrayList<>(chunkSize);
+                        while (chunk.size() < chunkSize && jsonReader.hasNext())
+                            chunk.add(gson.fromJson(jsonReader, dataClass));
+                        if (!chunk.isEmpty())
+                            observer.onNext(chunk);
+                        if (jsonReader.peek() == JsonToken.END_ARRAY) {
+                            jsonReader.endArray();
+                            observer.onCompleted();
+                        }
+                    } catch (Exception e) {
+                        observer.onError(e);
+                    }
+                },
+                jsonReader -> responseBody.close()));
+    }
+}
@@ -0,0 +1,34 @@
+package com.zeyad.usecases.data.repository.stores;
+
+import android.support.annotation.NonNull;
+
+import com.zeyad.usecases.data.mappers.IDAOMapper;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Read only view mapping the elements of a list to the domain class as they are accessed.
+ */
+final class MappedList extends AbstractList<Object> {
+
+    private final List mSource;
+    private final IDAOMapper mEntityDataMapper;
+    private final Class mDomainClass;
+
+    MappedList(@NonNull List source, @NonNull IDAOMapper entityDataMapper, @NonNull Class domainClass) {
+        mSource = source;
+        mEntityDataMapper = entityDataMapper;
+        mDomainClass = domainClass;
+    }
+
+    @Override
+    public Object get(int index) {
+        return mEntityDataMapper.mapToDomain(mSource.get(index), mDomainClass);
+    }
+
+    @Override
+    public int size() {
+        return mSource.size();
+    }
+}
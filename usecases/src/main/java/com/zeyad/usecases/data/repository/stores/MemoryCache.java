@@ -0,0 +1,186 @@
+package com.zeyad.usecases.data.repository.stores;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import com.zeyad.usecases.Config;
+import com.zeyad.usecases.data.mappers.GeneratedDAOMapperFactory;
+import com.zeyad.usecases.data.mappers.IDataCopier;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory L1 cache that sits in front of Storo and Realm.
+ * <p>
+ * Entries are keyed the same way as Storo ({@code dataClass.getSimpleName() + id}), expire after
+ * {@link Config#getCacheAmount()} {@link Config#getCacheTimeUnit()} and are evicted in least recently
+ * used order once their estimated size exceeds {@link Config#getMemoryCacheSize()} bytes.
+ * <p>
+ * Values are held as objects, copied when cached and on every read with the {@link IDataCopier} generated
+ * for their data class, so a caller mutating what it got does not change what the other callers get. Values
+ * of data classes with no generated copier are not cached, as they could only be copied through json.
+ */
+final class MemoryCache {
+
+    private static final MemoryCache sInstance = new MemoryCache();
+    private final LinkedHashMap<String, Entry> mEntries;
+    private long mSize;
+
+    @VisibleForTesting
+    MemoryCache() {
+        mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    static MemoryCache getInstance() {
+        return sInstance;
+    }
+
+    @NonNull
+    static String createKey(@NonNull Class dataClass, Object id) {
+        return dataClass.getSimpleName() + id;
+    }
+
+    /**
+     * @return a copy of the cached value if present, not expired and of the given type, null otherwise.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    <T> T get(@NonNull String key, @NonNull Class<T> dataClass) {
+        Entry entry;
+        synchronized (this) {
+            entry = mEntries.get(key);
+            if (entry == null)
+                return null;
+            if (entry.isExpired(System.currentTimeMillis())) {
+                removeEntry(key);
+                return null;
+            }
+        }
+        return dataClass.isAssignableFrom(entry.mDataClass) ? (T) entry.mCopier.copy(entry.mValue) : null;
+    }
+
+    /**
+     * Caches a copy of the value.
+     */
+    void put(@NonNull String key, @Nullable Object value, @NonNull Class dataClass) {
+        IDataCopier copier = GeneratedDAOMapperFactory.getInstance().getDataCopier(dataClass);
+        if (value == null || copier == null) {
+            remove(key);
+            return;
+        }
+        put(key, copier.copy(value), Config.getGson().toJson(value).length(), dataClass, copier);
+    }
+
+    /**
+     * Caches the value the json represents.
+     *
+     * @param json json representation of the value, of the data class.
+     */
+    void putJson(@NonNull String key, @Nullable String json, @NonNull Class dataClass) {
+        IDataCopier copier = GeneratedDAOMapperFactory.getInstance().getDataCopier(dataClass);
+        if (json == null || copier == null) {
+            remove(key);
+            return;
+        }
+        Object value = Config.getGson().fromJson(json, dataClass);
+        if (value != null)
+            put(key, value, json.length(), dataClass, copier);
+        else remove(key);
+    }
+
+    private synchronized void put(@NonNull String key, @NonNull Object value, int jsonLength,
+                                  @NonNull Class dataClass, @NonNull IDataCopier copier) {
+        long size = estimateSize(jsonLength), maxSize = Config.getMemoryCacheSize();
+        removeEntry(key);
+        if (size > maxSize)
+            return;
+        mEntries.put(key, new Entry(value, dataClass, copier, size, computeExpiry()));
+        mSize += size;
+        trimToSize(maxSize);
+    }
+
+    synchronized void remove(@NonNull String key) {
+        removeEntry(key);
+    }
+
+    synchronized void removeAll(@NonNull Collection<String> keys) {
+        for (String key : keys)
+            removeEntry(key);
+    }
+
+    /**
+     * Removes all entries of the given data class.
+     */
+    synchronized void evictAll(@NonNull Class dataClass) {
+        for (Iterator<Entry> iterator = mEntries.values().iterator(); iterator.hasNext(); ) {
+            Entry entry = iterator.next();
+            if (entry.mDataClass == dataClass) {
+                mSize -= entry.mSize;
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized void clear() {
+        mEntries.clear();
+        mSize = 0;
+    }
+
+    synchronized long size() {
+        return mSize;
+    }
+
+    private void removeEntry(String key) {
+        Entry entry = mEntries.remove(key);
+        if (entry != null)
+            mSize -= entry.mSize;
+    }
+
+    private void trimToSize(long maxSize) {
+        Iterator<Map.Entry<String, Entry>> iterator = mEntries.entrySet().iterator();
+        while (mSize > maxSize && iterator.hasNext()) {
+            mSize -= iterator.next().getValue().mSize;
+            iterator.remove();
+        }
+    }
+
+    private long computeExpiry() {
+        TimeUnit timeUnit = Config.getCacheTimeUnit();
+        if (timeUnit == null || Config.getCacheAmount() <= 0)
+            return Long.MAX_VALUE;
+        return System.currentTimeMillis() + timeUnit.toMillis(Config.getCacheAmount());
+    }
+
+    /**
+     * Rough estimate of the heap held by an object: two bytes per character of its json
+     * representation plus a fixed overhead for the entry itself.
+     */
+    @VisibleForTesting
+    static long estimateSize(int jsonLength) {
+        return 2L * jsonLength + 64;
+    }
+
+    private static class Entry {
+        private final Object mValue;
+        private final Class mDataClass;
+        private final IDataCopier mCopier;
+        private final long mSize, mExpiry;
+
+        Entry(Object value, Class dataClass, IDataCopier copier, long size, long expiry) {
+            mValue = value;
+            mDataClass = dataClass;
+            mCopier = copier;
+            mSize = size;
+            mExpiry = expiry;
+        }
+
+        boolean isExpired(long now) {
+            return now > mExpiry;
+        }
+    }
+}
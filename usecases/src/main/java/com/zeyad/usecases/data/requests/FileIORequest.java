@@ -5,6 +5,8 @@ import android.os.Parcelable;
 import android.support.annotation.NonNull;
 
 import com.zeyad.usecases.Config;
+import com.zeyad.usecases.data.network.FileUploader;
+import com.zeyad.usecases.domain.executors.PriorityScheduler;
 
 import java.io.File;
 import java.util.HashMap;
@@ -30,6 +32,7 @@ public class FileIORequest implements Parcelable {
     private boolean onWifi, whileCharging, queuable;
     private Class dataClass, presentationClass;
     private HashMap<String, Object> parameters;
+    private int partSize, priority;
 
     public FileIORequest() {
     }
@@ -44,6 +47,8 @@ public class FileIORequest implements Parcelable {
         parameters = uploadRequestBuilder.getParameters();
         dataClass = uploadRequestBuilder.getDataClass();
         presentationClass = uploadRequestBuilder.getPresentationClass();
+        partSize = uploadRequestBuilder.getPartSize();
+        priority = uploadRequestBuilder.getPriority();
     }
 
     protected FileIORequest(Parcel in) {
@@ -56,6 +61,8 @@ public class FileIORequest implements Parcelable {
         this.dataClass = (Class) in.readSerializable();
         this.presentationClass = (Class) in.readSerializable();
         this.parameters = (HashMap<String, Object>) in.readSerializable();
+        this.partSize = in.readInt();
+        this.priority = in.readInt();
     }
 
     public String getUrl() {
@@ -94,6 +101,20 @@ public class FileIORequest implements Parcelable {
         return parameters != null ? parameters : new HashMap<>();
     }
 
+    /**
+     * @return size of the parts the file is uploaded in, 0 to upload it in a single request.
+     */
+    public int getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * @return order of the transfer among the queued ones, higher first.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
     @Override
     public int describeContents() {
         return 0;
@@ -110,6 +131,8 @@ public class FileIORequest implements Parcelable {
         dest.writeSerializable(this.dataClass);
         dest.writeSerializable(this.presentationClass);
         dest.writeSerializable(this.parameters);
+        dest.writeInt(this.partSize);
+        dest.writeInt(this.priority);
     }
 
     public static class FileIORequestBuilder {
@@ -119,6 +142,7 @@ public class FileIORequest implements Parcelable {
         private boolean onWifi, whileCharging, queuable;
         private Class dataClass, presentationClass;
         private HashMap<String, Object> parameters;
+        private int partSize, priority = PriorityScheduler.PRIORITY_NORMAL;
 
         public FileIORequestBuilder(String url, File file) {
             this.url = url;
@@ -179,6 +203,36 @@ public class FileIORequest implements Parcelable {
             return this;
         }
 
+        /**
+         * Uploads the file in resumable parts of {@link FileUploader#DEFAULT_PART_SIZE} bytes.
+         */
+        @NonNull
+        public FileIORequestBuilder chunked() {
+            return chunked(FileUploader.DEFAULT_PART_SIZE);
+        }
+
+        /**
+         * Uploads the file in resumable parts of the given size, to a server implementing the protocol
+         * of {@link FileUploader}.
+         */
+        @NonNull
+        public FileIORequestBuilder chunked(int partSize) {
+            if (partSize < 1)
+                throw new IllegalArgumentException("partSize should be positive");
+            this.partSize = partSize;
+            return this;
+        }
+
+        /**
+         * @param priority order of the transfer among the queued ones, higher first, like
+         *                 {@link PriorityScheduler#PRIORITY_HIGH} for files the user waits for.
+         */
+        @NonNull
+        public FileIORequestBuilder priority(int priority) {
+            this.priority = priority;
+            return this;
+        }
+
         @NonNull
         public FileIORequest build() {
             return new FileIORequest(this);
@@ -219,5 +273,13 @@ public class FileIORequest implements Parcelable {
         public HashMap<String, Object> getParameters() {
             return parameters;
         }
+
+        public int getPartSize() {
+            return partSize;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
     }
 }
\ No newline at end of file
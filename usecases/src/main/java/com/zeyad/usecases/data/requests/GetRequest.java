@@ -5,17 +5,21 @@ import android.support.annotation.NonNull;
 import com.zeyad.usecases.Config;
 import com.zeyad.usecases.data.db.RealmManager;
 import com.zeyad.usecases.data.repository.DataRepository;
+import com.zeyad.usecases.domain.executors.PriorityScheduler;
 
 /**
  * @author zeyad on 7/29/16.
  */
 public class GetRequest {
 
-    private String url, idColumnName;
+    public static final int DEFAULT_CHUNK_SIZE = 200, DEFAULT_WINDOW_SIZE = 50;
+    public static final String DEFAULT_SYNC_TOKEN_PARAMETER = "since";
+    private String url, idColumnName, group, syncTokenParameter;
     private Class dataClass, presentationClass;
-    private boolean persist, shouldCache;
-    private int itemId;
+    private boolean persist, shouldCache, deltaSync;
+    private int itemId, chunkSize, windowSize, priority;
     private RealmManager.RealmQueryProvider queryFactory;
+    private ReadMode readMode;
 
     private GetRequest(@NonNull GetRequestBuilder getRequestBuilder) {
         url = getRequestBuilder.mUrl;
@@ -26,6 +30,13 @@ public class GetRequest {
         itemId = getRequestBuilder.mItemId;
         shouldCache = getRequestBuilder.mShouldCache;
         queryFactory = getRequestBuilder.mQueryFactory;
+        chunkSize = getRequestBuilder.mChunkSize;
+        readMode = getRequestBuilder.mReadMode;
+        windowSize = getRequestBuilder.mWindowSize;
+        priority = getRequestBuilder.mPriority;
+        group = getRequestBuilder.mGroup;
+        deltaSync = getRequestBuilder.mDeltaSync;
+        syncTokenParameter = getRequestBuilder.mSyncTokenParameter;
     }
 
     public String getUrl() {
@@ -60,10 +71,59 @@ public class GetRequest {
         return itemId;
     }
 
+    public int getChunkSize() {
+        return chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+    }
+
+    public ReadMode getReadMode() {
+        return readMode != null ? readMode : ReadMode.COPY;
+    }
+
+    public int getWindowSize() {
+        return windowSize > 0 ? windowSize : DEFAULT_WINDOW_SIZE;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public boolean isDeltaSync() {
+        return deltaSync;
+    }
+
+    public String getSyncTokenParameter() {
+        return syncTokenParameter != null ? syncTokenParameter : DEFAULT_SYNC_TOKEN_PARAMETER;
+    }
+
+    /**
+     * How lists read from the database are handed back.
+     */
+    public enum ReadMode {
+        /**
+         * Detached copies of all rows, mapped to the presentation class, on every change.
+         */
+        COPY,
+        /**
+         * The managed, lazily loaded results of the data class, confined to the observing thread and
+         * valid until unsubscribed.
+         */
+        LIVE,
+        /**
+         * A list copying and mapping only the rows accessed, keeping the last window of them, confined to
+         * the observing thread and valid until unsubscribed.
+         */
+        WINDOWED
+    }
+
     public static class GetRequestBuilder {
-        private int mItemId;
-        private boolean mShouldCache, mPersist;
-        private String mIdColumnName, mUrl;
+        private int mItemId, mChunkSize, mWindowSize, mPriority = PriorityScheduler.PRIORITY_NORMAL;
+        private ReadMode mReadMode;
+        private boolean mShouldCache, mPersist, mDeltaSync;
+        private String mIdColumnName, mUrl, mGroup, mSyncTokenParameter;
         private Class mDataClass, mPresentationClass;
         private RealmManager.RealmQueryProvider mQueryFactory;
 
@@ -114,6 +174,80 @@ public class GetRequest {
             return this;
         }
 
+        /**
+         * @param chunkSize maximum number of items per emission when streaming a list.
+         */
+        @NonNull
+        public GetRequestBuilder chunkSize(int chunkSize) {
+            mChunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Reads disk queries as live, managed results instead of copies.
+         */
+        @NonNull
+        public GetRequestBuilder live() {
+            mReadMode = ReadMode.LIVE;
+            return this;
+        }
+
+        /**
+         * Reads disk queries as a windowed projection, copying only the rows accessed.
+         *
+         * @param windowSize number of copied rows kept, positive.
+         */
+        @NonNull
+        public GetRequestBuilder windowed(int windowSize) {
+            if (windowSize <= 0)
+                throw new IllegalArgumentException("windowSize should be positive");
+            mReadMode = ReadMode.WINDOWED;
+            mWindowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * @param priority order of the request among the ones waiting for the same pool, higher first, like
+         *                 {@link PriorityScheduler#PRIORITY_HIGH} for user visible requests.
+         */
+        @NonNull
+        public GetRequestBuilder priority(int priority) {
+            mPriority = priority;
+            return this;
+        }
+
+        /**
+         * @param group cancellation group of the request, like the screen it is made for, see
+         *              {@link com.zeyad.usecases.domain.interactors.data.IDataUseCase#cancelAll(String)}.
+         */
+        @NonNull
+        public GetRequestBuilder group(String group) {
+            mGroup = group;
+            return this;
+        }
+
+        /**
+         * Syncs the list with the changes since the sync token persisted with the previous ones, sent as the
+         * {@link #DEFAULT_SYNC_TOKEN_PARAMETER} query parameter. The response is expected as
+         * {@code {"changes": [...], "deletions": [ids], "token": "...", "reset": false}}, reset telling the
+         * changes are a full snapshot.
+         */
+        @NonNull
+        public GetRequestBuilder deltaSync() {
+            return deltaSync(DEFAULT_SYNC_TOKEN_PARAMETER);
+        }
+
+        /**
+         * @param syncTokenParameter name of the query parameter the sync token is sent as.
+         * @see #deltaSync()
+         */
+        @NonNull
+        public GetRequestBuilder deltaSync(String syncTokenParameter) {
+            mDeltaSync = true;
+            mSyncTokenParameter = syncTokenParameter;
+            return this;
+        }
+
         @NonNull
         public GetRequest build() {
             return new GetRequest(this);
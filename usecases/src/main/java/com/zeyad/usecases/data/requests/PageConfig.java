@@ -0,0 +1,128 @@
+package com.zeyad.usecases.data.requests;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Describes how a list is paged: where it starts, how the cursor of the next page is derived from a
+ * loaded page, when the next page is prefetched and how many pages are kept in memory.
+ * <p>
+ * The cursor is set as a query parameter of the url of the {@link GetRequest} it is used with.
+ */
+public class PageConfig {
+
+    public static final int DEFAULT_PREFETCH_DISTANCE = 10, DEFAULT_MAX_PAGES = 5;
+    public static final String DEFAULT_CURSOR_PARAMETER = "cursor";
+    private final String initialCursor, cursorParameter;
+    private final CursorProvider cursorProvider;
+    private final int prefetchDistance, maxPages;
+
+    private PageConfig(@NonNull PageConfigBuilder pageConfigBuilder) {
+        initialCursor = pageConfigBuilder.mInitialCursor;
+        cursorParameter = pageConfigBuilder.mCursorParameter;
+        cursorProvider = pageConfigBuilder.mCursorProvider;
+        prefetchDistance = pageConfigBuilder.mPrefetchDistance;
+        maxPages = pageConfigBuilder.mMaxPages;
+    }
+
+    public String getInitialCursor() {
+        return initialCursor != null ? initialCursor : "";
+    }
+
+    public String getCursorParameter() {
+        return cursorParameter != null ? cursorParameter : DEFAULT_CURSOR_PARAMETER;
+    }
+
+    /**
+     * @param url    url of the list.
+     * @param cursor cursor of the page, empty for the first page if it has none.
+     * @return the url of the page, with its cursor as a query parameter, replacing any previous one.
+     */
+    @NonNull
+    public String getPageUrl(@NonNull String url, @NonNull String cursor) {
+        HttpUrl httpUrl = HttpUrl.parse(url);
+        if (httpUrl == null)
+            throw new IllegalArgumentException("Can not page invalid url: " + url);
+        HttpUrl.Builder builder = httpUrl.newBuilder();
+        if (cursor.isEmpty())
+            builder.removeAllQueryParameters(getCursorParameter());
+        else
+            builder.setQueryParameter(getCursorParameter(), cursor);
+        return builder.build().toString();
+    }
+
+    public CursorProvider getCursorProvider() {
+        return cursorProvider;
+    }
+
+    public int getPrefetchDistance() {
+        return prefetchDistance >= 0 ? prefetchDistance : DEFAULT_PREFETCH_DISTANCE;
+    }
+
+    public int getMaxPages() {
+        return maxPages > 0 ? maxPages : DEFAULT_MAX_PAGES;
+    }
+
+    public interface CursorProvider {
+        /**
+         * @param page          the page that was just loaded, mapped to the presentation class.
+         * @param currentCursor the cursor the page was loaded with.
+         * @return the cursor of the next page, null if this was the last page.
+         */
+        @Nullable
+        String nextCursor(@NonNull List page, String currentCursor);
+    }
+
+    public static class PageConfigBuilder {
+        private String mInitialCursor, mCursorParameter = DEFAULT_CURSOR_PARAMETER;
+        private final CursorProvider mCursorProvider;
+        private int mPrefetchDistance = DEFAULT_PREFETCH_DISTANCE, mMaxPages = DEFAULT_MAX_PAGES;
+
+        public PageConfigBuilder(@NonNull CursorProvider cursorProvider) {
+            mCursorProvider = cursorProvider;
+        }
+
+        @NonNull
+        public PageConfigBuilder initialCursor(String initialCursor) {
+            mInitialCursor = initialCursor;
+            return this;
+        }
+
+        /**
+         * @param cursorParameter name of the query parameter the cursor is sent in.
+         */
+        @NonNull
+        public PageConfigBuilder cursorParameter(String cursorParameter) {
+            mCursorParameter = cursorParameter;
+            return this;
+        }
+
+        /**
+         * @param prefetchDistance number of items from the end of the loaded pages at which the next page
+         *                         is requested.
+         */
+        @NonNull
+        public PageConfigBuilder prefetchDistance(int prefetchDistance) {
+            mPrefetchDistance = prefetchDistance;
+            return this;
+        }
+
+        /**
+         * @param maxPages maximum number of pages kept in memory, older pages are dropped first.
+         */
+        @NonNull
+        public PageConfigBuilder maxPages(int maxPages) {
+            mMaxPages = maxPages;
+            return this;
+        }
+
+        @NonNull
+        public PageConfig build() {
+            return new PageConfig(this);
+        }
+    }
+}
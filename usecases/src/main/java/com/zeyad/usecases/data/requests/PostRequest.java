@@ -6,6 +6,7 @@ import android.support.annotation.NonNull;
 
 import com.zeyad.usecases.Config;
 import com.zeyad.usecases.data.repository.DataRepository;
+import com.zeyad.usecases.domain.executors.PriorityScheduler;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -29,13 +30,14 @@ public class PostRequest implements Parcelable {
             return new PostRequest[size];
         }
     };
-    private String url, idColumnName, method;
+    private String url, idColumnName, method, group;
     private Class dataClass, presentationClass;
     private boolean onWifi, whileCharging, persist, queuable;
     private JSONObject jsonObject;
     private JSONArray jsonArray;
     private HashMap<String, Object> keyValuePairs;
     private Object object;
+    private int priority;
 
     public PostRequest(@NonNull PostRequestBuilder postRequestBuilder) {
         url = postRequestBuilder.url;
@@ -51,6 +53,8 @@ public class PostRequest implements Parcelable {
         idColumnName = postRequestBuilder.idColumnName;
         method = postRequestBuilder.method;
         object = postRequestBuilder.object;
+        priority = postRequestBuilder.priority;
+        group = postRequestBuilder.group;
     }
 
     public PostRequest(String idColumnName, String url, JSONObject keyValuePairs,
@@ -98,6 +102,8 @@ public class PostRequest implements Parcelable {
         this.jsonArray = in.readParcelable(JSONArray.class.getClassLoader());
         this.keyValuePairs = (HashMap<String, Object>) in.readSerializable();
         this.object = in.readParcelable(Object.class.getClassLoader());
+        this.priority = in.readInt();
+        this.group = in.readString();
     }
 
     public JSONObject getObjectBundle() {
@@ -166,6 +172,14 @@ public class PostRequest implements Parcelable {
         return idColumnName != null ? idColumnName : DataRepository.DEFAULT_ID_KEY;
     }
 
+    public int getPriority() {
+        return priority;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
     public String getMethod() {
         return method;
     }
@@ -190,6 +204,8 @@ public class PostRequest implements Parcelable {
         dest.writeParcelable((Parcelable) this.jsonArray, flags);
         dest.writeSerializable(this.keyValuePairs);
         dest.writeParcelable((Parcelable) this.object, flags);
+        dest.writeInt(this.priority);
+        dest.writeString(this.group);
     }
 
     public static class PostRequestBuilder {
@@ -197,9 +213,10 @@ public class PostRequest implements Parcelable {
         JSONArray jsonArray;
         JSONObject jsonObject;
         HashMap<String, Object> keyValuePairs;
-        String url, idColumnName, method;
+        String url, idColumnName, method, group;
         Class dataClass, presentationClass;
         boolean persist, queuable, onWifi, whileCharging;
+        int priority = PriorityScheduler.PRIORITY_NORMAL;
 
         public PostRequestBuilder(Class dataClass, boolean persist) {
             this.dataClass = dataClass;
@@ -278,6 +295,24 @@ public class PostRequest implements Parcelable {
             return this;
         }
 
+        /**
+         * @param priority order of the request among the ones waiting for the same pool, higher first.
+         */
+        @NonNull
+        public PostRequestBuilder priority(int priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        /**
+         * @param group cancellation group of the request, like the screen it is made for.
+         */
+        @NonNull
+        public PostRequestBuilder group(String group) {
+            this.group = group;
+            return this;
+        }
+
         @NonNull
         public PostRequest build() {
             return new PostRequest(this);
@@ -0,0 +1,153 @@
+package com.zeyad.usecases.data.services;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Log file of JSON records, one per line, backing the {@link Outbox} and the {@link TransferQueue}.
+ * <p>
+ * Every record is appended and synced before returning. The log is replayed on load and rewritten with
+ * only the records of the current state once it grows well beyond them. A record left partially written
+ * by a crash is truncated on load, so the next record starts on a line of its own.
+ */
+final class AppendOnlyLog {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int MIN_COMPACTION_SIZE = 64;
+    private final File mFile;
+    private final String mTag;
+    private int mSize;
+
+    /**
+     * @param tag tag of the log messages, naming the owner of the log.
+     */
+    AppendOnlyLog(@NonNull File file, @NonNull String tag) {
+        mFile = file;
+        mTag = tag;
+    }
+
+    private static void close(@Nullable Closeable closeable) {
+        if (closeable != null)
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+    }
+
+    /**
+     * Replays the records of the log, in the order they were appended, skipping the corrupted ones.
+     */
+    void load(@NonNull Replayer replayer) {
+        if (!mFile.exists())
+            return;
+        BufferedReader reader = null;
+        try {
+            truncatePartialRecord();
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(mFile), UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                mSize++;
+                try {
+                    replayer.replay(new JSONObject(line));
+                } catch (JSONException e) {
+                    Log.e(mTag, "Skipping corrupted record", e);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(mTag, "Could not load " + mFile.getName(), e);
+        } finally {
+            close(reader);
+        }
+    }
+
+    void append(@NonNull JSONObject record) throws IOException {
+        FileOutputStream outputStream = new FileOutputStream(mFile, true);
+        try {
+            outputStream.write((record.toString() + '\n').getBytes(UTF_8));
+            outputStream.getFD().sync();
+        } finally {
+            close(outputStream);
+        }
+        mSize++;
+    }
+
+    /**
+     * Rewrites the log with the records of the current state, once it holds over twice as many records as
+     * there are entries.
+     *
+     * @param entries  number of entries of the current state.
+     * @param snapshot records of the current state.
+     */
+    void compactIfNeeded(int entries, @NonNull Snapshot snapshot) throws IOException {
+        if (mSize < MIN_COMPACTION_SIZE || mSize < 2 * entries)
+            return;
+        File compacted = new File(mFile.getPath() + ".tmp");
+        FileOutputStream outputStream = new FileOutputStream(compacted);
+        Writer writer = new OutputStreamWriter(outputStream, UTF_8);
+        int size = 0;
+        try {
+            for (JSONObject record : snapshot.getRecords()) {
+                writer.write(record.toString() + '\n');
+                size++;
+            }
+            writer.flush();
+            outputStream.getFD().sync();
+        } catch (JSONException e) {
+            throw new IOException(e);
+        } finally {
+            close(writer);
+        }
+        if (!compacted.renameTo(mFile))
+            throw new IOException("Could not replace " + mFile.getName());
+        mSize = size;
+    }
+
+    /**
+     * Drops the bytes after the last newline, left by a crash while appending.
+     */
+    private void truncatePartialRecord() throws IOException {
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        try {
+            long length = file.length(), end = length;
+            for (; end > 0; end--) {
+                file.seek(end - 1);
+                if (file.read() == '\n')
+                    break;
+            }
+            if (end < length) {
+                Log.e(mTag, "Truncating partially written record");
+                file.setLength(end);
+                file.getFD().sync();
+            }
+        } finally {
+            close(file);
+        }
+    }
+
+    interface Replayer {
+        void replay(@NonNull JSONObject record) throws JSONException;
+    }
+
+    interface Snapshot {
+        @NonNull
+        List<JSONObject> getRecords() throws JSONException;
+    }
+}
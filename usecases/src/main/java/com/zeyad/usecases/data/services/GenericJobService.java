@@ -2,7 +2,6 @@ package com.zeyad.usecases.data.services;
 
 import android.content.Context;
 import android.support.annotation.NonNull;
-import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.util.Log;
 
@@ -12,18 +11,27 @@ import com.firebase.jobdispatcher.Job;
 import com.firebase.jobdispatcher.JobParameters;
 import com.firebase.jobdispatcher.JobService;
 import com.zeyad.usecases.R;
+import com.zeyad.usecases.data.requests.FileIORequest;
 import com.zeyad.usecases.data.services.jobs.FileIO;
+import com.zeyad.usecases.data.services.jobs.OutboxDrainer;
 import com.zeyad.usecases.data.services.jobs.Post;
+import com.zeyad.usecases.data.services.jobs.TransferManager;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 import rx.subscriptions.CompositeSubscription;
 
 public class GenericJobService extends JobService {
 
     public static final String DOWNLOAD_FILE = "DOWNLOAD_FILE", UPLOAD_FILE = "UPLOAD_FILE",
-            JOB_TYPE = "JOB_TYPE", POST = "POST", PAYLOAD = "payload", TRIAL_COUNT = "trialCount";
+            JOB_TYPE = "JOB_TYPE", POST = "POST", DRAIN_OUTBOX = "DRAIN_OUTBOX", PAYLOAD = "payload",
+            TRIAL_COUNT = "trialCount", RUN_TRANSFERS = "RUN_TRANSFERS", ON_WIFI = "onWifi",
+            WHILE_CHARGING = "whileCharging";
     private static final String TAG = GenericJobService.class.getSimpleName();
-    @Nullable
-    private CompositeSubscription mCompositeSubscription;
+    // The work of each running job, by tag, so stopping a job only stops its own work.
+    private final Map<String, CompositeSubscription> mSubscriptions = new HashMap<>();
     private Context mContext;
 
     @Override
@@ -50,24 +58,50 @@ public class GenericJobService extends JobService {
 
     @Override
     public boolean onStartJob(@NonNull JobParameters params) {
-        if (params.getExtras() != null && params.getExtras().containsKey(PAYLOAD)) {
-            if (mCompositeSubscription == null || mCompositeSubscription.isUnsubscribed())
-                mCompositeSubscription = new CompositeSubscription();
+        if (params.getExtras() != null && params.getExtras().containsKey(JOB_TYPE)) {
+            CompositeSubscription subscriptions = new CompositeSubscription();
+            synchronized (mSubscriptions) {
+                mSubscriptions.put(params.getTag(), subscriptions);
+            }
             switch (params.getExtras().getString(JOB_TYPE, "")) {
+                case DRAIN_OUTBOX:
+                    drainOutbox(params, subscriptions);
+                    Log.d(TAG, getString(R.string.job_started, DRAIN_OUTBOX));
+                    break;
                 case POST:
-                    mCompositeSubscription.add(new Post(params.getExtras().getInt(TRIAL_COUNT),
-                            params.getExtras().getParcelable(PAYLOAD), this).execute());
+                    // Scheduled before the outbox existed, move it to the outbox.
+                    try {
+                        Outbox.getInstance(this).add(params.getExtras().getParcelable(PAYLOAD));
+                    } catch (IOException e) {
+                        Log.e(TAG, "Could not move request to the outbox", e);
+                        subscriptions.add(new Post(params.getExtras().getInt(TRIAL_COUNT),
+                                params.getExtras().getParcelable(PAYLOAD), this).execute());
+                        break;
+                    }
+                    drainOutbox(params, subscriptions);
                     Log.d(TAG, getString(R.string.job_started, POST));
                     break;
-                case DOWNLOAD_FILE:
-                    mCompositeSubscription.add(new FileIO(params.getExtras().getInt(TRIAL_COUNT),
-                            params.getExtras().getParcelable(PAYLOAD), this, true).execute());
-                    Log.d(TAG, getString(R.string.job_started, DOWNLOAD_FILE));
+                case RUN_TRANSFERS:
+                    runTransfers(params, subscriptions, params.getExtras().getBoolean(ON_WIFI),
+                            params.getExtras().getBoolean(WHILE_CHARGING));
+                    Log.d(TAG, getString(R.string.job_started, RUN_TRANSFERS));
                     break;
+                case DOWNLOAD_FILE:
                 case UPLOAD_FILE:
-                    mCompositeSubscription.add(new FileIO(params.getExtras().getInt(TRIAL_COUNT),
-                            params.getExtras().getParcelable(PAYLOAD), this, false).execute());
-                    Log.d(TAG, getString(R.string.job_started, UPLOAD_FILE));
+                    // Scheduled before the transfer queue existed, move it to the queue.
+                    String jobType = params.getExtras().getString(JOB_TYPE);
+                    boolean isDownload = DOWNLOAD_FILE.equals(jobType);
+                    FileIORequest fileIORequest = params.getExtras().getParcelable(PAYLOAD);
+                    try {
+                        TransferQueue.getInstance(this).add(fileIORequest, isDownload);
+                    } catch (IOException e) {
+                        Log.e(TAG, "Could not move transfer to the queue", e);
+                        subscriptions.add(new FileIO(params.getExtras().getInt(TRIAL_COUNT),
+                                fileIORequest, this, isDownload).execute());
+                        break;
+                    }
+                    runTransfers(params, subscriptions, fileIORequest.onWifi(), fileIORequest.isWhileCharging());
+                    Log.d(TAG, getString(R.string.job_started, jobType));
                     break;
                 default:
                     break;
@@ -78,12 +112,38 @@ public class GenericJobService extends JobService {
 
     @Override
     public boolean onStopJob(@NonNull JobParameters params) {
-        if (mCompositeSubscription != null)
-            mCompositeSubscription.unsubscribe();
+        CompositeSubscription subscriptions;
+        synchronized (mSubscriptions) {
+            subscriptions = mSubscriptions.remove(params.getTag());
+        }
+        if (subscriptions != null)
+            subscriptions.unsubscribe();
         Log.i(TAG, "on stop job: " + params.getTag());
         return true; // Answers the question: "Should this job be retried?"
     }
 
+    private void drainOutbox(@NonNull JobParameters params, @NonNull CompositeSubscription subscriptions) {
+        subscriptions.add(new OutboxDrainer(this).drain(needsRetry -> finish(params, subscriptions, needsRetry)));
+    }
+
+    private void runTransfers(@NonNull JobParameters params, @NonNull CompositeSubscription subscriptions,
+                              boolean onWifi, boolean whileCharging) {
+        subscriptions.add(TransferManager.getInstance(this).run(onWifi, whileCharging,
+                needsRetry -> finish(params, subscriptions, needsRetry)));
+    }
+
+    /**
+     * Forgets the work of the job, unless a later run of it replaced it already, and reports it finished.
+     */
+    private void finish(@NonNull JobParameters params, @NonNull CompositeSubscription subscriptions,
+                        boolean needsRetry) {
+        synchronized (mSubscriptions) {
+            if (mSubscriptions.get(params.getTag()) == subscriptions)
+                mSubscriptions.remove(params.getTag());
+        }
+        jobFinished(params, needsRetry);
+    }
+
     /**
      * This method is meant for testing purposes. To set a mocked context.
      *
@@ -0,0 +1,254 @@
+package com.zeyad.usecases.data.services;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+
+import com.zeyad.usecases.data.requests.PostRequest;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durable, ordered queue of mutations waiting to be sent to the server.
+ * <p>
+ * Every change is appended to an {@link AppendOnlyLog} and synced before returning, so queued mutations
+ * survive process death.
+ */
+public class Outbox {
+
+    static final String FILE_NAME = "usecases_outbox.log";
+    private static final String TAG = Outbox.class.getSimpleName(), OP = "op", ADD = "add", REMOVE = "remove",
+            REPLACE = "replace", ATTEMPT = "attempt", ID = "id", ATTEMPTS = "attempts", REQUEST = "request", URL = "url",
+            ID_COLUMN_NAME = "idColumnName", METHOD = "method", DATA_CLASS = "dataClass",
+            PRESENTATION_CLASS = "presentationClass", PERSIST = "persist", OBJECT = "object", ARRAY = "array";
+    private static Outbox sInstance;
+    private final AppendOnlyLog mLog;
+    private final Map<Long, Entry> mEntries;
+    private long mNextId;
+
+    @VisibleForTesting
+    public Outbox(@NonNull File file) {
+        mLog = new AppendOnlyLog(file, TAG);
+        mEntries = new LinkedHashMap<>();
+        mLog.load(this::replay);
+    }
+
+    public static synchronized Outbox getInstance(@NonNull Context context) {
+        if (sInstance == null)
+            sInstance = new Outbox(new File(context.getFilesDir(), FILE_NAME));
+        return sInstance;
+    }
+
+    /**
+     * Appends a mutation to the end of the queue.
+     *
+     * @param postRequest the mutation to be sent.
+     * @return the entry holding the mutation.
+     */
+    @NonNull
+    public synchronized Entry add(@NonNull PostRequest postRequest) throws IOException {
+        Entry entry = new Entry(mNextId++, 0, postRequest);
+        try {
+            append(new JSONObject().put(OP, ADD).put(ID, entry.mId).put(REQUEST, toJson(postRequest)));
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+        mEntries.put(entry.mId, entry);
+        return entry;
+    }
+
+    /**
+     * Removes a sent or abandoned mutation from the queue.
+     */
+    public synchronized void remove(long id) throws IOException {
+        if (mEntries.remove(id) == null)
+            return;
+        try {
+            append(new JSONObject().put(OP, REMOVE).put(ID, id));
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Records a failed attempt to send a mutation.
+     *
+     * @return the number of failed attempts so far.
+     */
+    public synchronized int incrementAttempts(long id) throws IOException {
+        Entry entry = mEntries.get(id);
+        if (entry == null)
+            return 0;
+        entry.mAttempts++;
+        try {
+            append(new JSONObject().put(OP, ATTEMPT).put(ID, id).put(ATTEMPTS, entry.mAttempts));
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+        return entry.mAttempts;
+    }
+
+    /**
+     * Folds the pending mutations of each entity, see {@link OutboxCompactor}.
+     *
+     * @return the number of mutations removed.
+     */
+    public synchronized int compact() throws IOException {
+        List<Entry> compacted = OutboxCompactor.compact(getPending());
+        Map<Long, Entry> kept = new LinkedHashMap<>();
+        for (int i = 0, size = compacted.size(); i < size; i++)
+            kept.put(compacted.get(i).mId, compacted.get(i));
+        int removed = 0;
+        try {
+            for (Entry entry : getPending()) {
+                Entry keptEntry = kept.get(entry.mId);
+                if (keptEntry == null) {
+                    mEntries.remove(entry.mId);
+                    append(new JSONObject().put(OP, REMOVE).put(ID, entry.mId));
+                    removed++;
+                } else if (keptEntry.mPostRequest != entry.mPostRequest) {
+                    entry.mPostRequest = keptEntry.mPostRequest;
+                    append(new JSONObject().put(OP, REPLACE).put(ID, entry.mId)
+                            .put(REQUEST, toJson(entry.mPostRequest)));
+                }
+            }
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+        if (removed > 0)
+            compactIfNeeded();
+        return removed;
+    }
+
+    /**
+     * @return the pending mutations, in the order they were added.
+     */
+    @NonNull
+    public synchronized List<Entry> getPending() {
+        return new ArrayList<>(mEntries.values());
+    }
+
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return mEntries.isEmpty();
+    }
+
+    private void replay(@NonNull JSONObject record) throws JSONException {
+        long id = record.getLong(ID);
+        mNextId = Math.max(mNextId, id + 1);
+        switch (record.getString(OP)) {
+            case ADD:
+                PostRequest postRequest = fromJson(record.getJSONObject(REQUEST));
+                if (postRequest != null)
+                    mEntries.put(id, new Entry(id, 0, postRequest));
+                break;
+            case REMOVE:
+                mEntries.remove(id);
+                break;
+            case REPLACE:
+                Entry replaced = mEntries.get(id);
+                PostRequest replacement = fromJson(record.getJSONObject(REQUEST));
+                if (replaced != null && replacement != null)
+                    replaced.mPostRequest = replacement;
+                break;
+            case ATTEMPT:
+                Entry entry = mEntries.get(id);
+                if (entry != null)
+                    entry.mAttempts = record.getInt(ATTEMPTS);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void append(@NonNull JSONObject record) throws IOException {
+        mLog.append(record);
+    }
+
+    private void compactIfNeeded() throws IOException {
+        mLog.compactIfNeeded(mEntries.size(), () -> {
+            List<JSONObject> records = new ArrayList<>();
+            for (Entry entry : mEntries.values()) {
+                records.add(new JSONObject().put(OP, ADD).put(ID, entry.mId).put(REQUEST, toJson(entry.mPostRequest)));
+                if (entry.mAttempts > 0)
+                    records.add(new JSONObject().put(OP, ATTEMPT).put(ID, entry.mId).put(ATTEMPTS, entry.mAttempts));
+            }
+            return records;
+        });
+    }
+
+    @NonNull
+    private JSONObject toJson(@NonNull PostRequest postRequest) throws JSONException {
+        JSONObject jsonObject = new JSONObject()
+                .put(URL, postRequest.getUrl())
+                .put(ID_COLUMN_NAME, postRequest.getIdColumnName())
+                .put(METHOD, postRequest.getMethod())
+                .put(DATA_CLASS, postRequest.getDataClass().getName())
+                .put(PRESENTATION_CLASS, postRequest.getPresentationClass().getName())
+                .put(PERSIST, postRequest.isPersist());
+        if (postRequest.getArrayBundle().length() == 0)
+            jsonObject.put(OBJECT, postRequest.getObjectBundle());
+        else jsonObject.put(ARRAY, postRequest.getArrayBundle());
+        return jsonObject;
+    }
+
+    @Nullable
+    private PostRequest fromJson(@NonNull JSONObject jsonObject) throws JSONException {
+        try {
+            PostRequest.PostRequestBuilder builder = new PostRequest.PostRequestBuilder(
+                    Class.forName(jsonObject.getString(DATA_CLASS)), jsonObject.optBoolean(PERSIST))
+                    .presentationClass(Class.forName(jsonObject.getString(PRESENTATION_CLASS)))
+                    .fullUrl(jsonObject.getString(URL))
+                    .idColumnName(jsonObject.getString(ID_COLUMN_NAME))
+                    .method(jsonObject.getString(METHOD));
+            if (jsonObject.has(ARRAY))
+                builder.payLoad(jsonObject.getJSONArray(ARRAY));
+            else builder.payLoad(jsonObject.getJSONObject(OBJECT));
+            return builder.build();
+        } catch (ClassNotFoundException e) {
+            Log.e(TAG, "Dropping queued mutation of a class that no longer exists", e);
+            return null;
+        }
+    }
+
+    /**
+     * A queued mutation and its delivery state.
+     */
+    public static class Entry {
+        private final long mId;
+        private PostRequest mPostRequest;
+        private int mAttempts;
+
+        Entry(long id, int attempts, PostRequest postRequest) {
+            mId = id;
+            mAttempts = attempts;
+            mPostRequest = postRequest;
+        }
+
+        public long getId() {
+            return mId;
+        }
+
+        public int getAttempts() {
+            return mAttempts;
+        }
+
+        public PostRequest getPostRequest() {
+            return mPostRequest;
+        }
+    }
+}
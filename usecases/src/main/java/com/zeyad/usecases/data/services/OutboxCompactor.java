@@ -0,0 +1,183 @@
+package com.zeyad.usecases.data.services;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.zeyad.usecases.data.requests.PostRequest;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static com.zeyad.usecases.data.requests.PostRequest.DELETE;
+import static com.zeyad.usecases.data.requests.PostRequest.PATCH;
+import static com.zeyad.usecases.data.requests.PostRequest.POST;
+import static com.zeyad.usecases.data.requests.PostRequest.PUT;
+
+/**
+ * Folds queued mutations of the same entity, identified by its data class and id, so that only the
+ * ones still needed are sent:
+ * <ul>
+ * <li>consecutive PATCHes merge into the last one, later fields winning, and a PATCH following a PUT
+ * merges into a PUT,</li>
+ * <li>a PUT supersedes earlier PATCHes and PUTs,</li>
+ * <li>a DELETE cancels pending updates, and cancels itself along with a pending create.</li>
+ * </ul>
+ * Merged mutations take the place of the last one they replace. A mutation whose entity can not be
+ * identified, like a list POST, stops folding across it for its whole data class.
+ */
+final class OutboxCompactor {
+
+    private OutboxCompactor() {
+    }
+
+    /**
+     * @param entries pending entries, in order.
+     * @return the entries left, in order. Entries whose request was rewritten keep their id.
+     */
+    @NonNull
+    static List<Outbox.Entry> compact(@NonNull List<Outbox.Entry> entries) {
+        List<Outbox.Entry> result = new ArrayList<>(entries);
+        Map<String, EntityState> states = new HashMap<>();
+        for (int i = 0, size = entries.size(); i < size; i++) {
+            PostRequest postRequest = entries.get(i).getPostRequest();
+            String dataClass = postRequest.getDataClass().getName(), method = postRequest.getMethod();
+            if (DELETE.equals(method)) {
+                compactDelete(result, states, i);
+                continue;
+            }
+            String id = postRequest.getArrayBundle().length() == 0
+                    ? getId(postRequest.getObjectBundle(), postRequest.getIdColumnName()) : null;
+            if (id == null) {
+                clearStates(states, dataClass);
+                continue;
+            }
+            String key = createKey(dataClass, id);
+            EntityState state = states.get(key);
+            if (state == null) {
+                state = new EntityState();
+                states.put(key, state);
+            }
+            if (POST.equals(method)) {
+                state.mCreate = i;
+                state.mUpdate = -1;
+            } else if (PATCH.equals(method)) {
+                if (state.mUpdate >= 0) {
+                    PostRequest previous = result.get(state.mUpdate).getPostRequest();
+                    result.set(i, new Outbox.Entry(entries.get(i).getId(), entries.get(i).getAttempts(),
+                            copy(postRequest, PUT.equals(previous.getMethod()) ? PUT : PATCH,
+                                    merge(previous.getObjectBundle(), postRequest.getObjectBundle()))));
+                    result.set(state.mUpdate, null);
+                }
+                state.mUpdate = i;
+            } else if (PUT.equals(method)) {
+                if (state.mUpdate >= 0)
+                    result.set(state.mUpdate, null);
+                state.mUpdate = i;
+            } else clearStates(states, dataClass);
+        }
+        for (Iterator<Outbox.Entry> iterator = result.iterator(); iterator.hasNext(); )
+            if (iterator.next() == null)
+                iterator.remove();
+        return result;
+    }
+
+    private static void compactDelete(@NonNull List<Outbox.Entry> result, @NonNull Map<String, EntityState> states,
+                                      int index) {
+        Outbox.Entry entry = result.get(index);
+        PostRequest postRequest = entry.getPostRequest();
+        String dataClass = postRequest.getDataClass().getName(), idColumnName = postRequest.getIdColumnName();
+        JSONArray ids = postRequest.getArrayBundle(), remaining = new JSONArray();
+        if (ids.length() == 0)
+            ids = new JSONArray().put(getId(postRequest.getObjectBundle(), idColumnName));
+        for (int i = 0, length = ids.length(); i < length; i++) {
+            Object item = ids.opt(i);
+            String id = item instanceof JSONObject ? getId((JSONObject) item, idColumnName)
+                    : item != null && item != JSONObject.NULL ? String.valueOf(item) : null;
+            if (id == null) {
+                clearStates(states, dataClass);
+                return;
+            }
+            EntityState state = states.remove(createKey(dataClass, id));
+            if (state != null && state.mUpdate >= 0)
+                result.set(state.mUpdate, null);
+            if (state != null && state.mCreate >= 0)
+                result.set(state.mCreate, null);
+            else remaining.put(item);
+        }
+        if (remaining.length() == 0)
+            result.set(index, null);
+        else if (remaining.length() < ids.length())
+            result.set(index, new Outbox.Entry(entry.getId(), entry.getAttempts(),
+                    copy(postRequest, DELETE, remaining)));
+    }
+
+    private static void clearStates(@NonNull Map<String, EntityState> states, String dataClass) {
+        String prefix = dataClass + '|';
+        for (Iterator<String> iterator = states.keySet().iterator(); iterator.hasNext(); )
+            if (iterator.next().startsWith(prefix))
+                iterator.remove();
+    }
+
+    @Nullable
+    private static String getId(@NonNull JSONObject jsonObject, String idColumnName) {
+        Object id = jsonObject.opt(idColumnName);
+        if (id == null || id == JSONObject.NULL)
+            return null;
+        String value = String.valueOf(id);
+        return value.isEmpty() || "0".equals(value) ? null : value;
+    }
+
+    @NonNull
+    private static String createKey(String dataClass, String id) {
+        return dataClass + '|' + id;
+    }
+
+    @NonNull
+    private static JSONObject merge(@NonNull JSONObject earlier, @NonNull JSONObject later) {
+        JSONObject merged = new JSONObject();
+        try {
+            for (Iterator<String> keys = earlier.keys(); keys.hasNext(); ) {
+                String key = keys.next();
+                merged.put(key, earlier.opt(key));
+            }
+            for (Iterator<String> keys = later.keys(); keys.hasNext(); ) {
+                String key = keys.next();
+                merged.put(key, later.opt(key));
+            }
+        } catch (JSONException e) {
+            e.printStackTrace();
+            return later;
+        }
+        return merged;
+    }
+
+    @NonNull
+    private static PostRequest copy(@NonNull PostRequest postRequest, String method, @NonNull JSONObject payLoad) {
+        return builder(postRequest, method).payLoad(payLoad).build();
+    }
+
+    @NonNull
+    private static PostRequest copy(@NonNull PostRequest postRequest, String method, @NonNull JSONArray payLoad) {
+        return builder(postRequest, method).payLoad(payLoad).build();
+    }
+
+    @NonNull
+    private static PostRequest.PostRequestBuilder builder(@NonNull PostRequest postRequest, String method) {
+        return new PostRequest.PostRequestBuilder(postRequest.getDataClass(), postRequest.isPersist())
+                .presentationClass(postRequest.getPresentationClass())
+                .fullUrl(postRequest.getUrl())
+                .idColumnName(postRequest.getIdColumnName())
+                .method(method);
+    }
+
+    private static class EntityState {
+        private int mCreate = -1, mUpdate = -1;
+    }
+}
@@ -0,0 +1,296 @@
+package com.zeyad.usecases.data.services;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+
+import com.zeyad.usecases.data.requests.FileIORequest;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durable queue of file transfers waiting to run, ordered by priority, higher first, then by the order
+ * they were added in.
+ * <p>
+ * Like the {@link Outbox}, every change is appended to an {@link AppendOnlyLog} and synced before
+ * returning. Paused transfers stay in the queue, skipped until resumed.
+ */
+public class TransferQueue {
+
+    static final String FILE_NAME = "usecases_transfers.log";
+    private static final String TAG = TransferQueue.class.getSimpleName(), OP = "op", ADD = "add",
+            REMOVE = "remove", PAUSE = "pause", RESUME = "resume", ATTEMPT = "attempt", ID = "id",
+            ATTEMPTS = "attempts", DOWNLOAD = "download", REQUEST = "request", URL = "url", FILE = "file",
+            KEY = "key", ON_WIFI = "onWifi", WHILE_CHARGING = "whileCharging", PART_SIZE = "partSize",
+            PRIORITY = "priority", PARAMETERS = "parameters", DATA_CLASS = "dataClass",
+            PRESENTATION_CLASS = "presentationClass";
+    private static TransferQueue sInstance;
+    private final AppendOnlyLog mLog;
+    private final Map<Long, Entry> mEntries;
+    private long mNextId;
+
+    @VisibleForTesting
+    public TransferQueue(@NonNull File file) {
+        mLog = new AppendOnlyLog(file, TAG);
+        mEntries = new LinkedHashMap<>();
+        mLog.load(this::replay);
+    }
+
+    public static synchronized TransferQueue getInstance(@NonNull Context context) {
+        if (sInstance == null)
+            sInstance = new TransferQueue(new File(context.getFilesDir(), FILE_NAME));
+        return sInstance;
+    }
+
+    /**
+     * Adds a transfer to the queue.
+     *
+     * @param fileIORequest the transfer to run.
+     * @param isDownload    whether the file is downloaded, else uploaded.
+     * @return the entry holding the transfer.
+     */
+    @NonNull
+    public synchronized Entry add(@NonNull FileIORequest fileIORequest, boolean isDownload) throws IOException {
+        Entry entry = new Entry(mNextId++, isDownload, fileIORequest);
+        try {
+            append(new JSONObject().put(OP, ADD).put(ID, entry.mId).put(DOWNLOAD, isDownload)
+                    .put(REQUEST, toJson(fileIORequest)));
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+        mEntries.put(entry.mId, entry);
+        return entry;
+    }
+
+    /**
+     * Removes a completed or canceled transfer from the queue.
+     *
+     * @return whether the transfer was queued.
+     */
+    public synchronized boolean remove(long id) throws IOException {
+        if (mEntries.remove(id) == null)
+            return false;
+        try {
+            append(new JSONObject().put(OP, REMOVE).put(ID, id));
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+        compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * Pauses or resumes a transfer.
+     *
+     * @return whether the transfer is queued and was not in that state already.
+     */
+    public synchronized boolean setPaused(long id, boolean paused) throws IOException {
+        Entry entry = mEntries.get(id);
+        if (entry == null || entry.mPaused == paused)
+            return false;
+        entry.mPaused = paused;
+        try {
+            append(new JSONObject().put(OP, paused ? PAUSE : RESUME).put(ID, id));
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+        return true;
+    }
+
+    /**
+     * Records a failed attempt to run a transfer.
+     *
+     * @return the number of failed attempts so far.
+     */
+    public synchronized int incrementAttempts(long id) throws IOException {
+        Entry entry = mEntries.get(id);
+        if (entry == null)
+            return 0;
+        entry.mAttempts++;
+        try {
+            append(new JSONObject().put(OP, ATTEMPT).put(ID, id).put(ATTEMPTS, entry.mAttempts));
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+        return entry.mAttempts;
+    }
+
+    @Nullable
+    public synchronized Entry get(long id) {
+        return mEntries.get(id);
+    }
+
+    /**
+     * @return the queued transfers, paused ones included, higher priorities first, then in the order they
+     * were added.
+     */
+    @NonNull
+    public synchronized List<Entry> getPending() {
+        List<Entry> pending = new ArrayList<>(mEntries.values());
+        Collections.sort(pending, (first, second) -> {
+            int priority = second.getFileIORequest().getPriority() - first.getFileIORequest().getPriority();
+            if (priority != 0)
+                return priority;
+            return first.mId < second.mId ? -1 : first.mId == second.mId ? 0 : 1;
+        });
+        return pending;
+    }
+
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return mEntries.isEmpty();
+    }
+
+    private void replay(@NonNull JSONObject record) throws JSONException {
+        long id = record.getLong(ID);
+        mNextId = Math.max(mNextId, id + 1);
+        Entry entry = mEntries.get(id);
+        switch (record.getString(OP)) {
+            case ADD:
+                mEntries.put(id, new Entry(id, record.getBoolean(DOWNLOAD), fromJson(record.getJSONObject(REQUEST))));
+                break;
+            case REMOVE:
+                mEntries.remove(id);
+                break;
+            case PAUSE:
+            case RESUME:
+                if (entry != null)
+                    entry.mPaused = PAUSE.equals(record.getString(OP));
+                break;
+            case ATTEMPT:
+                if (entry != null)
+                    entry.mAttempts = record.getInt(ATTEMPTS);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void append(@NonNull JSONObject record) throws IOException {
+        mLog.append(record);
+    }
+
+    private void compactIfNeeded() throws IOException {
+        mLog.compactIfNeeded(mEntries.size(), () -> {
+            List<JSONObject> records = new ArrayList<>();
+            for (Entry entry : mEntries.values()) {
+                records.add(new JSONObject().put(OP, ADD).put(ID, entry.mId).put(DOWNLOAD, entry.mDownload)
+                        .put(REQUEST, toJson(entry.mFileIORequest)));
+                if (entry.mPaused)
+                    records.add(new JSONObject().put(OP, PAUSE).put(ID, entry.mId));
+                if (entry.mAttempts > 0)
+                    records.add(new JSONObject().put(OP, ATTEMPT).put(ID, entry.mId).put(ATTEMPTS, entry.mAttempts));
+            }
+            return records;
+        });
+    }
+
+    @NonNull
+    private JSONObject toJson(@NonNull FileIORequest fileIORequest) throws JSONException {
+        JSONObject jsonObject = new JSONObject()
+                .put(URL, fileIORequest.getUrl())
+                .put(FILE, fileIORequest.getFile().getAbsolutePath())
+                .put(KEY, fileIORequest.getKey())
+                .put(ON_WIFI, fileIORequest.onWifi())
+                .put(WHILE_CHARGING, fileIORequest.isWhileCharging())
+                .put(PART_SIZE, fileIORequest.getPartSize())
+                .put(PRIORITY, fileIORequest.getPriority())
+                .put(PARAMETERS, new JSONObject(fileIORequest.getParameters()));
+        if (fileIORequest.getDataClass() != null)
+            jsonObject.put(DATA_CLASS, fileIORequest.getDataClass().getName())
+                    .put(PRESENTATION_CLASS, fileIORequest.getPresentationClass().getName());
+        return jsonObject;
+    }
+
+    @NonNull
+    private FileIORequest fromJson(@NonNull JSONObject jsonObject) throws JSONException {
+        HashMap<String, Object> parameters = new HashMap<>();
+        JSONObject parametersObject = jsonObject.getJSONObject(PARAMETERS);
+        for (Iterator<String> keys = parametersObject.keys(); keys.hasNext(); ) {
+            String key = keys.next();
+            parameters.put(key, parametersObject.get(key));
+        }
+        FileIORequest.FileIORequestBuilder builder = new FileIORequest.FileIORequestBuilder(
+                jsonObject.getString(URL), new File(jsonObject.getString(FILE)))
+                .key(jsonObject.getString(KEY))
+                .onWifi(jsonObject.getBoolean(ON_WIFI))
+                .whileCharging(jsonObject.getBoolean(WHILE_CHARGING))
+                .priority(jsonObject.getInt(PRIORITY))
+                .payLoad(parameters)
+                .dataClass(forName(jsonObject.optString(DATA_CLASS, null)))
+                .presentationClass(forName(jsonObject.optString(PRESENTATION_CLASS, null)));
+        int partSize = jsonObject.getInt(PART_SIZE);
+        if (partSize > 0)
+            builder.chunked(partSize);
+        return builder.build();
+    }
+
+    /**
+     * @return the class of the name, null if there is none, or it no longer exists, as the transfer runs
+     * without it.
+     */
+    @Nullable
+    private Class forName(@Nullable String className) {
+        if (className == null)
+            return null;
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            Log.w(TAG, "Queued transfer of a class that no longer exists", e);
+            return null;
+        }
+    }
+
+    /**
+     * A queued transfer and its state.
+     */
+    public static class Entry {
+        private final long mId;
+        private final boolean mDownload;
+        private final FileIORequest mFileIORequest;
+        private boolean mPaused;
+        private int mAttempts;
+
+        Entry(long id, boolean download, FileIORequest fileIORequest) {
+            mId = id;
+            mDownload = download;
+            mFileIORequest = fileIORequest;
+        }
+
+        public long getId() {
+            return mId;
+        }
+
+        public boolean isDownload() {
+            return mDownload;
+        }
+
+        public FileIORequest getFileIORequest() {
+            return mFileIORequest;
+        }
+
+        public boolean isPaused() {
+            return mPaused;
+        }
+
+        public int getAttempts() {
+            return mAttempts;
+        }
+    }
+}
@@ -2,27 +2,20 @@ package com.zeyad.usecases.data.services.jobs;
 
 import android.content.Context;
 import android.support.annotation.NonNull;
-import android.support.annotation.Nullable;
 import android.util.Log;
-import android.webkit.MimeTypeMap;
 
 import com.firebase.jobdispatcher.FirebaseJobDispatcher;
 import com.firebase.jobdispatcher.GooglePlayDriver;
+import com.zeyad.usecases.Config;
+import com.zeyad.usecases.data.network.FileDownloader;
+import com.zeyad.usecases.data.network.FileUploader;
 import com.zeyad.usecases.data.network.RestApi;
 import com.zeyad.usecases.data.network.RestApiImpl;
 import com.zeyad.usecases.data.requests.FileIORequest;
 import com.zeyad.usecases.data.utils.Utils;
 
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.File;
 
-import okhttp3.MediaType;
-import okhttp3.MultipartBody;
-import okhttp3.RequestBody;
 import rx.Subscription;
 
 /**
@@ -35,6 +28,8 @@ public class FileIO {
     private final FileIORequest mFileIORequest;
     private final Context mContext;
     private final RestApi mRestApi;
+    private final FileDownloader mFileDownloader;
+    private final FileUploader mFileUploader;
     private boolean mIsDownload;
 
     public FileIO(int trailCount, @NonNull FileIORequest payLoad, @NonNull Context context, boolean isDownload) {
@@ -44,6 +39,9 @@ public class FileIO {
         mFileIORequest = payLoad;
         mIsDownload = isDownload;
         mDispatcher = new FirebaseJobDispatcher(new GooglePlayDriver(mContext));
+        mFileDownloader = new FileDownloader(mRestApi, Config.getDownloadConnections(),
+                Config.isSyncFileTransfers());
+        mFileUploader = new FileUploader(mRestApi, new File(mContext.getFilesDir(), FileUploader.STATE_DIR));
     }
 
     /**
@@ -56,71 +54,23 @@ public class FileIO {
         mFileIORequest = fileIORequest;
         mIsDownload = isDownload;
         mDispatcher = new FirebaseJobDispatcher(new GooglePlayDriver(mContext));
-    }
-
-    @Nullable
-    private static String getMimeType(String uri) {
-        String type = null;
-        String extension = MimeTypeMap.getFileExtensionFromUrl(uri);
-        if (extension != null)
-            type = MimeTypeMap.getSingleton().getMimeTypeFromExtension(extension);
-        return type;
+        mFileDownloader = new FileDownloader(mRestApi, Config.getDownloadConnections(),
+                Config.isSyncFileTransfers());
+        mFileUploader = new FileUploader(mRestApi, new File(mContext.getFilesDir(), FileUploader.STATE_DIR));
     }
 
     public Subscription execute() {
         if (mIsDownload) {
-            if (!mFileIORequest.getFile().exists())
-                mFileIORequest.getFile().mkdir();
-            return mRestApi.dynamicDownload(mFileIORequest.getUrl())
+            return mFileDownloader.download(mFileIORequest.getUrl(), mFileIORequest.getFile())
                     .doOnSubscribe(() -> Log.d(TAG, "Downloading " + mFileIORequest.getFile().getName()))
-                    .subscribe(responseBody -> {
-                        InputStream inputStream = null;
-                        OutputStream outputStream = null;
-                        try {
-                            byte[] fileReader = new byte[4096];
-                            long fileSize = responseBody.contentLength();
-                            long fileSizeDownloaded = 0;
-                            outputStream = new FileOutputStream(mFileIORequest.getFile());
-                            inputStream = responseBody.byteStream();
-                            while (true) {
-                                int read = inputStream.read(fileReader);
-                                if (read == -1)
-                                    break;
-                                outputStream.write(fileReader, 0, read);
-                                fileSizeDownloaded += read;
-                                Log.d(TAG, "file download: " + fileSizeDownloaded + " of " + fileSize);
-                            }
-                            outputStream.flush();
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        } finally {
-                            if (inputStream != null)
-                                try {
-                                    inputStream.close();
-                                } catch (IOException e) {
-                                    e.printStackTrace();
-                                }
-                            if (outputStream != null)
-                                try {
-                                    outputStream.close();
-                                } catch (IOException e) {
-                                    e.printStackTrace();
-                                }
-                        }
-                    }, throwable -> {
+                    .subscribe(file -> Log.d(TAG, "Downloaded " + file.getName()), throwable -> {
                         queueIOFile();
                         throwable.printStackTrace();
                     });
         } else {
-            RequestBody requestFile = RequestBody.create(MediaType.parse(getMimeType(mFileIORequest.getFile()
-                    .getAbsolutePath())), mFileIORequest.getFile());
-            HashMap<String, RequestBody> map = new HashMap<>();
-            map.put(mFileIORequest.getKey(), requestFile);
-            if (mFileIORequest.getParameters() != null && !mFileIORequest.getParameters().isEmpty())
-                for (Map.Entry<String, Object> entry : mFileIORequest.getParameters().entrySet())
-                    map.put(entry.getKey(), Utils.getInstance().createPartFromString(entry.getValue()));
-            return mRestApi.dynamicUpload(mFileIORequest.getUrl(), map, MultipartBody.Part
-                    .createFormData(mFileIORequest.getKey(), mFileIORequest.getFile().getName(), requestFile))
+            // A chunked upload picks up the parts acked before it was queued.
+            return mFileUploader.upload(mFileIORequest.getUrl(), mFileIORequest.getFile(), mFileIORequest.getKey(),
+                    mFileIORequest.getParameters(), mFileIORequest.getPartSize())
                     .doOnSubscribe(() -> Log.d(TAG, "Uploading " + mFileIORequest.getFile().getName()))
                     .subscribe(o -> {
                     }, throwable -> queueIOFile());
@@ -0,0 +1,299 @@
+package com.zeyad.usecases.data.services.jobs;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+
+import com.zeyad.usecases.Config;
+import com.zeyad.usecases.data.db.DataBaseManager;
+import com.zeyad.usecases.data.db.DatabaseManagerFactory;
+import com.zeyad.usecases.data.network.BatchEnvelope;
+import com.zeyad.usecases.data.network.RestApi;
+import com.zeyad.usecases.data.network.RestApiImpl;
+import com.zeyad.usecases.data.requests.PostRequest;
+import com.zeyad.usecases.data.services.Outbox;
+import com.zeyad.usecases.domain.interactors.data.DataUseCase;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.HttpUrl;
+import okhttp3.ResponseBody;
+import retrofit2.adapter.rxjava.HttpException;
+import rx.Observable;
+import rx.Subscription;
+import rx.exceptions.Exceptions;
+import rx.functions.Action1;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * Sends the mutations queued in the {@link Outbox}, one at a time and in order, after folding the
+ * superseded ones.
+ * <p>
+ * A mutation is removed once sent. On a network failure draining stops and is retried later, so
+ * ordering is preserved. A mutation the server keeps rejecting is dropped after {@link #MAX_ATTEMPTS}.
+ * Only one drain runs per process; mutations added meanwhile are picked up by the running drain.
+ * <p>
+ * With a {@link BatchEnvelope} configured, mutations sharing a base url are sent together in batches,
+ * keeping their relative order, and the entities the server returns are written back to the database.
+ * A batch the server rejects as a whole falls back to sending its mutations one at a time. A batch whose
+ * response can not be read as one is dropped rather than retried, as the server may have applied it.
+ */
+public class OutboxDrainer {
+
+    public static final int MAX_ATTEMPTS = 3;
+    private static final String TAG = OutboxDrainer.class.getSimpleName();
+    private static final AtomicBoolean DRAINING = new AtomicBoolean();
+    private final Context mContext;
+    private final Outbox mOutbox;
+    private final RestApi mRestApi;
+    @Nullable
+    private final BatchEnvelope mBatchEnvelope;
+    @Nullable
+    private final DataBaseManager mDataBaseManager;
+
+    public OutboxDrainer(@NonNull Context context) {
+        this(context, Outbox.getInstance(context), RestApiImpl.getInstance(), Config.getBatchEnvelope(),
+                DataUseCase.hasRealm() ? DatabaseManagerFactory.getInstance() : null);
+    }
+
+    @VisibleForTesting
+    OutboxDrainer(Context context, Outbox outbox, RestApi restApi) {
+        this(context, outbox, restApi, null, null);
+    }
+
+    @VisibleForTesting
+    OutboxDrainer(Context context, Outbox outbox, RestApi restApi, @Nullable BatchEnvelope batchEnvelope,
+                  @Nullable DataBaseManager dataBaseManager) {
+        mContext = context;
+        mOutbox = outbox;
+        mRestApi = restApi;
+        mBatchEnvelope = batchEnvelope;
+        mDataBaseManager = dataBaseManager;
+    }
+
+    /**
+     * @param onFinished called with whether the drain should be retried later.
+     * @return {@link Subscription} of the drain, unsubscribe to stop it.
+     */
+    @NonNull
+    public Subscription drain(@NonNull Action1<Boolean> onFinished) {
+        if (!DRAINING.compareAndSet(false, true)) {
+            Log.d(TAG, "Outbox is already being drained");
+            onFinished.call(false);
+            return Subscriptions.empty();
+        }
+        return Observable.defer(() -> {
+            try {
+                int removed = mOutbox.compact();
+                if (removed > 0)
+                    Log.d(TAG, removed + " superseded mutations compacted");
+            } catch (IOException e) {
+                return Observable.error(e);
+            }
+            return Observable.from(createBatches(mOutbox.getPending()));
+        })
+                .concatMap(this::sendBatch)
+                .repeatWhen(completed -> completed.takeWhile(o -> !mOutbox.isEmpty()))
+                .doOnUnsubscribe(() -> DRAINING.set(false))
+                .subscribe(entry -> {
+                }, throwable -> {
+                    DRAINING.set(false);
+                    Log.d(TAG, "Draining stopped, " + mOutbox.size() + " mutations left", throwable);
+                    onFinished.call(true);
+                }, () -> {
+                    DRAINING.set(false);
+                    Log.d(TAG, "Outbox drained");
+                    onFinished.call(false);
+                });
+    }
+
+    /**
+     * Groups entries by base url, in order of first appearance, splitting groups larger than the max
+     * batch size. Without a {@link BatchEnvelope} every entry is a batch of its own.
+     */
+    @NonNull
+    private List<List<Outbox.Entry>> createBatches(@NonNull List<Outbox.Entry> entries) {
+        List<List<Outbox.Entry>> batches = new ArrayList<>();
+        if (mBatchEnvelope == null) {
+            for (Outbox.Entry entry : entries) {
+                List<Outbox.Entry> batch = new ArrayList<>(1);
+                batch.add(entry);
+                batches.add(batch);
+            }
+            return batches;
+        }
+        Map<String, List<Outbox.Entry>> groups = new LinkedHashMap<>();
+        for (Outbox.Entry entry : entries) {
+            String baseUrl = getBaseUrl(entry.getPostRequest().getUrl());
+            List<Outbox.Entry> group = groups.get(baseUrl);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(baseUrl, group);
+            }
+            group.add(entry);
+        }
+        int maxBatchSize = mBatchEnvelope.getMaxBatchSize();
+        for (List<Outbox.Entry> group : groups.values())
+            for (int start = 0, size = group.size(); start < size; start += maxBatchSize)
+                batches.add(group.subList(start, Math.min(size, start + maxBatchSize)));
+        return batches;
+    }
+
+    @NonNull
+    private Observable<Outbox.Entry> sendBatch(@NonNull List<Outbox.Entry> batch) {
+        String baseUrl = getBaseUrl(batch.get(0).getPostRequest().getUrl());
+        if (mBatchEnvelope == null || batch.size() == 1 || baseUrl.isEmpty())
+            return Observable.from(batch).concatMap(this::send);
+        List<PostRequest> postRequests = new ArrayList<>(batch.size());
+        for (Outbox.Entry entry : batch)
+            postRequests.add(entry.getPostRequest());
+        return Observable.defer(() -> {
+            try {
+                return mRestApi.dynamicBatch(mBatchEnvelope.getBatchUrl(baseUrl),
+                        mBatchEnvelope.wrap(baseUrl, postRequests));
+            } catch (IOException e) {
+                return Observable.error(e);
+            }
+        })
+                .map(this::unwrap)
+                .onErrorResumeNext(throwable -> {
+                    if (!(throwable instanceof HttpException))
+                        return Observable.error(throwable);
+                    Log.w(TAG, "Batch rejected, sending its " + batch.size() + " mutations one by one",
+                            throwable);
+                    return Observable.just(null);
+                })
+                .concatMap(results -> {
+                    if (results == null)
+                        return Observable.from(batch).concatMap(this::send);
+                    if (results.size() != batch.size())
+                        return Observable.error(new MalformedBatchException("Expected " + batch.size()
+                                + " batch results, got " + results.size(), null));
+                    return Observable.range(0, batch.size())
+                            .concatMapDelayError(i -> onBatchResult(batch.get(i), results.get(i)));
+                })
+                .onErrorResumeNext(throwable -> throwable instanceof MalformedBatchException ?
+                        dropBatch(batch, throwable) : Observable.error(throwable));
+    }
+
+    @NonNull
+    private List<BatchEnvelope.Result> unwrap(@NonNull ResponseBody responseBody) {
+        try {
+            return mBatchEnvelope.unwrap(responseBody);
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        } catch (IllegalStateException e) {
+            throw new MalformedBatchException("Malformed batch response", e);
+        } finally {
+            responseBody.close();
+        }
+    }
+
+    /**
+     * Removes the mutations of a batch the server answered with an unreadable response, without sending
+     * them again.
+     */
+    @NonNull
+    private Observable<Outbox.Entry> dropBatch(@NonNull List<Outbox.Entry> batch, @NonNull Throwable throwable) {
+        Log.e(TAG, "Dropping batch of " + batch.size() + " mutations", throwable);
+        return Observable.from(batch)
+                .concatMap(entry -> Observable.fromCallable(() -> {
+                    mOutbox.remove(entry.getId());
+                    return entry;
+                }));
+    }
+
+    @NonNull
+    private Observable<Outbox.Entry> onBatchResult(@NonNull Outbox.Entry entry,
+                                                   @NonNull BatchEnvelope.Result result) {
+        if (!result.isSuccessful())
+            return onRejected(entry, new IllegalStateException("Batched " + entry.getPostRequest().getMethod()
+                    + " to " + entry.getPostRequest().getUrl() + " failed with " + result.getCode()));
+        return persist(entry.getPostRequest(), result.getBody())
+                .ignoreElements()
+                .onErrorResumeNext(throwable -> {
+                    Log.e(TAG, "Could not persist batch result", throwable);
+                    return Observable.empty();
+                })
+                .cast(Outbox.Entry.class)
+                .concatWith(Observable.fromCallable(() -> {
+                    mOutbox.remove(entry.getId());
+                    return entry;
+                }));
+    }
+
+    /**
+     * Writes the entities the server returned for a mutation back to the database.
+     */
+    @NonNull
+    private Observable<?> persist(@NonNull PostRequest postRequest, @Nullable Object body) {
+        if (mDataBaseManager == null || !postRequest.isPersist() || postRequest.getDataClass() == null
+                || PostRequest.DELETE.equals(postRequest.getMethod()))
+            return Observable.empty();
+        if (body instanceof JSONObject)
+            return mDataBaseManager.put((JSONObject) body, postRequest.getIdColumnName(),
+                    postRequest.getDataClass());
+        if (body instanceof JSONArray)
+            return mDataBaseManager.putAll((JSONArray) body, postRequest.getIdColumnName(),
+                    postRequest.getDataClass());
+        return Observable.empty();
+    }
+
+    @NonNull
+    private Observable<Outbox.Entry> send(@NonNull Outbox.Entry entry) {
+        return new Post(mContext, entry.getPostRequest(), mRestApi, entry.getAttempts()).send()
+                .ignoreElements()
+                .cast(Outbox.Entry.class)
+                .concatWith(Observable.fromCallable(() -> {
+                    mOutbox.remove(entry.getId());
+                    return entry;
+                }))
+                .onErrorResumeNext(throwable -> throwable instanceof IOException ? Observable.error(throwable)
+                        : onRejected(entry, throwable));
+    }
+
+    /**
+     * Counts a rejection of the entry, dropping it once rejected {@link #MAX_ATTEMPTS} times.
+     */
+    @NonNull
+    private Observable<Outbox.Entry> onRejected(@NonNull Outbox.Entry entry, @NonNull Throwable throwable) {
+        try {
+            if (mOutbox.incrementAttempts(entry.getId()) < MAX_ATTEMPTS)
+                return Observable.error(throwable);
+            Log.e(TAG, "Dropping mutation rejected " + MAX_ATTEMPTS + " times", throwable);
+            mOutbox.remove(entry.getId());
+            return Observable.just(entry);
+        } catch (IOException e) {
+            return Observable.error(e);
+        }
+    }
+
+    /**
+     * @return scheme, host and port of the url ending with a slash, or an empty string if it is not valid.
+     */
+    @NonNull
+    private static String getBaseUrl(@NonNull String url) {
+        HttpUrl httpUrl = HttpUrl.parse(url);
+        return httpUrl == null ? "" : httpUrl.newBuilder().encodedPath("/").query(null).fragment(null).build()
+                .toString();
+    }
+
+    /**
+     * Response of a batch that can not be matched to its requests, not to be retried.
+     */
+    private static final class MalformedBatchException extends IllegalStateException {
+        MalformedBatchException(@NonNull String message, @Nullable Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -15,9 +15,9 @@ import org.json.JSONObject;
 
 import okhttp3.MediaType;
 import okhttp3.RequestBody;
+import rx.Observable;
 import rx.Subscriber;
 import rx.Subscription;
-import rx.subscriptions.Subscriptions;
 
 import static com.zeyad.usecases.data.repository.stores.CloudDataStore.APPLICATION_JSON;
 
@@ -26,7 +26,7 @@ import static com.zeyad.usecases.data.repository.stores.CloudDataStore.APPLICATI
  */
 public class Post {
     private static final String TAG = Post.class.getSimpleName();
-    private static int mTrailCount;
+    private int mTrailCount;
     private final FirebaseJobDispatcher mDispatcher;
     private final PostRequest mPostRequest;
     private final Context mContext;
@@ -67,6 +67,14 @@ public class Post {
     }
 
     public Subscription execute() {
+        return send().subscribe(handleError);
+    }
+
+    /**
+     * @return {@link Observable} sending the request once subscribed to.
+     */
+    @NonNull
+    Observable<Object> send() {
         String bundle = "";
         boolean isObject = false;
         if (mPostRequest.getArrayBundle().length() == 0) {
@@ -83,43 +91,36 @@ public class Post {
             case PostRequest.PATCH:
                 return mRestApi.dynamicPatch(mPostRequest.getUrl(), requestBody)
                         .doOnSubscribe(() -> Log.d(TAG, "Posting " + mPostRequest.getDataClass()
-                                .getSimpleName()))
-                        .subscribe(handleError);
+                                .getSimpleName()));
             case PostRequest.POST:
                 if (isObject)
                     return mRestApi.dynamicPost(mPostRequest.getUrl(), requestBody)
                             .doOnSubscribe(() -> Log.d(TAG, "Posting " + mPostRequest.getDataClass()
-                                    .getSimpleName()))
-                            .subscribe(handleError);
+                                    .getSimpleName()));
                 else
                     return mRestApi.dynamicPost(mPostRequest.getUrl(), listRequestBody)
                             .doOnSubscribe(() -> Log.d(TAG, "Posting List of " + mPostRequest
-                                    .getDataClass().getSimpleName()))
-                            .subscribe(handleError);
+                                    .getDataClass().getSimpleName()));
             case PostRequest.PUT:
                 if (isObject)
                     return mRestApi.dynamicPut(mPostRequest.getUrl(), requestBody)
                             .doOnSubscribe(() -> Log.d(TAG, "Puting " + mPostRequest.getDataClass()
-                                    .getSimpleName()))
-                            .subscribe(handleError);
+                                    .getSimpleName()));
                 else
                     return mRestApi.dynamicPut(mPostRequest.getUrl(), listRequestBody)
                             .doOnSubscribe(() -> Log.d(TAG, "Puting " + mPostRequest.getDataClass()
-                                    .getSimpleName()))
-                            .subscribe(handleError);
+                                    .getSimpleName()));
             case PostRequest.DELETE:
                 if (isObject)
                     return mRestApi.dynamicDelete(mPostRequest.getUrl(), requestBody)
                             .doOnSubscribe(() -> Log.d(TAG, "Deleting " + mPostRequest.getDataClass()
-                                    .getSimpleName()))
-                            .subscribe(handleError);
+                                    .getSimpleName()));
                 else
                     return mRestApi.dynamicDelete(mPostRequest.getUrl(), listRequestBody)
                             .doOnSubscribe(() -> Log.d(TAG, "Deleting List of " + mPostRequest
-                                    .getPresentationClass().getSimpleName()))
-                            .subscribe(handleError);
+                                    .getPresentationClass().getSimpleName()));
         }
-        return Subscriptions.empty();
+        return Observable.empty();
     }
 
     private void reQueue() {
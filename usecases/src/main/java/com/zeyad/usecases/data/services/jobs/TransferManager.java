@@ -0,0 +1,470 @@
+package com.zeyad.usecases.data.services.jobs;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+
+import com.facebook.network.connectionclass.ConnectionClassManager;
+import com.facebook.network.connectionclass.ConnectionQuality;
+import com.facebook.network.connectionclass.DeviceBandwidthSampler;
+import com.firebase.jobdispatcher.FirebaseJobDispatcher;
+import com.firebase.jobdispatcher.GooglePlayDriver;
+import com.zeyad.usecases.Config;
+import com.zeyad.usecases.data.network.FileDownloader;
+import com.zeyad.usecases.data.network.FileUploader;
+import com.zeyad.usecases.data.network.RestApi;
+import com.zeyad.usecases.data.network.RestApiImpl;
+import com.zeyad.usecases.data.requests.FileIORequest;
+import com.zeyad.usecases.data.services.TransferQueue;
+import com.zeyad.usecases.data.utils.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import okhttp3.HttpUrl;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.SerialSubscription;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * Runs the transfers queued in the {@link TransferQueue}, higher priorities first, a few at a time.
+ * <p>
+ * At most {@link Config#getMaxTransfersPerHost()} transfers run against a host at once, and at most
+ * {@link Config#getMaxTransfers()} in total on a good connection. The total shrinks as the bandwidth measured
+ * while transferring degrades, down to one transfer on a poor connection, and grows back as it recovers.
+ * <p>
+ * A transfer is removed from the queue once done. Pausing one stops it, its progress being kept by the
+ * downloader or uploader, so it resumes where it stopped. On a network failure a transfer is retried on the
+ * next run, while one failing otherwise is dropped after {@link #MAX_ATTEMPTS}. The progress kept for a
+ * transfer canceled or dropped is deleted. Only one run goes on per process; transfers queued meanwhile are
+ * picked up by it.
+ * <p>
+ * Jobs with other constraints join the run. Each transfer runs for a job whose constraints it needs, which
+ * finishes once none of its transfers is left to run, and stopping a job, as its constraints are lost, only
+ * stops its own transfers.
+ */
+public class TransferManager {
+
+    public static final int DEFAULT_MAX_TRANSFERS = 4, DEFAULT_MAX_TRANSFERS_PER_HOST = 2, MAX_ATTEMPTS = 3;
+    private static final String TAG = TransferManager.class.getSimpleName();
+    private static TransferManager sInstance;
+    private final TransferQueue mTransferQueue;
+    private final Func1<TransferQueue.Entry, Observable<?>> mTransfer;
+    private final Action1<TransferQueue.Entry> mDiscard;
+    private final Func0<ConnectionQuality> mBandwidthQuality;
+    private final Scheduler mScheduler;
+    @Nullable
+    private final FirebaseJobDispatcher mDispatcher;
+    private final boolean mSampleBandwidth;
+    private final int mMaxTransfers, mMaxTransfersPerHost;
+    private final Map<Long, Running> mRunning;
+    private final Set<Long> mFailed;
+    private final List<Job> mJobs;
+    private final ConnectionClassManager.ConnectionClassStateChangeListener mQualityListener;
+
+    private TransferManager(@NonNull Context context) {
+        this(TransferQueue.getInstance(context), createTransfer(context, RestApiImpl.getInstance()),
+                createDiscard(context, RestApiImpl.getInstance()), () -> ConnectionClassManager.getInstance().getCurrentBandwidthQuality(), Schedulers.io(),
+                new FirebaseJobDispatcher(new GooglePlayDriver(context)), true, Config.getMaxTransfers(),
+                Config.getMaxTransfersPerHost());
+    }
+
+    @VisibleForTesting
+    TransferManager(TransferQueue transferQueue, Func1<TransferQueue.Entry, Observable<?>> transfer,
+                    Action1<TransferQueue.Entry> discard, Func0<ConnectionQuality> bandwidthQuality, Scheduler scheduler,
+                    @Nullable FirebaseJobDispatcher dispatcher, boolean sampleBandwidth, int maxTransfers,
+                    int maxTransfersPerHost) {
+        if (maxTransfers < 1 || maxTransfersPerHost < 1)
+            throw new IllegalArgumentException("maxTransfers and maxTransfersPerHost should be positive");
+        mTransferQueue = transferQueue;
+        mTransfer = transfer;
+        mDiscard = discard;
+        mBandwidthQuality = bandwidthQuality;
+        mScheduler = scheduler;
+        mDispatcher = dispatcher;
+        mSampleBandwidth = sampleBandwidth;
+        mMaxTransfers = maxTransfers;
+        mMaxTransfersPerHost = maxTransfersPerHost;
+        mRunning = new LinkedHashMap<>();
+        mFailed = new HashSet<>();
+        mJobs = new ArrayList<>();
+        mQualityListener = bandwidthState -> dispatch();
+    }
+
+    public static synchronized TransferManager getInstance(@NonNull Context context) {
+        if (sInstance == null)
+            sInstance = new TransferManager(context.getApplicationContext());
+        return sInstance;
+    }
+
+    @NonNull
+    private static Func1<TransferQueue.Entry, Observable<?>> createTransfer(@NonNull Context context,
+                                                                          @NonNull RestApi restApi) {
+        FileDownloader fileDownloader = new FileDownloader(restApi, Config.getDownloadConnections(),
+                Config.isSyncFileTransfers());
+        FileUploader fileUploader = new FileUploader(restApi, new File(context.getFilesDir(), FileUploader.STATE_DIR));
+        return entry -> {
+            FileIORequest fileIORequest = entry.getFileIORequest();
+            if (entry.isDownload())
+                return fileDownloader.download(fileIORequest.getUrl(), fileIORequest.getFile());
+            return fileUploader.upload(fileIORequest.getUrl(), fileIORequest.getFile(), fileIORequest.getKey(),
+                    fileIORequest.getParameters(), fileIORequest.getPartSize());
+        };
+    }
+
+    /**
+     * @return deletes the temp and state files the downloader or uploader keep for a transfer.
+     */
+    @NonNull
+    private static Action1<TransferQueue.Entry> createDiscard(@NonNull Context context, @NonNull RestApi restApi) {
+        FileUploader fileUploader = new FileUploader(restApi, new File(context.getFilesDir(), FileUploader.STATE_DIR));
+        return entry -> {
+            FileIORequest fileIORequest = entry.getFileIORequest();
+            if (entry.isDownload())
+                FileDownloader.discard(fileIORequest.getFile());
+            else fileUploader.discard(fileIORequest.getUrl(), fileIORequest.getFile());
+        };
+    }
+
+    /**
+     * Queues a transfer, run right away if a run goes on and its constraints hold, else by a job scheduled
+     * for them.
+     *
+     * @return id of the transfer, to pause, resume or cancel it.
+     */
+    public long enqueue(@NonNull FileIORequest fileIORequest, boolean isDownload) throws IOException {
+        TransferQueue.Entry entry = mTransferQueue.add(fileIORequest, isDownload);
+        if (isRunning())
+            dispatch();
+        else schedule(fileIORequest);
+        return entry.getId();
+    }
+
+    /**
+     * Pauses a transfer, stopping it if running.
+     *
+     * @return whether the transfer is queued and was not paused already.
+     */
+    public boolean pause(long id) throws IOException {
+        Running running;
+        synchronized (this) {
+            if (!mTransferQueue.setPaused(id, true))
+                return false;
+            running = mRunning.remove(id);
+        }
+        if (running != null) {
+            running.mSubscription.unsubscribe();
+            dispatch();
+        }
+        return true;
+    }
+
+    /**
+     * Resumes a paused transfer, from where it stopped.
+     *
+     * @return whether the transfer is queued and was paused.
+     */
+    public boolean resume(long id) throws IOException {
+        synchronized (this) {
+            if (!mTransferQueue.setPaused(id, false))
+                return false;
+            mFailed.remove(id);
+        }
+        TransferQueue.Entry entry = mTransferQueue.get(id);
+        if (isRunning())
+            dispatch();
+        else if (entry != null)
+            schedule(entry.getFileIORequest());
+        return true;
+    }
+
+    /**
+     * Removes a transfer from the queue, stopping it if running, and deletes the progress kept for it.
+     *
+     * @return whether the transfer was queued.
+     */
+    public boolean cancel(long id) throws IOException {
+        TransferQueue.Entry entry = mTransferQueue.get(id);
+        Running running;
+        synchronized (this) {
+            if (entry == null || !mTransferQueue.remove(id))
+                return false;
+            mFailed.remove(id);
+            running = mRunning.remove(id);
+        }
+        if (running != null)
+            running.mSubscription.unsubscribe();
+        // Deleted once stopped, so the transfer does not save its progress again.
+        mDiscard.call(entry);
+        if (running != null)
+            dispatch();
+        return true;
+    }
+
+    /**
+     * Runs the queued transfers until none is left that can run, given the constraints of the job. If a run
+     * goes on, the job joins it with the transfers needing its constraints.
+     *
+     * @param onWifi        whether the job runs on an unmetered network.
+     * @param whileCharging whether the job runs while charging.
+     * @param onFinished    called with whether the job should be retried later.
+     * @return {@link Subscription} of the job, unsubscribe to stop its transfers.
+     */
+    @NonNull
+    public Subscription run(boolean onWifi, boolean whileCharging, @NonNull Action1<Boolean> onFinished) {
+        Job job = new Job(onWifi, whileCharging, onFinished);
+        synchronized (this) {
+            if (mJobs.isEmpty()) {
+                ConnectionClassManager.getInstance().register(mQualityListener);
+                if (mSampleBandwidth)
+                    DeviceBandwidthSampler.getInstance().startSampling();
+            } else Log.d(TAG, "Transfers are already running, joining them");
+            mJobs.add(job);
+        }
+        dispatch();
+        return Subscriptions.create(() -> stop(job));
+    }
+
+    public synchronized boolean isRunning() {
+        return !mJobs.isEmpty();
+    }
+
+    /**
+     * @return max number of transfers running at once, given the bandwidth measured so far. Until measured,
+     * it is assumed moderate.
+     */
+    public int getMaxTransfers() {
+        switch (mBandwidthQuality.call()) {
+            case POOR:
+                return 1;
+            case GOOD:
+            case EXCELLENT:
+                return mMaxTransfers;
+            default:
+                return Math.max(1, mMaxTransfers / 2);
+        }
+    }
+
+    public synchronized int getRunningCount() {
+        return mRunning.size();
+    }
+
+    /**
+     * Starts the queued transfers that fit within the limits, each for the first job it can run for, and
+     * finishes the jobs left without transfers to run.
+     */
+    private void dispatch() {
+        List<Running> started = new ArrayList<>();
+        List<Job> finished = new ArrayList<>();
+        synchronized (this) {
+            if (mJobs.isEmpty())
+                return;
+            int maxTransfers = getMaxTransfers(), maxTransfersPerHost = Math.min(mMaxTransfersPerHost, maxTransfers);
+            Map<String, Integer> hosts = new HashMap<>();
+            Set<Job> busy = new HashSet<>();
+            for (Running running : mRunning.values()) {
+                increment(hosts, running.mHost);
+                busy.add(running.mJob);
+            }
+            List<TransferQueue.Entry> waiting = new ArrayList<>();
+            for (TransferQueue.Entry entry : mTransferQueue.getPending()) {
+                if (entry.isPaused() || mRunning.containsKey(entry.getId()) || mFailed.contains(entry.getId()))
+                    continue;
+                Job job = findJob(entry.getFileIORequest());
+                if (job == null) {
+                    waiting.add(entry);
+                    continue;
+                }
+                // Waiting for a running transfer to end, so its job goes on.
+                busy.add(job);
+                String host = getHost(entry.getFileIORequest().getUrl());
+                Integer running = hosts.get(host);
+                if (mRunning.size() >= maxTransfers || running != null && running >= maxTransfersPerHost)
+                    continue;
+                increment(hosts, host);
+                Running transfer = new Running(entry, host, job);
+                mRunning.put(entry.getId(), transfer);
+                started.add(transfer);
+            }
+            for (Iterator<Job> jobs = mJobs.iterator(); jobs.hasNext(); ) {
+                Job job = jobs.next();
+                if (!busy.contains(job)) {
+                    jobs.remove();
+                    finished.add(job);
+                }
+            }
+            if (mJobs.isEmpty()) {
+                finish();
+                // Left for a job with the constraints they need.
+                for (TransferQueue.Entry entry : waiting)
+                    schedule(entry.getFileIORequest());
+            }
+        }
+        for (Job job : finished) {
+            Log.d(TAG, "Transfers of a job finished, " + mTransferQueue.size() + " left");
+            job.mOnFinished.call(job.mNeedsRetry);
+        }
+        for (Running running : started) {
+            TransferQueue.Entry entry = running.mEntry;
+            Log.d(TAG, "Starting " + (entry.isDownload() ? "download of " : "upload of ")
+                    + entry.getFileIORequest().getFile().getName());
+            running.mSubscription.set(mTransfer.call(entry)
+                    .subscribeOn(mScheduler)
+                    .subscribe(o -> {
+                    }, throwable -> onFailed(entry, throwable), () -> onCompleted(entry)));
+        }
+    }
+
+    private void onCompleted(@NonNull TransferQueue.Entry entry) {
+        synchronized (this) {
+            if (mRunning.remove(entry.getId()) == null)
+                return;
+            try {
+                mTransferQueue.remove(entry.getId());
+            } catch (IOException e) {
+                Log.e(TAG, "Could not remove completed transfer", e);
+            }
+        }
+        dispatch();
+    }
+
+    private void onFailed(@NonNull TransferQueue.Entry entry, @NonNull Throwable throwable) {
+        boolean dropped = false;
+        synchronized (this) {
+            Running running = mRunning.remove(entry.getId());
+            if (running == null)
+                return;
+            if (throwable instanceof IOException) {
+                Log.d(TAG, "Transfer failed, retried on the next run", throwable);
+                mFailed.add(entry.getId());
+                running.mJob.mNeedsRetry = true;
+            } else
+                try {
+                    if (mTransferQueue.incrementAttempts(entry.getId()) < MAX_ATTEMPTS) {
+                        mFailed.add(entry.getId());
+                        running.mJob.mNeedsRetry = true;
+                    } else {
+                        Log.e(TAG, "Dropping transfer failed " + MAX_ATTEMPTS + " times", throwable);
+                        dropped = mTransferQueue.remove(entry.getId());
+                    }
+                } catch (IOException e) {
+                    Log.e(TAG, "Could not record failed transfer", e);
+                    mFailed.add(entry.getId());
+                    running.mJob.mNeedsRetry = true;
+                }
+        }
+        if (dropped)
+            mDiscard.call(entry);
+        dispatch();
+    }
+
+    /**
+     * Stops the running transfers of the job, left queued for it to be rescheduled, unless the job finished
+     * already. The other jobs of the run may take over the ones they can run.
+     */
+    private void stop(@NonNull Job job) {
+        List<Running> stopped = new ArrayList<>();
+        synchronized (this) {
+            if (!mJobs.remove(job))
+                return;
+            for (Iterator<Running> running = mRunning.values().iterator(); running.hasNext(); ) {
+                Running transfer = running.next();
+                if (transfer.mJob == job) {
+                    stopped.add(transfer);
+                    running.remove();
+                }
+            }
+            if (mJobs.isEmpty())
+                finish();
+        }
+        for (Running transfer : stopped)
+            transfer.mSubscription.unsubscribe();
+        Log.d(TAG, "Transfers of a job stopped, " + mTransferQueue.size() + " left");
+        dispatch();
+    }
+
+    /**
+     * Ends the run, once its last job finished or stopped.
+     */
+    private void finish() {
+        mFailed.clear();
+        ConnectionClassManager.getInstance().remove(mQualityListener);
+        if (mSampleBandwidth)
+            DeviceBandwidthSampler.getInstance().stopSampling();
+    }
+
+    /**
+     * @return the first job of the run whose constraints the transfer can run with, null if none.
+     */
+    @Nullable
+    private Job findJob(@NonNull FileIORequest fileIORequest) {
+        for (Job job : mJobs)
+            if ((!fileIORequest.onWifi() || job.mOnWifi) && (!fileIORequest.isWhileCharging() || job.mWhileCharging))
+                return job;
+        return null;
+    }
+
+    private void schedule(@NonNull FileIORequest fileIORequest) {
+        if (mDispatcher != null)
+            Utils.getInstance().scheduleTransfers(mDispatcher, fileIORequest.onWifi(),
+                    fileIORequest.isWhileCharging());
+    }
+
+    private static void increment(@NonNull Map<String, Integer> hosts, @NonNull String host) {
+        Integer count = hosts.get(host);
+        hosts.put(host, count == null ? 1 : count + 1);
+    }
+
+    /**
+     * @return host of the url, or the url itself if it is not valid.
+     */
+    @NonNull
+    private static String getHost(@NonNull String url) {
+        HttpUrl httpUrl = HttpUrl.parse(url);
+        return httpUrl == null ? url : httpUrl.host();
+    }
+
+    private static final class Running {
+        private final TransferQueue.Entry mEntry;
+        private final String mHost;
+        private final Job mJob;
+        private final SerialSubscription mSubscription = new SerialSubscription();
+
+        Running(@NonNull TransferQueue.Entry entry, @NonNull String host, @NonNull Job job) {
+            mEntry = entry;
+            mHost = host;
+            mJob = job;
+        }
+    }
+
+    /**
+     * A job running transfers, with its constraints.
+     */
+    private static final class Job {
+        private final boolean mOnWifi, mWhileCharging;
+        private final Action1<Boolean> mOnFinished;
+        private boolean mNeedsRetry;
+
+        Job(boolean onWifi, boolean whileCharging, @NonNull Action1<Boolean> onFinished) {
+            mOnWifi = onWifi;
+            mWhileCharging = whileCharging;
+            mOnFinished = onFinished;
+        }
+    }
+}
@@ -18,10 +18,16 @@ import com.firebase.jobdispatcher.FirebaseJobDispatcher;
 import com.firebase.jobdispatcher.Lifetime;
 import com.firebase.jobdispatcher.RetryStrategy;
 import com.firebase.jobdispatcher.Trigger;
+import com.zeyad.usecases.Config;
+import com.zeyad.usecases.data.db.IdSequence;
+import com.zeyad.usecases.data.db.RealmPool;
 import com.zeyad.usecases.data.requests.FileIORequest;
 import com.zeyad.usecases.data.requests.PostRequest;
 import com.zeyad.usecases.data.services.GenericJobService;
+import com.zeyad.usecases.data.services.Outbox;
+import com.zeyad.usecases.data.services.TransferQueue;
 
+import java.io.IOException;
 import java.util.List;
 
 import io.realm.Realm;
@@ -49,8 +55,11 @@ public class Utils {
         return !(mContext instanceof Activity || mContext instanceof Service);
     }
 
+    /**
+     * @return the next free id of the class, see {@link IdSequence}.
+     */
     public int getNextId(Class clazz, String column) {
-        return getMaxId(clazz, column) + 1;
+        return IdSequence.getInstance().next(clazz, column);
     }
 
     public Observable.Transformer<?, ?> logSources(final String source) {
@@ -98,14 +107,14 @@ public class Utils {
     }
 
     public int getMaxId(Class clazz, String column) {
-        Realm realm = Realm.getDefaultInstance();
+        Realm realm = RealmPool.getInstance().acquire();
         try {
             Number currentMax = realm.where(clazz).max(column);
             if (currentMax != null)
                 return currentMax.intValue();
             else return 0;
         } finally {
-            realm.close();
+            RealmPool.getInstance().release(realm);
         }
     }
 
@@ -113,41 +122,71 @@ public class Utils {
         return RequestBody.create(MediaType.parse(MULTIPART_FORM_DATA), String.valueOf(descriptionString));
     }
 
+    /**
+     * Appends the request to the {@link Outbox} and schedules it to be drained. All queued requests
+     * share a single drain job.
+     */
     public void queuePostCore(FirebaseJobDispatcher dispatcher, PostRequest postRequest) {
-        Bundle extras = new Bundle(2);
-        extras.putString(GenericJobService.JOB_TYPE, GenericJobService.POST);
-        extras.putParcelable(GenericJobService.PAYLOAD, postRequest);
+        try {
+            Outbox.getInstance(Config.getInstance().getContext()).add(postRequest);
+        } catch (IOException e) {
+            Log.e("FBJDQ", postRequest.getMethod() + " request could not be queued!", e);
+            return;
+        }
+        scheduleOutboxDrain(dispatcher);
+        Log.d("FBJDQ", postRequest.getMethod() + " request is queued successfully!");
+    }
+
+    public void scheduleOutboxDrain(FirebaseJobDispatcher dispatcher) {
+        Bundle extras = new Bundle(1);
+        extras.putString(GenericJobService.JOB_TYPE, GenericJobService.DRAIN_OUTBOX);
         dispatcher.mustSchedule(dispatcher.newJobBuilder()
                 .setService(GenericJobService.class)
-                .setTag(GenericJobService.POST)
+                .setTag(GenericJobService.DRAIN_OUTBOX)
                 .setRecurring(false)
-                .setLifetime(Lifetime.UNTIL_NEXT_BOOT)
+                .setLifetime(Lifetime.FOREVER)
                 .setTrigger(Trigger.executionWindow(0, 60))
-                .setReplaceCurrent(false)
+                .setReplaceCurrent(true)
                 .setRetryStrategy(RetryStrategy.DEFAULT_EXPONENTIAL)
                 .setConstraints(Constraint.ON_ANY_NETWORK, Constraint.DEVICE_CHARGING)
                 .setExtras(extras)
                 .build());
-        Log.d("FBJDQ", postRequest.getMethod() + " request is queued successfully!");
     }
 
+    /**
+     * Adds the transfer to the {@link TransferQueue} and schedules a run of the queue with the constraints
+     * of the transfer. Queued transfers share a run per set of constraints.
+     */
     public void queueFileIOCore(FirebaseJobDispatcher dispatcher, boolean isDownload,
                                 FileIORequest fileIORequest) {
-        Bundle extras = new Bundle(2);
-        extras.putString(GenericJobService.JOB_TYPE, isDownload ? GenericJobService.DOWNLOAD_FILE : GenericJobService.UPLOAD_FILE);
-        extras.putParcelable(GenericJobService.PAYLOAD, fileIORequest);
+        String type = isDownload ? "Download" : "Upload";
+        try {
+            TransferQueue.getInstance(Config.getInstance().getContext()).add(fileIORequest, isDownload);
+        } catch (IOException e) {
+            Log.e("FBJDQ", type + " file request could not be queued!", e);
+            return;
+        }
+        scheduleTransfers(dispatcher, fileIORequest.onWifi(), fileIORequest.isWhileCharging());
+        Log.d("FBJDQ", String.format("%s file request is queued successfully!", type));
+    }
+
+    public void scheduleTransfers(FirebaseJobDispatcher dispatcher, boolean onWifi, boolean whileCharging) {
+        Bundle extras = new Bundle(3);
+        extras.putString(GenericJobService.JOB_TYPE, GenericJobService.RUN_TRANSFERS);
+        extras.putBoolean(GenericJobService.ON_WIFI, onWifi);
+        extras.putBoolean(GenericJobService.WHILE_CHARGING, whileCharging);
         dispatcher.mustSchedule(dispatcher.newJobBuilder()
                 .setService(GenericJobService.class)
-                .setTag(isDownload ? GenericJobService.DOWNLOAD_FILE : GenericJobService.UPLOAD_FILE)
+                .setTag(GenericJobService.RUN_TRANSFERS + (onWifi ? "_ON_WIFI" : "")
+                        + (whileCharging ? "_WHILE_CHARGING" : ""))
                 .setRecurring(false)
-                .setLifetime(Lifetime.UNTIL_NEXT_BOOT)
+                .setLifetime(Lifetime.FOREVER)
                 .setTrigger(Trigger.executionWindow(0, 60))
-                .setReplaceCurrent(false)
+                .setReplaceCurrent(true)
                 .setRetryStrategy(RetryStrategy.DEFAULT_EXPONENTIAL)
-                .setConstraints(fileIORequest.onWifi() ? Constraint.ON_UNMETERED_NETWORK : Constraint.ON_ANY_NETWORK,
-                        fileIORequest.isWhileCharging() ? Constraint.DEVICE_CHARGING : 0)
+                .setConstraints(onWifi ? Constraint.ON_UNMETERED_NETWORK : Constraint.ON_ANY_NETWORK,
+                        whileCharging ? Constraint.DEVICE_CHARGING : 0)
                 .setExtras(extras)
                 .build());
-        Log.d("FBJDQ", String.format("%s file request is queued successfully!", isDownload ? "Download" : "Upload"));
     }
 }
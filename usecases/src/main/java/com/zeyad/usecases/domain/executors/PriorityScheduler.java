@@ -0,0 +1,317 @@
+package com.zeyad.usecases.domain.executors;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.android.schedulers.AndroidSchedulers;
+import rx.functions.Action0;
+import rx.plugins.RxJavaHooks;
+import rx.subscriptions.CompositeSubscription;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * {@link Scheduler} over a bounded pool of Looper threads sharing one priority queue. Higher priority
+ * actions run first, actions of equal priority in submission order.
+ * <p>
+ * Like any {@link Worker}, each worker runs its actions one at a time and in the order they were
+ * scheduled: they wait in a queue of the worker, which has at most one task in the pool at a time, so
+ * the actions of a worker may move between threads but never overlap.
+ * <p>
+ * Each action runs as its own message on the Looper of the thread picking it, so Realm change listeners
+ * registered by earlier actions are still notified between actions.
+ */
+public final class PriorityScheduler extends Scheduler {
+
+    public static final int PRIORITY_LOW = -10, PRIORITY_NORMAL = 0, PRIORITY_HIGH = 10;
+    private final String mName;
+    private final PriorityBlockingQueue<Task> mQueue;
+    private final ConcurrentLinkedQueue<Lane> mIdleLanes;
+    private final Lane[] mLanes;
+    private final AtomicLong mSequence, mSubmitted, mCompleted;
+    private final AtomicInteger mActive, mMaxQueueDepth;
+
+    /**
+     * @param name        prefix of the names of the threads.
+     * @param threadCount number of threads of the pool.
+     */
+    public PriorityScheduler(@NonNull String name, int threadCount) {
+        if (threadCount < 1)
+            throw new IllegalArgumentException("threadCount should be positive");
+        mName = name;
+        mQueue = new PriorityBlockingQueue<>();
+        mIdleLanes = new ConcurrentLinkedQueue<>();
+        mSequence = new AtomicLong();
+        mSubmitted = new AtomicLong();
+        mCompleted = new AtomicLong();
+        mActive = new AtomicInteger();
+        mMaxQueueDepth = new AtomicInteger();
+        mLanes = new Lane[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            HandlerThread thread = new HandlerThread(name + "_" + i);
+            thread.start();
+            mLanes[i] = new Lane(new Handler(thread.getLooper()));
+            mIdleLanes.offer(mLanes[i]);
+        }
+    }
+
+    @Override
+    public Worker createWorker() {
+        return new PriorityWorker(PRIORITY_NORMAL);
+    }
+
+    /**
+     * @return a view of this scheduler running its actions with the given priority.
+     */
+    @NonNull
+    public Scheduler withPriority(int priority) {
+        return new Scheduler() {
+            @Override
+            public Worker createWorker() {
+                return new PriorityWorker(priority);
+            }
+        };
+    }
+
+    /**
+     * Actions run on the thread of the pool calling this method, right after its current action and ahead
+     * of the queued ones, for releasing what is confined to that thread, like Realm listeners.
+     *
+     * @return a scheduler over the calling thread, or {@code null} when not called from the pool.
+     */
+    @Nullable
+    public Scheduler currentThread() {
+        Looper looper = Looper.myLooper();
+        for (Lane lane : mLanes)
+            if (lane.mHandler.getLooper() == looper)
+                return AndroidSchedulers.from(looper);
+        return null;
+    }
+
+    /**
+     * Subscribes on the pool with the given priority and, once subscribed, unsubscribes on the thread
+     * subscribed on, which is the one the Realms and the change listeners of the observable are confined
+     * to. Observables unsubscribed before subscribing are unsubscribed on the pool ahead of everything
+     * else, so their queued subscription is skipped rather than run.
+     *
+     * @return a transformer confining the observable to a thread of the pool.
+     */
+    @NonNull
+    public <T> Observable.Transformer<T, T> confine(int priority) {
+        return observable -> Observable.defer(() -> {
+            AtomicReference<Scheduler> subscribeThread = new AtomicReference<>(withPriority(Integer.MAX_VALUE));
+            Scheduler unsubscribeThread = new Scheduler() {
+                @Override
+                public Worker createWorker() {
+                    return subscribeThread.get().createWorker();
+                }
+            };
+            return observable.doOnSubscribe(() -> {
+                Scheduler current = currentThread();
+                if (current != null)
+                    subscribeThread.set(current);
+            }).subscribeOn(withPriority(priority)).unsubscribeOn(unsubscribeThread);
+        });
+    }
+
+    @NonNull
+    public String getName() {
+        return mName;
+    }
+
+    public int getThreadCount() {
+        return mLanes.length;
+    }
+
+    /**
+     * @return number of actions waiting for a thread.
+     */
+    public int getQueueDepth() {
+        return mQueue.size();
+    }
+
+    /**
+     * @return highest number of actions that waited for a thread at once.
+     */
+    public int getMaxQueueDepth() {
+        return mMaxQueueDepth.get();
+    }
+
+    /**
+     * @return number of actions running.
+     */
+    public int getActiveCount() {
+        return mActive.get();
+    }
+
+    public long getSubmittedCount() {
+        return mSubmitted.get();
+    }
+
+    public long getCompletedCount() {
+        return mCompleted.get();
+    }
+
+    private void submit(@NonNull Task task) {
+        mQueue.offer(task);
+        mSubmitted.incrementAndGet();
+        int depth = mQueue.size(), max = mMaxQueueDepth.get();
+        while (depth > max && !mMaxQueueDepth.compareAndSet(max, depth))
+            max = mMaxQueueDepth.get();
+        wakeUpIdleLane();
+    }
+
+    private void wakeUpIdleLane() {
+        Lane lane = mIdleLanes.poll();
+        if (lane != null)
+            lane.mHandler.post(lane);
+    }
+
+    static final class Task implements Comparable<Task> {
+        final int mPriority;
+        final long mSequence;
+        final Action0 mAction;
+        final PriorityWorker mWorker;
+
+        Task(int priority, long sequence, @NonNull Action0 action, PriorityWorker worker) {
+            mPriority = priority;
+            mSequence = sequence;
+            mAction = action;
+            mWorker = worker;
+        }
+
+        @Override
+        public int compareTo(@NonNull Task other) {
+            if (mPriority != other.mPriority)
+                return mPriority > other.mPriority ? -1 : 1;
+            return mSequence < other.mSequence ? -1 : mSequence == other.mSequence ? 0 : 1;
+        }
+    }
+
+    private final class Lane implements Runnable {
+        private final Handler mHandler;
+
+        Lane(@NonNull Handler handler) {
+            mHandler = handler;
+        }
+
+        @Override
+        public void run() {
+            Task task = mQueue.poll();
+            if (task == null) {
+                mIdleLanes.offer(this);
+                // A task submitted while this lane was going idle may have found no idle lane.
+                if (!mQueue.isEmpty() && mIdleLanes.remove(this))
+                    mHandler.post(this);
+                return;
+            }
+            if (!task.mWorker.isUnsubscribed()) {
+                mActive.incrementAndGet();
+                try {
+                    task.mAction.call();
+                } catch (Throwable throwable) {
+                    RxJavaHooks.onError(throwable);
+                } finally {
+                    mActive.decrementAndGet();
+                }
+            }
+            mCompleted.incrementAndGet();
+            // Yields to the other messages of the Looper, like Realm notifications, before the next task.
+            mHandler.post(this);
+        }
+    }
+
+    private final class PriorityWorker extends Worker {
+        private final int mPriority;
+        private final CompositeSubscription mSubscriptions;
+        private final ConcurrentLinkedQueue<Action0> mActions;
+        private final AtomicInteger mPending;
+
+        PriorityWorker(int priority) {
+            mPriority = priority;
+            mSubscriptions = new CompositeSubscription();
+            mActions = new ConcurrentLinkedQueue<>();
+            mPending = new AtomicInteger();
+        }
+
+        @Override
+        public Subscription schedule(Action0 action) {
+            if (isUnsubscribed())
+                return Subscriptions.unsubscribed();
+            Subscription[] subscription = new Subscription[1];
+            subscription[0] = Subscriptions.create(() -> mSubscriptions.remove(subscription[0]));
+            mSubscriptions.add(subscription[0]);
+            mActions.offer(() -> {
+                if (!subscription[0].isUnsubscribed()) {
+                    mSubscriptions.remove(subscription[0]);
+                    action.call();
+                }
+            });
+            if (mPending.getAndIncrement() == 0)
+                submitNext();
+            return subscription[0];
+        }
+
+        private void submitNext() {
+            submit(new Task(mPriority, mSequence.getAndIncrement(), this::runNext, this));
+        }
+
+        /**
+         * Runs the oldest action of the worker, then submits the next one, if any, behind the tasks of the
+         * other workers of the same priority.
+         */
+        private void runNext() {
+            try {
+                // Empty once unsubscribed.
+                Action0 action = mActions.poll();
+                if (action != null)
+                    action.call();
+            } finally {
+                if (mPending.decrementAndGet() > 0)
+                    submitNext();
+            }
+        }
+
+        @Override
+        public Subscription schedule(Action0 action, long delayTime, TimeUnit unit) {
+            long delayMillis = unit.toMillis(delayTime);
+            if (delayMillis <= 0)
+                return schedule(action);
+            if (isUnsubscribed())
+                return Subscriptions.unsubscribed();
+            Handler handler = mLanes[0].mHandler;
+            Subscription[] subscription = new Subscription[1];
+            Runnable delayed = () -> {
+                mSubscriptions.remove(subscription[0]);
+                schedule(action);
+            };
+            subscription[0] = Subscriptions.create(() -> handler.removeCallbacks(delayed));
+            mSubscriptions.add(subscription[0]);
+            handler.postDelayed(delayed, delayMillis);
+            return subscription[0];
+        }
+
+        @Override
+        public void unsubscribe() {
+            mSubscriptions.unsubscribe();
+            mActions.clear();
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            return mSubscriptions.isUnsubscribed();
+        }
+    }
+}
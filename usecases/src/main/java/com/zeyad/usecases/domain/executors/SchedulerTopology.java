@@ -0,0 +1,106 @@
+package com.zeyad.usecases.domain.executors;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Separate {@link PriorityScheduler} pools for network I/O, database reads, the database writer and CPU
+ * bound mapping, so that work of one kind does not queue behind work of another.
+ */
+public final class SchedulerTopology {
+
+    public static final int DEFAULT_NETWORK_THREADS = 4, DEFAULT_DISK_READ_THREADS = 2,
+            DEFAULT_DISK_WRITE_THREADS = 1;
+    private final int mNetworkThreads, mDiskReadThreads, mDiskWriteThreads, mComputationThreads;
+    private PriorityScheduler mNetwork, mDiskRead, mDiskWrite, mComputation;
+
+    private SchedulerTopology(@NonNull Builder builder) {
+        mNetworkThreads = builder.mNetworkThreads;
+        mDiskReadThreads = builder.mDiskReadThreads;
+        mDiskWriteThreads = builder.mDiskWriteThreads;
+        mComputationThreads = builder.mComputationThreads;
+    }
+
+    /**
+     * @return pool for requests to the network.
+     */
+    @NonNull
+    public synchronized PriorityScheduler getNetwork() {
+        if (mNetwork == null)
+            mNetwork = new PriorityScheduler("network", mNetworkThreads);
+        return mNetwork;
+    }
+
+    /**
+     * @return pool for database reads. Its threads have Loopers, so live Realm results keep updating.
+     */
+    @NonNull
+    public synchronized PriorityScheduler getDiskRead() {
+        if (mDiskRead == null)
+            mDiskRead = new PriorityScheduler("disk_read", mDiskReadThreads);
+        return mDiskRead;
+    }
+
+    /**
+     * @return pool for database writes.
+     */
+    @NonNull
+    public synchronized PriorityScheduler getDiskWrite() {
+        if (mDiskWrite == null)
+            mDiskWrite = new PriorityScheduler("disk_write", mDiskWriteThreads);
+        return mDiskWrite;
+    }
+
+    /**
+     * @return pool for CPU bound work, like mapping and parsing.
+     */
+    @NonNull
+    public synchronized PriorityScheduler getComputation() {
+        if (mComputation == null)
+            mComputation = new PriorityScheduler("computation", mComputationThreads);
+        return mComputation;
+    }
+
+    public static class Builder {
+        private int mNetworkThreads = DEFAULT_NETWORK_THREADS, mDiskReadThreads = DEFAULT_DISK_READ_THREADS,
+                mDiskWriteThreads = DEFAULT_DISK_WRITE_THREADS,
+                mComputationThreads = Runtime.getRuntime().availableProcessors();
+
+        @NonNull
+        public Builder networkThreads(int networkThreads) {
+            mNetworkThreads = checkPositive(networkThreads);
+            return this;
+        }
+
+        @NonNull
+        public Builder diskReadThreads(int diskReadThreads) {
+            mDiskReadThreads = checkPositive(diskReadThreads);
+            return this;
+        }
+
+        /**
+         * Realm serializes write transactions, so more than one writer thread only adds contention.
+         */
+        @NonNull
+        public Builder diskWriteThreads(int diskWriteThreads) {
+            mDiskWriteThreads = checkPositive(diskWriteThreads);
+            return this;
+        }
+
+        @NonNull
+        public Builder computationThreads(int computationThreads) {
+            mComputationThreads = checkPositive(computationThreads);
+            return this;
+        }
+
+        private static int checkPositive(int threads) {
+            if (threads < 1)
+                throw new IllegalArgumentException("threads should be positive");
+            return threads;
+        }
+
+        @NonNull
+        public SchedulerTopology build() {
+            return new SchedulerTopology(this);
+        }
+    }
+}
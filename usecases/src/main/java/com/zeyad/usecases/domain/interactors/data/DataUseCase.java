@@ -1,27 +1,39 @@
 package com.zeyad.usecases.domain.interactors.data;
 
-import android.os.HandlerThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
+import com.zeyad.usecases.Config;
+import com.zeyad.usecases.data.db.CollectionChange;
 import com.zeyad.usecases.data.db.DatabaseManagerFactory;
 import com.zeyad.usecases.data.mappers.IDAOMapperFactory;
+import com.zeyad.usecases.data.network.RequestDispatcher;
 import com.zeyad.usecases.data.network.RestApiImpl;
 import com.zeyad.usecases.data.repository.DataRepository;
 import com.zeyad.usecases.data.repository.stores.DataStoreFactory;
 import com.zeyad.usecases.data.requests.GetRequest;
+import com.zeyad.usecases.data.requests.PageConfig;
 import com.zeyad.usecases.data.requests.PostRequest;
 import com.zeyad.usecases.data.utils.Utils;
 import com.zeyad.usecases.domain.executors.PostExecutionThread;
+import com.zeyad.usecases.domain.executors.PriorityScheduler;
+import com.zeyad.usecases.domain.executors.SchedulerTopology;
 import com.zeyad.usecases.domain.executors.UIThread;
 import com.zeyad.usecases.domain.repositories.Data;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import rx.Observable;
 import rx.Scheduler;
-import rx.android.schedulers.AndroidSchedulers;
 import rx.exceptions.OnErrorNotImplementedException;
+import rx.functions.Action0;
 import rx.functions.Func1;
+import rx.schedulers.Schedulers;
 import rx.subjects.BehaviorSubject;
+import rx.subjects.PublishSubject;
 
 /**
  * This class is a general implementation that represents a use case for retrieving data.
@@ -31,14 +43,18 @@ public class DataUseCase implements IDataUseCase {
     private final static BehaviorSubject ObjectOffLineFirst = BehaviorSubject.create();
     private final static BehaviorSubject<List> listOffLineFirst = BehaviorSubject.create();
     private static boolean hasRealm;
-    private static HandlerThread handlerThread;
     private static DataUseCase sDataUseCase;
     private final Data mData;
     private final PostExecutionThread mPostExecutionThread;
+    private final SchedulerTopology mSchedulerTopology;
+    // Guarded by itself.
+    private final Map<String, Cancellation> mCancellations;
 
-    private DataUseCase(Data data, PostExecutionThread postExecutionThread, HandlerThread thread) {
+    private DataUseCase(Data data, PostExecutionThread postExecutionThread, SchedulerTopology schedulerTopology) {
         mPostExecutionThread = postExecutionThread;
         mData = data;
+        mSchedulerTopology = schedulerTopology;
+        mCancellations = new HashMap<>();
     }
 
     /**
@@ -47,14 +63,10 @@ public class DataUseCase implements IDataUseCase {
      * Ideally this function should be called once when application  is started or created.
      * This function may be called n number of times if required, during mocking and testing.
      */
-    static void initWithoutDB(IDAOMapperFactory entityMapper, PostExecutionThread postExecutionThread,
-                              HandlerThread thread) {
+    static void initWithoutDB(IDAOMapperFactory entityMapper, PostExecutionThread postExecutionThread) {
         hasRealm = false;
-        handlerThread = thread;
-        if (!handlerThread.isAlive())
-            handlerThread.start();
         sDataUseCase = new DataUseCase(new DataRepository(new DataStoreFactory(RestApiImpl.getInstance()),
-                entityMapper), postExecutionThread, thread);
+                entityMapper), postExecutionThread, Config.getSchedulerTopology());
     }
 
     /**
@@ -63,15 +75,12 @@ public class DataUseCase implements IDataUseCase {
      * Ideally this function should be called once when application  is started or created.
      * This function may be called n number of times if required, during mocking and testing.
      */
-    static void initWithRealm(IDAOMapperFactory entityMapper, PostExecutionThread postExecutionThread,
-                              HandlerThread thread) {
+    static void initWithRealm(IDAOMapperFactory entityMapper, PostExecutionThread postExecutionThread) {
         hasRealm = true;
-        handlerThread = thread;
-        if (!handlerThread.isAlive())
-            handlerThread.start();
-        DatabaseManagerFactory.initRealm(handlerThread.getLooper());
+        DatabaseManagerFactory.initRealm();
         sDataUseCase = new DataUseCase(new DataRepository(new DataStoreFactory(DatabaseManagerFactory
-                .getInstance(), RestApiImpl.getInstance()), entityMapper), postExecutionThread, thread);
+                .getInstance(), RestApiImpl.getInstance()), entityMapper), postExecutionThread,
+                Config.getSchedulerTopology());
     }
 
     /**
@@ -81,12 +90,12 @@ public class DataUseCase implements IDataUseCase {
      * Ideally this function should be called once when application  is started or created.
      * This function may be called n number of times if required, during mocking and testing.
      *
-     * @param dataRepository data repository
-     * @param uiThread       ui thread implementation
-     * @param handlerThread  background thread
+     * @param dataRepository    data repository
+     * @param uiThread          ui thread implementation
+     * @param schedulerTopology pools the use cases run on
      */
-    public static void init(DataRepository dataRepository, UIThread uiThread, HandlerThread handlerThread) {
-        sDataUseCase = new DataUseCase(dataRepository, uiThread, handlerThread);
+    public static void init(DataRepository dataRepository, UIThread uiThread, SchedulerTopology schedulerTopology) {
+        sDataUseCase = new DataUseCase(dataRepository, uiThread, schedulerTopology);
     }
 
     public static DataUseCase getInstance() {
@@ -95,12 +104,6 @@ public class DataUseCase implements IDataUseCase {
         return sDataUseCase;
     }
 
-    public static HandlerThread getHandlerThread() {
-        if (handlerThread == null)
-            handlerThread = new HandlerThread("backgroundThread");
-        return handlerThread;
-    }
-
     /**
      * @return returns database type, whether realm or none.
      */
@@ -120,13 +123,46 @@ public class DataUseCase implements IDataUseCase {
     @Override
     @SuppressWarnings("unchecked")
     public Observable<List> getList(GetRequest genericUseCaseRequest) {
+        if (genericUseCaseRequest.isDeltaSync())
+            return mData.syncListDynamically(genericUseCaseRequest.getUrl(), genericUseCaseRequest
+                    .getIdColumnName(), genericUseCaseRequest.getSyncTokenParameter(), genericUseCaseRequest
+                    .getPresentationClass(), genericUseCaseRequest.getDataClass())
+                    .compose(applyNetwork(genericUseCaseRequest.getPriority(), genericUseCaseRequest.getGroup()));
         return mData.getListDynamically(genericUseCaseRequest.getUrl(), genericUseCaseRequest
                 .getPresentationClass(), genericUseCaseRequest.getDataClass(), genericUseCaseRequest
                 .isPersist(), genericUseCaseRequest.isShouldCache())
-                .compose(applySchedulers())
+                .compose(applyNetwork(genericUseCaseRequest.getPriority(), genericUseCaseRequest.getGroup()))
                 .flatMap(Observable::just);
     }
 
+    /**
+     * Executes the current use case.
+     *
+     * @param getRequest The guy who will be listen to the observable build with .
+     */
+    @Override
+    public Observable<List> streamList(GetRequest getRequest) {
+        return mData.streamListDynamically(getRequest.getUrl(), getRequest.getPresentationClass(),
+                getRequest.getDataClass(), getRequest.isPersist(), getRequest.getChunkSize())
+                .compose(applyNetwork(getRequest.getPriority(), getRequest.getGroup()));
+    }
+
+    /**
+     * Executes the current use case.
+     *
+     * @param getRequest The guy who will be listen to the observable build with .
+     * @param pageConfig The paging attributes.
+     */
+    @Override
+    public PagedList getPagedList(GetRequest getRequest, PageConfig pageConfig) {
+        PagedList pagedList = new PagedList(cursor -> mData.getListDynamically(pageConfig.getPageUrl(getRequest.getUrl(),
+                cursor), getRequest.getPresentationClass(), getRequest.getDataClass(), getRequest.isPersist(),
+                getRequest.isShouldCache())
+                .compose(applyNetwork(getRequest.getPriority(), getRequest.getGroup())), pageConfig);
+        pagedList.loadNext();
+        return pagedList;
+    }
+
     /**
      * Executes the current use case.
      *
@@ -138,7 +174,7 @@ public class DataUseCase implements IDataUseCase {
         return mData.getObjectDynamicallyById(getRequest.getUrl(), getRequest.getIdColumnName(),
                 getRequest.getItemId(), getRequest.getPresentationClass(), getRequest.getDataClass(),
                 getRequest.isPersist(), getRequest.isShouldCache())
-                .compose(applySchedulers())
+                .compose(applyNetwork(getRequest.getPriority(), getRequest.getGroup()))
                 .flatMap(Observable::just);
     }
 
@@ -147,7 +183,7 @@ public class DataUseCase implements IDataUseCase {
         return mData.dynamicPatchObject(postRequest.getUrl(), postRequest.getIdColumnName(),
                 postRequest.getObjectBundle(), postRequest.getPresentationClass(), postRequest
                         .getDataClass(), postRequest.isPersist(), postRequest.isQueuable())
-                .compose(applySchedulers());
+                .compose(applyNetwork(postRequest.getPriority(), postRequest.getGroup()));
     }
 
     @Override
@@ -155,7 +191,7 @@ public class DataUseCase implements IDataUseCase {
         return mData.postObjectDynamically(postRequest.getUrl(), postRequest.getIdColumnName(),
                 postRequest.getObjectBundle(), postRequest.getPresentationClass(), postRequest
                         .getDataClass(), postRequest.isPersist(), postRequest.isQueuable())
-                .compose(applySchedulers());
+                .compose(applyNetwork(postRequest.getPriority(), postRequest.getGroup()));
     }
 
     @Override
@@ -163,7 +199,7 @@ public class DataUseCase implements IDataUseCase {
         return mData.postListDynamically(postRequest.getUrl(), postRequest.getIdColumnName(),
                 postRequest.getArrayBundle(), postRequest.getPresentationClass(), postRequest.getDataClass(),
                 postRequest.isPersist(), postRequest.isQueuable())
-                .compose(applySchedulers());
+                .compose(applyNetwork(postRequest.getPriority(), postRequest.getGroup()));
     }
 
     /**
@@ -176,7 +212,7 @@ public class DataUseCase implements IDataUseCase {
         return mData.putObjectDynamically(postRequest.getUrl(), postRequest.getIdColumnName(),
                 postRequest.getObjectBundle(), postRequest.getPresentationClass(),
                 postRequest.getDataClass(), postRequest.isPersist(), postRequest.isQueuable())
-                .compose(applySchedulers());
+                .compose(applyNetwork(postRequest.getPriority(), postRequest.getGroup()));
     }
 
     /**
@@ -186,7 +222,8 @@ public class DataUseCase implements IDataUseCase {
     public Observable putList(PostRequest postRequest) {
         return mData.putListDynamically(postRequest.getUrl(), postRequest.getIdColumnName(),
                 postRequest.getArrayBundle(), postRequest.getPresentationClass(), postRequest.getDataClass(),
-                postRequest.isPersist(), postRequest.isQueuable()).compose(applySchedulers());
+                postRequest.isPersist(), postRequest.isQueuable())
+                .compose(applyNetwork(postRequest.getPriority(), postRequest.getGroup()));
     }
 
     @Override
@@ -194,7 +231,7 @@ public class DataUseCase implements IDataUseCase {
         return mData.deleteListDynamically(deleteRequest.getUrl(), deleteRequest.getArrayBundle(),
                 deleteRequest.getPresentationClass(), deleteRequest.getDataClass(), deleteRequest.isPersist(),
                 deleteRequest.isQueuable())
-                .compose(applySchedulers());
+                .compose(applyNetwork(deleteRequest.getPriority(), deleteRequest.getGroup()));
     }
 
     /**
@@ -205,7 +242,8 @@ public class DataUseCase implements IDataUseCase {
     @Override
     public Observable<Boolean> deleteAll(PostRequest postRequest) {
         return mData.deleteAllDynamically(postRequest.getUrl(), postRequest.getDataClass(),
-                postRequest.isPersist()).compose(applySchedulers());
+                postRequest.isPersist())
+                .compose(applyNetwork(postRequest.getPriority(), postRequest.getGroup()));
     }
 
     /**
@@ -214,15 +252,29 @@ public class DataUseCase implements IDataUseCase {
     @Override
     @SuppressWarnings("unchecked")
     public Observable<List> queryDisk(GetRequest getRequest) {
+        if (getRequest.getReadMode() != GetRequest.ReadMode.COPY)
+            return mData.queryDisk(getRequest.getQueryFactory(), getRequest.getPresentationClass(),
+                    getRequest.getReadMode(), getRequest.getWindowSize())
+                    .compose(applyConfinedSchedulers())
+                    .compose(inGroup(getRequest.getGroup()));
         return mData.queryDisk(getRequest.getQueryFactory(), getRequest.getPresentationClass())
                 .flatMap(Observable::just)
-                .compose(applySchedulers());
+                .compose(applyDiskRead(getRequest.getPriority(), getRequest.getGroup()));
+    }
+
+    @Override
+    public Observable<CollectionChange> queryDiskChanges(GetRequest getRequest) {
+        return mData.queryDiskChanges(getRequest.getQueryFactory(), getRequest.getIdColumnName(),
+                getRequest.getPresentationClass())
+                .compose(applyConfinedSchedulers())
+                .compose(inGroup(getRequest.getGroup()));
     }
 
     @Override
     public Observable<List> getListOffLineFirst(GetRequest getRequest) {
         Observable<List> online = mData.getListDynamically(getRequest.getUrl(), getRequest.getPresentationClass(),
-                getRequest.getDataClass(), getRequest.isPersist(), getRequest.isShouldCache());
+                getRequest.getDataClass(), getRequest.isPersist(), getRequest.isShouldCache())
+                .compose(RequestDispatcher.withPriority(getRequest.getPriority()));
         mData.getListDynamically("", getRequest.getPresentationClass(), getRequest.getDataClass(),
                 getRequest.isPersist(), getRequest.isShouldCache())
                 .flatMap(new Func1<List, Observable<List>>() {
@@ -236,17 +288,18 @@ public class DataUseCase implements IDataUseCase {
                 .onErrorResumeNext(throwable -> online)
                 .doOnNext(listOffLineFirst::onNext)
                 .doOnError(listOffLineFirst::onError)
-                .compose(applySchedulers())
+                .compose(applyDiskRead(getRequest.getPriority(), getRequest.getGroup()))
                 .subscribe(o -> {
                 }, OnErrorNotImplementedException::new);
-        return listOffLineFirst.compose(applySchedulers());
+        return listOffLineFirst.compose(applyNetwork(getRequest.getPriority(), getRequest.getGroup()));
     }
 
     @Override
     public Observable<?> getObjectOffLineFirst(GetRequest getRequest) {
         Observable<?> online = mData.getObjectDynamicallyById(getRequest.getUrl(), getRequest
                         .getIdColumnName(), getRequest.getItemId(), getRequest.getPresentationClass(),
-                getRequest.getDataClass(), getRequest.isPersist(), getRequest.isShouldCache());
+                getRequest.getDataClass(), getRequest.isPersist(), getRequest.isShouldCache())
+                .compose(RequestDispatcher.withPriority(getRequest.getPriority()));
         mData.getObjectDynamicallyById("", getRequest.getIdColumnName(), getRequest.getItemId(),
                 getRequest.getPresentationClass(), getRequest.getDataClass(), getRequest.isPersist(),
                 getRequest.isShouldCache())
@@ -254,25 +307,120 @@ public class DataUseCase implements IDataUseCase {
                 .onErrorResumeNext(throwable -> online)
                 .doOnNext(ObjectOffLineFirst::onNext)
                 .doOnError(ObjectOffLineFirst::onError)
-                .compose(applySchedulers())
+                .compose(applyDiskRead(getRequest.getPriority(), getRequest.getGroup()))
                 .subscribe(o -> {
                 }, OnErrorNotImplementedException::new);
-        return ObjectOffLineFirst.compose(applySchedulers());
+        return ObjectOffLineFirst.compose(applyNetwork(getRequest.getPriority(), getRequest.getGroup()));
+    }
+
+    @Override
+    public void cancelAll(@NonNull String group) {
+        Cancellation cancellation;
+        synchronized (mCancellations) {
+            cancellation = mCancellations.remove(group);
+        }
+        if (cancellation != null)
+            cancellation.mSignal.onNext(null);
+    }
+
+    /**
+     * Queries, observes and releases on the post execution thread, for results confined to the thread
+     * that queried them. The query itself runs asynchronously within Realm.
+     */
+    private <T> Observable.Transformer<T, T> applyConfinedSchedulers() {
+        if (mPostExecutionThread == null)
+            return observable -> observable;
+        Scheduler scheduler = mPostExecutionThread.getScheduler();
+        return observable -> observable.subscribeOn(scheduler).unsubscribeOn(scheduler);
+    }
+
+    /**
+     * Runs on the network pool, with the priority given to the calls too, within the cancellation group.
+     * Calls are canceled off the pool, so that a busy pool never delays them.
+     */
+    @NonNull
+    private <T> Observable.Transformer<T, T> applyNetwork(int priority, @Nullable String group) {
+        return observable -> observable.compose(RequestDispatcher.<T>withPriority(priority))
+                .compose(this.<T>applySchedulers(mSchedulerTopology.getNetwork().withPriority(priority),
+                        Schedulers.io()))
+                .compose(this.<T>inGroup(group));
+    }
+
+    /**
+     * Runs on the disk read pool within the cancellation group, confined to the thread it subscribed on.
+     */
+    @NonNull
+    private <T> Observable.Transformer<T, T> applyDiskRead(int priority, @Nullable String group) {
+        PriorityScheduler pool = mSchedulerTopology.getDiskRead();
+        return observable -> {
+            Observable<T> confined = observable.compose(pool.<T>confine(priority));
+            return (mPostExecutionThread != null ? confined.observeOn(mPostExecutionThread.getScheduler())
+                    : confined).compose(this.<T>inGroup(group));
+        };
     }
 
     /**
-     * Apply the default android schedulers to a observable
+     * Completes the observable, unsubscribing from it, when {@link #cancelAll(String)} is called for the
+     * group, if any. The group is forgotten once all its observables terminated or were unsubscribed.
+     */
+    @NonNull
+    private <T> Observable.Transformer<T, T> inGroup(@Nullable String group) {
+        if (group == null)
+            return observable -> observable;
+        return observable -> Observable.defer(() -> {
+            Cancellation cancellation = joinGroup(group);
+            AtomicBoolean left = new AtomicBoolean();
+            Action0 leave = () -> {
+                if (left.compareAndSet(false, true))
+                    leaveGroup(group, cancellation);
+            };
+            return observable.takeUntil(cancellation.mSignal)
+                    .doAfterTerminate(leave)
+                    .doOnUnsubscribe(leave);
+        });
+    }
+
+    @NonNull
+    private Cancellation joinGroup(@NonNull String group) {
+        synchronized (mCancellations) {
+            Cancellation cancellation = mCancellations.get(group);
+            if (cancellation == null) {
+                cancellation = new Cancellation();
+                mCancellations.put(group, cancellation);
+            }
+            cancellation.mMembers++;
+            return cancellation;
+        }
+    }
+
+    private void leaveGroup(@NonNull String group, @NonNull Cancellation cancellation) {
+        synchronized (mCancellations) {
+            if (--cancellation.mMembers == 0 && mCancellations.get(group) == cancellation)
+                mCancellations.remove(group);
+        }
+    }
+
+    /**
+     * Apply the given background thread and the post execution thread to a observable.
      *
-     * @param <T> the current observable
+     * @param backgroundThread  scheduler of the pool the work belongs to, with its priority
+     * @param unsubscribeThread scheduler unsubscriptions run on
+     * @param <T>               the current observable
      * @return the transformed observable
      */
-    private <T> Observable.Transformer<T, T> applySchedulers() {
-        if (!handlerThread.isAlive())
-            handlerThread.start();
-        Scheduler backgroundThread = AndroidSchedulers.from(handlerThread.getLooper());
+    private <T> Observable.Transformer<T, T> applySchedulers(@NonNull Scheduler backgroundThread,
+                                                             @NonNull Scheduler unsubscribeThread) {
         return mPostExecutionThread != null ? observable -> observable.subscribeOn(backgroundThread)
                 .observeOn(mPostExecutionThread.getScheduler())
-                .unsubscribeOn(backgroundThread) : observable -> observable.subscribeOn(backgroundThread)
-                .unsubscribeOn(backgroundThread);
+                .unsubscribeOn(unsubscribeThread) : observable -> observable.subscribeOn(backgroundThread)
+                .unsubscribeOn(unsubscribeThread);
+    }
+
+    /**
+     * Signal completing the observables of a cancellation group, and their number.
+     */
+    private static final class Cancellation {
+        private final PublishSubject<Void> mSignal = PublishSubject.create();
+        private int mMembers;
     }
 }
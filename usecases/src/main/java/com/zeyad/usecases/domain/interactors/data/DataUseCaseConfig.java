@@ -1,14 +1,18 @@
 package com.zeyad.usecases.domain.interactors.data;
 
 import android.content.Context;
-import android.os.HandlerThread;
 import android.support.annotation.NonNull;
 
-import com.zeyad.usecases.data.mappers.DAOMapperFactory;
-import com.zeyad.usecases.data.mappers.DefaultDAOMapper;
-import com.zeyad.usecases.data.mappers.IDAOMapper;
+import com.zeyad.usecases.Config;
+import com.zeyad.usecases.data.executor.JobExecutor;
+import com.zeyad.usecases.data.mappers.GeneratedDAOMapperFactory;
 import com.zeyad.usecases.data.mappers.IDAOMapperFactory;
+import com.zeyad.usecases.data.network.BatchEnvelope;
+import com.zeyad.usecases.data.network.FileDownloader;
+import com.zeyad.usecases.data.network.RequestDispatcher;
+import com.zeyad.usecases.data.services.jobs.TransferManager;
 import com.zeyad.usecases.domain.executors.PostExecutionThread;
+import com.zeyad.usecases.domain.executors.SchedulerTopology;
 import com.zeyad.usecases.domain.executors.ThreadExecutor;
 import com.zeyad.usecases.domain.executors.UIThread;
 
@@ -27,11 +31,15 @@ public class DataUseCaseConfig {
     private OkHttpClient.Builder okHttpBuilder;
     private Cache okHttpCache;
     private String baseUrl;
-    private boolean withCache, withRealm;
-    private int cacheSize, cacheAmount;
+    private boolean withCache, withRealm, syncFileTransfers;
+    private int cacheSize, cacheAmount, maxRequestsPerHost, downloadConnections, maxTransfers,
+            maxTransfersPerHost, jobCapacity;
+    private long memoryCacheSize;
     private TimeUnit timeUnit;
+    private JobExecutor.RejectionPolicy jobRejectionPolicy;
     private PostExecutionThread postExecutionThread;
-    private HandlerThread handlerThread;
+    private BatchEnvelope batchEnvelope;
+    private SchedulerTopology schedulerTopology;
 
     private DataUseCaseConfig(Builder dataUseCaseConfigBuilder) {
         context = dataUseCaseConfigBuilder.getContext();
@@ -43,8 +51,18 @@ public class DataUseCaseConfig {
         withRealm = dataUseCaseConfigBuilder.isWithRealm();
         cacheSize = dataUseCaseConfigBuilder.getCacheSize();
         cacheAmount = dataUseCaseConfigBuilder.getCacheAmount();
+        memoryCacheSize = dataUseCaseConfigBuilder.getMemoryCacheSize();
         timeUnit = dataUseCaseConfigBuilder.getTimeUnit();
         postExecutionThread = dataUseCaseConfigBuilder.getPostExecutionThread();
+        batchEnvelope = dataUseCaseConfigBuilder.getBatchEnvelope();
+        schedulerTopology = dataUseCaseConfigBuilder.getSchedulerTopology();
+        maxRequestsPerHost = dataUseCaseConfigBuilder.getMaxRequestsPerHost();
+        downloadConnections = dataUseCaseConfigBuilder.getDownloadConnections();
+        syncFileTransfers = dataUseCaseConfigBuilder.isSyncFileTransfers();
+        maxTransfers = dataUseCaseConfigBuilder.getMaxTransfers();
+        maxTransfersPerHost = dataUseCaseConfigBuilder.getMaxTransfersPerHost();
+        jobCapacity = dataUseCaseConfigBuilder.getJobCapacity();
+        jobRejectionPolicy = dataUseCaseConfigBuilder.getJobRejectionPolicy();
     }
 
     public Context getContext() {
@@ -56,16 +74,7 @@ public class DataUseCaseConfig {
     }
 
     IDAOMapperFactory getEntityMapper() {
-        if (entityMapper == null) {
-            return new DAOMapperFactory() {
-                @NonNull
-                @Override
-                public IDAOMapper getDataMapper(Class dataClass) {
-                    return new DefaultDAOMapper();
-                }
-            };
-        }
-        return entityMapper;
+        return entityMapper == null ? GeneratedDAOMapperFactory.getInstance() : entityMapper;
     }
 
     PostExecutionThread getPostExecutionThread() {
@@ -100,12 +109,48 @@ public class DataUseCaseConfig {
         return cacheAmount;
     }
 
+    long getMemoryCacheSize() {
+        return memoryCacheSize <= 0 ? Config.DEFAULT_MEMORY_CACHE_SIZE : memoryCacheSize;
+    }
+
     TimeUnit getTimeUnit() {
         return timeUnit;
     }
 
-    public HandlerThread getHandlerThread() {
-        return handlerThread == null ? new HandlerThread("backgroundThread") : handlerThread;
+    BatchEnvelope getBatchEnvelope() {
+        return batchEnvelope;
+    }
+
+    SchedulerTopology getSchedulerTopology() {
+        return schedulerTopology;
+    }
+
+    int getMaxRequestsPerHost() {
+        return maxRequestsPerHost <= 0 ? RequestDispatcher.DEFAULT_MAX_REQUESTS_PER_HOST : maxRequestsPerHost;
+    }
+
+    int getDownloadConnections() {
+        return downloadConnections <= 0 ? FileDownloader.DEFAULT_CONNECTIONS : downloadConnections;
+    }
+
+    boolean isSyncFileTransfers() {
+        return syncFileTransfers;
+    }
+
+    int getMaxTransfers() {
+        return maxTransfers <= 0 ? TransferManager.DEFAULT_MAX_TRANSFERS : maxTransfers;
+    }
+
+    int getMaxTransfersPerHost() {
+        return maxTransfersPerHost <= 0 ? TransferManager.DEFAULT_MAX_TRANSFERS_PER_HOST : maxTransfersPerHost;
+    }
+
+    int getJobCapacity() {
+        return jobCapacity <= 0 ? JobExecutor.DEFAULT_CAPACITY : jobCapacity;
+    }
+
+    JobExecutor.RejectionPolicy getJobRejectionPolicy() {
+        return jobRejectionPolicy == null ? JobExecutor.DEFAULT_REJECTION_POLICY : jobRejectionPolicy;
     }
 
     public static class Builder {
@@ -114,11 +159,16 @@ public class DataUseCaseConfig {
         private OkHttpClient.Builder okHttpBuilder;
         private Cache okHttpCache;
         private String baseUrl;
-        private boolean withCache, withRealm;
-        private int cacheSize, cacheAmount;
+        private boolean withCache, withRealm, syncFileTransfers;
+        private int cacheSize, cacheAmount, maxRequestsPerHost, downloadConnections, maxTransfers,
+                maxTransfersPerHost, jobCapacity;
+        private long memoryCacheSize;
         private TimeUnit timeUnit;
+        private JobExecutor.RejectionPolicy jobRejectionPolicy;
         private ThreadExecutor threadExecutor;
         private PostExecutionThread postExecutionThread;
+        private BatchEnvelope batchEnvelope;
+        private SchedulerTopology schedulerTopology;
 
         public Builder(Context context) {
             this.context = context;
@@ -180,6 +230,97 @@ public class DataUseCaseConfig {
             return this;
         }
 
+        @NonNull
+        public Builder memoryCacheSize(long memoryCacheSize) {
+            this.memoryCacheSize = memoryCacheSize;
+            return this;
+        }
+
+        /**
+         * Sends queued mutations sharing a base url together, in batches of the given envelope format,
+         * instead of one request each.
+         *
+         * @param batchEnvelope format of the batch requests, like
+         *                      {@link com.zeyad.usecases.data.network.JsonBatchEnvelope}.
+         */
+        @NonNull
+        public Builder batchEnvelope(BatchEnvelope batchEnvelope) {
+            this.batchEnvelope = batchEnvelope;
+            return this;
+        }
+
+        /**
+         * Sizes the pools the use cases run on, see {@link SchedulerTopology}.
+         */
+        @NonNull
+        public Builder schedulerTopology(SchedulerTopology schedulerTopology) {
+            this.schedulerTopology = schedulerTopology;
+            return this;
+        }
+
+        /**
+         * @param maxRequestsPerHost max number of calls running at once against a host, the waiting ones
+         *                           going by request priority.
+         */
+        @NonNull
+        public Builder maxRequestsPerHost(int maxRequestsPerHost) {
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * @param downloadConnections max number of ranged connections a large file is downloaded with.
+         */
+        @NonNull
+        public Builder downloadConnections(int downloadConnections) {
+            this.downloadConnections = downloadConnections;
+            return this;
+        }
+
+        /**
+         * @param syncFileTransfers whether downloaded bytes are synced to disk before their progress is saved,
+         *                          so a download resumed after a power loss never trusts bytes the disk lost.
+         *                          Slower, off by default.
+         */
+        @NonNull
+        public Builder syncFileTransfers(boolean syncFileTransfers) {
+            this.syncFileTransfers = syncFileTransfers;
+            return this;
+        }
+
+        /**
+         * @param maxTransfers max number of queued file transfers running at once on a good connection, fewer
+         *                     running as the measured bandwidth degrades.
+         */
+        @NonNull
+        public Builder maxTransfers(int maxTransfers) {
+            this.maxTransfers = maxTransfers;
+            return this;
+        }
+
+        /**
+         * @param maxTransfersPerHost max number of queued file transfers running at once against a host.
+         */
+        @NonNull
+        public Builder maxTransfersPerHost(int maxTransfersPerHost) {
+            this.maxTransfersPerHost = maxTransfersPerHost;
+            return this;
+        }
+
+        /**
+         * Bounds the queue of the executor running the file, preferences and network callback jobs.
+         *
+         * @param jobCapacity        max number of jobs waiting.
+         * @param jobRejectionPolicy what happens to the jobs submitted while the queue is full,
+         *                           {@link JobExecutor#DEFAULT_REJECTION_POLICY} by default.
+         */
+        @NonNull
+        public Builder jobQueue(int jobCapacity, JobExecutor.RejectionPolicy jobRejectionPolicy) {
+            this.jobCapacity = jobCapacity;
+            this.jobRejectionPolicy = jobRejectionPolicy;
+            return this;
+        }
+
         Context getContext() {
             return context;
         }
@@ -228,10 +369,50 @@ public class DataUseCaseConfig {
             return cacheAmount;
         }
 
+        long getMemoryCacheSize() {
+            return memoryCacheSize;
+        }
+
         TimeUnit getTimeUnit() {
             return timeUnit;
         }
 
+        BatchEnvelope getBatchEnvelope() {
+            return batchEnvelope;
+        }
+
+        SchedulerTopology getSchedulerTopology() {
+            return schedulerTopology;
+        }
+
+        int getMaxRequestsPerHost() {
+            return maxRequestsPerHost;
+        }
+
+        int getDownloadConnections() {
+            return downloadConnections;
+        }
+
+        boolean isSyncFileTransfers() {
+            return syncFileTransfers;
+        }
+
+        int getMaxTransfers() {
+            return maxTransfers;
+        }
+
+        int getMaxTransfersPerHost() {
+            return maxTransfersPerHost;
+        }
+
+        int getJobCapacity() {
+            return jobCapacity;
+        }
+
+        JobExecutor.RejectionPolicy getJobRejectionPolicy() {
+            return jobRejectionPolicy;
+        }
+
         @NonNull
         public DataUseCaseConfig build() {
             return new DataUseCaseConfig(this);
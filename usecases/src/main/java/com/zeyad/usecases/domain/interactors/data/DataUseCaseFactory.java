@@ -32,13 +32,20 @@ public class DataUseCaseFactory {
         Config.setBaseURL(config.getBaseUrl());
         Config.setWithCache(config.isWithCache());
         Config.setCacheExpiry(config.getCacheAmount(), config.getTimeUnit());
+        Config.setMemoryCacheSize(config.getMemoryCacheSize());
+        Config.setBatchEnvelope(config.getBatchEnvelope());
+        Config.setSchedulerTopology(config.getSchedulerTopology());
+        Config.setMaxRequestsPerHost(config.getMaxRequestsPerHost());
+        Config.setDownloadConnections(config.getDownloadConnections());
+        Config.setSyncFileTransfers(config.isSyncFileTransfers());
+        Config.setMaxTransfers(config.getMaxTransfers());
+        Config.setMaxTransfersPerHost(config.getMaxTransfersPerHost());
+        Config.setJobQueue(config.getJobCapacity(), config.getJobRejectionPolicy());
         ApiConnectionFactory.init(config.getOkHttpBuilder(), config.getOkHttpCache());
         if (config.isWithRealm()) {
-            DataUseCase.initWithRealm(config.getEntityMapper(), config.getPostExecutionThread(),
-                    config.getHandlerThread());
+            DataUseCase.initWithRealm(config.getEntityMapper(), config.getPostExecutionThread());
         } else
-            DataUseCase.initWithoutDB(config.getEntityMapper(), config.getPostExecutionThread(),
-                    config.getHandlerThread());
+            DataUseCase.initWithoutDB(config.getEntityMapper(), config.getPostExecutionThread());
         if (config.isWithCache())
             StoroBuilder.configure(config.getCacheSize())
                     .setDefaultCacheDirectory(config.getContext().getApplicationContext())
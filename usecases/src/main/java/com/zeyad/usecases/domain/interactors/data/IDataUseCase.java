@@ -1,6 +1,8 @@
 package com.zeyad.usecases.domain.interactors.data;
 
+import com.zeyad.usecases.data.db.CollectionChange;
 import com.zeyad.usecases.data.requests.GetRequest;
+import com.zeyad.usecases.data.requests.PageConfig;
 import com.zeyad.usecases.data.requests.PostRequest;
 
 import java.util.List;
@@ -10,13 +12,33 @@ import rx.Observable;
 public interface IDataUseCase {
 
     /**
-     * Gets list from getRequest.
+     * Gets list from getRequest. In {@link GetRequest#isDeltaSync()} mode only the changes since the
+     * previous sync are requested and persisted, and the whole persisted list is emitted.
      *
      * @param getListRequest contains the attributes of the request.
      * @return Observable with the list.
      */
     Observable<List> getList(GetRequest getListRequest);
 
+    /**
+     * Streams list from getRequest, emitting it in chunks of {@link GetRequest#getChunkSize()} items as
+     * they are read from the network.
+     *
+     * @param getListRequest contains the attributes of the request.
+     * @return Observable with the chunks of the list.
+     */
+    Observable<List> streamList(GetRequest getListRequest);
+
+    /**
+     * Gets list from getRequest page by page. The cursor of each page is set as a query parameter of
+     * the url of the request, and each page is persisted if the request is.
+     *
+     * @param getListRequest contains the attributes of the request.
+     * @param pageConfig     contains the paging attributes.
+     * @return {@link PagedList} loading the first page.
+     */
+    PagedList getPagedList(GetRequest getListRequest, PageConfig pageConfig);
+
     /**
      * Gets object from getRequest.
      *
@@ -83,12 +105,24 @@ public interface IDataUseCase {
 
     /**
      * Get list of items according to the query passed.
+     * <p>
+     * With a {@link GetRequest.ReadMode#LIVE} or {@link GetRequest.ReadMode#WINDOWED} request, the lists are
+     * not copied, are confined to the post execution thread and valid until unsubscribed.
      *
      * @param getRequest contains the attributes of the request.
      * @return Observable with the list.
      */
     Observable<List> queryDisk(GetRequest getRequest);
 
+    /**
+     * Get the changes of the items matching the query passed, so that a single row update emits a single
+     * row change instead of the whole list. The changes are confined to the post execution thread.
+     *
+     * @param getRequest contains the query, the id column name and the presentation class.
+     * @return Observable with the changes, the first one inserting all items.
+     */
+    Observable<CollectionChange> queryDiskChanges(GetRequest getRequest);
+
     /**
      * Creates a repository pattern with live objects
      *
@@ -104,4 +138,12 @@ public interface IDataUseCase {
      * @return {@link Observable>} with the data.
      */
     Observable getObjectOffLineFirst(GetRequest getRequest);
+
+    /**
+     * Cancels the requests of the group, like the ones of a screen being left. Their observables complete,
+     * their calls are canceled and their work still queued is skipped.
+     *
+     * @param group cancellation group of the requests.
+     */
+    void cancelAll(String group);
 }
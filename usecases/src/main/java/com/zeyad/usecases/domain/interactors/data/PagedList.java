@@ -0,0 +1,127 @@
+package com.zeyad.usecases.domain.interactors.data;
+
+import android.support.annotation.NonNull;
+
+import com.zeyad.usecases.data.requests.PageConfig;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import rx.Observable;
+import rx.Subscription;
+import rx.functions.Func1;
+import rx.subjects.BehaviorSubject;
+
+/**
+ * A list loaded page by page, following the cursors given by a {@link PageConfig}.
+ * <p>
+ * The next page is prefetched as soon as the consumer reports, through {@link #loadAround(int)}, a
+ * position within the prefetch distance of the end. Only the last {@link PageConfig#getMaxPages()}
+ * pages are kept in memory; dropped pages are still available from the DB if they were persisted.
+ */
+public class PagedList {
+
+    private final Func1<String, Observable<List>> mPageLoader;
+    private final PageConfig mPageConfig;
+    private final Deque<List> mPages;
+    private final BehaviorSubject<List> mWindow;
+    private String mNextCursor;
+    private int mSize, mOffset;
+    private boolean mLoading;
+    private Subscription mSubscription;
+
+    /**
+     * @param pageLoader loads the page of the given cursor.
+     * @param pageConfig the paging attributes.
+     */
+    PagedList(@NonNull Func1<String, Observable<List>> pageLoader, @NonNull PageConfig pageConfig) {
+        mPageLoader = pageLoader;
+        mPageConfig = pageConfig;
+        mPages = new ArrayDeque<>();
+        mWindow = BehaviorSubject.create();
+        mNextCursor = pageConfig.getInitialCursor();
+    }
+
+    /**
+     * @return {@link Observable} emitting the items of the pages in memory each time a page is loaded
+     * or dropped. Terminates with the error of a failed page load.
+     */
+    @NonNull
+    public Observable<List> observe() {
+        return mWindow.asObservable();
+    }
+
+    /**
+     * Reports the position the consumer reached, relative to the items in memory, prefetching the next
+     * page if it is within the prefetch distance of the end.
+     *
+     * @param position position in the last emitted list.
+     */
+    public synchronized void loadAround(int position) {
+        if (position >= mSize - mPageConfig.getPrefetchDistance())
+            loadNext();
+    }
+
+    /**
+     * Loads the next page, unless one is already loading or the last page was reached.
+     */
+    public synchronized void loadNext() {
+        if (mLoading || !hasMore() || mWindow.hasThrowable())
+            return;
+        mLoading = true;
+        String cursor = mNextCursor;
+        mSubscription = mPageLoader.call(cursor)
+                .first()
+                .subscribe(page -> onPageLoaded(page, cursor), this::onPageFailed);
+    }
+
+    /**
+     * @return whether there are pages left to load.
+     */
+    public synchronized boolean hasMore() {
+        return mNextCursor != null;
+    }
+
+    /**
+     * @return number of items dropped from the start of the list, to map positions in the emitted lists
+     * to positions in the whole list.
+     */
+    public synchronized int getOffset() {
+        return mOffset;
+    }
+
+    /**
+     * Cancels any page being loaded and completes {@link #observe()}.
+     */
+    public synchronized void cancel() {
+        if (mSubscription != null)
+            mSubscription.unsubscribe();
+        mLoading = false;
+        mNextCursor = null;
+        mWindow.onCompleted();
+    }
+
+    private synchronized void onPageLoaded(@NonNull List page, String cursor) {
+        mLoading = false;
+        mNextCursor = page.isEmpty() ? null : mPageConfig.getCursorProvider().nextCursor(page, cursor);
+        mPages.addLast(page);
+        mSize += page.size();
+        while (mPages.size() > mPageConfig.getMaxPages()) {
+            int dropped = mPages.removeFirst().size();
+            mSize -= dropped;
+            mOffset += dropped;
+        }
+        List<Object> window = new ArrayList<>(mSize);
+        for (List loadedPage : mPages)
+            window.addAll(loadedPage);
+        mWindow.onNext(Collections.unmodifiableList(window));
+    }
+
+    private synchronized void onPageFailed(Throwable throwable) {
+        mLoading = false;
+        mWindow.onError(throwable);
+    }
+}
@@ -1,14 +1,21 @@
 package com.zeyad.usecases.domain.interactors.files;
 
+import com.zeyad.usecases.Config;
 import com.zeyad.usecases.data.executor.JobExecutor;
+import com.zeyad.usecases.data.network.TransferProgress;
 import com.zeyad.usecases.data.repository.FilesRepository;
 import com.zeyad.usecases.data.requests.FileIORequest;
 import com.zeyad.usecases.domain.executors.PostExecutionThread;
+import com.zeyad.usecases.domain.executors.PriorityScheduler;
 import com.zeyad.usecases.domain.executors.ThreadExecutor;
 import com.zeyad.usecases.domain.executors.UIThread;
 import com.zeyad.usecases.domain.repositories.Files;
 
+import java.io.File;
+import java.io.InputStream;
+
 import rx.Observable;
+import rx.Scheduler;
 import rx.schedulers.Schedulers;
 
 /**
@@ -34,7 +41,7 @@ public class FileUseCase implements IFileUseCase {
     }
 
     public static void init() {
-        sFilesUseCase = new FileUseCase(new JobExecutor(), new UIThread());
+        sFilesUseCase = new FileUseCase(Config.getJobExecutor(), new UIThread());
     }
 
     public static void init(ThreadExecutor threadExecutor, PostExecutionThread postExecutionThread) {
@@ -63,20 +70,70 @@ public class FileUseCase implements IFileUseCase {
         return mFiles.saveToFile(fullFilePath, data).compose(applySchedulers());
     }
 
+    @Override
+    public Observable<File> saveToFile(String fullFilePath, InputStream data, long length, boolean sync) {
+        return mFiles.saveToFile(fullFilePath, data, length, sync).compose(applySchedulers());
+    }
+
     @Override
     public Observable uploadFile(FileIORequest fileIORequest) {
-        return mFiles.uploadFileDynamically(fileIORequest.getUrl(), fileIORequest.getFile(),
-                fileIORequest.getKey(), fileIORequest.getParameters(), fileIORequest.onWifi(),
-                fileIORequest.isWhileCharging(), fileIORequest.isQueuable(),
-                fileIORequest.getPresentationClass(), fileIORequest.getDataClass())
-                .compose(applySchedulers());
+        return uploadFile(fileIORequest, false).compose(applySchedulers(fileIORequest));
+    }
+
+    @Override
+    public Observable<TransferProgress> uploadFileWithProgress(FileIORequest fileIORequest) {
+        return uploadFile(fileIORequest, true).cast(TransferProgress.class)
+                .compose(applySchedulers(fileIORequest));
     }
 
     @Override
     public Observable downloadFile(FileIORequest fileIORequest) {
+        return downloadFile(fileIORequest, false).compose(applySchedulers(fileIORequest));
+    }
+
+    @Override
+    public Observable<TransferProgress> downloadFileWithProgress(FileIORequest fileIORequest) {
+        return downloadFile(fileIORequest, true).cast(TransferProgress.class)
+                .compose(applySchedulers(fileIORequest));
+    }
+
+    @Override
+    public Observable<Long> queueUploadFile(FileIORequest fileIORequest) {
+        return mFiles.queueFileTransfer(fileIORequest, false).compose(applySchedulers(fileIORequest));
+    }
+
+    @Override
+    public Observable<Long> queueDownloadFile(FileIORequest fileIORequest) {
+        return mFiles.queueFileTransfer(fileIORequest, true).compose(applySchedulers(fileIORequest));
+    }
+
+    @Override
+    public Observable<Boolean> pauseFileTransfer(long id) {
+        return mFiles.pauseFileTransfer(id).compose(applySchedulers());
+    }
+
+    @Override
+    public Observable<Boolean> resumeFileTransfer(long id) {
+        return mFiles.resumeFileTransfer(id).compose(applySchedulers());
+    }
+
+    @Override
+    public Observable<Boolean> cancelFileTransfer(long id) {
+        return mFiles.cancelFileTransfer(id).compose(applySchedulers());
+    }
+
+    private Observable<?> uploadFile(FileIORequest fileIORequest, boolean progress) {
+        return mFiles.uploadFileDynamically(fileIORequest.getUrl(), fileIORequest.getFile(),
+                fileIORequest.getKey(), fileIORequest.getParameters(), fileIORequest.getPartSize(),
+                fileIORequest.onWifi(),
+                fileIORequest.isWhileCharging(), fileIORequest.isQueuable(), progress,
+                fileIORequest.getPresentationClass(), fileIORequest.getDataClass());
+    }
+
+    private Observable<?> downloadFile(FileIORequest fileIORequest, boolean progress) {
         return mFiles.downloadFileDynamically(fileIORequest.getUrl(), fileIORequest.getFile(),
-                fileIORequest.onWifi(), fileIORequest.isWhileCharging(), fileIORequest.isQueuable(),
-                fileIORequest.getPresentationClass(), fileIORequest.getDataClass()).compose(applySchedulers());
+                fileIORequest.onWifi(), fileIORequest.isWhileCharging(), fileIORequest.isQueuable(), progress,
+                fileIORequest.getPresentationClass(), fileIORequest.getDataClass());
     }
 
     /**
@@ -89,4 +146,21 @@ public class FileUseCase implements IFileUseCase {
         return observable -> observable.subscribeOn(Schedulers.from(mThreadExecutor))
                 .observeOn(mPostExecutionThread.getScheduler());
     }
+
+    /**
+     * Apply the default android schedulers to the observable of a transfer, starting high priority ones
+     * ahead of the waiting jobs when running on a {@link JobExecutor}.
+     *
+     * @param fileIORequest the transfer
+     * @param <T>           the current observable
+     * @return the transformed observable
+     */
+    private <T> Observable.Transformer<T, T> applySchedulers(FileIORequest fileIORequest) {
+        Scheduler scheduler = fileIORequest.getPriority() >= PriorityScheduler.PRIORITY_HIGH
+                && mThreadExecutor instanceof JobExecutor ?
+                Schedulers.from(((JobExecutor) mThreadExecutor)::executePriority) :
+                Schedulers.from(mThreadExecutor);
+        return observable -> observable.subscribeOn(scheduler)
+                .observeOn(mPostExecutionThread.getScheduler());
+    }
 }
@@ -1,7 +1,11 @@
 package com.zeyad.usecases.domain.interactors.files;
 
+import com.zeyad.usecases.data.network.TransferProgress;
 import com.zeyad.usecases.data.requests.FileIORequest;
 
+import java.io.File;
+import java.io.InputStream;
+
 import rx.Observable;
 
 /**
@@ -35,6 +39,17 @@ public interface IFileUseCase {
      */
     Observable<Boolean> saveToFile(String fullFilePath, String data);
 
+    /**
+     * Saves a stream to a file, piped through the file's channel without an intermediate copy, replacing
+     * the file's content. The stream is closed once done.
+     *
+     * @param fullFilePath path of the file to write.
+     * @param length       length of the stream if known, for the file to be allocated upfront, else -1.
+     * @param sync         whether to sync the file to disk before emitting.
+     * @return Observable with the file written.
+     */
+    Observable<File> saveToFile(String fullFilePath, InputStream data, long length, boolean sync);
+
     /**
      * Uploads a file to a url.
      *
@@ -43,6 +58,15 @@ public interface IFileUseCase {
      */
     Observable uploadFile(FileIORequest fileIORequest);
 
+    /**
+     * Uploads a file to a url, emitting its progress as it goes, at most every
+     * {@link TransferProgress#INTERVAL_MILLIS}. Events a slow subscriber did not request in time are dropped.
+     *
+     * @param fileIORequest contains the attributes of the request,
+     * @return Observable with the progress of the upload, then a complete one holding the response.
+     */
+    Observable<TransferProgress> uploadFileWithProgress(FileIORequest fileIORequest);
+
     /**
      * Downloads file from the give url.
      *
@@ -50,4 +74,55 @@ public interface IFileUseCase {
      * @return Observable with the ResponseBody
      */
     Observable downloadFile(FileIORequest fileIORequest);
+
+    /**
+     * Downloads file from the give url, emitting its progress as it goes, at most every
+     * {@link TransferProgress#INTERVAL_MILLIS}. Events a slow subscriber did not request in time are dropped.
+     *
+     * @param fileIORequest contains the attributes of the request,
+     * @return Observable with the progress of the download, then a complete one holding the file.
+     */
+    Observable<TransferProgress> downloadFileWithProgress(FileIORequest fileIORequest);
+
+    /**
+     * Queues an upload, run in the background once the constraints of the request hold. Queued transfers
+     * run a few at a time, by priority, fewer against the same host and on a poor connection.
+     *
+     * @param fileIORequest contains the attributes of the request,
+     * @return Observable with the id of the transfer, to pause, resume or cancel it.
+     */
+    Observable<Long> queueUploadFile(FileIORequest fileIORequest);
+
+    /**
+     * Queues a download, run in the background once the constraints of the request hold. Queued transfers
+     * run a few at a time, by priority, fewer against the same host and on a poor connection.
+     *
+     * @param fileIORequest contains the attributes of the request,
+     * @return Observable with the id of the transfer, to pause, resume or cancel it.
+     */
+    Observable<Long> queueDownloadFile(FileIORequest fileIORequest);
+
+    /**
+     * Pauses a queued transfer, stopping it if running.
+     *
+     * @param id id of the transfer.
+     * @return Observable with whether the transfer is queued and was not paused already.
+     */
+    Observable<Boolean> pauseFileTransfer(long id);
+
+    /**
+     * Resumes a paused transfer, from where it stopped.
+     *
+     * @param id id of the transfer.
+     * @return Observable with whether the transfer is queued and was paused.
+     */
+    Observable<Boolean> resumeFileTransfer(long id);
+
+    /**
+     * Removes a transfer from the queue, stopping it if running.
+     *
+     * @param id id of the transfer.
+     * @return Observable with whether the transfer was queued.
+     */
+    Observable<Boolean> cancelFileTransfer(long id);
 }
@@ -2,7 +2,7 @@ package com.zeyad.usecases.domain.interactors.prefs;
 
 import android.content.Context;
 
-import com.zeyad.usecases.data.executor.JobExecutor;
+import com.zeyad.usecases.Config;
 import com.zeyad.usecases.data.repository.PrefsRepository;
 import com.zeyad.usecases.domain.executors.PostExecutionThread;
 import com.zeyad.usecases.domain.executors.ThreadExecutor;
@@ -36,7 +36,7 @@ public class PrefsUseCase implements IPrefsUseCase {
     }
 
     public static void init(Context context, String prefsFileName) {
-        sPrefsUseCases = new PrefsUseCase(context, prefsFileName, new JobExecutor(), new UIThread());
+        sPrefsUseCases = new PrefsUseCase(context, prefsFileName, Config.getJobExecutor(), new UIThread());
     }
 
     public static void init(Context context, String prefsFileName, ThreadExecutor threadExecutor, PostExecutionThread postExecutionThread) {
@@ -2,7 +2,9 @@ package com.zeyad.usecases.domain.repositories;
 
 import android.support.annotation.NonNull;
 
+import com.zeyad.usecases.data.db.CollectionChange;
 import com.zeyad.usecases.data.db.RealmManager;
+import com.zeyad.usecases.data.requests.GetRequest;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -23,6 +25,26 @@ public interface Data {
     Observable<List> getListDynamically(String url, Class domainClass, Class dataClass, boolean persist,
                                         boolean shouldCache);
 
+    /**
+     * Get an {@link Observable} which will emit a collection of Items in chunks, as they are read from
+     * the network.
+     *
+     * @param chunkSize maximum number of items per emission.
+     */
+    @NonNull
+    Observable<List> streamListDynamically(String url, Class domainClass, Class dataClass, boolean persist,
+                                           int chunkSize);
+
+    /**
+     * Get an {@link Observable} which will emit the collection of Items, once synced with the changes since
+     * the previous sync.
+     *
+     * @param syncTokenParameter name of the query parameter the sync token is sent as.
+     */
+    @NonNull
+    Observable<List> syncListDynamically(String url, String idColumnName, String syncTokenParameter,
+                                         Class domainClass, Class dataClass);
+
     /**
      * Get an {@link Observable} which will emit an Item.
      *
@@ -61,4 +83,12 @@ public interface Data {
 
     @NonNull
     Observable<List> queryDisk(RealmManager.RealmQueryProvider queryFactory, Class domainClass);
+
+    @NonNull
+    Observable<List> queryDisk(RealmManager.RealmQueryProvider queryFactory, Class domainClass,
+                               GetRequest.ReadMode readMode, int windowSize);
+
+    @NonNull
+    Observable<CollectionChange> queryDiskChanges(RealmManager.RealmQueryProvider queryFactory, String idColumnName,
+                                                  Class domainClass);
 }
\ No newline at end of file
@@ -2,7 +2,10 @@ package com.zeyad.usecases.domain.repositories;
 
 import android.support.annotation.NonNull;
 
+import com.zeyad.usecases.data.requests.FileIORequest;
+
 import java.io.File;
+import java.io.InputStream;
 import java.util.HashMap;
 
 import rx.Observable;
@@ -38,12 +41,59 @@ public interface Files {
      */
     Observable<Boolean> saveToFile(String fullFilePath, String data);
 
+    /**
+     * Saves a stream to a file, piped through the file's channel without an intermediate copy, replacing
+     * the file's content. The stream is closed once done.
+     *
+     * @param fullFilePath path of the file to write.
+     * @param length       length of the stream if known, for the file to be allocated upfront, else -1.
+     * @param sync         whether to sync the file to disk before emitting.
+     * @return Observable with the file written.
+     */
+    Observable<File> saveToFile(String fullFilePath, InputStream data, long length, boolean sync);
+
+    /**
+     * Uploads a file, in resumable parts if partSize is positive, else in a single multipart request. If
+     * progress is set, emits {@link com.zeyad.usecases.data.network.TransferProgress} events then the response
+     * in a complete one.
+     */
     @NonNull
     Observable<?> uploadFileDynamically(String url, File file, String key, HashMap<String, Object> parameters,
-                                        boolean onWifi, boolean whileCharging, boolean queuable,
-                                        Class domainClass, Class dataClass);
+                                        int partSize, boolean onWifi, boolean whileCharging, boolean queuable,
+                                        boolean progress, Class domainClass, Class dataClass);
 
+    /**
+     * Downloads a file, emitting {@link com.zeyad.usecases.data.network.TransferProgress} events then the
+     * file in a complete one if progress is set, else only the file.
+     */
     @NonNull
     Observable<?> downloadFileDynamically(String url, File file, boolean onWifi, boolean whileCharging,
-                                          boolean queuable, Class domainClass, Class dataClass);
+                                          boolean queuable, boolean progress, Class domainClass, Class dataClass);
+
+    /**
+     * Queues a transfer, run by the {@link com.zeyad.usecases.data.services.jobs.TransferManager} once its
+     * constraints hold, in order of priority.
+     *
+     * @return Observable with the id of the transfer.
+     */
+    @NonNull
+    Observable<Long> queueFileTransfer(FileIORequest fileIORequest, boolean isDownload);
+
+    /**
+     * @return Observable with whether the transfer is queued and was not paused already.
+     */
+    @NonNull
+    Observable<Boolean> pauseFileTransfer(long id);
+
+    /**
+     * @return Observable with whether the transfer is queued and was paused.
+     */
+    @NonNull
+    Observable<Boolean> resumeFileTransfer(long id);
+
+    /**
+     * @return Observable with whether the transfer was queued.
+     */
+    @NonNull
+    Observable<Boolean> cancelFileTransfer(long id);
 }
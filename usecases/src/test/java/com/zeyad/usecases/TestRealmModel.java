@@ -3,6 +3,7 @@ package com.zeyad.usecases;
 import android.support.annotation.NonNull;
 
 import com.google.gson.annotations.SerializedName;
+import com.zeyad.usecases.data.mappers.GenerateDAOMapper;
 
 import io.realm.RealmModel;
 import io.realm.annotations.PrimaryKey;
@@ -12,6 +13,7 @@ import io.realm.annotations.RealmModule;
  * @author by ZIaDo on 2/13/17.
  */
 @RealmModule
+@GenerateDAOMapper(TestRealmModel.class)
 public class TestRealmModel implements RealmModel {
     @SerializedName("id")
     @PrimaryKey
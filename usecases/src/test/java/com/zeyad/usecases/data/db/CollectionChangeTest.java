@@ -0,0 +1,91 @@
+package com.zeyad.usecases.data.db;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import rx.functions.Func1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class CollectionChangeTest {
+
+    private List<Long> rows;
+    private List<Long> ids;
+    private Func1<Integer, Long> idAt;
+    private Func1<Integer, String> rowAt;
+
+    @Before
+    public void setUp() throws Exception {
+        rows = new ArrayList<>(Arrays.asList(1L, 2L, 3L, 4L, 5L));
+        ids = new ArrayList<>();
+        idAt = index -> rows.get(index);
+        rowAt = index -> "row" + rows.get(index);
+    }
+
+    @Test
+    public void initialInsertsAllRows() throws Exception {
+        CollectionChange<String> change = CollectionChange.initial(rows.size(), idAt, rowAt, ids);
+
+        assertTrue(change.isInitial());
+        assertEquals(5, change.getSize());
+        assertEquals(1, change.getInsertions().length);
+        assertEquals(5, change.getInsertions()[0].getLength());
+        assertEquals(rows, change.getInsertedIds());
+        assertEquals("row3", change.getRow(2));
+        assertEquals(rows, ids);
+    }
+
+    @Test
+    public void singleRowUpdateCopiesSingleRow() throws Exception {
+        CollectionChange.initial(rows.size(), idAt, rowAt, ids);
+
+        CollectionChange<String> change = CollectionChange.next(ids, new int[0], new int[0], new int[]{3},
+                idAt, rowAt);
+
+        assertFalse(change.isInitial());
+        assertEquals(1, change.getRows().size());
+        assertEquals("row4", change.getRow(3));
+        assertEquals(Arrays.asList(4L), change.getChangedIds());
+        assertEquals(0, change.getDeletions().length);
+        assertEquals(0, change.getInsertions().length);
+    }
+
+    @Test
+    public void deletionsReportPreviousIdsAndInsertionsNewOnes() throws Exception {
+        CollectionChange.initial(rows.size(), idAt, rowAt, ids);
+        rows = new ArrayList<>(Arrays.asList(1L, 6L, 7L, 4L));
+
+        CollectionChange<String> change = CollectionChange.next(ids, new int[]{1, 2, 4}, new int[]{1, 2},
+                new int[0], idAt, rowAt);
+
+        assertEquals(Arrays.asList(2L, 3L, 5L), change.getDeletedIds());
+        assertEquals(2, change.getDeletions().length);
+        assertEquals(1, change.getDeletions()[0].getStartIndex());
+        assertEquals(2, change.getDeletions()[0].getLength());
+        assertEquals(4, change.getDeletions()[1].getStartIndex());
+        assertEquals(Arrays.asList(6L, 7L), change.getInsertedIds());
+        assertEquals(4, change.getSize());
+        assertEquals(rows, ids);
+        assertNull(change.getRow(0));
+    }
+
+    @Test
+    public void mapKeepsRangesAndIds() throws Exception {
+        CollectionChange.initial(rows.size(), idAt, rowAt, ids);
+        CollectionChange<Integer> change = CollectionChange.next(ids, new int[0], new int[0], new int[]{0},
+                idAt, rowAt).map(String::length);
+
+        assertEquals(Integer.valueOf(4), change.getRow(0));
+        assertEquals(Arrays.asList(1L), change.getChangedIds());
+    }
+}
@@ -0,0 +1,137 @@
+package com.zeyad.usecases.data.db;
+
+import com.zeyad.usecases.TestRealmModel;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class IdSequenceTest {
+
+    private static final String ID = "id";
+    private AtomicInteger scans;
+    private volatile long maxId;
+    private IdSequence idSequence;
+
+    @Before
+    public void setUp() throws Exception {
+        scans = new AtomicInteger();
+        maxId = 10;
+        idSequence = new IdSequence((dataClass, column) -> {
+            scans.incrementAndGet();
+            return maxId;
+        });
+    }
+
+    @Test
+    public void seedsOnceFromTheMaxId() throws Exception {
+        assertEquals(11, idSequence.next(TestRealmModel.class, ID));
+        assertEquals(12, idSequence.next(TestRealmModel.class, ID));
+        assertEquals(13, idSequence.next(TestRealmModel.class, ID));
+        assertEquals(1, scans.get());
+    }
+
+    @Test
+    public void reservesConsecutiveBlocks() throws Exception {
+        assertEquals(11, idSequence.reserve(TestRealmModel.class, ID, 100));
+        assertEquals(111, idSequence.next(TestRealmModel.class, ID));
+    }
+
+    @Test
+    public void observedIdsAreSkipped() throws Exception {
+        idSequence.observe(TestRealmModel.class, ID, 50);
+        idSequence.observe(TestRealmModel.class, ID, 20);
+        assertEquals(51, idSequence.next(TestRealmModel.class, ID));
+    }
+
+    @Test
+    public void invalidationReseedsWithoutMovingBackwards() throws Exception {
+        idSequence.reserve(TestRealmModel.class, ID, 10);
+        maxId = 15;
+        idSequence.invalidate(TestRealmModel.class);
+        assertEquals(21, idSequence.next(TestRealmModel.class, ID));
+        maxId = 40;
+        idSequence.invalidate(TestRealmModel.class);
+        assertEquals(41, idSequence.next(TestRealmModel.class, ID));
+        assertEquals(3, scans.get());
+    }
+
+    @Test
+    public void concurrentAllocationsAreUnique() throws Exception {
+        int threads = 8, perThread = 1000;
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++)
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < perThread; j++)
+                    ids.add(idSequence.next(TestRealmModel.class, ID));
+            });
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(threads * perThread, ids.size());
+        assertEquals(1, scans.get());
+    }
+
+    @Test
+    public void allocationsOverlappingTheSeedStartAfterExistingRows() throws Exception {
+        CountDownLatch scanning = new CountDownLatch(1), release = new CountDownLatch(1);
+        idSequence = new IdSequence((dataClass, column) -> {
+            scanning.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1000;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Integer> seeding = executor.submit(() -> idSequence.next(TestRealmModel.class, ID));
+        assertTrue(scanning.await(5, TimeUnit.SECONDS));
+
+        Future<Integer> overlapping = executor.submit(() -> idSequence.next(TestRealmModel.class, ID));
+        Thread.sleep(100);
+        assertFalse(overlapping.isDone());
+        release.countDown();
+
+        assertTrue(seeding.get(5, TimeUnit.SECONDS) > 1000);
+        assertTrue(overlapping.get(5, TimeUnit.SECONDS) > 1000);
+        executor.shutdown();
+    }
+
+    @Test
+    public void invalidationDuringTheSeedIsNotLost() throws Exception {
+        idSequence = new IdSequence((dataClass, column) -> {
+            if (scans.incrementAndGet() == 1)
+                idSequence.invalidate(TestRealmModel.class);
+            return maxId;
+        });
+
+        idSequence.next(TestRealmModel.class, ID);
+        maxId = 40;
+
+        assertEquals(41, idSequence.next(TestRealmModel.class, ID));
+        assertEquals(2, scans.get());
+    }
+}
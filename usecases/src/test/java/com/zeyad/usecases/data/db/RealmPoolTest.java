@@ -0,0 +1,74 @@
+package com.zeyad.usecases.data.db;
+
+import android.support.test.rule.BuildConfig;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.core.classloader.annotations.SuppressStaticInitializationFor;
+import org.powermock.modules.junit4.rule.PowerMockRule;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import io.realm.Realm;
+import io.realm.log.RealmLog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+@PowerMockIgnore({"org.mockito.*", "org.robolectric.*", "android.*"})
+@SuppressStaticInitializationFor("io.realm.internal.Util")
+@PrepareForTest({Realm.class, RealmLog.class})
+public class RealmPoolTest {
+    @Rule
+    public PowerMockRule rule = new PowerMockRule();
+    private Realm mockRealm;
+    private RealmPool realmPool;
+
+    @Before
+    public void before() {
+        mockStatic(RealmLog.class);
+        mockStatic(Realm.class);
+        mockRealm = PowerMockito.mock(Realm.class);
+        when(Realm.getDefaultInstance()).thenReturn(mockRealm);
+        realmPool = new RealmPool(0);
+    }
+
+    @Test
+    public void nestedLeasesShareOneInstance() throws Exception {
+        Realm first = realmPool.acquire();
+        Realm second = realmPool.acquire();
+        realmPool.release(second);
+
+        assertSame(first, second);
+        assertEquals(1, realmPool.getOpenedCount());
+        assertEquals(1, realmPool.getOutstandingCount());
+        verify(mockRealm, never()).close();
+
+        realmPool.release(first);
+
+        verify(mockRealm, times(1)).close();
+        assertEquals(1, realmPool.getClosedCount());
+        assertEquals(0, realmPool.getOutstandingCount());
+    }
+
+    @Test
+    public void unbalancedReleasesAreCountedAsLeaks() throws Exception {
+        realmPool.release(realmPool.acquire());
+        realmPool.release(mockRealm);
+
+        assertEquals(1, realmPool.getLeakedCount());
+        assertEquals(1, realmPool.getReleasedCount());
+    }
+}
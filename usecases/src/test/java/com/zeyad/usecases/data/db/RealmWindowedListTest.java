@@ -0,0 +1,115 @@
+package com.zeyad.usecases.data.db;
+
+import android.support.test.rule.BuildConfig;
+
+import com.zeyad.usecases.TestRealmModel;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.core.classloader.annotations.SuppressStaticInitializationFor;
+import org.powermock.modules.junit4.rule.PowerMockRule;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import io.realm.Realm;
+import io.realm.RealmChangeListener;
+import io.realm.RealmResults;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+@PowerMockIgnore({"org.mockito.*", "org.robolectric.*", "android.*"})
+@SuppressStaticInitializationFor("io.realm.internal.Util")
+@PrepareForTest({Realm.class, RealmResults.class})
+public class RealmWindowedListTest {
+
+    @Rule
+    public PowerMockRule rule = new PowerMockRule();
+    private Realm realm;
+    private RealmResults<TestRealmModel> results;
+    private TestRealmModel[] rows;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        realm = PowerMockito.mock(Realm.class);
+        results = PowerMockito.mock(RealmResults.class);
+        rows = new TestRealmModel[]{new TestRealmModel(1, "1"), new TestRealmModel(2, "2"),
+                new TestRealmModel(3, "3")};
+        when(results.size()).thenReturn(rows.length);
+        when(results.get(anyInt())).thenAnswer(invocation -> rows[(Integer) invocation.getArguments()[0]]);
+        when(realm.copyFromRealm(any(TestRealmModel.class))).thenAnswer(invocation -> {
+            TestRealmModel row = (TestRealmModel) invocation.getArguments()[0];
+            return new TestRealmModel(row.getId(), row.getValue());
+        });
+    }
+
+    @Test
+    public void rowsAreCopiedOnceWhileInTheWindow() throws Exception {
+        RealmWindowedList<TestRealmModel> windowedList = new RealmWindowedList<>(results, realm, 2);
+
+        TestRealmModel first = windowedList.get(0);
+
+        assertSame(first, windowedList.get(0));
+        assertEquals(rows[0], first);
+        assertEquals(3, windowedList.size());
+        verify(realm, times(1)).copyFromRealm(rows[0]);
+    }
+
+    @Test
+    public void leastRecentlyAccessedCopiesLeaveTheWindow() throws Exception {
+        RealmWindowedList<TestRealmModel> windowedList = new RealmWindowedList<>(results, realm, 2);
+
+        windowedList.get(0);
+        windowedList.get(1);
+        windowedList.get(2);
+        windowedList.get(1);
+        windowedList.get(0);
+
+        verify(realm, times(2)).copyFromRealm(rows[0]);
+        verify(realm, times(1)).copyFromRealm(rows[1]);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void copiesAreDroppedWhenTheResultsChange() throws Exception {
+        ArgumentCaptor<RealmChangeListener> listener = ArgumentCaptor.forClass(RealmChangeListener.class);
+        RealmWindowedList<TestRealmModel> windowedList = new RealmWindowedList<>(results, realm, 2);
+        verify(results).addChangeListener(listener.capture());
+        windowedList.get(0);
+
+        // A row inserted before the first one shifts it to the next index.
+        rows = new TestRealmModel[]{new TestRealmModel(4, "4"), rows[0], rows[1], rows[2]};
+        when(results.size()).thenReturn(rows.length);
+        listener.getValue().onChange(results);
+
+        assertEquals(4, windowedList.get(0).getId());
+        assertEquals(1, windowedList.get(1).getId());
+        assertEquals(4, windowedList.size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void closingStopsListening() throws Exception {
+        ArgumentCaptor<RealmChangeListener> listener = ArgumentCaptor.forClass(RealmChangeListener.class);
+        RealmWindowedList<TestRealmModel> windowedList = new RealmWindowedList<>(results, realm, 2);
+        verify(results).addChangeListener(listener.capture());
+
+        windowedList.close();
+
+        verify(results).removeChangeListener(listener.getValue());
+    }
+}
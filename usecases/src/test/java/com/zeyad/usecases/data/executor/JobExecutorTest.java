@@ -0,0 +1,142 @@
+package com.zeyad.usecases.data.executor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class JobExecutorTest {
+
+    private final CountDownLatch blocker = new CountDownLatch(1);
+    private final List<String> ran = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void priorityJobsRunBeforeWaitingOnes() throws Exception {
+        JobExecutor jobExecutor = blockedExecutor(4, JobExecutor.RejectionPolicy.FAIL_FAST);
+        CountDownLatch done = new CountDownLatch(3);
+        jobExecutor.execute(record("normal1", done));
+        jobExecutor.execute(record("normal2", done));
+        jobExecutor.executePriority(record("priority", done));
+
+        assertEquals(3, jobExecutor.getQueueDepth());
+        assertEquals(1, jobExecutor.getPriorityQueueDepth());
+        blocker.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("priority", ran.get(0));
+        assertEquals("normal1", ran.get(1));
+        assertEquals("normal2", ran.get(2));
+    }
+
+    @Test
+    public void failFastRejectsWhenFull() throws Exception {
+        JobExecutor jobExecutor = blockedExecutor(1, JobExecutor.RejectionPolicy.FAIL_FAST);
+        jobExecutor.execute(record("waiting", null));
+        try {
+            jobExecutor.execute(record("rejected", null));
+            throw new AssertionError("Expected a RejectedExecutionException");
+        } catch (RejectedExecutionException e) {
+            assertEquals(1, jobExecutor.getRejectedCount());
+        }
+        blocker.countDown();
+    }
+
+    @Test
+    public void dropOldestReplacesTheOldestWaitingJob() throws Exception {
+        JobExecutor jobExecutor = blockedExecutor(2, JobExecutor.RejectionPolicy.DROP_OLDEST);
+        CountDownLatch done = new CountDownLatch(2);
+        jobExecutor.execute(record("oldest", done));
+        jobExecutor.execute(record("older", done));
+        jobExecutor.execute(record("newest", done));
+
+        assertEquals(1, jobExecutor.getDroppedCount());
+        blocker.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, ran.size());
+        assertEquals("older", ran.get(0));
+        assertEquals("newest", ran.get(1));
+    }
+
+    @Test
+    public void callerRunsWhenFull() throws Exception {
+        JobExecutor jobExecutor = blockedExecutor(1, JobExecutor.RejectionPolicy.CALLER_RUNS);
+        jobExecutor.execute(record("waiting", null));
+        jobExecutor.execute(() -> ran.add(Thread.currentThread().getName()));
+
+        assertEquals(Thread.currentThread().getName(), ran.get(0));
+        assertEquals(1, jobExecutor.getRejectedCount());
+        blocker.countDown();
+    }
+
+    @Test
+    public void defaultPolicyNeverRunsJobsOnTheCaller() throws Exception {
+        JobExecutor jobExecutor = blockedExecutor(1, JobExecutor.DEFAULT_REJECTION_POLICY);
+        jobExecutor.execute(record("waiting", null));
+        try {
+            jobExecutor.execute(() -> ran.add(Thread.currentThread().getName()));
+        } catch (RejectedExecutionException ignored) {
+        }
+
+        assertTrue(ran.isEmpty());
+        blocker.countDown();
+    }
+
+    @Test
+    public void recordsWaitAndExecutionTimes() throws Exception {
+        JobExecutor jobExecutor = blockedExecutor(4, JobExecutor.RejectionPolicy.FAIL_FAST);
+        AtomicLong completedBefore = new AtomicLong(-1);
+        CountDownLatch done = new CountDownLatch(1);
+        jobExecutor.execute(record("waiting", null));
+        jobExecutor.execute(() -> {
+            completedBefore.set(jobExecutor.getCompletedCount());
+            done.countDown();
+        });
+
+        blocker.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, completedBefore.get());
+        assertTrue(jobExecutor.getMaxExecutionTime(TimeUnit.NANOSECONDS) > 0);
+        assertTrue(jobExecutor.getMaxWaitTime(TimeUnit.NANOSECONDS) > 0);
+        assertEquals(0, jobExecutor.getQueueDepth());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyQueues() throws Exception {
+        new JobExecutor(1, 0, JobExecutor.RejectionPolicy.FAIL_FAST);
+    }
+
+    /**
+     * @return an executor of one thread, busy until {@link #blocker} is released.
+     */
+    private JobExecutor blockedExecutor(int capacity, JobExecutor.RejectionPolicy rejectionPolicy)
+            throws InterruptedException {
+        JobExecutor jobExecutor = new JobExecutor(1, capacity, rejectionPolicy);
+        CountDownLatch started = new CountDownLatch(1);
+        jobExecutor.execute(() -> {
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        started.await(5, TimeUnit.SECONDS);
+        return jobExecutor;
+    }
+
+    private Runnable record(String name, CountDownLatch done) {
+        return () -> {
+            ran.add(name);
+            if (done != null)
+                done.countDown();
+        };
+    }
+}
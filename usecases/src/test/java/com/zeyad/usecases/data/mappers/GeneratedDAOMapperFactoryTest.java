@@ -0,0 +1,77 @@
+package com.zeyad.usecases.data.mappers;
+
+import com.zeyad.usecases.TestRealmModel;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(JUnit4.class)
+public class GeneratedDAOMapperFactoryTest {
+
+    private GeneratedDAOMapperFactory mFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        mFactory = new GeneratedDAOMapperFactory();
+    }
+
+    @Test
+    public void testGetDataMapperReturnsGeneratedMapper() throws Exception {
+        IDAOMapper mapper = mFactory.getDataMapper(TestRealmModel.class);
+
+        assertThat(mapper, not(instanceOf(DefaultDAOMapper.class)));
+        assertSame(mapper, mFactory.getDataMapper(TestRealmModel.class));
+    }
+
+    @Test
+    public void testGetDataMapperFallsBackToDefaultDAOMapper() throws Exception {
+        assertSame(DefaultDAOMapper.getInstance(), mFactory.getDataMapper(String.class));
+        assertSame(DefaultDAOMapper.getInstance(), mFactory.getDataMapper(null));
+    }
+
+    @Test
+    public void testGeneratedMapperCopiesFields() throws Exception {
+        IDAOMapper mapper = mFactory.getDataMapper(TestRealmModel.class);
+        TestRealmModel testRealmModel = new TestRealmModel(1, "value");
+
+        Object mapped = mapper.mapToDomain(testRealmModel, TestRealmModel.class);
+
+        assertNotSame(testRealmModel, mapped);
+        assertEquals(testRealmModel, mapped);
+        assertEquals(testRealmModel, mapper.mapToRealm(testRealmModel, TestRealmModel.class));
+    }
+
+    @Test
+    public void testGeneratedMapperMapsLists() throws Exception {
+        IDAOMapper mapper = mFactory.getDataMapper(TestRealmModel.class);
+        List<TestRealmModel> list = Arrays.asList(new TestRealmModel(1, "one"), new TestRealmModel(2, "two"));
+
+        assertEquals(list, mapper.mapAllToDomain(list, TestRealmModel.class));
+        assertEquals(list, mapper.mapToRealm(list, TestRealmModel.class));
+    }
+
+    @Test
+    public void testGeneratedMapperCopiesDataInstances() throws Exception {
+        IDataCopier copier = mFactory.getDataCopier(TestRealmModel.class);
+        TestRealmModel testRealmModel = new TestRealmModel(1, "value");
+
+        Object copy = copier.copy(testRealmModel);
+
+        assertNotSame(testRealmModel, copy);
+        assertEquals(testRealmModel, copy);
+        assertNull(mFactory.getDataCopier(String.class));
+    }
+}
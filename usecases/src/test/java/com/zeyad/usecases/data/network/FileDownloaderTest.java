@@ -0,0 +1,211 @@
+package com.zeyad.usecases.data.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.Okio;
+import retrofit2.Response;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(JUnit4.class)
+public class FileDownloaderTest {
+
+    private static final String URL = "http://www.google.com/map.pack", ETAG = "\"v1\"";
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private byte[] content;
+    private File file;
+    private RestApi restApi;
+
+    @Before
+    public void setUp() throws Exception {
+        content = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        file = File.createTempFile("download", ".bin");
+        file.delete();
+        restApi = mock(RestApi.class);
+        when(restApi.dynamicHead(anyString())).thenReturn(Observable.just(Response.success((Void) null,
+                Headers.of("Content-Length", String.valueOf(content.length), "Accept-Ranges", "bytes",
+                        "ETag", ETAG))));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+        new File(file.getPath() + FileDownloader.PART_SUFFIX).delete();
+        new File(file.getPath() + FileDownloader.STATE_SUFFIX).delete();
+    }
+
+    @Test
+    public void downloadsRangesInParallelThenMovesTheFileInPlace() throws Exception {
+        serveRanges(-1);
+
+        TestSubscriber<File> testSubscriber = new TestSubscriber<>();
+        new FileDownloader(restApi, 4, 1).download(URL, file).subscribe(testSubscriber);
+        testSubscriber.awaitTerminalEvent();
+
+        testSubscriber.assertNoErrors();
+        testSubscriber.assertValue(file);
+        assertEquals(3, ranges.size());
+        assertArrayEquals(content, read(file));
+        assertFalse(new File(file.getPath() + FileDownloader.PART_SUFFIX).exists());
+        assertFalse(new File(file.getPath() + FileDownloader.STATE_SUFFIX).exists());
+    }
+
+    @Test
+    public void resumesFromWhereTheFailedAttemptStopped() throws Exception {
+        int failAt = 700 * 1024;
+        serveRanges(failAt);
+
+        TestSubscriber<File> testSubscriber = new TestSubscriber<>();
+        new FileDownloader(restApi, 1, 1).download(URL, file).subscribe(testSubscriber);
+        testSubscriber.awaitTerminalEvent();
+
+        testSubscriber.assertNoErrors();
+        assertEquals(Arrays.asList("bytes=0-" + (content.length - 1),
+                "bytes=" + failAt + "-" + (content.length - 1)), ranges);
+        assertArrayEquals(content, read(file));
+    }
+
+    @Test
+    public void emitsProgressThenTheFileInACompleteEvent() throws Exception {
+        serveRanges(-1);
+
+        TestSubscriber<TransferProgress> testSubscriber = new TestSubscriber<>();
+        new FileDownloader(restApi, 4, 1).downloadWithProgress(URL, file).subscribe(testSubscriber);
+        testSubscriber.awaitTerminalEvent();
+
+        testSubscriber.assertNoErrors();
+        List<TransferProgress> events = testSubscriber.getOnNextEvents();
+        TransferProgress last = events.get(events.size() - 1);
+        assertTrue(last.isComplete());
+        assertEquals(file, last.getResult());
+        assertEquals(content.length, last.getBytes());
+        assertEquals(content.length, last.getTotal());
+        assertEquals(100, last.getPercent());
+        for (int i = 0; i < events.size() - 1; i++)
+            assertFalse(events.get(i).isComplete());
+    }
+
+    @Test
+    public void failsAndStartsOverWhenTheFileChanged() throws Exception {
+        when(restApi.dynamicDownloadRange(anyString(), anyMap())).thenReturn(Observable.just(Response.success(
+                ResponseBody.create(MediaType.parse("application/octet-stream"), content))));
+
+        TestSubscriber<File> testSubscriber = new TestSubscriber<>();
+        new FileDownloader(restApi, 1, 1).download(URL, file).subscribe(testSubscriber);
+        testSubscriber.awaitTerminalEvent();
+
+        testSubscriber.assertError(IllegalStateException.class);
+        assertFalse(file.exists());
+        assertFalse(new File(file.getPath() + FileDownloader.STATE_SUFFIX).exists());
+    }
+
+    /**
+     * Answers range requests with 206 responses of the content, the first one failing after the given
+     * number of bytes, if positive.
+     */
+    @SuppressWarnings("unchecked")
+    private void serveRanges(int failAt) {
+        when(restApi.dynamicDownloadRange(anyString(), anyMap())).thenAnswer(invocation -> {
+            String range = ((Map<String, String>) invocation.getArguments()[1]).get("Range");
+            assertEquals(ETAG, ((Map<String, String>) invocation.getArguments()[1]).get("If-Range"));
+            boolean fail = failAt > 0 && ranges.isEmpty();
+            ranges.add(range);
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(bounds[0]), end = Integer.parseInt(bounds[1]);
+            InputStream input = new ByteArrayInputStream(content, start, (fail ? failAt : end + 1) - start);
+            return Observable.just(Response.success(body(fail ? failing(input) : input),
+                    new okhttp3.Response.Builder()
+                            .code(206)
+                            .message("Partial Content")
+                            .protocol(Protocol.HTTP_1_1)
+                            .request(new Request.Builder().url(URL).build())
+                            .build()));
+        });
+    }
+
+    private static InputStream failing(InputStream input) {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                int read = input.read();
+                if (read == -1)
+                    throw new IOException("Connection reset");
+                return read;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = input.read(buffer, offset, length);
+                if (read == -1)
+                    throw new IOException("Connection reset");
+                return read;
+            }
+        };
+    }
+
+    private static ResponseBody body(InputStream input) {
+        return new ResponseBody() {
+            private final BufferedSource source = Okio.buffer(Okio.source(input));
+
+            @Override
+            public MediaType contentType() {
+                return null;
+            }
+
+            @Override
+            public long contentLength() {
+                return -1;
+            }
+
+            @Override
+            public BufferedSource source() {
+                return source;
+            }
+        };
+    }
+
+    private static byte[] read(File file) throws IOException {
+        assertTrue(file.exists());
+        byte[] bytes = new byte[(int) file.length()];
+        InputStream input = new FileInputStream(file);
+        try {
+            int offset = 0, read;
+            while (offset < bytes.length && (read = input.read(bytes, offset, bytes.length - offset)) != -1)
+                offset += read;
+        } finally {
+            input.close();
+        }
+        return bytes;
+    }
+}
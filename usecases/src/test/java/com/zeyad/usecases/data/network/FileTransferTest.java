@@ -0,0 +1,120 @@
+package com.zeyad.usecases.data.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class FileTransferTest {
+
+    private byte[] content;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        content = new byte[(int) (2.5 * FileTransfer.TRANSFER_SIZE)];
+        new Random(42).nextBytes(content);
+        file = File.createTempFile("transfer", ".bin");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+    }
+
+    @Test
+    public void savesTheSourceOfKnownLength() throws Exception {
+        long written = FileTransfer.save(Okio.source(new ByteArrayInputStream(content)), file, content.length, true);
+
+        assertEquals(content.length, written);
+        assertArrayEquals(content, Okio.buffer(Okio.source(file)).readByteArray());
+    }
+
+    @Test
+    public void trimsTheFileToTheBytesWritten() throws Exception {
+        FileTransfer.save(Okio.source(new ByteArrayInputStream(content)), file, content.length * 2, false);
+
+        assertEquals(content.length, file.length());
+        FileTransfer.save(Okio.source(new ByteArrayInputStream(content, 0, 10)), file, -1, false);
+        assertArrayEquals(Arrays.copyOf(content, 10), Okio.buffer(Okio.source(file)).readByteArray());
+    }
+
+    @Test
+    public void trimsTheFileToTheBytesWrittenBeforeAFailure() throws Exception {
+        long[] read = {0};
+        try {
+            FileTransfer.save(new ForwardingSource(Okio.source(new ByteArrayInputStream(content))) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    if (read[0] >= FileTransfer.TRANSFER_SIZE + 10)
+                        throw new IOException("Connection reset");
+                    long bytes = super.read(sink, Math.min(byteCount, 10));
+                    read[0] += bytes;
+                    return bytes;
+                }
+            }, file, content.length, false);
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertEquals(read[0], file.length());
+            assertArrayEquals(Arrays.copyOf(content, (int) read[0]), Okio.buffer(Okio.source(file)).readByteArray());
+        }
+    }
+
+    @Test
+    public void writesFromTheChannelPositionInOneWritePerBatch() throws Exception {
+        long[] writes = {0, 0, 0};
+        RandomAccessFile output = new RandomAccessFile(file, "rw");
+        try {
+            output.setLength(content.length + 100);
+            FileChannel channel = output.getChannel().position(100);
+            FileTransfer.write(Okio.source(new ByteArrayInputStream(content)), new WritableByteChannel() {
+                @Override
+                public int write(ByteBuffer source) throws IOException {
+                    writes[2]++;
+                    return channel.write(source);
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return channel.isOpen();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    channel.close();
+                }
+            }, bytes -> {
+                writes[0]++;
+                writes[1] += bytes;
+            });
+        } finally {
+            output.close();
+        }
+
+        assertEquals(3, writes[0]);
+        assertEquals(content.length, writes[1]);
+        assertEquals(3, writes[2]);
+        byte[] saved = Okio.buffer(Okio.source(file)).readByteArray();
+        assertArrayEquals(content, Arrays.copyOfRange(saved, 100, saved.length));
+    }
+}
@@ -0,0 +1,204 @@
+package com.zeyad.usecases.data.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(JUnit4.class)
+public class FileUploaderTest {
+
+    private static final String URL = "http://www.google.com/uploads", SESSION = URL + "/u1";
+    private static final MediaType JSON = MediaType.parse("application/json");
+    private static final int PART_SIZE = 1024;
+    private final List<String> parts = new CopyOnWriteArrayList<>();
+    private byte[] content, uploaded;
+    private File file, stateDir;
+    private RestApi restApi;
+
+    @Before
+    public void setUp() throws Exception {
+        content = new byte[2 * PART_SIZE + 100];
+        new Random(42).nextBytes(content);
+        uploaded = new byte[content.length];
+        file = File.createTempFile("upload", ".bin");
+        FileOutputStream output = new FileOutputStream(file);
+        try {
+            output.write(content);
+        } finally {
+            output.close();
+        }
+        stateDir = new File(file.getParentFile(), "uploads-" + System.nanoTime());
+        restApi = mock(RestApi.class);
+        when(restApi.dynamicUploadSession(eq(URL), any(RequestBody.class)))
+                .thenReturn(Observable.fromCallable(() -> json("{\"uploadId\":\"u1\"}")));
+        when(restApi.dynamicUploadSession(eq(SESSION + "/complete"), any(RequestBody.class)))
+                .thenReturn(Observable.fromCallable(() -> json("{\"id\":1}")));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+        File[] states = stateDir.listFiles();
+        if (states != null)
+            for (File state : states)
+                state.delete();
+        stateDir.delete();
+    }
+
+    @Test
+    public void uploadsThePartsThenCompletes() throws Exception {
+        serveParts(-1);
+
+        TestSubscriber<Object> testSubscriber = new TestSubscriber<>();
+        new FileUploader(restApi, stateDir, 1).upload(URL, file, "file", null, PART_SIZE)
+                .subscribe(testSubscriber);
+        testSubscriber.awaitTerminalEvent();
+
+        testSubscriber.assertNoErrors();
+        testSubscriber.assertValueCount(1);
+        assertEquals(Arrays.asList(SESSION + "/parts/0", SESSION + "/parts/1", SESSION + "/parts/2"), parts);
+        assertArrayEquals(content, uploaded);
+        assertFalse(hasState());
+    }
+
+    @Test
+    public void countsTheRetriedPartOnce() throws Exception {
+        serveParts(1);
+
+        TestSubscriber<TransferProgress> testSubscriber = new TestSubscriber<>();
+        new FileUploader(restApi, stateDir, 1).uploadWithProgress(URL, file, "file", null, PART_SIZE)
+                .subscribe(testSubscriber);
+        testSubscriber.awaitTerminalEvent();
+
+        testSubscriber.assertNoErrors();
+        List<TransferProgress> events = testSubscriber.getOnNextEvents();
+        TransferProgress last = events.get(events.size() - 1);
+        assertTrue(last.isComplete());
+        assertEquals(content.length, last.getBytes());
+        for (TransferProgress event : events)
+            assertTrue(event.getBytes() <= content.length);
+    }
+
+    @Test
+    public void retriesTheFailedPartOnly() throws Exception {
+        serveParts(1);
+
+        TestSubscriber<Object> testSubscriber = new TestSubscriber<>();
+        new FileUploader(restApi, stateDir, 1).upload(URL, file, "file", null, PART_SIZE)
+                .subscribe(testSubscriber);
+        testSubscriber.awaitTerminalEvent();
+
+        testSubscriber.assertNoErrors();
+        assertEquals(Arrays.asList(SESSION + "/parts/0", SESSION + "/parts/1", SESSION + "/parts/1",
+                SESSION + "/parts/2"), parts);
+        assertArrayEquals(content, uploaded);
+    }
+
+    @Test
+    public void resumesWithThePartsTheServerReceived() throws Exception {
+        when(restApi.dynamicUploadPart(anyString(), any(RequestBody.class)))
+                .thenReturn(Observable.error(new IllegalStateException("Interrupted")));
+        TestSubscriber<Object> interrupted = new TestSubscriber<>();
+        new FileUploader(restApi, stateDir, 1).upload(URL, file, "file", null, PART_SIZE)
+                .subscribe(interrupted);
+        interrupted.awaitTerminalEvent();
+        interrupted.assertError(IllegalStateException.class);
+        assertTrue(hasState());
+
+        when(restApi.dynamicUploadStatus(SESSION))
+                .thenReturn(Observable.fromCallable(() -> json("{\"parts\":[0,2]}")));
+        serveParts(-1);
+        TestSubscriber<Object> testSubscriber = new TestSubscriber<>();
+        new FileUploader(restApi, stateDir, 1).upload(URL, file, "file", null, PART_SIZE)
+                .subscribe(testSubscriber);
+        testSubscriber.awaitTerminalEvent();
+
+        testSubscriber.assertNoErrors();
+        assertEquals(Collections.singletonList(SESSION + "/parts/1"), parts);
+        verify(restApi, never()).dynamicUploadSession(eq(URL), any(RequestBody.class));
+        assertFalse(hasState());
+    }
+
+    @Test
+    public void discardedUploadStartsANewSession() throws Exception {
+        when(restApi.dynamicUploadPart(anyString(), any(RequestBody.class)))
+                .thenReturn(Observable.error(new IllegalStateException("Interrupted")));
+        FileUploader fileUploader = new FileUploader(restApi, stateDir, 1);
+        TestSubscriber<Object> interrupted = new TestSubscriber<>();
+        fileUploader.upload(URL, file, "file", null, PART_SIZE).subscribe(interrupted);
+        interrupted.awaitTerminalEvent();
+        assertTrue(hasState());
+
+        fileUploader.discard(URL, file);
+
+        assertFalse(hasState());
+        serveParts(-1);
+        TestSubscriber<Object> testSubscriber = new TestSubscriber<>();
+        fileUploader.upload(URL, file, "file", null, PART_SIZE).subscribe(testSubscriber);
+        testSubscriber.awaitTerminalEvent();
+        testSubscriber.assertNoErrors();
+        verify(restApi, never()).dynamicUploadStatus(anyString());
+    }
+
+    /**
+     * Acks parts, writing their bytes where they belong, the first attempt of the given part failing, if
+     * not negative.
+     */
+    private void serveParts(int failing) {
+        parts.clear();
+        when(restApi.dynamicUploadPart(anyString(), any(RequestBody.class))).thenAnswer(invocation -> {
+            String url = (String) invocation.getArguments()[0];
+            RequestBody body = (RequestBody) invocation.getArguments()[1];
+            int part = Integer.parseInt(url.substring(url.lastIndexOf('/') + 1));
+            boolean fail = part == failing && !parts.contains(url);
+            parts.add(url);
+            if (fail)
+                return Observable.error(new IOException("Connection reset"));
+            Buffer buffer = new Buffer();
+            body.writeTo(buffer);
+            assertEquals(body.contentLength(), buffer.size());
+            byte[] bytes = buffer.readByteArray();
+            System.arraycopy(bytes, 0, uploaded, part * PART_SIZE, bytes.length);
+            return Observable.just(json("{}"));
+        });
+    }
+
+    private boolean hasState() {
+        File[] states = stateDir.listFiles();
+        return states != null && states.length > 0;
+    }
+
+    private static ResponseBody json(String json) {
+        return ResponseBody.create(JSON, json);
+    }
+}
@@ -0,0 +1,96 @@
+package com.zeyad.usecases.data.network;
+
+import com.zeyad.usecases.BuildConfig;
+import com.zeyad.usecases.TestRealmModel;
+import com.zeyad.usecases.data.requests.PostRequest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class JsonBatchEnvelopeTest {
+
+    private static final String BASE_URL = "http://www.google.com/";
+    private JsonBatchEnvelope envelope;
+
+    @Before
+    public void setUp() throws Exception {
+        envelope = new JsonBatchEnvelope("/batch", 10);
+    }
+
+    @Test
+    public void getBatchUrl() throws Exception {
+        assertEquals(BASE_URL + "batch", envelope.getBatchUrl(BASE_URL));
+    }
+
+    @Test
+    public void wrapUsesRelativeUrlsAndPayLoads() throws Exception {
+        PostRequest patch = builder(PostRequest.PATCH, "users/1?force=true")
+                .payLoad(new JSONObject().put("id", 1)).build();
+        PostRequest delete = builder(PostRequest.DELETE, "users")
+                .payLoad(new JSONArray().put(2).put(3)).build();
+
+        Buffer buffer = new Buffer();
+        envelope.wrap(BASE_URL, Arrays.asList(patch, delete)).writeTo(buffer);
+        JSONArray requests = new JSONObject(buffer.readUtf8()).getJSONArray(JsonBatchEnvelope.REQUESTS);
+
+        assertEquals(2, requests.length());
+        assertEquals(PostRequest.PATCH, requests.getJSONObject(0).getString(JsonBatchEnvelope.METHOD));
+        assertEquals("/users/1?force=true", requests.getJSONObject(0).getString(JsonBatchEnvelope.URL));
+        assertEquals(1, requests.getJSONObject(0).getJSONObject(JsonBatchEnvelope.BODY).getInt("id"));
+        assertEquals(1, requests.getJSONObject(1).getInt(JsonBatchEnvelope.ID));
+        assertEquals(2, requests.getJSONObject(1).getJSONArray(JsonBatchEnvelope.BODY).length());
+    }
+
+    @Test
+    public void unwrapOrdersResultsById() throws Exception {
+        List<BatchEnvelope.Result> results = envelope.unwrap(createResponseBody("{\"responses\":["
+                + "{\"id\":1,\"status\":404,\"body\":null},"
+                + "{\"id\":0,\"status\":200,\"body\":{\"id\":1}}]}"));
+
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).isSuccessful());
+        assertEquals(1, ((JSONObject) results.get(0).getBody()).getInt("id"));
+        assertFalse(results.get(1).isSuccessful());
+        assertNull(results.get(1).getBody());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unwrapRejectsDuplicateIds() throws Exception {
+        envelope.unwrap(createResponseBody("{\"responses\":[{\"id\":0,\"status\":200},{\"id\":0,\"status\":200}]}"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unwrapRejectsMalformedResponses() throws Exception {
+        envelope.unwrap(createResponseBody("<html>Bad gateway</html>"));
+    }
+
+    private PostRequest.PostRequestBuilder builder(String method, String path) {
+        return new PostRequest.PostRequestBuilder(TestRealmModel.class, true)
+                .fullUrl(BASE_URL + path)
+                .idColumnName("id")
+                .method(method);
+    }
+
+    private ResponseBody createResponseBody(String json) {
+        return ResponseBody.create(MediaType.parse("application/json"), json);
+    }
+}
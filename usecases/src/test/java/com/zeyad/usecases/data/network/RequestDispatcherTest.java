@@ -0,0 +1,198 @@
+package com.zeyad.usecases.data.network;
+
+import com.zeyad.usecases.domain.executors.PriorityScheduler;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import rx.Observable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(JUnit4.class)
+public class RequestDispatcherTest {
+
+    private static final String HOST = "www.google.com";
+    private final List<String> executed = new ArrayList<>();
+    private final List<Request> sent = new ArrayList<>();
+    private final Map<String, Callback> running = new HashMap<>();
+    private RequestDispatcher requestDispatcher;
+    private Call.Factory callFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        OkHttpClient client = mock(OkHttpClient.class);
+        when(client.dispatcher()).thenReturn(new Dispatcher());
+        when(client.newCall(any(Request.class)))
+                .thenAnswer(invocation -> mockCall((Request) invocation.getArguments()[0]));
+        requestDispatcher = new RequestDispatcher(1);
+        callFactory = requestDispatcher.callFactory(client);
+    }
+
+    @Test
+    public void waitingCallsRunByPriorityThenSubmissionOrder() throws Exception {
+        enqueue(newCall("/first", PriorityScheduler.PRIORITY_NORMAL), null);
+        enqueue(newCall("/normal", PriorityScheduler.PRIORITY_NORMAL), null);
+        enqueue(newCall("/high", PriorityScheduler.PRIORITY_HIGH), null);
+
+        assertEquals(1, requestDispatcher.getRunningCount(HOST));
+        assertEquals(2, requestDispatcher.getWaitingCount(HOST));
+        complete("/first");
+        complete("/high");
+        complete("/normal");
+        assertEquals(3, executed.size());
+        assertEquals("/first", executed.get(0));
+        assertEquals("/high", executed.get(1));
+        assertEquals("/normal", executed.get(2));
+        assertEquals(0, requestDispatcher.getRunningCount(HOST));
+    }
+
+    @Test
+    public void canceledWaitingCallsAreDropped() throws Exception {
+        enqueue(newCall("/first", PriorityScheduler.PRIORITY_NORMAL), null);
+        Call dead = newCall("/dead", PriorityScheduler.PRIORITY_NORMAL);
+        AtomicBoolean failed = new AtomicBoolean();
+        enqueue(dead, failed);
+
+        dead.cancel();
+        assertTrue(failed.get());
+        assertEquals(0, requestDispatcher.getWaitingCount(HOST));
+        complete("/first");
+        assertEquals(1, executed.size());
+        assertEquals(0, requestDispatcher.getRunningCount(HOST));
+    }
+
+    @Test
+    public void priorityHeaderGivesThePriorityAndIsNotSent() throws Exception {
+        enqueue(newCall("/first", PriorityScheduler.PRIORITY_NORMAL), null);
+        enqueue(callFactory.newCall(new Request.Builder().url("http://" + HOST + "/normal").build()), null);
+        enqueue(callFactory.newCall(new Request.Builder().url("http://" + HOST + "/high")
+                .header(RequestDispatcher.PRIORITY_HEADER, String.valueOf(PriorityScheduler.PRIORITY_HIGH))
+                .build()), null);
+
+        complete("/first");
+        assertEquals("/high", executed.get(1));
+        for (Request request : sent)
+            assertNull(request.header(RequestDispatcher.PRIORITY_HEADER));
+    }
+
+    @Test
+    public void synchronousCallsRunRightAwayAndCountAsRunning() throws Exception {
+        enqueue(newCall("/first", PriorityScheduler.PRIORITY_NORMAL), null);
+
+        newCall("/sync", PriorityScheduler.PRIORITY_NORMAL).execute();
+
+        assertEquals("/sync", executed.get(1));
+        assertEquals(1, requestDispatcher.getRunningCount(HOST));
+        complete("/first");
+        assertEquals(0, requestDispatcher.getRunningCount(HOST));
+    }
+
+    @Test
+    public void failedCallsLetTheNextOneRun() throws Exception {
+        enqueue(newCall("/first", PriorityScheduler.PRIORITY_NORMAL), null);
+        enqueue(newCall("/second", PriorityScheduler.PRIORITY_NORMAL), null);
+
+        running.remove("/first").onFailure(null, new IOException("Connection reset"));
+
+        assertEquals("/second", executed.get(1));
+        assertFalse(running.containsKey("/first"));
+    }
+
+    @Test
+    public void callsMadeWhileHandlingAResponseKeepItsPriority() throws Exception {
+        Call first = newCall("/first", PriorityScheduler.PRIORITY_HIGH);
+        AtomicInteger priority = new AtomicInteger();
+        first.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                priority.set(RequestDispatcher.currentPriority());
+            }
+        });
+
+        complete("/first");
+
+        assertEquals(PriorityScheduler.PRIORITY_HIGH, priority.get());
+        assertEquals(PriorityScheduler.PRIORITY_NORMAL, RequestDispatcher.currentPriority());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyLimits() throws Exception {
+        new RequestDispatcher(0);
+    }
+
+    private Call newCall(String path, int priority) {
+        Request request = new Request.Builder().url("http://" + HOST + path).build();
+        return Observable.fromCallable(() -> callFactory.newCall(request))
+                .compose(RequestDispatcher.<Call>withPriority(priority))
+                .toBlocking()
+                .single();
+    }
+
+    private Call mockCall(Request request) throws IOException {
+        sent.add(request);
+        AtomicBoolean canceled = new AtomicBoolean();
+        Call call = mock(Call.class);
+        when(call.request()).thenReturn(request);
+        when(call.isCanceled()).thenAnswer(invocation -> canceled.get());
+        doAnswer(invocation -> {
+            canceled.set(true);
+            return null;
+        }).when(call).cancel();
+        doAnswer(invocation -> {
+            executed.add(request.url().encodedPath());
+            running.put(request.url().encodedPath(), (Callback) invocation.getArguments()[0]);
+            return null;
+        }).when(call).enqueue(any(Callback.class));
+        when(call.execute()).thenAnswer(invocation -> {
+            executed.add(request.url().encodedPath());
+            return null;
+        });
+        return call;
+    }
+
+    private void enqueue(Call call, AtomicBoolean failed) {
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (failed != null)
+                    failed.set(true);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+            }
+        });
+    }
+
+    private void complete(String path) throws IOException {
+        running.remove(path).onResponse(null, null);
+    }
+}
@@ -0,0 +1,60 @@
+package com.zeyad.usecases.data.network;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import rx.Observable;
+import rx.Subscription;
+import rx.observers.TestSubscriber;
+import rx.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class TransferProgressTest {
+
+    @Test
+    public void emitsTheResultLast() throws Exception {
+        TestSubscriber<TransferProgress> testSubscriber = new TestSubscriber<>();
+
+        TransferProgress.track(meter -> Observable.just("file")).subscribe(testSubscriber);
+
+        testSubscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        testSubscriber.assertNoErrors();
+        TransferProgress last = testSubscriber.getOnNextEvents().get(testSubscriber.getOnNextEvents().size() - 1);
+        assertTrue(last.isComplete());
+        assertEquals("file", last.getResult());
+    }
+
+    @Test
+    public void subscribesToTheTransferOnce() throws Exception {
+        int[] subscriptions = new int[1];
+        TestSubscriber<TransferProgress> testSubscriber = new TestSubscriber<>();
+
+        TransferProgress.track(meter -> Observable.just("file").doOnSubscribe(() -> subscriptions[0]++))
+                .subscribe(testSubscriber);
+
+        testSubscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        assertEquals(1, subscriptions[0]);
+    }
+
+    @Test
+    public void unsubscribingStopsTheTransfer() throws Exception {
+        PublishSubject<Object> transfer = PublishSubject.create();
+        AtomicBoolean stopped = new AtomicBoolean();
+        Subscription subscription = TransferProgress.track(meter -> transfer.doOnUnsubscribe(() -> stopped.set(true)))
+                .subscribe();
+
+        assertTrue(transfer.hasObservers());
+        subscription.unsubscribe();
+
+        assertFalse(transfer.hasObservers());
+        assertTrue(stopped.get());
+    }
+}
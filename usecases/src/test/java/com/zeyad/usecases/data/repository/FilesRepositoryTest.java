@@ -10,11 +10,17 @@ import com.zeyad.usecases.data.repository.stores.DataStoreFactory;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.util.HashMap;
 
+import okio.Okio;
+import rx.observers.TestSubscriber;
+
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
@@ -61,22 +67,37 @@ public class FilesRepositoryTest {
 
     }
 
+    @Test
+    public void saveStreamToFile() throws Exception {
+        File file = File.createTempFile("save", ".txt");
+        try {
+            TestSubscriber<File> testSubscriber = new TestSubscriber<>();
+            mFilesRepository.saveToFile(file.getPath(), new ByteArrayInputStream("content".getBytes()), -1, false)
+                    .subscribe(testSubscriber);
+
+            testSubscriber.assertValue(file);
+            assertEquals("content", Okio.buffer(Okio.source(file)).readUtf8());
+        } finally {
+            file.delete();
+        }
+    }
+
     @Test
     public void uploadFileDynamically() throws Exception {
-        mFilesRepository.uploadFileDynamically(validUrl, new File(""), "", new HashMap<>(), false,
-                false, false, Object.class, Object.class);
+        mFilesRepository.uploadFileDynamically(validUrl, new File(""), "", new HashMap<>(), 0,
+                false, false, false, false, Object.class, Object.class);
 //        verify(mockDataStoreFactory, times(1)).cloud(any(IDAOMapper.class));
         verify(mockDataStore, times(1)).dynamicUploadFile(anyString(), any(File.class), anyString(),
-                (HashMap<String, Object>) anyMap(), anyBoolean(), anyBoolean(), anyBoolean(),
-                any(Class.class));
+                (HashMap<String, Object>) anyMap(), anyInt(), anyBoolean(), anyBoolean(), anyBoolean(),
+                anyBoolean(), any(Class.class));
     }
 
     @Test
     public void downloadFileDynamically() throws Exception {
         mFilesRepository.downloadFileDynamically(validUrl, new File(""), false, false, false,
-                Object.class, Object.class);
+                false, Object.class, Object.class);
         verify(mockDataStoreFactory, times(1)).cloud(any(IDAOMapper.class));
         verify(mockDataStore, times(1)).dynamicDownloadFile(anyString(), any(File.class), anyBoolean(),
-                anyBoolean(), anyBoolean());
+                anyBoolean(), anyBoolean(), anyBoolean());
     }
 }
\ No newline at end of file
@@ -27,13 +27,20 @@ import org.robolectric.annotation.Config;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 
 import io.realm.RealmModel;
 import io.realm.RealmObject;
+import okhttp3.Headers;
+import okhttp3.MediaType;
 import okhttp3.MultipartBody;
+import okhttp3.Protocol;
+import okhttp3.Request;
 import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit2.Response;
 import rx.Observable;
 import rx.observers.TestSubscriber;
 
@@ -41,9 +48,9 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyList;
-import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -57,6 +64,7 @@ import static org.mockito.Mockito.when;
 @RunWith(RobolectricTestRunner.class)
 @Config(constants = BuildConfig.class, sdk = 21)
 public class CloudDataStoreTest {
+    private static final MediaType JSON = MediaType.parse("application/json");
     private CloudDataStore cloudDataStore;
     private Context mockContext;
     private RestApi mockRestApi;
@@ -75,23 +83,26 @@ public class CloudDataStoreTest {
         when(mockDataBaseManager.put(any(JSONObject.class), anyString(), any(Class.class))).thenReturn(observable);
         when(mockDataBaseManager.putAll(any(JSONArray.class), anyString(), any(Class.class))).thenReturn(observable);
         when(mockDataBaseManager.putAll(anyList(), any(Class.class))).thenReturn(observable);
+        when(mockDataBaseManager.evictAllById(anyString(), anyList(), any(Class.class)))
+                .thenReturn(Observable.just(new HashMap<>()));
+        HttpValidators.getInstance().clear();
         cloudDataStore = new CloudDataStore(mockRestApi, mockDataBaseManager, mockEntityDataMapper, mockContext);
     }
 
     @Test
     public void dynamicGetObject() throws Exception {
-        when(mockRestApi.dynamicGetObject(anyString(), anyBoolean())).thenReturn(observable);
+        when(mockRestApi.dynamicGetStream(anyString())).thenReturn(body("{}"));
 
         cloudDataStore.dynamicGetObject("", "", 0, Object.class, Object.class, false, false);
 
-        verify(mockRestApi, times(1)).dynamicGetObject(anyString(), anyBoolean());
+        verify(mockRestApi, times(1)).dynamicGetStream(anyString());
         verifyDBInteractions(0, 0, 0, 0, 0, 0);
     }
 
     @Test
     public void dynamicGetObjectCanWillPersist() throws Exception {
         cloudDataStore.mCanPersist = true;
-        when(mockRestApi.dynamicGetObject(anyString(), anyBoolean())).thenReturn(observable);
+        when(mockRestApi.dynamicGetStream(anyString())).thenReturn(body("{}"));
 
         TestSubscriber testSubscriber = new TestSubscriber();
         cloudDataStore.dynamicGetObject("", "", 0, Object.class, Object.class, true, false)
@@ -99,28 +110,41 @@ public class CloudDataStoreTest {
 
         testSubscriber.assertNoErrors();
 
-        verify(mockRestApi, times(1)).dynamicGetObject(anyString(), anyBoolean());
+        verify(mockRestApi, times(1)).dynamicGetStream(anyString());
         verifyDBInteractions(0, 0, 1, 0, 0, 0);
     }
 
     @Test
     public void dynamicGetList() throws Exception {
-        List<TestRealmModel> testRealmObjects = new ArrayList<>();
-        testRealmObjects.add(new TestRealmModel());
-        Observable<List> observable = Observable.just(testRealmObjects);
-        when(mockRestApi.dynamicGetList(anyString(), anyBoolean())).thenReturn(observable);
+        when(mockRestApi.dynamicGetStream(anyString())).thenReturn(body("[{\"id\":1}]"));
 
         cloudDataStore.dynamicGetList("", Object.class, Object.class, false, false);
 
-        verify(mockRestApi, times(1)).dynamicGetList(anyString(), anyBoolean());
+        verify(mockRestApi, times(1)).dynamicGetStream(anyString());
         verifyDBInteractions(0, 0, 0, 0, 0, 0);
     }
 
+    @Test
+    public void dynamicGetListParsesIntoTheDataClass() throws Exception {
+        when(mockRestApi.dynamicGetStream(anyString())).thenReturn(body("[{\"id\":1,\"value\":\"one\"}]"));
+
+        TestSubscriber testSubscriber = new TestSubscriber();
+        cloudDataStore.dynamicGetList("", Object.class, TestRealmModel.class, false, false)
+                .subscribe(testSubscriber);
+        testSubscriber.awaitTerminalEvent();
+
+        testSubscriber.assertNoErrors();
+        verify(mockEntityDataMapper, times(1))
+                .mapAllToDomain(eq(Arrays.asList(new TestRealmModel(1, "one"))), eq(Object.class));
+    }
+
     @Test
     public void dynamicGetListCanWillPersist() throws Exception {
         cloudDataStore.mCanPersist = true;
-        Observable observable = Observable.from(new ArrayList<>());
-        when(mockRestApi.dynamicGetList(anyString(), anyBoolean())).thenReturn(observable);
+        when(mockDataBaseManager.getAll(any(Class.class))).thenReturn(Observable.just(new ArrayList()));
+        when(mockRestApi.dynamicGetConditional(anyString(), anyMap()))
+                .thenReturn(Observable.just(Response.success(ResponseBody.create(JSON, "[]"),
+                        new Headers.Builder().add("ETag", "\"v1\"").build())));
 
         TestSubscriber testSubscriber = new TestSubscriber();
         cloudDataStore.dynamicGetList("", Object.class, Object.class, true, false)
@@ -128,8 +152,92 @@ public class CloudDataStoreTest {
 
         testSubscriber.assertNoErrors();
 
-        verify(mockRestApi, times(1)).dynamicGetList(anyString(), anyBoolean());
-//        verifyDBInteractions(0, 1, 0, 0, 0, 0);
+        verify(mockRestApi, times(1)).dynamicGetConditional(anyString(), anyMap());
+        verifyDBInteractions(0, 1, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void dynamicGetListNotModified() throws Exception {
+        cloudDataStore.mCanPersist = true;
+        List<Object> persisted = new ArrayList<>();
+        persisted.add(new Object());
+        HttpValidators.getInstance().putList("", Object.class, new Headers.Builder().add("ETag", "\"v1\"").build(),
+                Arrays.asList("1"));
+        when(mockDataBaseManager.getAllByPrimaryKey(anyList(), any(Class.class)))
+                .thenReturn(Observable.just(persisted));
+        when(mockRestApi.dynamicGetConditional(anyString(), anyMap())).thenReturn(notModified());
+
+        TestSubscriber testSubscriber = new TestSubscriber();
+        cloudDataStore.dynamicGetList("", Object.class, Object.class, true, false)
+                .subscribe(testSubscriber);
+        testSubscriber.awaitTerminalEvent();
+
+        testSubscriber.assertNoErrors();
+        testSubscriber.assertValueCount(1);
+
+        verify(mockDataBaseManager, times(1)).getAllByPrimaryKey(eq(Arrays.asList("1")), any(Class.class));
+        verify(mockDataBaseManager, times(0)).getAll(any(Class.class));
+        verifyDBInteractions(0, 0, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void dynamicGetListOfAPageNotModifiedReadsOnlyItsRows() throws Exception {
+        cloudDataStore.mCanPersist = true;
+        String page = "http://localhost/users?page=2";
+        HttpValidators.getInstance().putList("", Object.class, new Headers.Builder().add("ETag", "\"v1\"").build(),
+                Arrays.asList("1"));
+        HttpValidators.getInstance().putList(page, Object.class, new Headers.Builder().add("ETag", "\"v2\"").build(),
+                Arrays.asList("2", "3"));
+        when(mockDataBaseManager.getAllByPrimaryKey(anyList(), any(Class.class)))
+                .thenReturn(Observable.just(new ArrayList()));
+        when(mockRestApi.dynamicGetConditional(anyString(), anyMap())).thenReturn(notModified());
+
+        TestSubscriber testSubscriber = new TestSubscriber();
+        cloudDataStore.dynamicGetList(page, Object.class, Object.class, true, false)
+                .subscribe(testSubscriber);
+        testSubscriber.awaitTerminalEvent();
+
+        testSubscriber.assertNoErrors();
+        testSubscriber.assertValueCount(1);
+
+        verify(mockDataBaseManager, times(1)).getAllByPrimaryKey(eq(Arrays.asList("2", "3")), any(Class.class));
+        verify(mockDataBaseManager, times(0)).getAll(any(Class.class));
+        verifyDBInteractions(0, 0, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void dynamicSyncList() throws Exception {
+        cloudDataStore.mCanPersist = true;
+        when(mockDataBaseManager.getSyncToken(any(Class.class))).thenReturn("t1");
+        when(mockDataBaseManager.applyDelta(any(JSONArray.class), anyList(), anyBoolean(), anyString(),
+                anyString(), any(Class.class))).thenReturn(Observable.just(true));
+        when(mockDataBaseManager.getAll(any(Class.class))).thenReturn(Observable.just(new ArrayList()));
+        when(mockRestApi.dynamicGetStream(anyString())).thenReturn(Observable.just(ResponseBody.create(JSON,
+                "{\"changes\": [{\"id\": 1}], \"deletions\": [2, 3], \"token\": \"t2\"}")));
+
+        TestSubscriber testSubscriber = new TestSubscriber();
+        cloudDataStore.dynamicSyncList("http://www.google.com/items", "id", "since", Object.class, Object.class)
+                .subscribe(testSubscriber);
+
+        testSubscriber.assertNoErrors();
+        testSubscriber.assertValueCount(1);
+
+        verify(mockRestApi, times(1)).dynamicGetStream(eq("http://www.google.com/items?since=t1"));
+        verify(mockDataBaseManager, times(1)).applyDelta(any(JSONArray.class), eq(Arrays.asList(2L, 3L)),
+                eq(false), eq("t2"), eq("id"), any(Class.class));
+        verifyDBInteractions(0, 0, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void dynamicSyncListWithoutPersistence() throws Exception {
+        cloudDataStore.mCanPersist = false;
+
+        TestSubscriber testSubscriber = new TestSubscriber();
+        cloudDataStore.dynamicSyncList("http://www.google.com/items", "id", "since", Object.class, Object.class)
+                .subscribe(testSubscriber);
+
+        testSubscriber.assertError(IllegalStateException.class);
+        verifyZeroInteractions(mockRestApi);
     }
 
     @Test
@@ -467,7 +575,7 @@ public class CloudDataStoreTest {
         when(mockRestApi.dynamicUpload(anyString(), anyMap(), any(MultipartBody.Part.class))).thenReturn(observable);
 
         TestSubscriber testSubscriber = new TestSubscriber();
-        cloudDataStore.dynamicUploadFile("", new File(""), "", new HashMap(), false, false, false, Object.class)
+        cloudDataStore.dynamicUploadFile("", new File(""), "", new HashMap(), 0, false, false, false, false, Object.class)
                 .subscribe(testSubscriber);
 
         testSubscriber.assertNoErrors();
@@ -481,7 +589,7 @@ public class CloudDataStoreTest {
         changeStateOfNetwork(mockContext, false);
 
         TestSubscriber testSubscriber = new TestSubscriber();
-        cloudDataStore.dynamicUploadFile("", new File(""), "", new HashMap(), false, false, true, Object.class)
+        cloudDataStore.dynamicUploadFile("", new File(""), "", new HashMap(), 0, false, false, true, false, Object.class)
                 .subscribe(testSubscriber);
 
         testSubscriber.assertNoValues();
@@ -493,7 +601,7 @@ public class CloudDataStoreTest {
         changeStateOfNetwork(mockContext, false);
 
         TestSubscriber testSubscriber = new TestSubscriber();
-        cloudDataStore.dynamicUploadFile("", new File(""), "", new HashMap(), false, false, false, Object.class)
+        cloudDataStore.dynamicUploadFile("", new File(""), "", new HashMap(), 0, false, false, false, false, Object.class)
                 .subscribe(testSubscriber);
 
         testSubscriber.assertError(NetworkConnectionException.class);
@@ -502,15 +610,15 @@ public class CloudDataStoreTest {
 
     @Test
     public void dynamicDownloadFile() throws Exception {
-        when(mockRestApi.dynamicDownload(anyString())).thenReturn(observable);
+        when(mockRestApi.dynamicHead(anyString())).thenReturn(Observable.empty());
 
         TestSubscriber testSubscriber = new TestSubscriber();
-        cloudDataStore.dynamicDownloadFile("", new File(""), false, false, false)
+        cloudDataStore.dynamicDownloadFile("", new File(""), false, false, false, false)
                 .subscribe(testSubscriber);
 
 //        testSubscriber.assertNoErrors();
 
-        verify(mockRestApi, times(1)).dynamicDownload(anyString());
+        verify(mockRestApi, times(1)).dynamicHead(anyString());
         verifyDBInteractions(0, 0, 0, 0, 0, 0);
     }
 
@@ -519,7 +627,7 @@ public class CloudDataStoreTest {
         changeStateOfNetwork(mockContext, false);
 
         TestSubscriber testSubscriber = new TestSubscriber();
-        cloudDataStore.dynamicDownloadFile("", new File(""), false, false, true)
+        cloudDataStore.dynamicDownloadFile("", new File(""), false, false, true, false)
                 .subscribe(testSubscriber);
 
         testSubscriber.assertNoValues();
@@ -531,7 +639,7 @@ public class CloudDataStoreTest {
         changeStateOfNetwork(mockContext, false);
 
         TestSubscriber testSubscriber = new TestSubscriber();
-        cloudDataStore.dynamicDownloadFile("", new File(""), false, false, false)
+        cloudDataStore.dynamicDownloadFile("", new File(""), false, false, false, false)
                 .subscribe(testSubscriber);
 
         testSubscriber.assertError(NetworkConnectionException.class);
@@ -557,7 +665,20 @@ public class CloudDataStoreTest {
         verify(mockDataBaseManager, times(putJ)).put(any(JSONObject.class), anyString(), any(Class.class));
         verify(mockDataBaseManager, times(putO)).put(any(RealmObject.class), any(Class.class));
         verify(mockDataBaseManager, times(putM)).put(any(RealmModel.class), any(Class.class));
-        verify(mockDataBaseManager, atLeast(evict)).evictById(any(Class.class), anyString(), anyLong());
+        verify(mockDataBaseManager, atLeast(evict)).evictAllById(anyString(), anyList(), any(Class.class));
+    }
+
+    private static Observable<ResponseBody> body(String json) {
+        return Observable.fromCallable(() -> ResponseBody.create(JSON, json));
+    }
+
+    private static Observable<Response<ResponseBody>> notModified() {
+        return Observable.just(Response.error(ResponseBody.create(JSON, ""), new okhttp3.Response.Builder()
+                .code(304)
+                .message("Not Modified")
+                .protocol(Protocol.HTTP_1_1)
+                .request(new Request.Builder().url("http://localhost/").build())
+                .build()));
     }
 
     private Context changeStateOfNetwork(@NonNull Context mockedContext, boolean toEnable) {
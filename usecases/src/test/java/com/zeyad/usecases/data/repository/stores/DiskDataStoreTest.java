@@ -3,7 +3,9 @@ package com.zeyad.usecases.data.repository.stores;
 import com.zeyad.usecases.Config;
 import com.zeyad.usecases.TestRealmModel;
 import com.zeyad.usecases.data.db.DataBaseManager;
+import com.zeyad.usecases.data.db.RealmManager;
 import com.zeyad.usecases.data.mappers.IDAOMapper;
+import com.zeyad.usecases.data.requests.GetRequest;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -17,6 +19,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import rx.Observable;
 
@@ -36,11 +39,12 @@ public class DiskDataStoreTest {
 
     private DiskDataStore mDiskDataStore;
     private DataBaseManager dbManager;
+    private IDAOMapper mapper;
 
     @Before
     public void setUp() throws Exception {
         dbManager = mock(DataBaseManager.class);
-        IDAOMapper mapper = mock(IDAOMapper.class);
+        mapper = mock(IDAOMapper.class);
         when(mapper.mapAllToDomain(any(List.class), any(Class.class))).thenReturn(new ArrayList());
         Config.setWithCache(false);
         mDiskDataStore = new DiskDataStore(dbManager, mapper);
@@ -77,6 +81,45 @@ public class DiskDataStoreTest {
 //        Mockito.verify(dbManager, times(1)).getQuery(any(RealmManager.RealmQueryProvider.class));
 //    }
 
+    @Test
+    public void testQueryDiskWindowedMapsOnAccess() {
+        List<TestRealmModel> testRealmObjects = new ArrayList<>();
+        testRealmObjects.add(new TestRealmModel(1, "1"));
+        testRealmObjects.add(new TestRealmModel(2, "2"));
+        when(dbManager.getQueryWindowed(any(RealmManager.RealmQueryProvider.class), anyInt()))
+                .thenReturn(Observable.just(testRealmObjects));
+        when(mapper.mapToDomain(any(), any(Class.class))).thenReturn("mapped");
+
+        List list = mDiskDataStore.queryDisk(realm -> null, String.class, GetRequest.ReadMode.WINDOWED, 10)
+                .toBlocking().first();
+
+        assertEquals(2, list.size());
+        Mockito.verify(mapper, times(0)).mapToDomain(any(), any(Class.class));
+        assertEquals("mapped", list.get(1));
+        Mockito.verify(mapper, times(1)).mapToDomain(testRealmObjects.get(1), String.class);
+    }
+
+    @Test
+    public void testQueryDiskLive() {
+        when(dbManager.getQueryLive(any(RealmManager.RealmQueryProvider.class)))
+                .thenReturn(Observable.just(new ArrayList<>()));
+
+        mDiskDataStore.queryDisk(realm -> null, Object.class, GetRequest.ReadMode.LIVE, 10);
+
+        Mockito.verify(dbManager, times(1)).getQueryLive(any(RealmManager.RealmQueryProvider.class));
+    }
+
+    @Test
+    public void testQueryDiskChanges() {
+        when(dbManager.getQueryChanges(any(RealmManager.RealmQueryProvider.class), anyString()))
+                .thenReturn(Observable.empty());
+
+        mDiskDataStore.queryDiskChanges(realm -> null, "id", Object.class);
+
+        Mockito.verify(dbManager, times(1)).getQueryChanges(any(RealmManager.RealmQueryProvider.class),
+                anyString());
+    }
+
     @Test
     public void testDynamicDeleteAll() {
         Observable<Boolean> observable = Observable.just(true);
@@ -89,12 +132,12 @@ public class DiskDataStoreTest {
 
     @Test
     public void testDynamicDeleteCollection() {
-        Observable<Boolean> observable = Observable.just(true);
-        when(dbManager.evictCollection(anyString(), anyList(), any(Class.class))).thenReturn(observable);
+        Observable<Map<Long, Boolean>> observable = Observable.just(new HashMap<>());
+        when(dbManager.evictAllById(anyString(), anyList(), any(Class.class))).thenReturn(observable);
 
         mDiskDataStore.dynamicDeleteCollection("", "", new JSONArray(), Object.class, false, false);
 
-        Mockito.verify(dbManager, times(1)).evictCollection(anyString(), anyListOf(Long.class), any(Class.class));
+        Mockito.verify(dbManager, times(1)).evictAllById(anyString(), anyListOf(Long.class), any(Class.class));
     }
 
     @Test
@@ -149,7 +192,7 @@ public class DiskDataStoreTest {
 
     @Test(expected = IllegalStateException.class)
     public void testDynamicDownloadFile() throws Exception {
-        Observable observable = mDiskDataStore.dynamicDownloadFile("", new File(""), false, false, false);
+        Observable observable = mDiskDataStore.dynamicDownloadFile("", new File(""), false, false, false, false);
 
         // Verify repository interactions
         verifyZeroInteractions(dbManager);
@@ -161,7 +204,7 @@ public class DiskDataStoreTest {
     @Test(expected = IllegalStateException.class)
     public void testDynamicUploadFile() throws Exception {
         Observable observable = mDiskDataStore.dynamicUploadFile("", new File(""), "", new HashMap<>(),
-                false, false, false, Object.class);
+                0, false, false, false, false, Object.class);
 
         // Verify repository interactions
         verifyZeroInteractions(dbManager);
@@ -0,0 +1,83 @@
+package com.zeyad.usecases.data.repository.stores;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import okhttp3.Headers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class HttpValidatorsTest {
+
+    private static final String URL = "http://www.google.com/users";
+    private HttpValidators httpValidators;
+
+    @Before
+    public void setUp() throws Exception {
+        httpValidators = new HttpValidators(null);
+    }
+
+    @Test
+    public void getConditionalHeaders() throws Exception {
+        httpValidators.put(URL, Object.class, new Headers.Builder()
+                .add("ETag", "\"v1\"")
+                .add("Last-Modified", "Tue, 15 Nov 1994 12:45:26 GMT")
+                .build());
+
+        Map<String, String> headers = httpValidators.getConditionalHeaders(URL, Object.class);
+        assertEquals("\"v1\"", headers.get(HttpValidators.IF_NONE_MATCH));
+        assertEquals("Tue, 15 Nov 1994 12:45:26 GMT", headers.get(HttpValidators.IF_MODIFIED_SINCE));
+        assertTrue(httpValidators.getConditionalHeaders(URL, String.class).isEmpty());
+    }
+
+    @Test
+    public void putWithoutValidatorsForgetsThePreviousOnes() throws Exception {
+        httpValidators.put(URL, Object.class, new Headers.Builder().add("ETag", "\"v1\"").build());
+        httpValidators.put(URL, Object.class, new Headers.Builder().build());
+
+        assertTrue(httpValidators.getConditionalHeaders(URL, Object.class).isEmpty());
+    }
+
+    @Test
+    public void putListKeepsTheKeysOfItsItems() throws Exception {
+        httpValidators.putList(URL, Object.class, new Headers.Builder().add("ETag", "\"v1\"").build(),
+                Arrays.asList("1", "a,b", "c\\d", ""));
+
+        assertEquals(Arrays.asList("1", "a,b", "c\\d", ""), httpValidators.getKeys(URL, Object.class));
+        assertEquals("\"v1\"", httpValidators.getConditionalHeaders(URL, Object.class)
+                .get(HttpValidators.IF_NONE_MATCH));
+        assertNull(httpValidators.getKeys(URL + "?page=2", Object.class));
+    }
+
+    @Test
+    public void putListWithoutKeysForgetsThePreviousValidators() throws Exception {
+        httpValidators.putList(URL, Object.class, new Headers.Builder().add("ETag", "\"v1\"").build(),
+                Arrays.asList("1"));
+        httpValidators.putList(URL, Object.class, new Headers.Builder().add("ETag", "\"v2\"").build(), null);
+
+        assertTrue(httpValidators.getConditionalHeaders(URL, Object.class).isEmpty());
+        assertNull(httpValidators.getKeys(URL, Object.class));
+    }
+
+    @Test
+    public void evictAll() throws Exception {
+        httpValidators.put(URL, Object.class, new Headers.Builder().add("ETag", "\"v1\"").build());
+        httpValidators.put(URL + "/1", Object.class, new Headers.Builder().add("ETag", "\"v2\"").build());
+        httpValidators.put(URL, String.class, new Headers.Builder().add("ETag", "\"v3\"").build());
+
+        httpValidators.evictAll(Object.class);
+
+        assertTrue(httpValidators.getConditionalHeaders(URL, Object.class).isEmpty());
+        assertTrue(httpValidators.getConditionalHeaders(URL + "/1", Object.class).isEmpty());
+        assertEquals("\"v3\"", httpValidators.getConditionalHeaders(URL, String.class)
+                .get(HttpValidators.IF_NONE_MATCH));
+    }
+}
@@ -0,0 +1,88 @@
+package com.zeyad.usecases.data.repository.stores;
+
+import com.zeyad.usecases.TestRealmModel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rx.Observable;
+import rx.Subscription;
+import rx.observers.TestSubscriber;
+import rx.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@RunWith(JUnit4.class)
+public class InFlightRequestsTest {
+
+    private static final String URL = "www.google.com";
+    private AtomicInteger subscriptionCount;
+    private PublishSubject<Object> subject;
+    private Observable<Object> source;
+
+    @Before
+    public void setUp() throws Exception {
+        InFlightRequests.clear();
+        subscriptionCount = new AtomicInteger();
+        subject = PublishSubject.create();
+        source = subject.doOnSubscribe(subscriptionCount::incrementAndGet);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        InFlightRequests.clear();
+    }
+
+    @Test
+    public void concurrentSubscribersShareOneRequest() throws Exception {
+        TestSubscriber<Object> first = new TestSubscriber<>();
+        TestSubscriber<Object> second = new TestSubscriber<>();
+
+        InFlightRequests.share(URL, TestRealmModel.class, true, source).subscribe(first);
+        InFlightRequests.share(URL, TestRealmModel.class, true, source).subscribe(second);
+        subject.onNext(1);
+        subject.onCompleted();
+
+        assertEquals(1, subscriptionCount.get());
+        first.assertValue(1);
+        second.assertValue(1);
+        assertEquals(0, InFlightRequests.size());
+    }
+
+    @Test
+    public void differentKeysDoNotShare() throws Exception {
+        InFlightRequests.share(URL, TestRealmModel.class, true, source).subscribe(new TestSubscriber<>());
+        InFlightRequests.share(URL, TestRealmModel.class, false, source).subscribe(new TestSubscriber<>());
+        InFlightRequests.share(URL, Object.class, true, source).subscribe(new TestSubscriber<>());
+
+        assertEquals(3, subscriptionCount.get());
+        assertEquals(3, InFlightRequests.size());
+    }
+
+    @Test
+    public void requestIsCancelledWhenLastSubscriberLeaves() throws Exception {
+        Subscription first = InFlightRequests.share(URL, TestRealmModel.class, true, source).subscribe();
+        Subscription second = InFlightRequests.share(URL, TestRealmModel.class, true, source).subscribe();
+
+        first.unsubscribe();
+        assertEquals(1, InFlightRequests.size());
+
+        second.unsubscribe();
+        assertFalse(subject.hasObservers());
+        assertEquals(0, InFlightRequests.size());
+    }
+
+    @Test
+    public void nothingIsRegisteredUntilSubscription() throws Exception {
+        InFlightRequests.share(URL, TestRealmModel.class, true, source);
+
+        assertEquals(0, InFlightRequests.size());
+        assertEquals(0, subscriptionCount.get());
+    }
+}
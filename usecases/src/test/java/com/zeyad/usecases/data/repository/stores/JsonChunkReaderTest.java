@@ -0,0 +1,93 @@
+package com.zeyad.usecases.data.repository.stores;
+
+import com.google.gson.Gson;
+import com.zeyad.usecases.TestRealmModel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+import rx.observers.TestSubscriber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class JsonChunkReaderTest {
+
+    private static final String JSON = "[{\"id\":1,\"value\":\"one\"},{\"id\":2,\"value\":\"two\"},"
+            + "{\"id\":3,\"value\":\"three\"}]";
+    private final Gson gson = new Gson();
+
+    @Test
+    public void readEmitsChunksOfAtMostChunkSize() throws Exception {
+        TestSubscriber<List> testSubscriber = new TestSubscriber<>();
+
+        JsonChunkReader.read(createBody(JSON), TestRealmModel.class, 2, gson).subscribe(testSubscriber);
+
+        testSubscriber.assertNoErrors();
+        testSubscriber.assertCompleted();
+        testSubscriber.assertValues(Arrays.asList(new TestRealmModel(1, "one"), new TestRealmModel(2, "two")),
+                Collections.singletonList(new TestRealmModel(3, "three")));
+    }
+
+    @Test
+    public void readOnlyReadsRequestedChunks() throws Exception {
+        TestSubscriber<List> testSubscriber = new TestSubscriber<>(0L);
+
+        JsonChunkReader.read(createBody(JSON), TestRealmModel.class, 1, gson).subscribe(testSubscriber);
+        testSubscriber.assertNoValues();
+        testSubscriber.requestMore(1);
+
+        testSubscriber.assertValueCount(1);
+        testSubscriber.assertNotCompleted();
+        testSubscriber.requestMore(2);
+        testSubscriber.assertValueCount(3);
+        testSubscriber.assertCompleted();
+    }
+
+    @Test
+    public void readEmptyArrayCompletesWithoutValues() throws Exception {
+        TestSubscriber<List> testSubscriber = new TestSubscriber<>();
+
+        JsonChunkReader.read(createBody("[]"), TestRealmModel.class, 2, gson).subscribe(testSubscriber);
+
+        testSubscriber.assertNoValues();
+        testSubscriber.assertCompleted();
+    }
+
+    @Test
+    public void readFailsOnInvalidChunkSize() throws Exception {
+        TestSubscriber<List> testSubscriber = new TestSubscriber<>();
+
+        AtomicBoolean closed = new AtomicBoolean();
+        ResponseBody responseBody = ResponseBody.create(MediaType.parse(CloudDataStore.APPLICATION_JSON), -1,
+                Okio.buffer(new ForwardingSource(new Buffer().writeUtf8(JSON)) {
+                    @Override
+                    public void close() throws IOException {
+                        closed.set(true);
+                        super.close();
+                    }
+                }));
+
+        JsonChunkReader.read(responseBody, TestRealmModel.class, 0, gson).subscribe(testSubscriber);
+
+        assertEquals(IllegalArgumentException.class, testSubscriber.getOnErrorEvents().get(0).getClass());
+        assertTrue(closed.get());
+    }
+
+    private ResponseBody createBody(String json) {
+        return ResponseBody.create(MediaType.parse(CloudDataStore.APPLICATION_JSON), json);
+    }
+}
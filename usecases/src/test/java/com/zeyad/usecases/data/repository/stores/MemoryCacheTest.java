@@ -0,0 +1,147 @@
+package com.zeyad.usecases.data.repository.stores;
+
+import com.zeyad.usecases.Config;
+import com.zeyad.usecases.TestRealmModel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+@RunWith(JUnit4.class)
+public class MemoryCacheTest {
+
+    private MemoryCache mMemoryCache;
+
+    @Before
+    public void setUp() throws Exception {
+        Config.setCacheExpiry(1, TimeUnit.MINUTES);
+        // Room for three single digit models.
+        Config.setMemoryCacheSize(3 * MemoryCache.estimateSize(json(1).length()));
+        mMemoryCache = new MemoryCache();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Config.setMemoryCacheSize(Config.DEFAULT_MEMORY_CACHE_SIZE);
+    }
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        TestRealmModel testRealmModel = new TestRealmModel(1, "value");
+        String key = MemoryCache.createKey(TestRealmModel.class, 1);
+
+        mMemoryCache.put(key, testRealmModel, TestRealmModel.class);
+
+        assertEquals(testRealmModel, mMemoryCache.get(key, TestRealmModel.class));
+        assertNull(mMemoryCache.get(key, String.class));
+    }
+
+    @Test
+    public void testCallersGetTheirOwnCopy() throws Exception {
+        String key = MemoryCache.createKey(TestRealmModel.class, 1);
+        mMemoryCache.putJson(key, json(1), TestRealmModel.class);
+
+        TestRealmModel first = mMemoryCache.get(key, TestRealmModel.class);
+        first.setValue("changed");
+
+        TestRealmModel second = mMemoryCache.get(key, TestRealmModel.class);
+        assertNotSame(first, second);
+        assertEquals("1", second.getValue());
+    }
+
+    @Test
+    public void testLaterChangesToAPutValueAreNotCached() throws Exception {
+        TestRealmModel testRealmModel = new TestRealmModel(1, "1");
+        String key = MemoryCache.createKey(TestRealmModel.class, 1);
+        mMemoryCache.put(key, testRealmModel, TestRealmModel.class);
+
+        testRealmModel.setValue("changed");
+
+        assertEquals("1", mMemoryCache.get(key, TestRealmModel.class).getValue());
+    }
+
+    @Test
+    public void testValuesWithoutAGeneratedCopierAreNotCached() throws Exception {
+        String key = MemoryCache.createKey(String.class, 1);
+
+        mMemoryCache.put(key, "{\"id\":1}", String.class);
+
+        assertNull(mMemoryCache.get(key, String.class));
+        assertEquals(0, mMemoryCache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvictedFirst() throws Exception {
+        String first = MemoryCache.createKey(TestRealmModel.class, 1),
+                second = MemoryCache.createKey(TestRealmModel.class, 2),
+                third = MemoryCache.createKey(TestRealmModel.class, 3),
+                fourth = MemoryCache.createKey(TestRealmModel.class, 4);
+        mMemoryCache.putJson(first, json(1), TestRealmModel.class);
+        mMemoryCache.putJson(second, json(2), TestRealmModel.class);
+        mMemoryCache.putJson(third, json(3), TestRealmModel.class);
+        mMemoryCache.get(first, TestRealmModel.class);
+
+        mMemoryCache.putJson(fourth, json(4), TestRealmModel.class);
+
+        assertNotNull(mMemoryCache.get(first, TestRealmModel.class));
+        assertNull(mMemoryCache.get(second, TestRealmModel.class));
+        assertNotNull(mMemoryCache.get(fourth, TestRealmModel.class));
+    }
+
+    @Test
+    public void testExpiredEntriesAreDropped() throws Exception {
+        Config.setCacheExpiry(1, TimeUnit.NANOSECONDS);
+        String key = MemoryCache.createKey(TestRealmModel.class, 1);
+        mMemoryCache.putJson(key, json(1), TestRealmModel.class);
+
+        Thread.sleep(2);
+
+        assertNull(mMemoryCache.get(key, TestRealmModel.class));
+        assertEquals(0, mMemoryCache.size());
+    }
+
+    @Test
+    public void testRemoveAndEvictAll() throws Exception {
+        String first = MemoryCache.createKey(TestRealmModel.class, 1),
+                second = MemoryCache.createKey(TestRealmModel.class, 2);
+        mMemoryCache.putJson(first, json(1), TestRealmModel.class);
+        mMemoryCache.putJson(second, json(2), TestRealmModel.class);
+
+        mMemoryCache.remove(first);
+        assertNull(mMemoryCache.get(first, TestRealmModel.class));
+
+        mMemoryCache.evictAll(TestRealmModel.class);
+        assertNull(mMemoryCache.get(second, TestRealmModel.class));
+        assertEquals(0, mMemoryCache.size());
+    }
+
+    @Test
+    public void testRemoveAll() throws Exception {
+        String first = MemoryCache.createKey(TestRealmModel.class, 1),
+                second = MemoryCache.createKey(TestRealmModel.class, 2),
+                third = MemoryCache.createKey(TestRealmModel.class, 3);
+        mMemoryCache.putJson(first, json(1), TestRealmModel.class);
+        mMemoryCache.putJson(second, json(2), TestRealmModel.class);
+        mMemoryCache.putJson(third, json(3), TestRealmModel.class);
+
+        mMemoryCache.removeAll(Arrays.asList(first, third, MemoryCache.createKey(TestRealmModel.class, 4)));
+
+        assertNull(mMemoryCache.get(first, TestRealmModel.class));
+        assertNotNull(mMemoryCache.get(second, TestRealmModel.class));
+        assertNull(mMemoryCache.get(third, TestRealmModel.class));
+    }
+
+    private static String json(int id) {
+        return Config.getGson().toJson(new TestRealmModel(id, String.valueOf(id)));
+    }
+}
@@ -3,6 +3,8 @@ package com.zeyad.usecases.data.requests;
 import android.support.annotation.Nullable;
 
 import com.zeyad.usecases.TestRealmModel;
+import com.zeyad.usecases.data.network.FileUploader;
+import com.zeyad.usecases.domain.executors.PriorityScheduler;
 
 import org.junit.After;
 import org.junit.Before;
@@ -66,4 +68,18 @@ public class FileIORequestTest {
     public void testWhileChargingGetFile() throws Exception {
         assertThat(mFileIORequest.isWhileCharging(), is(equalTo(WHILE_CHARGING)));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetPartSize() throws Exception {
+        assertThat(mFileIORequest.getPartSize(), is(equalTo(0)));
+        assertThat(new FileIORequest.FileIORequestBuilder(URL, FILE).chunked().build().getPartSize(),
+                is(equalTo(FileUploader.DEFAULT_PART_SIZE)));
+    }
+
+    @Test
+    public void testGetPriority() throws Exception {
+        assertThat(mFileIORequest.getPriority(), is(equalTo(PriorityScheduler.PRIORITY_NORMAL)));
+        assertThat(new FileIORequest.FileIORequestBuilder(URL, FILE).priority(PriorityScheduler.PRIORITY_HIGH)
+                .build().getPriority(), is(equalTo(PriorityScheduler.PRIORITY_HIGH)));
+    }
+}
@@ -11,6 +11,7 @@ import org.junit.runners.JUnit4;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 
 @RunWith(JUnit4.class)
 public class GetRequestTest {
@@ -74,4 +75,36 @@ public class GetRequestTest {
     public void testGetItemId() throws Exception {
         assertThat(mGetRequest.getItemId(), is(equalTo(ID_COLUMN_ID)));
     }
+
+    @Test
+    public void testGetReadMode() throws Exception {
+        assertThat(mGetRequest.getReadMode(), is(equalTo(GetRequest.ReadMode.COPY)));
+        GetRequest windowed = new GetRequest.GetRequestBuilder(DATA_CLASS, TO_PERSIST).windowed(20).build();
+        assertThat(windowed.getReadMode(), is(equalTo(GetRequest.ReadMode.WINDOWED)));
+        assertThat(windowed.getWindowSize(), is(equalTo(20)));
+        assertThat(new GetRequest.GetRequestBuilder(DATA_CLASS, TO_PERSIST).live().build().getReadMode(),
+                is(equalTo(GetRequest.ReadMode.LIVE)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWindowedRejectsEmptyWindows() throws Exception {
+        new GetRequest.GetRequestBuilder(DATA_CLASS, TO_PERSIST).windowed(0);
+    }
+
+    @Test
+    public void testGetGroup() throws Exception {
+        assertThat(mGetRequest.getGroup(), is(nullValue()));
+        assertThat(new GetRequest.GetRequestBuilder(DATA_CLASS, TO_PERSIST).group("detail").build().getGroup(),
+                is(equalTo("detail")));
+    }
+
+    @Test
+    public void testDeltaSync() throws Exception {
+        assertThat(mGetRequest.isDeltaSync(), is(false));
+        GetRequest getRequest = new GetRequest.GetRequestBuilder(DATA_CLASS, TO_PERSIST).deltaSync().build();
+        assertThat(getRequest.isDeltaSync(), is(true));
+        assertThat(getRequest.getSyncTokenParameter(), is(equalTo(GetRequest.DEFAULT_SYNC_TOKEN_PARAMETER)));
+        assertThat(new GetRequest.GetRequestBuilder(DATA_CLASS, TO_PERSIST).deltaSync("cursor").build()
+                .getSyncTokenParameter(), is(equalTo("cursor")));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.zeyad.usecases.data.requests;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class PageConfigTest {
+
+    private PageConfig mPageConfig;
+
+    @Before
+    public void setUp() throws Exception {
+        mPageConfig = new PageConfig.PageConfigBuilder((page, currentCursor) -> null).build();
+    }
+
+    @Test
+    public void cursorIsSetAsAQueryParameter() throws Exception {
+        assertEquals("http://www.google.com/items?sort=name&cursor=abc",
+                mPageConfig.getPageUrl("http://www.google.com/items?sort=name", "abc"));
+    }
+
+    @Test
+    public void percentEncodedUrlsAreKept() throws Exception {
+        assertEquals("http://www.google.com/items?q=100%25%20off&cursor=a/b%25",
+                mPageConfig.getPageUrl("http://www.google.com/items?q=100%25%20off", "a/b%"));
+    }
+
+    @Test
+    public void previousCursorIsReplaced() throws Exception {
+        assertEquals("http://www.google.com/items?cursor=2",
+                mPageConfig.getPageUrl("http://www.google.com/items?cursor=1", "2"));
+        assertEquals("http://www.google.com/items",
+                mPageConfig.getPageUrl("http://www.google.com/items?cursor=1", ""));
+    }
+
+    @Test
+    public void cursorParameterCanBeRenamed() throws Exception {
+        PageConfig pageConfig = new PageConfig.PageConfigBuilder((page, currentCursor) -> null)
+                .cursorParameter("after")
+                .build();
+
+        assertEquals("http://www.google.com/items?after=abc",
+                pageConfig.getPageUrl("http://www.google.com/items", "abc"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidUrlIsRejected() throws Exception {
+        mPageConfig.getPageUrl("items", "abc");
+    }
+}
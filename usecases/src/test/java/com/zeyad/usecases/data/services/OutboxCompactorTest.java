@@ -0,0 +1,99 @@
+package com.zeyad.usecases.data.services;
+
+import com.zeyad.usecases.BuildConfig;
+import com.zeyad.usecases.TestRealmModel;
+import com.zeyad.usecases.data.requests.PostRequest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class OutboxCompactorTest {
+
+    private static final String URL = "http://www.google.com/";
+    private List<Outbox.Entry> entries;
+
+    @Before
+    public void setUp() throws Exception {
+        entries = new ArrayList<>();
+    }
+
+    @Test
+    public void consecutivePatchesMergeIntoTheLastOne() throws Exception {
+        add(PostRequest.PATCH, new JSONObject().put("id", 1).put("value", "a").put("other", "b"));
+        add(PostRequest.PATCH, new JSONObject().put("id", 1).put("value", "c"));
+
+        List<Outbox.Entry> compacted = OutboxCompactor.compact(entries);
+
+        assertEquals(1, compacted.size());
+        assertEquals(1, compacted.get(0).getId());
+        assertEquals(PostRequest.PATCH, compacted.get(0).getPostRequest().getMethod());
+        JSONObject payLoad = compacted.get(0).getPostRequest().getObjectBundle();
+        assertEquals("c", payLoad.getString("value"));
+        assertEquals("b", payLoad.getString("other"));
+    }
+
+    @Test
+    public void putSupersedesEarlierPatches() throws Exception {
+        add(PostRequest.PATCH, new JSONObject().put("id", 1).put("value", "a"));
+        add(PostRequest.PATCH, new JSONObject().put("id", 2).put("value", "b"));
+        add(PostRequest.PUT, new JSONObject().put("id", 1).put("value", "c"));
+
+        List<Outbox.Entry> compacted = OutboxCompactor.compact(entries);
+
+        assertEquals(2, compacted.size());
+        assertEquals(1, compacted.get(0).getId());
+        assertEquals(2, compacted.get(1).getId());
+        assertEquals(PostRequest.PUT, compacted.get(1).getPostRequest().getMethod());
+    }
+
+    @Test
+    public void deleteCancelsPendingCreateAndUpdates() throws Exception {
+        add(PostRequest.POST, new JSONObject().put("id", 1).put("value", "a"));
+        add(PostRequest.PATCH, new JSONObject().put("id", 1).put("value", "b"));
+        add(PostRequest.PATCH, new JSONObject().put("id", 2).put("value", "c"));
+        add(PostRequest.DELETE, new JSONArray().put(1).put(2));
+
+        List<Outbox.Entry> compacted = OutboxCompactor.compact(entries);
+
+        assertEquals(1, compacted.size());
+        assertEquals(PostRequest.DELETE, compacted.get(0).getPostRequest().getMethod());
+        assertEquals(1, compacted.get(0).getPostRequest().getArrayBundle().length());
+        assertEquals(2, compacted.get(0).getPostRequest().getArrayBundle().getInt(0));
+    }
+
+    @Test
+    public void listMutationsStopFolding() throws Exception {
+        add(PostRequest.PATCH, new JSONObject().put("id", 1).put("value", "a"));
+        add(PostRequest.POST, new JSONArray().put(new JSONObject().put("id", 2)));
+        add(PostRequest.PATCH, new JSONObject().put("id", 1).put("value", "b"));
+
+        assertEquals(3, OutboxCompactor.compact(entries).size());
+    }
+
+    private void add(String method, JSONObject payLoad) {
+        entries.add(new Outbox.Entry(entries.size(), 0, builder(method).payLoad(payLoad).build()));
+    }
+
+    private void add(String method, JSONArray payLoad) {
+        entries.add(new Outbox.Entry(entries.size(), 0, builder(method).payLoad(payLoad).build()));
+    }
+
+    private PostRequest.PostRequestBuilder builder(String method) {
+        return new PostRequest.PostRequestBuilder(TestRealmModel.class, true)
+                .fullUrl(URL)
+                .idColumnName("id")
+                .method(method);
+    }
+}
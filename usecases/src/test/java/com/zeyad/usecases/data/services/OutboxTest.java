@@ -0,0 +1,127 @@
+package com.zeyad.usecases.data.services;
+
+import com.zeyad.usecases.BuildConfig;
+import com.zeyad.usecases.TestRealmModel;
+import com.zeyad.usecases.data.requests.PostRequest;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class OutboxTest {
+
+    private static final String URL = "http://www.google.com/";
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = new File(temporaryFolder.getRoot(), Outbox.FILE_NAME);
+    }
+
+    @Test
+    public void pendingEntriesSurviveReload() throws Exception {
+        Outbox outbox = new Outbox(file);
+        Outbox.Entry first = outbox.add(createPostRequest(PostRequest.POST, 1));
+        outbox.add(createPostRequest(PostRequest.PATCH, 2));
+        outbox.incrementAttempts(first.getId());
+
+        List<Outbox.Entry> pending = new Outbox(file).getPending();
+
+        assertEquals(2, pending.size());
+        assertEquals(1, pending.get(0).getAttempts());
+        assertEquals(PostRequest.POST, pending.get(0).getPostRequest().getMethod());
+        assertEquals(PostRequest.PATCH, pending.get(1).getPostRequest().getMethod());
+        assertEquals(URL, pending.get(1).getPostRequest().getUrl());
+        assertEquals(TestRealmModel.class, pending.get(1).getPostRequest().getDataClass());
+        assertEquals(2, pending.get(1).getPostRequest().getObjectBundle().getInt("id"));
+    }
+
+    @Test
+    public void removedEntriesAreNotReloaded() throws Exception {
+        Outbox outbox = new Outbox(file);
+        Outbox.Entry first = outbox.add(createPostRequest(PostRequest.POST, 1));
+        Outbox.Entry second = outbox.add(createPostRequest(PostRequest.POST, 2));
+        outbox.remove(first.getId());
+
+        Outbox reloaded = new Outbox(file);
+
+        assertEquals(1, reloaded.size());
+        assertEquals(second.getId(), reloaded.getPending().get(0).getId());
+        assertTrue(reloaded.add(createPostRequest(PostRequest.POST, 3)).getId() > second.getId());
+    }
+
+    @Test
+    public void logIsCompactedOnceMostEntriesAreRemoved() throws Exception {
+        Outbox outbox = new Outbox(file);
+        for (int i = 1; i <= 100; i++)
+            outbox.remove(outbox.add(createPostRequest(PostRequest.POST, i)).getId());
+        outbox.add(createPostRequest(PostRequest.PUT, 101));
+
+        assertTrue(file.length() < 100 * 64);
+        assertEquals(1, new Outbox(file).size());
+    }
+
+    @Test
+    public void compactionSurvivesReload() throws Exception {
+        Outbox outbox = new Outbox(file);
+        outbox.add(createPostRequest(PostRequest.PATCH, 1));
+        Outbox.Entry last = outbox.add(createPostRequest(PostRequest.PUT, 1));
+
+        assertEquals(1, outbox.compact());
+
+        List<Outbox.Entry> pending = new Outbox(file).getPending();
+        assertEquals(1, pending.size());
+        assertEquals(last.getId(), pending.get(0).getId());
+        assertEquals(PostRequest.PUT, pending.get(0).getPostRequest().getMethod());
+    }
+
+    @Test
+    public void corruptedLastRecordIsSkipped() throws Exception {
+        new Outbox(file).add(createPostRequest(PostRequest.POST, 1));
+        FileOutputStream outputStream = new FileOutputStream(file, true);
+        outputStream.write("{\"op\":\"add\",\"id\":1,\"requ".getBytes("UTF-8"));
+        outputStream.close();
+
+        assertEquals(1, new Outbox(file).size());
+    }
+
+    @Test
+    public void recordAddedAfterCorruptedRecordSurvivesReload() throws Exception {
+        new Outbox(file).add(createPostRequest(PostRequest.POST, 1));
+        FileOutputStream outputStream = new FileOutputStream(file, true);
+        outputStream.write("{\"op\":\"add\",\"id\":1,\"requ".getBytes("UTF-8"));
+        outputStream.close();
+
+        new Outbox(file).add(createPostRequest(PostRequest.PATCH, 2));
+        List<Outbox.Entry> pending = new Outbox(file).getPending();
+
+        assertEquals(2, pending.size());
+        assertEquals(PostRequest.PATCH, pending.get(1).getPostRequest().getMethod());
+        assertEquals(2, pending.get(1).getPostRequest().getObjectBundle().getInt("id"));
+    }
+
+    private PostRequest createPostRequest(String method, int id) throws Exception {
+        return new PostRequest.PostRequestBuilder(TestRealmModel.class, true)
+                .fullUrl(URL)
+                .idColumnName("id")
+                .payLoad(new JSONObject().put("id", id).put("value", "value"))
+                .method(method)
+                .build();
+    }
+}
@@ -0,0 +1,155 @@
+package com.zeyad.usecases.data.services;
+
+import com.zeyad.usecases.BuildConfig;
+import com.zeyad.usecases.TestRealmModel;
+import com.zeyad.usecases.data.requests.FileIORequest;
+import com.zeyad.usecases.domain.executors.PriorityScheduler;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class TransferQueueTest {
+
+    private static final String URL = "http://www.google.com/files";
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = new File(temporaryFolder.getRoot(), TransferQueue.FILE_NAME);
+    }
+
+    @Test
+    public void pendingEntriesSurviveReload() throws Exception {
+        HashMap<String, Object> parameters = new HashMap<>();
+        parameters.put("album", "holidays");
+        parameters.put("count", 2);
+        TransferQueue transferQueue = new TransferQueue(file);
+        TransferQueue.Entry upload = transferQueue.add(new FileIORequest.FileIORequestBuilder(URL, new File("a.jpg"))
+                .key("photo")
+                .payLoad(parameters)
+                .onWifi(true)
+                .dataClass(TestRealmModel.class)
+                .chunked(1024)
+                .build(), false);
+        transferQueue.add(createRequest("b.jpg", PriorityScheduler.PRIORITY_NORMAL), true);
+        transferQueue.setPaused(upload.getId(), true);
+        transferQueue.incrementAttempts(upload.getId());
+
+        List<TransferQueue.Entry> pending = new TransferQueue(file).getPending();
+
+        assertEquals(2, pending.size());
+        TransferQueue.Entry reloaded = pending.get(0);
+        assertFalse(reloaded.isDownload());
+        assertTrue(reloaded.isPaused());
+        assertEquals(1, reloaded.getAttempts());
+        assertEquals(URL, reloaded.getFileIORequest().getUrl());
+        assertEquals("a.jpg", reloaded.getFileIORequest().getFile().getName());
+        assertEquals("photo", reloaded.getFileIORequest().getKey());
+        assertEquals(parameters, reloaded.getFileIORequest().getParameters());
+        assertTrue(reloaded.getFileIORequest().onWifi());
+        assertEquals(1024, reloaded.getFileIORequest().getPartSize());
+        assertEquals(TestRealmModel.class, reloaded.getFileIORequest().getDataClass());
+        assertTrue(pending.get(1).isDownload());
+        assertFalse(pending.get(1).isPaused());
+    }
+
+    @Test
+    public void pendingEntriesAreOrderedByPriorityThenAddition() throws Exception {
+        TransferQueue transferQueue = new TransferQueue(file);
+        transferQueue.add(createRequest("low", PriorityScheduler.PRIORITY_LOW), true);
+        transferQueue.add(createRequest("first", PriorityScheduler.PRIORITY_NORMAL), true);
+        transferQueue.add(createRequest("high", PriorityScheduler.PRIORITY_HIGH), true);
+        transferQueue.add(createRequest("second", PriorityScheduler.PRIORITY_NORMAL), true);
+
+        List<TransferQueue.Entry> pending = new TransferQueue(file).getPending();
+
+        assertEquals("high", pending.get(0).getFileIORequest().getFile().getName());
+        assertEquals("first", pending.get(1).getFileIORequest().getFile().getName());
+        assertEquals("second", pending.get(2).getFileIORequest().getFile().getName());
+        assertEquals("low", pending.get(3).getFileIORequest().getFile().getName());
+    }
+
+    @Test
+    public void resumedAndRemovedEntriesAreReloaded() throws Exception {
+        TransferQueue transferQueue = new TransferQueue(file);
+        TransferQueue.Entry first = transferQueue.add(createRequest("a", PriorityScheduler.PRIORITY_NORMAL), true);
+        TransferQueue.Entry second = transferQueue.add(createRequest("b", PriorityScheduler.PRIORITY_NORMAL), true);
+        assertTrue(transferQueue.setPaused(second.getId(), true));
+        assertTrue(transferQueue.setPaused(second.getId(), false));
+        assertFalse(transferQueue.setPaused(second.getId(), false));
+        assertTrue(transferQueue.remove(first.getId()));
+        assertFalse(transferQueue.remove(first.getId()));
+
+        TransferQueue reloaded = new TransferQueue(file);
+
+        assertEquals(1, reloaded.size());
+        assertFalse(reloaded.getPending().get(0).isPaused());
+        assertTrue(reloaded.add(createRequest("c", PriorityScheduler.PRIORITY_NORMAL), true).getId() > second.getId());
+    }
+
+    @Test
+    public void logIsCompactedOnceMostEntriesAreRemoved() throws Exception {
+        TransferQueue transferQueue = new TransferQueue(file);
+        for (int i = 0; i < 100; i++)
+            transferQueue.remove(transferQueue.add(createRequest(String.valueOf(i), PriorityScheduler.PRIORITY_NORMAL),
+                    true).getId());
+        TransferQueue.Entry paused = transferQueue.add(createRequest("last", PriorityScheduler.PRIORITY_NORMAL), true);
+        transferQueue.setPaused(paused.getId(), true);
+        transferQueue.remove(transferQueue.add(createRequest("removed", PriorityScheduler.PRIORITY_NORMAL), true)
+                .getId());
+
+        assertTrue(file.length() < 100 * 128);
+        List<TransferQueue.Entry> pending = new TransferQueue(file).getPending();
+        assertEquals(1, pending.size());
+        assertTrue(pending.get(0).isPaused());
+    }
+
+    @Test
+    public void corruptedLastRecordIsSkipped() throws Exception {
+        new TransferQueue(file).add(createRequest("a", PriorityScheduler.PRIORITY_NORMAL), true);
+        FileOutputStream outputStream = new FileOutputStream(file, true);
+        outputStream.write("{\"op\":\"add\",\"id\":1,\"requ".getBytes("UTF-8"));
+        outputStream.close();
+
+        assertEquals(1, new TransferQueue(file).size());
+    }
+
+    @Test
+    public void recordAddedAfterCorruptedRecordSurvivesReload() throws Exception {
+        new TransferQueue(file).add(createRequest("a", PriorityScheduler.PRIORITY_NORMAL), true);
+        FileOutputStream outputStream = new FileOutputStream(file, true);
+        outputStream.write("{\"op\":\"add\",\"id\":1,\"requ".getBytes("UTF-8"));
+        outputStream.close();
+
+        new TransferQueue(file).add(createRequest("b", PriorityScheduler.PRIORITY_NORMAL), false);
+        List<TransferQueue.Entry> pending = new TransferQueue(file).getPending();
+
+        assertEquals(2, pending.size());
+        assertEquals("b", pending.get(1).getFileIORequest().getFile().getName());
+        assertFalse(pending.get(1).isDownload());
+    }
+
+    private FileIORequest createRequest(String fileName, int priority) {
+        return new FileIORequest.FileIORequestBuilder(URL, new File(fileName))
+                .priority(priority)
+                .build();
+    }
+}
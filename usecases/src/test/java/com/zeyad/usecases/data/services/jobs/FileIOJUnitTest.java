@@ -82,7 +82,7 @@ public class FileIOJUnitTest {
                 , fileIOReq
                 , true);
         fileIO.execute();
-        verify(restApi).dynamicDownload(eq(getValidUrl()));
+        verify(restApi).dynamicHead(eq(getValidUrl()));
     }
 
     @Test
@@ -200,7 +200,7 @@ public class FileIOJUnitTest {
                 , fileIOReq
                 , true);
         fileIO.execute();
-        verify(restApi, times(0)).dynamicDownload(anyString());
+        verify(restApi, times(0)).dynamicHead(anyString());
     }
 
     String getValidUrl() {
@@ -267,6 +267,7 @@ public class FileIOJUnitTest {
     RestApiImpl createRestApi() {
         final RestApiImpl restApi = mock(RestApiImpl.class);
         Mockito.when(restApi.dynamicDownload(Mockito.anyString())).thenReturn(getResponseBodyObservable());
+        Mockito.when(restApi.dynamicHead(Mockito.anyString())).thenReturn(Observable.empty());
         return restApi;
     }
 
@@ -0,0 +1,265 @@
+package com.zeyad.usecases.data.services.jobs;
+
+import com.zeyad.usecases.BuildConfig;
+import com.zeyad.usecases.TestRealmModel;
+import com.zeyad.usecases.data.db.DataBaseManager;
+import com.zeyad.usecases.data.network.BatchEnvelope;
+import com.zeyad.usecases.data.network.RestApi;
+import com.zeyad.usecases.data.requests.PostRequest;
+import com.zeyad.usecases.data.services.Outbox;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+import retrofit2.adapter.rxjava.HttpException;
+import rx.Observable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class OutboxDrainerTest {
+
+    private static final String URL = "http://www.google.com/", OTHER_URL = "http://www.example.com/";
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private final List<Boolean> finished = new ArrayList<>();
+    private Outbox outbox;
+    private RestApi restApi;
+    private BatchEnvelope batchEnvelope;
+    private DataBaseManager dataBaseManager;
+    private OutboxDrainer outboxDrainer;
+
+    @Before
+    public void setUp() throws Exception {
+        outbox = new Outbox(new File(temporaryFolder.getRoot(), "outbox.log"));
+        restApi = mock(RestApi.class);
+        when(restApi.dynamicPost(any(), any())).thenReturn(Observable.just(new Object()));
+        outboxDrainer = new OutboxDrainer(RuntimeEnvironment.application, outbox, restApi);
+        batchEnvelope = mock(BatchEnvelope.class);
+        when(batchEnvelope.getBatchUrl(anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + "batch");
+        when(batchEnvelope.getMaxBatchSize()).thenReturn(2);
+        when(batchEnvelope.wrap(anyString(), anyListOf(PostRequest.class))).thenReturn(RequestBody.create(null, ""));
+        when(restApi.dynamicBatch(any(), any())).thenReturn(Observable.just(ResponseBody.create(null, "")));
+        dataBaseManager = mock(DataBaseManager.class);
+        doReturn(Observable.just(true)).when(dataBaseManager).put(any(JSONObject.class), anyString(), any(Class.class));
+    }
+
+    @Test
+    public void sendsTheMutationsInOrderAndRemovesThem() throws Exception {
+        outbox.add(createPostRequest(1));
+        outbox.add(createPostRequest(2));
+
+        outboxDrainer.drain(finished::add);
+
+        InOrder inOrder = inOrder(restApi);
+        inOrder.verify(restApi).dynamicPost(eq(URL + 1), any(RequestBody.class));
+        inOrder.verify(restApi).dynamicPost(eq(URL + 2), any(RequestBody.class));
+        assertTrue(outbox.isEmpty());
+        assertEquals(Arrays.asList(false), finished);
+    }
+
+    @Test
+    public void networkFailureStopsTheDrainAndKeepsTheMutations() throws Exception {
+        outbox.add(createPostRequest(1));
+        outbox.add(createPostRequest(2));
+        when(restApi.dynamicPost(eq(URL + 1), any())).thenReturn(Observable.error(new IOException("Timeout")));
+
+        outboxDrainer.drain(finished::add);
+
+        verify(restApi, never()).dynamicPost(eq(URL + 2), any());
+        assertEquals(2, outbox.size());
+        assertEquals(0, outbox.getPending().get(0).getAttempts());
+        assertEquals(Arrays.asList(true), finished);
+    }
+
+    @Test
+    public void rejectedMutationIsDroppedAfterMaxAttempts() throws Exception {
+        outbox.add(createPostRequest(1));
+        outbox.add(createPostRequest(2));
+        when(restApi.dynamicPost(eq(URL + 1), any()))
+                .thenReturn(Observable.error(new IllegalStateException("Rejected")));
+
+        for (int i = 0; i < OutboxDrainer.MAX_ATTEMPTS; i++)
+            outboxDrainer.drain(finished::add);
+
+        verify(restApi).dynamicPost(eq(URL + 2), any());
+        assertTrue(outbox.isEmpty());
+        assertEquals(Arrays.asList(true, true, false), finished);
+    }
+
+    @Test
+    public void mutationsAddedWhileDrainingAreSent() throws Exception {
+        outbox.add(createPostRequest(1));
+        when(restApi.dynamicPost(eq(URL + 1), any())).thenReturn(Observable.defer(() -> {
+            try {
+                outbox.add(createPostRequest(2));
+            } catch (Exception e) {
+                return Observable.error(e);
+            }
+            return Observable.just(new Object());
+        }));
+
+        outboxDrainer.drain(finished::add);
+
+        verify(restApi).dynamicPost(eq(URL + 2), any());
+        assertTrue(outbox.isEmpty());
+        assertEquals(Arrays.asList(false), finished);
+    }
+
+    @Test
+    public void batchesMutationsByBaseUrlKeepingTheirOrder() throws Exception {
+        PostRequest first = createPostRequest(1), second = createPostRequest(2), third = createPostRequest(3);
+        outbox.add(first);
+        outbox.add(createPostRequest(OTHER_URL, 4, false));
+        outbox.add(second);
+        outbox.add(third);
+        when(batchEnvelope.unwrap(any())).thenReturn(Arrays.asList(new BatchEnvelope.Result(200, null),
+                new BatchEnvelope.Result(201, null)));
+
+        createBatchingDrainer().drain(finished::add);
+
+        InOrder inOrder = inOrder(batchEnvelope, restApi);
+        inOrder.verify(batchEnvelope).wrap(URL, Arrays.asList(first, second));
+        inOrder.verify(restApi).dynamicBatch(eq(URL + "batch"), any());
+        inOrder.verify(restApi).dynamicPost(eq(URL + 3), any());
+        inOrder.verify(restApi).dynamicPost(eq(OTHER_URL + 4), any());
+        verify(restApi, never()).dynamicPost(eq(URL + 1), any());
+        assertTrue(outbox.isEmpty());
+        assertEquals(Arrays.asList(false), finished);
+    }
+
+    @Test
+    public void failedBatchResultIsCountedAsARejection() throws Exception {
+        outbox.add(createPostRequest(1));
+        outbox.add(createPostRequest(2));
+        when(batchEnvelope.unwrap(any())).thenReturn(Arrays.asList(new BatchEnvelope.Result(200, null),
+                new BatchEnvelope.Result(422, null)));
+
+        createBatchingDrainer().drain(finished::add);
+
+        List<Outbox.Entry> pending = outbox.getPending();
+        assertEquals(1, pending.size());
+        assertEquals(URL + 2, pending.get(0).getPostRequest().getUrl());
+        assertEquals(1, pending.get(0).getAttempts());
+        assertEquals(Arrays.asList(true), finished);
+    }
+
+    @Test
+    public void batchResultsArePersisted() throws Exception {
+        outbox.add(createPostRequest(URL, 1, true));
+        outbox.add(createPostRequest(URL, 2, true));
+        JSONObject firstBody = new JSONObject().put("id", 1), secondBody = new JSONObject().put("id", 2);
+        when(batchEnvelope.unwrap(any())).thenReturn(Arrays.asList(new BatchEnvelope.Result(200, firstBody),
+                new BatchEnvelope.Result(200, secondBody)));
+
+        createBatchingDrainer().drain(finished::add);
+
+        verify(dataBaseManager).put(firstBody, "id", TestRealmModel.class);
+        verify(dataBaseManager).put(secondBody, "id", TestRealmModel.class);
+        assertTrue(outbox.isEmpty());
+    }
+
+    @Test
+    public void rejectedBatchFallsBackToSendingEachMutation() throws Exception {
+        outbox.add(createPostRequest(1));
+        outbox.add(createPostRequest(2));
+        when(restApi.dynamicBatch(any(), any())).thenReturn(Observable.error(new HttpException(Response.error(404,
+                ResponseBody.create(null, "")))));
+
+        createBatchingDrainer().drain(finished::add);
+
+        InOrder inOrder = inOrder(restApi);
+        inOrder.verify(restApi).dynamicPost(eq(URL + 1), any());
+        inOrder.verify(restApi).dynamicPost(eq(URL + 2), any());
+        assertTrue(outbox.isEmpty());
+        assertEquals(Arrays.asList(false), finished);
+    }
+
+    @Test
+    public void networkFailureOfABatchKeepsItsMutations() throws Exception {
+        outbox.add(createPostRequest(1));
+        outbox.add(createPostRequest(2));
+        when(restApi.dynamicBatch(any(), any())).thenReturn(Observable.error(new IOException("Timeout")));
+
+        createBatchingDrainer().drain(finished::add);
+
+        verify(restApi, never()).dynamicPost(any(), any());
+        assertEquals(2, outbox.size());
+        assertEquals(Arrays.asList(true), finished);
+    }
+
+    @Test
+    public void unexpectedNumberOfBatchResultsDropsTheBatch() throws Exception {
+        outbox.add(createPostRequest(1));
+        outbox.add(createPostRequest(2));
+        when(batchEnvelope.unwrap(any())).thenReturn(Collections.singletonList(new BatchEnvelope.Result(200, null)));
+
+        createBatchingDrainer().drain(finished::add);
+
+        verify(restApi, times(1)).dynamicBatch(any(), any());
+        verify(restApi, never()).dynamicPost(any(), any());
+        assertTrue(outbox.isEmpty());
+        assertEquals(Arrays.asList(false), finished);
+    }
+
+    @Test
+    public void malformedBatchResponseDropsTheBatch() throws Exception {
+        outbox.add(createPostRequest(1));
+        outbox.add(createPostRequest(2));
+        when(batchEnvelope.unwrap(any())).thenThrow(new IllegalStateException("Malformed batch response"));
+
+        createBatchingDrainer().drain(finished::add);
+
+        verify(restApi, times(1)).dynamicBatch(any(), any());
+        assertTrue(outbox.isEmpty());
+        assertEquals(Arrays.asList(false), finished);
+    }
+
+    private OutboxDrainer createBatchingDrainer() {
+        return new OutboxDrainer(RuntimeEnvironment.application, outbox, restApi, batchEnvelope, dataBaseManager);
+    }
+
+    private static PostRequest createPostRequest(int id) throws Exception {
+        return createPostRequest(URL, id, false);
+    }
+
+    private static PostRequest createPostRequest(String url, int id, boolean persist) throws Exception {
+        return new PostRequest.PostRequestBuilder(TestRealmModel.class, persist)
+                .fullUrl(url + id)
+                .idColumnName("id")
+                .payLoad(new JSONObject().put("id", id))
+                .method(PostRequest.POST)
+                .build();
+    }
+}
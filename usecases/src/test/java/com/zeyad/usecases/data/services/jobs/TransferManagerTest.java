@@ -0,0 +1,261 @@
+package com.zeyad.usecases.data.services.jobs;
+
+import com.facebook.network.connectionclass.ConnectionQuality;
+import com.zeyad.usecases.BuildConfig;
+import com.zeyad.usecases.data.requests.FileIORequest;
+import com.zeyad.usecases.data.services.TransferQueue;
+import com.zeyad.usecases.domain.executors.PriorityScheduler;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+import rx.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class TransferManagerTest {
+
+    private static final String HOST = "http://www.google.com/", OTHER_HOST = "http://www.example.com/";
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private final AtomicReference<ConnectionQuality> quality = new AtomicReference<>(ConnectionQuality.GOOD);
+    private final Map<String, PublishSubject<Object>> transfers = new HashMap<>();
+    private final List<String> started = new ArrayList<>();
+    private final List<Boolean> finished = new ArrayList<>();
+    private final List<String> discarded = new ArrayList<>();
+    private TransferQueue transferQueue;
+    private TransferManager transferManager;
+
+    @Before
+    public void setUp() throws Exception {
+        transferQueue = new TransferQueue(new File(temporaryFolder.getRoot(), "transfers.log"));
+        transferManager = new TransferManager(transferQueue, entry -> {
+            PublishSubject<Object> transfer = PublishSubject.create();
+            transfers.put(entry.getFileIORequest().getUrl(), transfer);
+            started.add(entry.getFileIORequest().getUrl());
+            return transfer;
+        }, entry -> discarded.add(entry.getFileIORequest().getUrl()), quality::get, Schedulers.immediate(), null, false, 4, 2);
+    }
+
+    @Test
+    public void limitsTheTransfersPerHost() throws Exception {
+        enqueue(HOST + 1, PriorityScheduler.PRIORITY_NORMAL);
+        enqueue(HOST + 2, PriorityScheduler.PRIORITY_NORMAL);
+        enqueue(HOST + 3, PriorityScheduler.PRIORITY_NORMAL);
+        enqueue(OTHER_HOST + 1, PriorityScheduler.PRIORITY_NORMAL);
+
+        run();
+
+        assertEquals(Arrays.asList(HOST + 1, HOST + 2, OTHER_HOST + 1), started);
+        transfers.get(HOST + 1).onCompleted();
+        assertEquals(HOST + 3, started.get(3));
+        assertEquals(3, transferManager.getRunningCount());
+        assertEquals(3, transferQueue.size());
+    }
+
+    @Test
+    public void startsHigherPrioritiesFirst() throws Exception {
+        quality.set(ConnectionQuality.POOR);
+        enqueue(HOST + "low", PriorityScheduler.PRIORITY_LOW);
+        enqueue(HOST + "normal", PriorityScheduler.PRIORITY_NORMAL);
+        enqueue(OTHER_HOST + "high", PriorityScheduler.PRIORITY_HIGH);
+
+        run();
+        transfers.get(OTHER_HOST + "high").onCompleted();
+        transfers.get(HOST + "normal").onCompleted();
+
+        assertEquals(Arrays.asList(OTHER_HOST + "high", HOST + "normal", HOST + "low"), started);
+    }
+
+    @Test
+    public void runsMoreTransfersAsBandwidthImproves() throws Exception {
+        quality.set(ConnectionQuality.POOR);
+        for (int i = 0; i < 6; i++)
+            enqueue((i % 2 == 0 ? HOST : OTHER_HOST) + i, PriorityScheduler.PRIORITY_NORMAL);
+
+        run();
+        assertEquals(1, transferManager.getRunningCount());
+
+        quality.set(ConnectionQuality.MODERATE);
+        transfers.get(HOST + 0).onCompleted();
+        assertEquals(2, transferManager.getRunningCount());
+
+        quality.set(ConnectionQuality.EXCELLENT);
+        transfers.get(OTHER_HOST + 1).onCompleted();
+        assertEquals(4, transferManager.getRunningCount());
+    }
+
+    @Test
+    public void finishesOnceTheQueueIsDone() throws Exception {
+        enqueue(HOST + 1, PriorityScheduler.PRIORITY_NORMAL);
+
+        run();
+        transfers.get(HOST + 1).onCompleted();
+
+        assertEquals(Arrays.asList(false), finished);
+        assertTrue(transferQueue.isEmpty());
+        assertFalse(transferManager.isRunning());
+    }
+
+    @Test
+    public void keepsTransfersFailingOnTheNetworkForTheNextRun() throws Exception {
+        enqueue(HOST + 1, PriorityScheduler.PRIORITY_NORMAL);
+
+        run();
+        transfers.get(HOST + 1).onError(new IOException("Connection reset"));
+
+        assertEquals(Arrays.asList(true), finished);
+        assertEquals(1, transferQueue.size());
+        assertEquals(0, transferQueue.getPending().get(0).getAttempts());
+    }
+
+    @Test
+    public void dropsTransfersFailingTooOften() throws Exception {
+        enqueue(HOST + 1, PriorityScheduler.PRIORITY_NORMAL);
+
+        for (int i = 0; i < TransferManager.MAX_ATTEMPTS; i++) {
+            run();
+            transfers.get(HOST + 1).onError(new IllegalStateException("Rejected"));
+        }
+
+        assertTrue(transferQueue.isEmpty());
+        assertEquals(Arrays.asList(true, true, false), finished);
+        assertEquals(Arrays.asList(HOST + 1), discarded);
+    }
+
+    @Test
+    public void pausedTransferStopsUntilResumed() throws Exception {
+        long id = enqueue(HOST + 1, PriorityScheduler.PRIORITY_NORMAL);
+        enqueue(HOST + 2, PriorityScheduler.PRIORITY_LOW);
+        run();
+        PublishSubject<Object> paused = transfers.get(HOST + 1);
+
+        assertTrue(transferManager.pause(id));
+
+        assertFalse(paused.hasObservers());
+        assertTrue(transferQueue.get(id).isPaused());
+        transfers.get(HOST + 2).onCompleted();
+        assertEquals(Arrays.asList(false), finished);
+
+        assertTrue(transferManager.resume(id));
+        run();
+
+        assertEquals(Arrays.asList(HOST + 1, HOST + 2, HOST + 1), started);
+        transfers.get(HOST + 1).onCompleted();
+        assertTrue(transferQueue.isEmpty());
+    }
+
+    @Test
+    public void waitsForTheConstraintsOfTheTransfer() throws Exception {
+        transferManager.enqueue(new FileIORequest.FileIORequestBuilder(HOST + 1, new File("1"))
+                .onWifi(true)
+                .build(), true);
+
+        run();
+        assertTrue(started.isEmpty());
+        assertEquals(Arrays.asList(false), finished);
+
+        transferManager.run(true, false, finished::add);
+        assertEquals(Arrays.asList(HOST + 1), started);
+    }
+
+    @Test
+    public void joiningJobFinishesOnceItsOwnTransfersAreDone() throws Exception {
+        enqueue(HOST + 1, PriorityScheduler.PRIORITY_NORMAL);
+        run();
+        enqueueOnWifi(OTHER_HOST + 1);
+        List<Boolean> finishedOnWifi = new ArrayList<>();
+
+        transferManager.run(true, false, finishedOnWifi::add);
+        assertEquals(Arrays.asList(HOST + 1, OTHER_HOST + 1), started);
+        assertTrue(finishedOnWifi.isEmpty());
+
+        transfers.get(HOST + 1).onCompleted();
+        assertEquals(Arrays.asList(false), finished);
+        assertTrue(finishedOnWifi.isEmpty());
+
+        transfers.get(OTHER_HOST + 1).onCompleted();
+        assertEquals(Arrays.asList(false), finishedOnWifi);
+        assertFalse(transferManager.isRunning());
+    }
+
+    @Test
+    public void stoppedJobOnlyStopsItsOwnTransfers() throws Exception {
+        enqueue(HOST + 1, PriorityScheduler.PRIORITY_NORMAL);
+        run();
+        enqueueOnWifi(OTHER_HOST + 1);
+        List<Boolean> finishedOnWifi = new ArrayList<>();
+        Subscription onWifi = transferManager.run(true, false, finishedOnWifi::add);
+
+        onWifi.unsubscribe();
+
+        assertFalse(transfers.get(OTHER_HOST + 1).hasObservers());
+        assertTrue(transfers.get(HOST + 1).hasObservers());
+        assertEquals(1, transferManager.getRunningCount());
+        assertTrue(finishedOnWifi.isEmpty());
+        assertEquals(2, transferQueue.size());
+    }
+
+    @Test
+    public void canceledTransferIsStoppedAndRemoved() throws Exception {
+        long id = enqueue(HOST + 1, PriorityScheduler.PRIORITY_NORMAL);
+        run();
+
+        assertTrue(transferManager.cancel(id));
+
+        assertFalse(transfers.get(HOST + 1).hasObservers());
+        assertTrue(transferQueue.isEmpty());
+        assertEquals(Arrays.asList(false), finished);
+        assertEquals(Arrays.asList(HOST + 1), discarded);
+    }
+
+    @Test
+    public void completedAndPausedTransfersKeepTheirProgress() throws Exception {
+        long id = enqueue(HOST + 1, PriorityScheduler.PRIORITY_NORMAL);
+        enqueue(HOST + 2, PriorityScheduler.PRIORITY_NORMAL);
+        run();
+
+        transferManager.pause(id);
+        transfers.get(HOST + 2).onCompleted();
+
+        assertTrue(discarded.isEmpty());
+        assertFalse(transferManager.cancel(42));
+        assertTrue(discarded.isEmpty());
+    }
+
+    private long enqueue(String url, int priority) throws IOException {
+        return transferManager.enqueue(new FileIORequest.FileIORequestBuilder(url, new File("file"))
+                .priority(priority)
+                .build(), true);
+    }
+
+    private void enqueueOnWifi(String url) throws IOException {
+        transferManager.enqueue(new FileIORequest.FileIORequestBuilder(url, new File("file"))
+                .onWifi(true)
+                .build(), true);
+    }
+
+    private void run() {
+        transferManager.run(false, false, finished::add);
+    }
+}
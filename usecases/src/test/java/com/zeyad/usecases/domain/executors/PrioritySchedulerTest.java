@@ -0,0 +1,152 @@
+package com.zeyad.usecases.domain.executors;
+
+import com.zeyad.usecases.BuildConfig;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import rx.Scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class PrioritySchedulerTest {
+
+    @Test
+    public void higherPrioritiesRunFirstThenSubmissionOrder() throws Exception {
+        PriorityBlockingQueue<PriorityScheduler.Task> queue = new PriorityBlockingQueue<>();
+        queue.offer(task(PriorityScheduler.PRIORITY_NORMAL, 0));
+        queue.offer(task(PriorityScheduler.PRIORITY_LOW, 1));
+        queue.offer(task(PriorityScheduler.PRIORITY_HIGH, 2));
+        queue.offer(task(PriorityScheduler.PRIORITY_NORMAL, 3));
+        queue.offer(task(PriorityScheduler.PRIORITY_HIGH, 4));
+
+        assertEquals(2, queue.poll().mSequence);
+        assertEquals(4, queue.poll().mSequence);
+        assertEquals(0, queue.poll().mSequence);
+        assertEquals(3, queue.poll().mSequence);
+        assertEquals(1, queue.poll().mSequence);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyPools() throws Exception {
+        new PriorityScheduler("test", 0);
+    }
+
+    @Test
+    public void actionScheduledByAnActionRunsAfterIt() throws Exception {
+        Scheduler.Worker worker = new PriorityScheduler("test", 4).createWorker();
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+
+        worker.schedule(() -> {
+            order.add(1);
+            worker.schedule(() -> {
+                order.add(3);
+                done.countDown();
+            });
+            order.add(2);
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1, 2, 3), order);
+    }
+
+    @Test
+    public void actionsOfAWorkerNeverOverlap() throws Exception {
+        int threads = 4, perThread = 250;
+        Scheduler.Worker worker = new PriorityScheduler("test", threads).createWorker();
+        AtomicBoolean running = new AtomicBoolean(), overlapped = new AtomicBoolean();
+        List<List<Integer>> ran = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1), done = new CountDownLatch(threads * perThread);
+        for (int i = 0; i < threads; i++) {
+            List<Integer> ranOfThread = Collections.synchronizedList(new ArrayList<>());
+            ran.add(ranOfThread);
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < perThread; j++) {
+                    int action = j;
+                    worker.schedule(() -> {
+                        if (!running.compareAndSet(false, true))
+                            overlapped.set(true);
+                        ranOfThread.add(action);
+                        running.set(false);
+                        done.countDown();
+                    });
+                }
+            }).start();
+        }
+
+        start.countDown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertFalse(overlapped.get());
+        for (List<Integer> ranOfThread : ran)
+            for (int j = 0; j < perThread; j++)
+                assertEquals(j, (int) ranOfThread.get(j));
+    }
+
+    @Test
+    public void queuedActionsOfAnUnsubscribedWorkerAreSkipped() throws Exception {
+        Scheduler.Worker worker = new PriorityScheduler("test", 2).createWorker();
+        AtomicBoolean skippedRan = new AtomicBoolean();
+        CountDownLatch unsubscribed = new CountDownLatch(1);
+
+        worker.schedule(() -> {
+            worker.schedule(() -> {
+                worker.unsubscribe();
+                unsubscribed.countDown();
+            });
+            worker.schedule(() -> skippedRan.set(true));
+        });
+
+        assertTrue(unsubscribed.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertFalse(skippedRan.get());
+        assertTrue(worker.isUnsubscribed());
+    }
+
+    @Test
+    public void currentThreadRunsActionsOnTheCallingThreadOfThePool() throws Exception {
+        PriorityScheduler pool = new PriorityScheduler("test", 4);
+        AtomicReference<Thread> subscribeThread = new AtomicReference<>(), unsubscribeThread = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        pool.createWorker().schedule(() -> {
+            subscribeThread.set(Thread.currentThread());
+            pool.currentThread().createWorker().schedule(() -> {
+                unsubscribeThread.set(Thread.currentThread());
+                done.countDown();
+            });
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(subscribeThread.get(), unsubscribeThread.get());
+        assertNull(pool.currentThread());
+    }
+
+    private PriorityScheduler.Task task(int priority, long sequence) {
+        return new PriorityScheduler.Task(priority, sequence, () -> {
+        }, null);
+    }
+}
@@ -1,14 +1,12 @@
 package com.zeyad.usecases.domain.interactors;
 
-import android.os.HandlerThread;
-import android.os.Looper;
-
 import com.zeyad.usecases.Config;
 import com.zeyad.usecases.TestRealmModel;
 import com.zeyad.usecases.data.db.RealmManager;
 import com.zeyad.usecases.data.repository.DataRepository;
 import com.zeyad.usecases.data.requests.GetRequest;
 import com.zeyad.usecases.data.requests.PostRequest;
+import com.zeyad.usecases.domain.executors.SchedulerTopology;
 import com.zeyad.usecases.domain.executors.UIThread;
 import com.zeyad.usecases.domain.interactors.data.DataUseCase;
 import com.zeyad.usecases.domain.interactors.data.IDataUseCase;
@@ -30,7 +28,6 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
-import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -105,9 +102,8 @@ public class DataUseCaseTest {
 
     @Before
     public void setUp() throws Exception {
-        HandlerThread handlerThread = mock(HandlerThread.class);
-        when(handlerThread.getLooper()).thenReturn(mock(Looper.class));
-        mDataUseCase = getGenericUseImplementation((DataRepository) mData, mUIThread, handlerThread);
+        mDataUseCase = getGenericUseImplementation((DataRepository) mData, mUIThread,
+                new SchedulerTopology.Builder().build());
         Config.setBaseURL("www.google.com");
     }
 
@@ -214,8 +210,8 @@ public class DataUseCaseTest {
     }
 
     public IDataUseCase getGenericUseImplementation(DataRepository datarepo, UIThread uithread,
-                                                    HandlerThread handlerThread) {
-        DataUseCase.init(datarepo, uithread, handlerThread);
+                                                    SchedulerTopology schedulerTopology) {
+        DataUseCase.init(datarepo, uithread, schedulerTopology);
         return DataUseCase.getInstance();
     }
 }
@@ -23,8 +23,11 @@ import rx.Observable;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -76,19 +79,42 @@ public class FileUseCaseTest {
     @Test
     public void uploadFile() {
         when(mFiles.uploadFileDynamically(anyString(), any(File.class), anyString(), (HashMap<String, Object>) anyMap(),
-                anyBoolean(), anyBoolean(), anyBoolean(), any(Class.class), any(Class.class)))
+                anyInt(), anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean(), any(Class.class), any(Class.class)))
                 .thenReturn(observable);
         mFilesUseCase.uploadFile(new FileIORequest());
-        verify(mFiles, times(1)).uploadFileDynamically(anyString(), any(File.class), anyString(), (HashMap<String, Object>) anyMap(), anyBoolean(),
-                anyBoolean(), anyBoolean(), any(Class.class), any(Class.class));
+        verify(mFiles, times(1)).uploadFileDynamically(anyString(), any(File.class), anyString(), (HashMap<String, Object>) anyMap(), anyInt(),
+                anyBoolean(), anyBoolean(), anyBoolean(), eq(false), any(Class.class), any(Class.class));
     }
 
     @Test
     public void downloadFile() {
         when(mFiles.downloadFileDynamically(anyString(), any(File.class), anyBoolean(),
-                anyBoolean(), anyBoolean(), any(Class.class), any(Class.class))).thenReturn(observable);
+                anyBoolean(), anyBoolean(), anyBoolean(), any(Class.class), any(Class.class))).thenReturn(observable);
         mFilesUseCase.downloadFile(new FileIORequest());
         verify(mFiles, times(1)).downloadFileDynamically(anyString(), any(File.class), anyBoolean(),
-                anyBoolean(), anyBoolean(), any(Class.class), any(Class.class));
+                anyBoolean(), anyBoolean(), eq(false), any(Class.class), any(Class.class));
+    }
+
+    @Test
+    public void downloadFileWithProgress() {
+        when(mFiles.downloadFileDynamically(anyString(), any(File.class), anyBoolean(),
+                anyBoolean(), anyBoolean(), anyBoolean(), any(Class.class), any(Class.class))).thenReturn(observable);
+        mFilesUseCase.downloadFileWithProgress(new FileIORequest());
+        verify(mFiles, times(1)).downloadFileDynamically(anyString(), any(File.class), anyBoolean(),
+                anyBoolean(), anyBoolean(), eq(true), any(Class.class), any(Class.class));
+    }
+
+    @Test
+    public void queueDownloadFile() {
+        when(mFiles.queueFileTransfer(any(FileIORequest.class), anyBoolean())).thenReturn(Observable.just(1L));
+        mFilesUseCase.queueDownloadFile(new FileIORequest());
+        verify(mFiles, times(1)).queueFileTransfer(any(FileIORequest.class), eq(true));
+    }
+
+    @Test
+    public void pauseFileTransfer() {
+        when(mFiles.pauseFileTransfer(anyLong())).thenReturn(Observable.just(true));
+        mFilesUseCase.pauseFileTransfer(1);
+        verify(mFiles, times(1)).pauseFileTransfer(1);
     }
 }
@@ -0,0 +1,89 @@
+package com.zeyad.usecases.domain.interactors.data;
+
+import com.zeyad.usecases.data.requests.PageConfig;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@RunWith(JUnit4.class)
+public class PagedListTest {
+
+    private static final int PAGE_SIZE = 3, LAST_CURSOR = 9;
+    private List<String> requestedCursors;
+    private PagedList pagedList;
+    private TestSubscriber<List> testSubscriber;
+
+    @Before
+    public void setUp() throws Exception {
+        requestedCursors = new ArrayList<>();
+        PageConfig pageConfig = new PageConfig.PageConfigBuilder((page, currentCursor) -> {
+            int lastId = (Integer) page.get(page.size() - 1);
+            return lastId < LAST_CURSOR ? String.valueOf(lastId) : null;
+        }).initialCursor("0")
+                .prefetchDistance(1)
+                .maxPages(2)
+                .build();
+        pagedList = new PagedList(cursor -> {
+            requestedCursors.add(cursor);
+            int start = Integer.parseInt(cursor);
+            return Observable.just(Arrays.asList(start + 1, start + 2, start + 3));
+        }, pageConfig);
+        testSubscriber = new TestSubscriber<>();
+        pagedList.observe().subscribe(testSubscriber);
+    }
+
+    @Test
+    public void loadAroundPrefetchesOnlyNearTheEnd() throws Exception {
+        pagedList.loadNext();
+        pagedList.loadAround(0);
+
+        assertEquals(1, requestedCursors.size());
+
+        pagedList.loadAround(PAGE_SIZE - 1);
+
+        assertEquals(Arrays.asList("0", "3"), requestedCursors);
+        testSubscriber.assertValueCount(2);
+    }
+
+    @Test
+    public void oldestPagesAreDroppedBeyondMaxPages() throws Exception {
+        pagedList.loadNext();
+        pagedList.loadNext();
+        pagedList.loadNext();
+
+        List<List> windows = testSubscriber.getOnNextEvents();
+        assertEquals(Arrays.asList(4, 5, 6, 7, 8, 9), windows.get(windows.size() - 1));
+        assertEquals(PAGE_SIZE, pagedList.getOffset());
+    }
+
+    @Test
+    public void loadingStopsAfterLastPage() throws Exception {
+        for (int i = 0; i < 5; i++)
+            pagedList.loadNext();
+
+        assertEquals(Arrays.asList("0", "3", "6"), requestedCursors);
+        assertFalse(pagedList.hasMore());
+    }
+
+    @Test
+    public void cancelCompletesTheList() throws Exception {
+        pagedList.loadNext();
+        pagedList.cancel();
+        pagedList.loadNext();
+
+        assertEquals(1, requestedCursors.size());
+        testSubscriber.assertCompleted();
+    }
+}